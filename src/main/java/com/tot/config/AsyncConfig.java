@@ -1,10 +1,13 @@
 package com.tot.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.concurrent.Executor;
 
@@ -47,4 +50,34 @@ public class AsyncConfig {
 
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * Executor for evaluation jobs submitted through /api/action/jobs.
+     * Separate from taskExecutor so long LLM calls cannot starve schedule processing, and rejecting instead of
+     * running on the caller so a full pool never blocks the request thread
+     */
+    @Bean(name = "evaluationJobExecutor")
+    public ThreadPoolTaskExecutor evaluationJobExecutor(@Value("${tot.jobs.pool-size:8}") int poolSize,
+                                                        @Value("${tot.jobs.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("tot-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Scheduler the reactive endpoints offload blocking JPA work to, so it never runs on an event loop thread.
+     * Bounded in threads (about the connection pool size) and in queued tasks; beyond that, work fails fast
+     */
+    @Bean(name = "persistenceScheduler", destroyMethod = "dispose")
+    public Scheduler persistenceScheduler(@Value("${tot.reactive.db-threads:10}") int threads,
+                                          @Value("${tot.reactive.db-queue-capacity:10000}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "tot-db");
+    }
+}
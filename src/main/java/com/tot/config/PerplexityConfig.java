@@ -1,6 +1,7 @@
 package com.tot.config;
 
 import com.tot.service.PerplexityService;
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,7 +9,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class PerplexityConfig {
@@ -41,8 +48,32 @@ public class PerplexityConfig {
                 .build();
     }
 
+    /**
+     * Non-blocking client for the reactive endpoints. Requests wait on the event loop, so the pool is sized for
+     * many concurrent slow LLM calls rather than for the number of threads
+     */
+    @Bean
+    public WebClient perplexityWebClient(@Value("${tot.reactive.max-connections:500}") int maxConnections) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("perplexity")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofSeconds(60))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 30000) // Same timeouts as the blocking client
+                .responseTimeout(Duration.ofSeconds(120));
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(4 * 1024 * 1024))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .build();
+    }
+
     @Bean
-    public PerplexityService perplexityService(RestClient perplexityRestClient) {
-        return new PerplexityService(perplexityRestClient, model);
+    public PerplexityService perplexityService(RestClient perplexityRestClient, WebClient perplexityWebClient) {
+        return new PerplexityService(perplexityRestClient, perplexityWebClient, model);
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.tot.config;
+
+import com.tot.repository.ReactiveScheduleRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+
+/**
+ * R2DBC access to the schedule and tot_logs tables, used by the reactive schedule dispatcher and the "r2dbc" log
+ * backend. Enabled with tot.r2dbc.enabled; JPA stays the default and keeps owning the schema.
+ *
+ * The connection pool and transaction manager are deliberately not beans: a ConnectionFactory bean makes Spring Boot
+ * skip the JDBC DataSource, and a second transaction manager bean would replace the JPA one. Only the entity
+ * template (for the reactive repositories) and a transactional operator are exposed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tot.r2dbc.enabled", havingValue = "true")
+@EnableR2dbcRepositories(basePackageClasses = ReactiveScheduleRepository.class, entityOperationsRef = "r2dbcEntityTemplate",
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = R2dbcRepository.class))
+public class R2dbcConfig {
+    private static final Logger logger = LoggerFactory.getLogger(R2dbcConfig.class);
+
+    @Value("${tot.r2dbc.url:r2dbc:mariadb://localhost:3306/tot}")
+    private String url;
+
+    @Value("${tot.r2dbc.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${tot.r2dbc.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${tot.r2dbc.pool.max-size:10}")
+    private int maxPoolSize;
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public R2dbcEntityTemplate r2dbcEntityTemplate() {
+        return new R2dbcEntityTemplate(connectionPool()); // Dialect (MariaDB/MySQL or H2) is detected from the pool
+    }
+
+    @Bean
+    public TransactionalOperator r2dbcTransactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool()));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    private synchronized ConnectionPool connectionPool() {
+        if (connectionPool == null) {
+            ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                    .option(ConnectionFactoryOptions.USER, username)
+                    .option(ConnectionFactoryOptions.PASSWORD, password)
+                    .build();
+            connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                    .maxSize(maxPoolSize)
+                    .maxIdleTime(Duration.ofMinutes(30))
+                    .build());
+            logger.info("R2DBC connection pool for {} (max {} connections)", url, maxPoolSize);
+        }
+        return connectionPool;
+    }
+}
@@ -1,15 +1,33 @@
 package com.tot.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.tot.service.ActionService;
+import com.tot.service.BulkEvaluationService;
+import com.tot.service.EvaluationJobService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/action")
@@ -19,10 +37,22 @@ public class ActionController {
     private static final Logger logger = LoggerFactory.getLogger(ActionController.class);
 
     private final ActionService actionService;
+    private final EvaluationJobService evaluationJobService;
+    private final BulkEvaluationService bulkEvaluationService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${tot.jobs.sse-timeout-ms:300000}")
+    private long sseTimeoutMs;
+
+    @Value("${tot.bulk.stream-timeout-ms:600000}")
+    private long bulkStreamTimeoutMs;
 
     @Autowired
-    public ActionController(ActionService actionService) {
+    public ActionController(ActionService actionService, EvaluationJobService evaluationJobService,
+                            BulkEvaluationService bulkEvaluationService) {
         this.actionService = actionService;
+        this.evaluationJobService = evaluationJobService;
+        this.bulkEvaluationService = bulkEvaluationService;
     }
 
     @PostMapping("/execute")
@@ -67,4 +97,127 @@ public class ActionController {
                     .body("Error executing action for tree " + treeId + " with " + comparisonDays + "-day comparison: " + e.getMessage());
         }
     }
+
+    @PostMapping("/jobs")
+    @Operation(summary = "Submit evaluation job",
+               description = "Start an evaluation of the tree in the background and return its job id at once (202 Accepted). " +
+                       "Follow the Location header to poll the status, or use /wait and /events")
+    public ResponseEntity<EvaluationJobService.JobStatus> submitJob(
+            @RequestParam String treeId,
+            @RequestParam(defaultValue = "1") int comparisonDays) {
+        try {
+            EvaluationJobService.JobStatus job = evaluationJobService.submit(treeId, comparisonDays);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/action/jobs/" + job.getJobId()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid evaluation job for treeId {}: {}", treeId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected evaluation job for treeId {}: {}", treeId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "Get evaluation job", description = "Get the status of an evaluation job, with its result once it has finished")
+    public ResponseEntity<EvaluationJobService.JobStatus> getJob(@PathVariable String jobId) {
+        return evaluationJobService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/jobs/{jobId}/wait")
+    @Operation(summary = "Wait for evaluation job",
+               description = "Long-poll: respond as soon as the job finishes, or with its current status after timeoutSeconds")
+    public DeferredResult<ResponseEntity<EvaluationJobService.JobStatus>> waitForJob(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "30") long timeoutSeconds) {
+        long timeoutMs = TimeUnit.SECONDS.toMillis(Math.max(1, Math.min(timeoutSeconds, 120)));
+        DeferredResult<ResponseEntity<EvaluationJobService.JobStatus>> deferred = new DeferredResult<>(timeoutMs);
+        Optional<CompletableFuture<EvaluationJobService.JobStatus>> completion = evaluationJobService.getCompletion(jobId);
+        if (completion.isEmpty()) {
+            deferred.setResult(ResponseEntity.notFound().build());
+            return deferred;
+        }
+
+        // The request thread is released while waiting; the job thread completes the response
+        deferred.onTimeout(() -> deferred.setResult(evaluationJobService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build())));
+        completion.get().thenAccept(status -> deferred.setResult(ResponseEntity.ok(status)));
+        return deferred;
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream evaluation job events",
+               description = "Server-sent events: a 'status' event with the current status, then a 'result' event when the job finishes")
+    public ResponseEntity<SseEmitter> streamJobEvents(@PathVariable String jobId) {
+        Optional<EvaluationJobService.JobStatus> current = evaluationJobService.getStatus(jobId);
+        Optional<CompletableFuture<EvaluationJobService.JobStatus>> completion = evaluationJobService.getCompletion(jobId);
+        if (current.isEmpty() || completion.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        try {
+            emitter.send(SseEmitter.event().name("status").data(current.get()));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return ResponseEntity.ok(emitter);
+        }
+        completion.get().thenAccept(status -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(status));
+                emitter.complete();
+            } catch (IOException e) {
+                // Client went away; nothing left to deliver
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    @PostMapping(value = "/bulk", produces = "application/x-ndjson")
+    @Operation(summary = "Evaluate trees in bulk",
+               description = "Evaluate a list of trees with shared market data and bounded parallelism. The response is " +
+                       "newline-delimited JSON: one 'result' line per tree as it completes, then a 'summary' line")
+    public ResponseEntity<ResponseBodyEmitter> evaluateBulk(
+            @RequestBody List<String> treeIds,
+            @RequestParam(defaultValue = "1") int comparisonDays) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(bulkStreamTimeoutMs);
+        CompletableFuture<BulkEvaluationService.BulkSummary> summary;
+        try {
+            summary = bulkEvaluationService.evaluate(treeIds, comparisonDays,
+                    result -> sendLine(emitter, "result", result));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid bulk evaluation of {} trees: {}", treeIds == null ? 0 : treeIds.size(), e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected bulk evaluation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+
+        summary.thenAccept(totals -> {
+            sendLine(emitter, "summary", totals);
+            emitter.complete();
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(emitter);
+    }
+
+    /**
+     * Write one NDJSON line; results arrive from several evaluation threads, so sends are serialized
+     */
+    private void sendLine(ResponseBodyEmitter emitter, String type, Object payload) {
+        ObjectNode line = objectMapper.createObjectNode().put("type", type);
+        line.setAll((ObjectNode) objectMapper.valueToTree(payload));
+        synchronized (emitter) {
+            try {
+                emitter.send(objectMapper.writeValueAsString(line) + "\n", MediaType.TEXT_PLAIN);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the remaining evaluations still run and are logged
+                logger.debug("Could not stream bulk evaluation {} line: {}", type, e.getMessage());
+            }
+        }
+    }
 }
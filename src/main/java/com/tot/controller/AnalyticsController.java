@@ -0,0 +1,73 @@
+package com.tot.controller;
+
+import com.tot.service.EvaluationAnalyticsService;
+import com.tot.service.EvaluationColumnStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controller for evaluation analytics computed from the columnar export of the evaluation history
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@Tag(name = "Analytics", description = "Aggregate evaluation outcomes from the columnar evaluation export")
+public class AnalyticsController {
+
+    private final EvaluationAnalyticsService analyticsService;
+    private final EvaluationColumnStore columnStore;
+
+    @Autowired
+    public AnalyticsController(EvaluationAnalyticsService analyticsService, EvaluationColumnStore columnStore) {
+        this.analyticsService = analyticsService;
+        this.columnStore = columnStore;
+    }
+
+    @GetMapping("/hit-rates")
+    @Operation(summary = "Get hit rates", description = "Share of true decisions per tree, optionally within a time range")
+    public ResponseEntity<EvaluationAnalyticsService.AnalyticsResult<List<EvaluationAnalyticsService.TreeHitRate>>> getHitRates(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        return ResponseEntity.ok(analyticsService.getHitRates(start, end));
+    }
+
+    @GetMapping("/flips")
+    @Operation(summary = "Get decision flips", description = "Number of times each tree's decision changed between true and false")
+    public ResponseEntity<EvaluationAnalyticsService.AnalyticsResult<List<EvaluationAnalyticsService.TreeFlips>>> getDecisionFlips(
+            @RequestParam(required = false) String treeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        return ResponseEntity.ok(analyticsService.getDecisionFlips(treeId, start, end));
+    }
+
+    @GetMapping("/latency")
+    @Operation(summary = "Get latency percentiles", description = "Evaluation latency percentiles in milliseconds, optionally for one tree")
+    public ResponseEntity<EvaluationAnalyticsService.AnalyticsResult<EvaluationAnalyticsService.LatencyPercentiles>> getLatencyPercentiles(
+            @RequestParam(required = false) String treeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        return ResponseEntity.ok(analyticsService.getLatencyPercentiles(treeId, start, end));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Get export stats", description = "Retrieve the size and watermark of the columnar evaluation export")
+    public ResponseEntity<EvaluationColumnStore.StoreStats> getExportStats() {
+        return ResponseEntity.ok(columnStore.getStats());
+    }
+
+    @PostMapping("/export/run")
+    @Operation(summary = "Export evaluations", description = "Export settled evaluations after the watermark now")
+    public ResponseEntity<String> runExport() {
+        try {
+            return ResponseEntity.ok("Exported " + columnStore.export() + " evaluations");
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error exporting evaluations: " + e.getMessage());
+        }
+    }
+}
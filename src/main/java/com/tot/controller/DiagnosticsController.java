@@ -0,0 +1,38 @@
+package com.tot.controller;
+
+import com.tot.service.QueryPlanInspector;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controller for database diagnostics
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+@Tag(name = "Diagnostics", description = "Inspect how the database executes the hot queries")
+public class DiagnosticsController {
+
+    private final QueryPlanInspector queryPlanInspector;
+
+    @Autowired
+    public DiagnosticsController(QueryPlanInspector queryPlanInspector) {
+        this.queryPlanInspector = queryPlanInspector;
+    }
+
+    @GetMapping("/query-plans")
+    @Operation(summary = "Explain hot queries", description = "Run EXPLAIN on the hot repository queries and flag the ones that scan a whole table")
+    public ResponseEntity<List<QueryPlanInspector.PlanResult>> getQueryPlans() {
+        try {
+            return ResponseEntity.ok(queryPlanInspector.inspect());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
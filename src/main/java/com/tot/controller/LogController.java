@@ -1,16 +1,30 @@
 package com.tot.controller;
 
 import com.tot.entity.TotLog;
+import com.tot.entity.ValidationRollup;
+import com.tot.repository.TotLogCriteria;
+import com.tot.repository.TotLogSummary;
+import com.tot.service.CompressionDictionaryTrainer;
+import com.tot.service.LogArchive;
+import com.tot.service.LogRetentionService;
 import com.tot.service.LogService;
+import com.tot.service.RecentEvaluationCache;
+import com.tot.service.TextCompressionCodec;
+import com.tot.service.TreeVersionService;
+import com.tot.service.ValidationRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/logs")
@@ -18,39 +32,222 @@ import java.util.List;
 public class LogController {
 
     private final LogService logService;
+    private final TreeVersionService treeVersionService;
+    private final ValidationRollupService validationRollupService;
+    private final LogArchive logArchive;
+    private final LogRetentionService logRetentionService;
+    private final RecentEvaluationCache recentEvaluationCache;
+    private final CompressionDictionaryTrainer compressionDictionaryTrainer;
 
     @Autowired
-    public LogController(LogService logService) {
+    public LogController(LogService logService, TreeVersionService treeVersionService,
+                         ValidationRollupService validationRollupService, LogArchive logArchive,
+                         LogRetentionService logRetentionService, RecentEvaluationCache recentEvaluationCache,
+                         CompressionDictionaryTrainer compressionDictionaryTrainer) {
         this.logService = logService;
+        this.treeVersionService = treeVersionService;
+        this.validationRollupService = validationRollupService;
+        this.logArchive = logArchive;
+        this.logRetentionService = logRetentionService;
+        this.recentEvaluationCache = recentEvaluationCache;
+        this.compressionDictionaryTrainer = compressionDictionaryTrainer;
     }
 
     @GetMapping("/tree/{treeId}")
-    @Operation(summary = "Get tree logs", description = "Retrieve recent logs for a specific tree")
-    public ResponseEntity<List<TotLog>> getTreeLogs(@PathVariable String treeId) {
-        List<TotLog> logs = logService.getRecentLogsForTree(treeId);
+    @Operation(summary = "Get tree logs", description = "Retrieve summaries of recent logs for a specific tree; use /api/logs/{id} for the full entry")
+    public ResponseEntity<List<TotLogSummary>> getTreeLogs(@PathVariable String treeId) {
+        List<TotLogSummary> logs = logService.getRecentLogsForTree(treeId);
         return ResponseEntity.ok(logs);
     }
 
+    @GetMapping("/tree/{treeId}/last")
+    @Operation(summary = "Get last tree evaluation", description = "Retrieve the summary of the latest evaluation of a tree")
+    public ResponseEntity<TotLogSummary> getLastTreeLog(@PathVariable String treeId) {
+        return logService.getLastEvaluation(treeId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/recent-cache")
+    @Operation(summary = "Get recent evaluation cache stats", description = "Retrieve the size and hit counters of the in-memory recent evaluation cache")
+    public ResponseEntity<RecentEvaluationCache.CacheStats> getRecentCacheStats() {
+        return ResponseEntity.ok(recentEvaluationCache.getStats());
+    }
+
     @GetMapping("/timeperiod")
-    @Operation(summary = "Get logs by time period", description = "Retrieve logs from a specific time period")
-    public ResponseEntity<List<TotLog>> getLogsByTimePeriod(
+    @Operation(summary = "Get logs by time period", description = "Retrieve logs from a specific time period as a JSON array, " +
+            "ordered by timestamp. The array is streamed; use /page or /export for very large periods")
+    public ResponseEntity<StreamingResponseBody> getLogsByTimePeriod(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
-        List<TotLog> logs = logService.getLogsBetweenDates(start, end);
-        return ResponseEntity.ok(logs);
+        StreamingResponseBody body = outputStream -> logService.writeLogsAsArray(start, end, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping("/page")
+    @Operation(summary = "Get logs page by time period", description = "Retrieve logs from a time period one page at a time, " +
+            "ordered by timestamp. view=summary omits criteria and tree JSON; pass the returned nextCursor as 'after' for the next page")
+    public ResponseEntity<LogService.LogPage<?>> getLogPage(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "summary") String view) {
+        if (size < 1 || size > 1000) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (isFullView(view)) {
+                LogService.LogPage<TotLog> page = logService.getLogPage(start, end, after, size);
+                return ResponseEntity.ok(page);
+            }
+            LogService.LogPage<TotLogSummary> page = logService.getLogSummaryPage(start, end, after, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export logs by time period", description = "Stream every log from a time period as newline-delimited JSON, " +
+            "ordered by timestamp. view=summary omits criteria and tree JSON")
+    public ResponseEntity<StreamingResponseBody> exportLogs(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "summary") String view) {
+        boolean full;
+        try {
+            full = isFullView(view);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = outputStream -> logService.exportLogs(start, end, full, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private static boolean isFullView(String view) {
+        return switch (view.trim().toLowerCase()) {
+            case "summary" -> false;
+            case "full" -> true;
+            default -> throw new IllegalArgumentException("Unknown view: " + view + " (expected summary or full)");
+        };
     }
 
     @GetMapping("/stats")
-    @Operation(summary = "Get validation statistics", description = "Retrieve statistics about tree validations")
-    public ResponseEntity<LogService.ValidateStats> getValidationStats() {
-        LogService.ValidateStats stats = logService.getValidationStats();
+    @Operation(summary = "Get validation statistics", description = "Retrieve statistics about tree validations, optionally for one tree " +
+            "and time range. Ranges are widened to whole hour (or day) buckets")
+    public ResponseEntity<LogService.ValidateStats> getValidationStats(
+            @RequestParam(required = false) String treeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        LogService.ValidateStats stats = logService.getValidationStats(treeId, start, end);
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/stats/buckets")
+    @Operation(summary = "Get validation statistics by bucket", description = "Retrieve hourly or daily validation rollups " +
+            "for a time range, optionally for one tree")
+    public ResponseEntity<List<ValidationRollup>> getValidationBuckets(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) String treeId) {
+        try {
+            return ResponseEntity.ok(validationRollupService.getBuckets(granularity, treeId, start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/stats/rebuild")
+    @Operation(summary = "Rebuild validation statistics", description = "Recompute the validation rollups from the raw logs")
+    public ResponseEntity<String> rebuildValidationStats() {
+        int buckets = validationRollupService.rebuild();
+        return ResponseEntity.ok("Rebuilt " + buckets + " validation rollup buckets");
+    }
+
     @GetMapping("/criteria/{treeId}")
     @Operation(summary = "Get validation criteria", description = "Retrieve detailed validation criteria for analysis and refinement")
-    public ResponseEntity<List<TotLog>> getValidationCriteria(@PathVariable String treeId) {
-        List<TotLog> logs = logService.getRecentLogsForTree(treeId);
+    public ResponseEntity<List<TotLogCriteria>> getValidationCriteria(@PathVariable String treeId) {
+        List<TotLogCriteria> logs = logService.getRecentCriteriaForTree(treeId);
         return ResponseEntity.ok(logs);
     }
+
+    @GetMapping("/{logId}")
+    @Operation(summary = "Get log entry", description = "Retrieve a single log entry with its criteria and legacy tree JSON, " +
+            "from the hot table or the archive. Pass the entry's timestamp to look it up in the archive without a full scan")
+    public ResponseEntity<TotLog> getLog(
+            @PathVariable String logId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp) {
+        return logService.getLogById(logId, timestamp)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/backend")
+    @Operation(summary = "Get log backend stats", description = "Retrieve the active log backend (jpa or journal) with its append latency and write counters")
+    public ResponseEntity<Map<String, Object>> getBackendStats() {
+        return ResponseEntity.ok(logService.getBackendStats());
+    }
+
+    @GetMapping("/compression")
+    @Operation(summary = "Get text compression stats", description = "Retrieve the compression ratio and CPU time per value of compressed criteria, tree JSON and action data")
+    public ResponseEntity<TextCompressionCodec.CompressionStats> getCompressionStats() {
+        return ResponseEntity.ok(TextCompressionCodec.getStats());
+    }
+
+    @PostMapping("/compression/dictionary-candidate")
+    @Operation(summary = "Train a compression dictionary", description = "Train a candidate dictionary on recent validation criteria and compare it with the current one")
+    public ResponseEntity<CompressionDictionaryTrainer.TrainingResult> trainCompressionDictionary(
+            @RequestParam(defaultValue = "500") int sample) {
+        try {
+            return ResponseEntity.ok(compressionDictionaryTrainer.train(sample));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/archive")
+    @Operation(summary = "Get log archive stats", description = "Retrieve the size of the on-disk archive of expired logs")
+    public ResponseEntity<LogArchive.ArchiveStats> getArchiveStats() {
+        return ResponseEntity.ok(logArchive.getStats());
+    }
+
+    @PostMapping("/archive/run")
+    @Operation(summary = "Archive old logs", description = "Move logs older than the given number of days from the database into the archive now")
+    public ResponseEntity<String> archiveLogs(@RequestParam(defaultValue = "30") int olderThanDays) {
+        if (olderThanDays < 0) {
+            return ResponseEntity.badRequest().body("olderThanDays must not be negative");
+        }
+        try {
+            long moved = logRetentionService.archiveOlderThan(
+                    LocalDateTime.now().minusDays(olderThanDays).truncatedTo(ChronoUnit.DAYS));
+            return ResponseEntity.ok("Archived " + moved + " log entries");
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error archiving logs: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/versions/{contentHash}")
+    @Operation(summary = "Get tree version", description = "Retrieve the tree JSON a log entry was evaluated against by its version hash")
+    public ResponseEntity<String> getTreeVersion(@PathVariable String contentHash) {
+        return treeVersionService.getTreeJson(contentHash)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/versions/backfill")
+    @Operation(summary = "Backfill tree versions", description = "Migrate legacy log entries that embed the full tree JSON to version hashes")
+    public ResponseEntity<String> backfillTreeVersions(@RequestParam(defaultValue = "500") int batchSize) {
+        try {
+            int migrated = treeVersionService.backfillLogVersions(batchSize);
+            return ResponseEntity.ok("Migrated " + migrated + " log entries to tree versions");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
\ No newline at end of file
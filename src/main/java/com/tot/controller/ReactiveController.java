@@ -0,0 +1,113 @@
+package com.tot.controller;
+
+import com.tot.service.ActionService;
+import com.tot.service.LLMService;
+import com.tot.service.TotService;
+import com.tot.service.TreeAnalysis;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Non-blocking counterparts of the LLM-bound endpoints of UserController and ActionController.
+ *
+ * Each handler returns a Mono, so the servlet thread is released as soon as the request is dispatched; the LLM and
+ * stock data calls wait on the WebClient's event loop and JPA work runs on the bounded persistence scheduler.
+ * Responses match the blocking endpoints.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@Tag(name = "Reactive", description = "Non-blocking variants of the LLM-bound endpoints")
+public class ReactiveController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveController.class);
+
+    private final TotService totService;
+    private final LLMService llmService;
+    private final ActionService actionService;
+    private final Scheduler persistenceScheduler;
+
+    @Autowired
+    public ReactiveController(TotService totService, LLMService llmService, ActionService actionService,
+                              @Qualifier("persistenceScheduler") Scheduler persistenceScheduler) {
+        this.totService = totService;
+        this.llmService = llmService;
+        this.actionService = actionService;
+        this.persistenceScheduler = persistenceScheduler;
+    }
+
+    @PostMapping("/generate")
+    @Operation(summary = "Generate ToT", description = "Non-blocking variant of /api/user/generate")
+    public Mono<ResponseEntity<String>> generateTot(@RequestBody String prompt) {
+        logger.info("Received reactive request to generate ToT");
+
+        return llmService.generateTreeOfThoughtReactive(prompt)
+                .publishOn(persistenceScheduler)
+                .map(totService::saveTreeOfThought)
+                .map(treeId -> ResponseEntity.ok(String.format("Generated and saved ToT with treeId: %s", treeId)))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    logger.error("Generated ToT failed structural validation: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.unprocessableEntity().body("Generated ToT is invalid: " + e.getMessage()));
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error generating ToT: {}", e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().body("Error generating ToT: " + e.getMessage()));
+                });
+    }
+
+    @PostMapping("/refine")
+    @Operation(summary = "Refine ToT", description = "Non-blocking variant of /api/user/refine")
+    public Mono<ResponseEntity<String>> refineTot(@RequestParam String treeId, @RequestBody String prompt) {
+        logger.info("Received reactive request to refine ToT with treeId: {}", treeId);
+
+        return Mono.fromCallable(() -> totService.getTreeOfThought(treeId))
+                .subscribeOn(persistenceScheduler)
+                .flatMap(existingTreeJson -> llmService.refineTreeOfThoughtReactive(existingTreeJson, prompt))
+                .map(refinedTotJson -> {
+                    // Check the refined structure so the user sees problems before saving it
+                    TreeAnalysis analysis = totService.analyzeTreeJson(refinedTotJson);
+                    if (!analysis.isValid()) {
+                        logger.warn("Refined ToT for treeId {} is structurally invalid: {}", treeId, analysis.getProblems());
+                    }
+                    return ResponseEntity.ok()
+                            .header("X-ToT-Validation", String.valueOf(analysis.isValid()))
+                            .body(refinedTotJson);
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error refining ToT: {}", e.getMessage(), e);
+                    return Mono.just(ResponseEntity.internalServerError().body("Error refining ToT: " + e.getMessage()));
+                });
+    }
+
+    @PostMapping("/validate")
+    @Operation(summary = "Validate ToT", description = "Non-blocking variant of /api/user/validate")
+    public Mono<ResponseEntity<String>> validateTot(@RequestBody String treeJson) {
+        logger.info("Received reactive request to validate ToT");
+
+        return llmService.validateTreeReactive(treeJson)
+                .map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/execute")
+    @Operation(summary = "Execute action with historical comparison", description = "Non-blocking variant of /api/action/execute")
+    public Mono<ResponseEntity<String>> executeAction(
+            @RequestParam String treeId,
+            @RequestParam(defaultValue = "1") int comparisonDays) {
+        if (comparisonDays < 1 || comparisonDays > 365) {
+            logger.error("Invalid comparisonDays parameter: {}. Must be between 1 and 365.", comparisonDays);
+            return Mono.just(ResponseEntity.badRequest().body("comparisonDays must be between 1 and 365"));
+        }
+
+        return actionService.executeActionForTreeReactive(treeId, comparisonDays)
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().body(e.getMessage())))
+                .onErrorResume(e -> Mono.just(ResponseEntity.internalServerError()
+                        .body("Error executing action for tree " + treeId + " with " + comparisonDays + "-day comparison: " + e.getMessage())));
+    }
+}
@@ -1,18 +1,29 @@
 package com.tot.controller;
 
 import com.tot.entity.Schedule;
+import com.tot.repository.ScheduleFilter;
+import com.tot.service.ScheduleEventBus;
 import com.tot.service.ScheduleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -23,10 +34,18 @@ public class ScheduleController {
     private static final Logger logger = LoggerFactory.getLogger(ScheduleController.class);
 
     private final ScheduleService scheduleService;
+    private final ScheduleEventBus scheduleEventBus;
+
+    @Value("${tot.schedule.events.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${tot.schedule.events.heartbeat-seconds:30}")
+    private long heartbeatSeconds;
 
     @Autowired
-    public ScheduleController(ScheduleService scheduleService) {
+    public ScheduleController(ScheduleService scheduleService, ScheduleEventBus scheduleEventBus) {
         this.scheduleService = scheduleService;
+        this.scheduleEventBus = scheduleEventBus;
     }
 
     @PostMapping("/create")
@@ -54,21 +73,104 @@ public class ScheduleController {
         }
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Create schedules in bulk",
+               description = "Create many schedules in one transaction, either from a 'schedules' list or from a generator " +
+                       "('treeIds' scheduled every 'everyMinutes' from 'from' to 'to'). Schedules with the same comparison " +
+                       "period share one action. Nothing is created if any schedule is invalid")
+    public ResponseEntity<ScheduleService.BulkScheduleResult> createSchedules(@RequestBody ScheduleService.BulkScheduleRequest request) {
+        try {
+            return ResponseEntity.ok(scheduleService.createSchedules(request));
+
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid request for bulk schedule creation: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+
+        } catch (Exception e) {
+            logger.error("Error creating schedules in bulk: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/all")
-    @Operation(summary = "Get all schedules", description = "Retrieve all existing schedules")
-    public ResponseEntity<List<Schedule>> getAllSchedules() {
-        logger.info("Received request to get all schedules");
-        
+    @Operation(summary = "List schedules", description = "List schedule summaries ordered by scheduled time, one page at a time, " +
+            "optionally filtered by status, tree and scheduled time range. Pass the returned nextCursor as 'after' for the " +
+            "next page; count=true adds the number of matching schedules (capped). Use /api/schedule/{scheduleId} for the action data")
+    public ResponseEntity<ScheduleService.SchedulePage> getAllSchedules(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String treeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "false") boolean count) {
+        logger.info("Received request to list schedules after {} (size {})", after, size);
+
+        if (size < 1 || size > 1000 || !("asc".equalsIgnoreCase(direction) || "desc".equalsIgnoreCase(direction))) {
+            return ResponseEntity.badRequest().build();
+        }
+
         try {
-            List<Schedule> schedules = scheduleService.getAllSchedules();
-            return ResponseEntity.ok(schedules);
-            
+            ScheduleService.SchedulePage page = scheduleService.getSchedulePage(new ScheduleFilter(status, treeId, from, to),
+                    after, size, "desc".equalsIgnoreCase(direction), count);
+            return ResponseEntity.ok(page);
+
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid request for listing schedules: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+
         } catch (Exception e) {
             logger.error("Error retrieving schedules: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream schedule events",
+               description = "Server-sent events for schedule creation ('created'), status transitions ('status'), " +
+                       "evaluation results ('evaluation') and deletions ('deleted'), optionally for one tree only. " +
+                       "Slow clients lose their oldest undelivered events")
+    public SseEmitter streamEvents(@RequestParam(required = false) String treeId) {
+        logger.info("Received request to stream schedule events{}", treeId != null ? " for treeId: " + treeId : "");
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Flux<SseEmitter.SseEventBuilder> events = scheduleEventBus.subscribe(treeId)
+                .map(event -> SseEmitter.event().id(String.valueOf(event.getSequence())).name(event.getType()).data(event));
+        // A heartbeat that finds the client busy is not needed; without the drop the interval fails on overflow
+        Flux<SseEmitter.SseEventBuilder> heartbeats = Flux.interval(Duration.ofSeconds(heartbeatSeconds))
+                .onBackpressureDrop()
+                .map(tick -> SseEmitter.event().comment("keepalive"));
+
+        // Sends block on the client's connection, so they run off the publishing threads, one event at a time
+        Disposable subscription = Flux.merge(1, events, heartbeats)
+                .publishOn(Schedulers.boundedElastic(), 1)
+                .subscribe(event -> {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away; completion below cancels the subscription
+                        emitter.completeWithError(e);
+                    }
+                }, e -> {
+                    logger.warn("Schedule event stream failed: {}", e.getMessage(), e);
+                    emitter.completeWithError(e);
+                }, emitter::complete);
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(() -> {
+            subscription.dispose();
+            emitter.complete();
+        });
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    @GetMapping("/events/stats")
+    @Operation(summary = "Get schedule event stats", description = "Retrieve the subscriber count and delivery counters of the schedule event stream")
+    public ResponseEntity<Map<String, Object>> getEventStats() {
+        return ResponseEntity.ok(scheduleEventBus.getStats());
+    }
+
     @GetMapping("/{scheduleId}")
     @Operation(summary = "Get schedule by ID", description = "Retrieve a specific schedule by its ID")
     public ResponseEntity<Schedule> getScheduleById(@PathVariable String scheduleId) {
@@ -1,21 +1,31 @@
 package com.tot.controller;
 
+import com.tot.entity.TotNode;
 import com.tot.service.LLMService;
+import com.tot.service.NodeSearchIndex;
 import com.tot.service.TotService;
+import com.tot.service.TreeAnalysis;
+import com.tot.service.TreePreviewRenderer;
+import com.tot.service.TreeResponseCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.stream.Collectors;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
@@ -26,12 +36,18 @@ public class UserController {
 
     private final TotService totService;
     private final LLMService llmService;
+    private final NodeSearchIndex nodeSearchIndex;
+    private final TreeResponseCache treeResponseCache;
     private final ObjectMapper objectMapper; // Added ObjectMapper
 
     @Autowired
-    public UserController(TotService totService, LLMService llmService) {
+    public UserController(TotService totService, LLMService llmService,
+                          NodeSearchIndex nodeSearchIndex,
+                          TreeResponseCache treeResponseCache) {
         this.totService = totService;
         this.llmService = llmService;
+        this.nodeSearchIndex = nodeSearchIndex;
+        this.treeResponseCache = treeResponseCache;
         this.objectMapper = new ObjectMapper(); // Initialize ObjectMapper
     }
 
@@ -50,6 +66,9 @@ public class UserController {
             // Return the treeId and info about saved tree
             String response = String.format("Generated and saved ToT with treeId: %s", treeId);
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.error("Generated ToT failed structural validation: {}", e.getMessage());
+            return ResponseEntity.unprocessableEntity().body("Generated ToT is invalid: " + e.getMessage());
         } catch (Exception e) {
             logger.error("Error generating ToT: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().body("Error generating ToT: " + e.getMessage());
@@ -68,8 +87,16 @@ public class UserController {
             // Call the LLMService to refine the existing Tree of Thought with the new prompt
             String refinedTotJson = llmService.refineTreeOfThought(existingTreeJson, prompt);
 
+            // Check the refined structure so the user sees problems before saving it
+            TreeAnalysis analysis = totService.analyzeTreeJson(refinedTotJson);
+            if (!analysis.isValid()) {
+                logger.warn("Refined ToT for treeId {} is structurally invalid: {}", treeId, analysis.getProblems());
+            }
+
             // Return the refined JSON directly for user review
-            return ResponseEntity.ok(refinedTotJson);
+            return ResponseEntity.ok()
+                    .header("X-ToT-Validation", String.valueOf(analysis.isValid()))
+                    .body(refinedTotJson);
         } catch (Exception e) {
             logger.error("Error refining ToT: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().body("Error refining ToT: " + e.getMessage());
@@ -77,118 +104,42 @@ public class UserController {
     }
 
     @PostMapping("/preview")
-    @Operation(summary = "Preview ToT", description = "Preview the Tree of Thought structure and validate format")
-    public ResponseEntity<String> previewTot(@RequestParam String treeId) {
-        logger.info("Received request to preview ToT with ID: {}", treeId);
+    @Operation(summary = "Preview ToT", description = "Preview the Tree of Thought structure as an indented outline (text), node paths (paths) or a Graphviz digraph (dot)")
+    public ResponseEntity<StreamingResponseBody> previewTot(
+            @RequestParam String treeId,
+            @RequestParam(defaultValue = "text") String format,
+            @RequestParam(defaultValue = "-1") int maxDepth) {
+        logger.info("Received request to preview ToT with ID: {} (format: {}, maxDepth: {})", treeId, format, maxDepth);
 
         try {
-            // Use the TotService to fetch and generate a JSON preview
-            String treeJson = totService.getTreeOfThought(treeId);
+            TreePreviewRenderer.Format previewFormat = TreePreviewRenderer.Format.from(format);
 
-            // Validate the tree structure
-            //String validationResult = llmService.validateTree(treeJson);
-
-            // Deserialize JSON to List of Maps
-            List<Map<String, Object>> nodes;
-            try {
-                nodes = objectMapper.readValue(treeJson, new TypeReference<List<Map<String, Object>>>() {});
-            } catch (Exception e) {
-                logger.error("Error deserializing tree JSON: {}", e.getMessage(), e);
-                return ResponseEntity.internalServerError().body("Error deserializing tree JSON: " + e.getMessage());
-            }
+            // Load the nodes directly and render them without a JSON round trip
+            List<TotNode> nodes = totService.getTreeNodes(treeId);
+            boolean structureValid = totService.isStructurallyValid(treeId);
 
-            // Build the preview string
-            String previewString = buildPreviewString(nodes, treeId);
+            StreamingResponseBody body = outputStream -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                TreePreviewRenderer.render(treeId, nodes, previewFormat, maxDepth, writer);
+            };
 
-            // Create a response with the preview string and validation result
             return ResponseEntity.ok()
-                    .header("X-ToT-Validation", "true")
-                    .body(previewString);
+                    .header("X-ToT-Validation", String.valueOf(structureValid))
+                    .contentType(previewFormat == TreePreviewRenderer.Format.DOT
+                            ? MediaType.parseMediaType("text/vnd.graphviz;charset=UTF-8")
+                            : MediaType.parseMediaType("text/plain;charset=UTF-8"))
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid preview request for ToT {}: {}", treeId, e.getMessage());
+            return ResponseEntity.badRequest().body(textBody("Error previewing ToT: " + e.getMessage()));
         } catch (Exception e) {
             logger.error("Error previewing ToT: {}", e.getMessage(), e);
-            return ResponseEntity.internalServerError().body("Error previewing ToT: " + e.getMessage());
-        }
-    }
-
-    private String buildPreviewString(List<Map<String, Object>> nodes, String treeId) {
-        StringBuilder sb = new StringBuilder();
-        Set<String> childNodeIds = new HashSet<>();
-
-        // Filter nodes by the current treeId and collect all child IDs
-        List<Map<String, Object>> currentTreeNodes = nodes.stream()
-                .filter(node -> treeId.equals(node.get("treeId")))
-                .collect(Collectors.toList());
-
-        for (Map<String, Object> node : currentTreeNodes) {
-            @SuppressWarnings("unchecked")
-            Map<String, String> children = (Map<String, String>) node.get("children");
-            if (children != null) {
-                childNodeIds.addAll(children.values());
-            }
-        }
-
-        // Find root nodes (nodes in the current tree that are not children of any other node in this tree)
-        List<Map<String, Object>> rootNodes = currentTreeNodes.stream()
-                .filter(node -> !childNodeIds.contains(node.get("nodeId")))
-                .collect(Collectors.toList());
-
-        if (rootNodes.isEmpty() && !currentTreeNodes.isEmpty()) {
-            // Fallback: if no explicit root found (e.g. circular dependencies or all nodes are children),
-            // pick the first node as a pseudo-root to allow some output.
-            // This might indicate a malformed tree for the given treeId.
-             logger.warn("No root nodes found for treeId {}. Attempting to display from the first node.", treeId);
-             if (!currentTreeNodes.isEmpty()) {
-                 rootNodes.add(currentTreeNodes.get(0));
-             }
-        }
-
-
-        for (Map<String, Object> rootNode : rootNodes) {
-            buildNodeStringRecursive(rootNode, currentTreeNodes, sb, 0);
+            return ResponseEntity.internalServerError().body(textBody("Error previewing ToT: " + e.getMessage()));
         }
-
-        return sb.toString();
     }
 
-    private void buildNodeStringRecursive(Map<String, Object> currentNode, List<Map<String, Object>> allNodesForTree, StringBuilder sb, int depth) {
-        // Indentation
-        for (int i = 0; i < depth; i++) {
-            sb.append("  "); // 2 spaces per depth level
-        }
-
-        String nodeId = (String) currentNode.get("nodeId");
-        String content = (String) currentNode.get("content");
-        sb.append(nodeId).append(": ").append(content).append("\n");
-
-        @SuppressWarnings("unchecked")
-        Map<String, String> children = (Map<String, String>) currentNode.get("children");
-        if (children != null && !children.isEmpty()) {
-            for (Map.Entry<String, String> entry : children.entrySet()) {
-                String childKey = entry.getKey();
-                String childNodeId = entry.getValue();
-
-                // Indentation for child branch type
-                for (int i = 0; i < depth + 1; i++) {
-                    sb.append("  ");
-                }
-                sb.append(childKey).append(" ->\n"); // Indicate the branch
-
-                Map<String, Object> childNode = allNodesForTree.stream()
-                        .filter(node -> childNodeId.equals(node.get("nodeId")))
-                        .findFirst()
-                        .orElse(null);
-
-                if (childNode != null) {
-                    buildNodeStringRecursive(childNode, allNodesForTree, sb, depth + 2); // Increment depth further for the actual child node
-                } else {
-                    // Indentation for missing child
-                    for (int i = 0; i < depth + 2; i++) {
-                        sb.append("  ");
-                    }
-                    sb.append(childNodeId).append(": [Node not found in provided list for this treeId]\n");
-                }
-            }
-        }
+    private static StreamingResponseBody textBody(String text) {
+        return outputStream -> outputStream.write(text.getBytes(StandardCharsets.UTF_8));
     }
 
     @PostMapping("/save")
@@ -216,6 +167,9 @@ public class UserController {
             // Return success message
             String response = String.format("Successfully created new independent ToT with treeId: %s", savedTreeId);
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected ToT {}: {}", treeId, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             logger.error("Error creating new ToT: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().body("Error creating new ToT: " + e.getMessage());
@@ -223,16 +177,23 @@ public class UserController {
     }
 
     @GetMapping("/tree/{treeId}")
-    @Operation(summary = "Get ToT", description = "Get a complete Tree of Thought by its ID")
-    public ResponseEntity<String> getTree(@PathVariable String treeId) {
+    @Operation(summary = "Get ToT", description = "Get a complete Tree of Thought by its ID. " +
+            "Responses carry an ETag; send it back in If-None-Match to get 304 Not Modified while the tree is unchanged")
+    public ResponseEntity<String> getTree(@PathVariable String treeId, WebRequest webRequest) {
         logger.info("Received request to get ToT with ID: {}", treeId);
 
         try {
+            // Answer a matching If-None-Match from the cached or catalogued content hash, without loading the tree
+            String eTag = totService.getTreeETag(treeId);
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+            }
+
             // Get the tree JSON from the service
-            String treeJson = totService.getTreeOfThought(treeId);
+            TreeResponseCache.Entry<String> tree = totService.getTreeResponse(treeId);
 
             // Return the tree JSON
-            return ResponseEntity.ok(treeJson);
+            return ResponseEntity.ok().eTag(tree.getETag()).cacheControl(CacheControl.noCache()).body(tree.getBody());
         } catch (Exception e) {
             logger.error("Error getting ToT: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().body("Error getting ToT: " + e.getMessage());
@@ -257,19 +218,73 @@ public class UserController {
     }
 
     @GetMapping("/getAllTree")
-    @Operation(summary = "Get Tree List", description = "Get all available tree IDs")
-    public ResponseEntity<List<String>> getTreeList() {
+    @Operation(summary = "Get Tree List", description = "Get all available tree IDs. " +
+            "Responses carry an ETag; send it back in If-None-Match to get 304 Not Modified while no tree was saved")
+    public ResponseEntity<List<String>> getTreeList(WebRequest webRequest) {
         logger.info("Received request to get all tree IDs");
 
         try {
             // Get all tree IDs from the service
-            List<String> treeIds = totService.getAllTreeIds();
+            TreeResponseCache.Entry<List<String>> treeIds = totService.getTreeListResponse();
+            if (webRequest.checkNotModified(treeIds.getETag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+            }
 
             // Return the list of tree IDs
-            return ResponseEntity.ok(treeIds);
+            return ResponseEntity.ok().eTag(treeIds.getETag()).cacheControl(CacheControl.noCache()).body(treeIds.getBody());
         } catch (Exception e) {
             logger.error("Error getting tree list: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @GetMapping("/tree-cache")
+    @Operation(summary = "Get tree response cache stats", description = "Retrieve the size and hit counters of the cache behind /tree/{treeId} and /getAllTree")
+    public ResponseEntity<Map<String, Object>> getTreeCacheStats() {
+        return ResponseEntity.ok(treeResponseCache.getStats());
+    }
+
+    @GetMapping("/trees")
+    @Operation(summary = "List trees", description = "List catalogued trees with their metadata, one page at a time. " +
+            "Pass the returned nextCursor as 'after' to fetch the next page")
+    public ResponseEntity<TotService.TreePage> listTrees(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) Boolean structureValid,
+            @RequestParam(required = false) String lastResult) {
+        logger.info("Received request to list trees after {} (size {})", after, size);
+
+        if (size < 1 || size > 1000) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(totService.listTrees(after, size, prefix, structureValid, lastResult));
+        } catch (Exception e) {
+            logger.error("Error listing trees: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search nodes", description = "Search node content and criteria across all trees. " +
+            "All terms must match; use term* for prefixes and \"quoted phrases\" for exact phrases")
+    public ResponseEntity<NodeSearchIndex.SearchPage> searchNodes(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.info("Received node search request: {} (page {}, size {})", q, page, size);
+
+        if (page < 0 || size < 1 || size > 500) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(nodeSearchIndex.search(q, page, size));
+        } catch (IllegalStateException e) {
+            logger.error("Node search unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
 }
\ No newline at end of file
@@ -8,6 +8,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_action_template_hash", columnList = "templateHash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,10 +20,14 @@ public class Action {
     private String id;
 
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
     private String actionData; // JSON format string storing action details
 
     private String actionType; // Type of action to perform
 
+    @Column(length = 64)
+    private String templateHash; // Hash of actionType and actionData; schedules with identical actions share one row
+
     @Column(columnDefinition = "TIMESTAMP")
     private LocalDateTime createdAt;
 
@@ -0,0 +1,23 @@
+package com.tot.entity;
+
+import com.tot.service.TextCompressionCodec;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores large text attributes compressed (see {@link TextCompressionCodec} for the stored form).
+ * Converted columns can no longer be matched with LIKE in queries.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, String> {
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return TextCompressionCodec.encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return TextCompressionCodec.decode(dbData);
+    }
+}
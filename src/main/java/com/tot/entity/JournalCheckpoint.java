@@ -0,0 +1,26 @@
+package com.tot.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last journal sequence number whose record has been written to the relational tables
+ */
+@Entity
+@Table(name = "tot_journal_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalCheckpoint {
+    @Id
+    private String name;
+
+    private Long lastSequence;
+
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime updatedAt;
+}
@@ -9,6 +9,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_schedule_status_time", columnList = "status, scheduledTime"),
+        @Index(name = "idx_schedule_time", columnList = "scheduledTime"),
+        @Index(name = "idx_schedule_target_time", columnList = "targetNodeId, scheduledTime")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,34 @@
+package com.tot.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC mapping of the schedule table (the JPA {@link Schedule} entity owns the schema).
+ * The action is kept as its ID; R2DBC does not load relations
+ */
+@Table("schedule")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleRow {
+    @Id
+    private String id;
+
+    private LocalDateTime scheduledTime;
+
+    private String targetNodeId;
+
+    private String status;
+
+    private Integer comparisonDays;
+
+    @Column("action_id")
+    private String actionId;
+}
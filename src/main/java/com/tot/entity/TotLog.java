@@ -11,7 +11,11 @@ import java.time.LocalDateTime;
  * Entity to store Tree of Thought evaluation logs
  */
 @Entity
-@Table(name = "tot_logs")
+@Table(name = "tot_logs", indexes = {
+        @Index(name = "idx_tot_logs_tree_time", columnList = "treeId, timestamp"),
+        @Index(name = "idx_tot_logs_time_id", columnList = "timestamp, id"),
+        @Index(name = "idx_tot_logs_result", columnList = "validationResult")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,16 +29,26 @@ public class TotLog {
     private String validationResult;
 
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
     private String validationCriteria;
 
     @Column(columnDefinition = "TEXT")
-    private String treeJson;
+    @Convert(converter = CompressedTextConverter.class)
+    private String treeJson; // Legacy full tree copy; new entries reference treeVersionHash instead
+
+    @Column(length = 64)
+    private String treeVersionHash; // Content hash of the evaluated TreeVersion
+
+    private Long latencyMs; // Time spent evaluating the tree, when measured
 
     @Column(columnDefinition = "TIMESTAMP")
     private LocalDateTime timestamp;
 
     @PrePersist
     protected void onCreate() {
-        timestamp = LocalDateTime.now();
+        // Entries queued through the log backend already carry their evaluation time
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
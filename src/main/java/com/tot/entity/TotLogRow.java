@@ -0,0 +1,65 @@
+package com.tot.entity;
+
+import com.tot.service.TextCompressionCodec;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * R2DBC mapping of the tot_logs table (the JPA {@link TotLog} entity owns the schema).
+ * Text columns hold the stored form written by CompressedTextConverter; from/toTotLog convert both ways
+ */
+@Table("tot_logs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotLogRow implements Persistable<String> {
+    @Id
+    private String id;
+
+    private String treeId;
+
+    private String validationResult;
+
+    private String validationCriteria;
+
+    private String treeJson;
+
+    private String treeVersionHash;
+
+    private Long latencyMs;
+
+    private LocalDateTime timestamp;
+
+    @Transient
+    private boolean newRow; // IDs are assigned here, so saving has to be told to insert
+
+    /**
+     * Build a new row from a log entry, assigning its ID when missing
+     */
+    public static TotLogRow from(TotLog log) {
+        if (log.getId() == null) {
+            log.setId(UUID.randomUUID().toString());
+        }
+        return new TotLogRow(log.getId(), log.getTreeId(), log.getValidationResult(),
+                TextCompressionCodec.encode(log.getValidationCriteria()), TextCompressionCodec.encode(log.getTreeJson()),
+                log.getTreeVersionHash(), log.getLatencyMs(), log.getTimestamp(), true);
+    }
+
+    public TotLog toTotLog() {
+        return new TotLog(id, treeId, validationResult, TextCompressionCodec.decode(validationCriteria),
+                TextCompressionCodec.decode(treeJson), treeVersionHash, latencyMs, timestamp);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRow;
+    }
+}
@@ -10,6 +10,9 @@ import java.util.Map;
 import java.util.Objects;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_tot_node_tree_leaf", columnList = "treeId, leaf")
+})
 @Data
 @NoArgsConstructor
 @IdClass(TotNode.TotNodeId.class)
@@ -33,6 +36,11 @@ public class TotNode {
     @Column(name = "child_node_id")
     private Map<String, String> children; // Mapping of branch keys (e.g., "yes", "no") to child nodeIds
 
+    // Structural metadata maintained at save time (see TreeStructureAnalyzer)
+    private Boolean leaf;          // true if the node has no children
+    private Integer depth;         // Distance from the root; null if unreachable from the root
+    private String parentNodeId;   // Parent the node is first reached from; null for the root
+
     @Data
     @NoArgsConstructor
     public static class TotNodeId implements Serializable {
@@ -0,0 +1,37 @@
+package com.tot.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compact binary encoding of a whole Tree of Thought, stored as a single row
+ * (see {@link com.tot.service.TreeBinaryCodec} for the payload layout)
+ */
+@Entity
+@Table(name = "tot_tree_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TreeBlob {
+    @Id
+    private String treeId;
+
+    private Integer formatVersion;
+
+    @Lob
+    @Column(length = 16_777_215)
+    private byte[] payload;
+
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,60 @@
+package com.tot.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog row describing a stored Tree of Thought (one row per tree)
+ */
+@Entity
+@Table(name = "tot_tree_catalog", indexes = {
+        @Index(name = "idx_tree_catalog_last_evaluated", columnList = "lastEvaluatedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TreeCatalog {
+    @Id
+    private String treeId;
+
+    private String storageFormat; // "ROWS" (per-node rows only) or "BLOB" (binary blob plus rows)
+
+    private Integer nodeCount;
+
+    private String rootNodeId;
+
+    private Integer depth; // Depth of the deepest node below the root, in edges
+
+    private Integer leafCount;
+
+    private Boolean structureValid; // Result of TreeStructureAnalyzer at save time
+
+    @Column(length = 64)
+    private String contentHash; // Hash of the tree's canonical JSON, same as TreeVersion.contentHash
+
+    private String lastEvaluationResult; // "true"/"false" from the most recent evaluation
+
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime lastEvaluatedAt;
+
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime createdAt;
+
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
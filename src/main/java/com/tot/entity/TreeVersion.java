@@ -0,0 +1,36 @@
+package com.tot.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of a tree's JSON, stored once and addressed by its SHA-256 content hash
+ */
+@Entity
+@Table(name = "tot_tree_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TreeVersion {
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    private String treeId; // Tree the version was first recorded for
+
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    private String treeJson;
+
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,44 @@
+package com.tot.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evaluation counters for one tree in one hour or day bucket, maintained as logs are written
+ */
+@Entity
+@Table(name = "tot_validation_rollups", indexes = {
+        @Index(name = "idx_rollup_granularity_bucket", columnList = "granularity, bucketStart")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidationRollup {
+    @Id
+    private String id; // granularity|bucketStart|treeId, so a bucket can be looked up without a query on its columns
+
+    private String treeId;
+
+    private String granularity; // "HOUR" or "DAY"
+
+    @Column(columnDefinition = "TIMESTAMP")
+    private LocalDateTime bucketStart;
+
+    private Long trueCount = 0L;
+
+    private Long falseCount = 0L;
+
+    private Long errorCount = 0L; // Evaluations that failed (no criteria or criteria starting with "Error")
+
+    private Long latencySumMs = 0L;
+
+    private Long latencyCount = 0L; // Evaluations that reported a latency
+
+    public static String idOf(String granularity, LocalDateTime bucketStart, String treeId) {
+        return granularity + "|" + bucketStart + "|" + treeId;
+    }
+}
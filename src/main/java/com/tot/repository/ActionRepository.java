@@ -3,12 +3,11 @@ package com.tot.repository;
 
 import com.tot.entity.Action;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ActionRepository extends JpaRepository<Action, String> {
@@ -17,6 +16,11 @@ public interface ActionRepository extends JpaRepository<Action, String> {
      */
     List<Action> findByActionType(String actionType);
 
+    /**
+     * Find the shared action with a given template hash
+     */
+    Optional<Action> findFirstByTemplateHash(String templateHash);
+
     /**
      * Find actions created within a date range
      */
@@ -26,10 +30,4 @@ public interface ActionRepository extends JpaRepository<Action, String> {
      * Find most recent actions by type, limited to a specific count
      */
     List<Action> findTop10ByActionTypeOrderByCreatedAtDesc(String actionType);
-
-    /**
-     * Find actions containing specific data (partial match)
-     */
-    @Query("SELECT a FROM Action a WHERE a.actionData LIKE %:keyword%")
-    List<Action> findByActionDataContaining(@Param("keyword") String keyword);
 }
@@ -0,0 +1,37 @@
+package com.tot.repository;
+
+import com.tot.entity.ScheduleRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking access to schedules; only registered when tot.r2dbc.enabled is set (see R2dbcConfig)
+ */
+public interface ReactiveScheduleRepository extends R2dbcRepository<ScheduleRow, String> {
+    /**
+     * Find schedules due within a specific time window with given status
+     */
+    Flux<ScheduleRow> findByScheduledTimeBetweenAndStatus(
+            LocalDateTime startDateTime, LocalDateTime endDateTime, String status);
+
+    /**
+     * Count schedules by status
+     */
+    Mono<Long> countByStatus(String status);
+
+    /**
+     * Move a schedule from one status to another; 0 if it was no longer in the expected status, so concurrent
+     * dispatchers cannot both claim it
+     */
+    @Modifying
+    @Query("UPDATE schedule SET status = :status WHERE id = :id AND status = :expectedStatus")
+    Mono<Integer> transitionStatus(@Param("id") String id,
+                                   @Param("expectedStatus") String expectedStatus,
+                                   @Param("status") String status);
+}
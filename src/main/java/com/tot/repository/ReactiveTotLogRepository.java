@@ -0,0 +1,11 @@
+package com.tot.repository;
+
+import com.tot.entity.TotLogRow;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+/**
+ * Non-blocking inserts into tot_logs for the "r2dbc" log backend; only registered when tot.r2dbc.enabled is set
+ * (see R2dbcConfig)
+ */
+public interface ReactiveTotLogRepository extends R2dbcRepository<TotLogRow, String> {
+}
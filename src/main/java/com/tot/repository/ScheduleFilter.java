@@ -0,0 +1,9 @@
+package com.tot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters of a schedule listing; null fields are not filtered on. The time range is inclusive
+ */
+public record ScheduleFilter(String status, String treeId, LocalDateTime from, LocalDateTime to) {
+}
@@ -0,0 +1,26 @@
+package com.tot.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filtered schedule listing queries, built per request so each uses only the predicates (and index) it needs
+ */
+public interface ScheduleRepositoryCustom {
+    /**
+     * Find the next page of schedule summaries after a (scheduledTime, id) position (keyset pagination)
+     * @param filter Filters to apply
+     * @param afterTime scheduledTime of the last row of the previous page, or null for the first page
+     * @param afterId ID of the last row of the previous page, ignored for the first page
+     * @param descending Order by scheduledTime (then id) descending instead of ascending
+     * @param limit Maximum number of rows
+     */
+    List<ScheduleSummary> findSummaryPage(ScheduleFilter filter, LocalDateTime afterTime, String afterId,
+                                          boolean descending, int limit);
+
+    /**
+     * Count matching schedules, stopping at cap so the cost stays bounded
+     * @return The count, or cap + 1 if more than cap schedules match
+     */
+    long countUpTo(ScheduleFilter filter, long cap);
+}
@@ -0,0 +1,99 @@
+package com.tot.repository;
+
+import com.tot.entity.Action;
+import com.tot.entity.Schedule;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria API implementation of ScheduleRepositoryCustom
+ */
+public class ScheduleRepositoryCustomImpl implements ScheduleRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ScheduleSummary> findSummaryPage(ScheduleFilter filter, LocalDateTime afterTime, String afterId,
+                                                 boolean descending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ScheduleSummary> query = cb.createQuery(ScheduleSummary.class);
+        Root<Schedule> schedule = query.from(Schedule.class);
+        Join<Schedule, Action> action = schedule.join("action", JoinType.LEFT);
+        Path<LocalDateTime> time = schedule.get("scheduledTime");
+        Path<String> id = schedule.get("id");
+
+        List<Predicate> predicates = filterPredicates(cb, schedule, filter);
+        if (afterTime != null) {
+            predicates.add(descending
+                    ? cb.or(cb.lessThan(time, afterTime), cb.and(cb.equal(time, afterTime), cb.lessThan(id, afterId)))
+                    : cb.or(cb.greaterThan(time, afterTime), cb.and(cb.equal(time, afterTime), cb.greaterThan(id, afterId))));
+        }
+
+        query.select(cb.construct(ScheduleSummary.class, id, time, schedule.get("targetNodeId"), schedule.get("status"),
+                        schedule.get("comparisonDays"), action.get("id"), action.get("actionType")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(descending ? List.of(cb.desc(time), cb.desc(id)) : List.of(cb.asc(time), cb.asc(id)));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countUpTo(ScheduleFilter filter, long cap) {
+        // JPQL has no LIMIT inside a subquery, so the capped count is native SQL over the same indexed predicates
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM (SELECT 1 FROM schedule WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        if (filter.status() != null) {
+            sql.append(" AND status = ?");
+            parameters.add(filter.status());
+        }
+        if (filter.treeId() != null) {
+            sql.append(" AND target_node_id = ?");
+            parameters.add(filter.treeId());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND scheduled_time >= ?");
+            parameters.add(filter.from());
+        }
+        if (filter.to() != null) {
+            sql.append(" AND scheduled_time <= ?");
+            parameters.add(filter.to());
+        }
+        sql.append(" LIMIT ?) capped");
+        parameters.add(cap + 1);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Schedule> schedule, ScheduleFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.status() != null) {
+            predicates.add(cb.equal(schedule.get("status"), filter.status()));
+        }
+        if (filter.treeId() != null) {
+            predicates.add(cb.equal(schedule.get("targetNodeId"), filter.treeId()));
+        }
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(schedule.get("scheduledTime"), filter.from()));
+        }
+        if (filter.to() != null) {
+            predicates.add(cb.lessThanOrEqualTo(schedule.get("scheduledTime"), filter.to()));
+        }
+        return predicates;
+    }
+}
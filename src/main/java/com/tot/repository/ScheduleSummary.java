@@ -0,0 +1,10 @@
+package com.tot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of a Schedule with the id and type of its action but not the action data
+ */
+public record ScheduleSummary(String id, LocalDateTime scheduledTime, String targetNodeId, String status,
+                              Integer comparisonDays, String actionId, String actionType) {
+}
@@ -0,0 +1,10 @@
+package com.tot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * View of a TotLog row with its validation criteria but without the legacy tree JSON
+ */
+public record TotLogCriteria(String id, String treeId, String validationResult, String validationCriteria,
+                             String treeVersionHash, LocalDateTime timestamp) {
+}
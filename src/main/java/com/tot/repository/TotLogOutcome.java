@@ -0,0 +1,10 @@
+package com.tot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome fields of a TotLog row, used to rebuild validation rollups
+ */
+public record TotLogOutcome(String id, String treeId, String validationResult, String validationCriteria,
+                            Long latencyMs, LocalDateTime timestamp) {
+}
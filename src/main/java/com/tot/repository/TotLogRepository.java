@@ -1,11 +1,19 @@
 package com.tot.repository;
 
 import com.tot.entity.TotLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository for accessing Tree of Thought logs
@@ -27,13 +35,108 @@ public interface TotLogRepository extends JpaRepository<TotLog, String> {
      */
     List<TotLog> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
 
+    /**
+     * Find the oldest logs before a cutoff, in (timestamp, id) order, for archiving
+     */
+    List<TotLog> findByTimestampBeforeOrderByTimestampAscIdAsc(LocalDateTime cutoff, Limit limit);
+
     /**
      * Find most recent logs for a tree
      */
     List<TotLog> findTop10ByTreeIdOrderByTimestampDesc(String treeId);
 
+    /**
+     * Find the most recent log summaries for a tree
+     */
+    @Query("SELECT new com.tot.repository.TotLogSummary(l.id, l.treeId, l.validationResult, l.treeVersionHash, l.timestamp) " +
+            "FROM TotLog l WHERE l.treeId = :treeId ORDER BY l.timestamp DESC")
+    List<TotLogSummary> findRecentSummaries(@Param("treeId") String treeId, Limit limit);
+
+    /**
+     * Find the most recent logs for a tree with their validation criteria, without the legacy tree JSON
+     */
+    @Query("SELECT new com.tot.repository.TotLogCriteria(l.id, l.treeId, l.validationResult, l.validationCriteria, " +
+            "l.treeVersionHash, l.timestamp) FROM TotLog l WHERE l.treeId = :treeId ORDER BY l.timestamp DESC")
+    List<TotLogCriteria> findRecentCriteria(@Param("treeId") String treeId, Limit limit);
+
+    /**
+     * Find the next page of log outcomes before a time, after a (timestamp, id) position, for exporting evaluation history
+     */
+    @Query("SELECT new com.tot.repository.TotLogOutcome(l.id, l.treeId, l.validationResult, l.validationCriteria, " +
+            "l.latencyMs, l.timestamp) FROM TotLog l WHERE l.timestamp < :before " +
+            "AND (l.timestamp > :afterTimestamp OR (l.timestamp = :afterTimestamp AND l.id > :afterId)) " +
+            "ORDER BY l.timestamp, l.id")
+    List<TotLogOutcome> findOutcomePageAfter(@Param("before") LocalDateTime before,
+                                             @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                             @Param("afterId") String afterId,
+                                             Limit limit);
+
+    /**
+     * Find the validation criteria of the most recent logs, for training compression dictionaries
+     */
+    @Query("SELECT l.validationCriteria FROM TotLog l WHERE l.validationCriteria IS NOT NULL ORDER BY l.timestamp DESC")
+    List<String> findRecentCriteriaText(Limit limit);
+
     /**
      * Count logs by validation result
      */
     long countByValidationResult(String validationResult);
-}
\ No newline at end of file
+
+    /**
+     * Find legacy logs that still embed the full tree JSON instead of a version hash
+     */
+    List<TotLog> findByTreeVersionHashIsNullAndTreeJsonIsNotNull(Pageable pageable);
+
+    /**
+     * Find the next page of log summaries in a time period after a (timestamp, id) position (keyset pagination)
+     */
+    @Query("SELECT new com.tot.repository.TotLogSummary(l.id, l.treeId, l.validationResult, l.treeVersionHash, l.timestamp) " +
+            "FROM TotLog l WHERE l.timestamp >= :start AND l.timestamp <= :end " +
+            "AND (l.timestamp > :afterTimestamp OR (l.timestamp = :afterTimestamp AND l.id > :afterId)) " +
+            "ORDER BY l.timestamp, l.id")
+    List<TotLogSummary> findSummaryPageAfter(@Param("start") LocalDateTime start,
+                                             @Param("end") LocalDateTime end,
+                                             @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                             @Param("afterId") String afterId,
+                                             Limit limit);
+
+    /**
+     * Find the next page of full log entries in a time period after a (timestamp, id) position (keyset pagination)
+     */
+    @Query("SELECT l FROM TotLog l WHERE l.timestamp >= :start AND l.timestamp <= :end " +
+            "AND (l.timestamp > :afterTimestamp OR (l.timestamp = :afterTimestamp AND l.id > :afterId)) " +
+            "ORDER BY l.timestamp, l.id")
+    List<TotLog> findPageAfter(@Param("start") LocalDateTime start,
+                               @Param("end") LocalDateTime end,
+                               @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                               @Param("afterId") String afterId,
+                               Limit limit);
+
+    /**
+     * Stream log summaries in a time period; must be consumed inside a transaction and closed
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.tot.repository.TotLogSummary(l.id, l.treeId, l.validationResult, l.treeVersionHash, l.timestamp) " +
+            "FROM TotLog l WHERE l.timestamp >= :start AND l.timestamp <= :end ORDER BY l.timestamp, l.id")
+    Stream<TotLogSummary> streamSummariesBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Stream full log entries in a time period; must be consumed inside a transaction and closed
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT l FROM TotLog l WHERE l.timestamp >= :start AND l.timestamp <= :end ORDER BY l.timestamp, l.id")
+    Stream<TotLog> streamBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Stream the outcome fields of every log entry, for rebuilding validation rollups.
+     * Criteria are selected for classification in Java, since compressed criteria cannot be matched with LIKE.
+     * Must be consumed inside a transaction and closed
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.tot.repository.TotLogOutcome(l.id, l.treeId, l.validationResult, l.validationCriteria, " +
+            "l.latencyMs, l.timestamp) FROM TotLog l")
+    Stream<TotLogOutcome> streamOutcomes();
+}
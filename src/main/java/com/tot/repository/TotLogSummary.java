@@ -0,0 +1,10 @@
+package com.tot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of a TotLog row without the TEXT columns (criteria and legacy tree JSON)
+ */
+public record TotLogSummary(String id, String treeId, String validationResult, String treeVersionHash,
+                            LocalDateTime timestamp) {
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,12 @@ public interface TotNodeRepository extends JpaRepository<TotNode, String> {
      */
     List<TotNode> findByTreeId(String treeId);
 
+    /**
+     * Find all nodes of several trees in one query, with their children mappings fetched along
+     */
+    @Query("SELECT DISTINCT t FROM TotNode t LEFT JOIN FETCH t.children WHERE t.treeId IN :treeIds")
+    List<TotNode> findByTreeIdInWithChildren(@Param("treeIds") Collection<String> treeIds);
+
     /**
      * Find a specific node by its nodeId and treeId
      */
@@ -25,10 +32,15 @@ public interface TotNodeRepository extends JpaRepository<TotNode, String> {
     /**
      * Find leaf nodes (nodes with no children) in a tree
      */
-    @Query("SELECT t FROM TotNode t WHERE t.treeId = :treeId AND t.nodeId NOT IN " +
-            "(SELECT DISTINCT VALUE(c) FROM TotNode n JOIN n.children c WHERE n.treeId = :treeId)")
+    @Query("SELECT t FROM TotNode t WHERE t.treeId = :treeId AND t.leaf = true")
     List<TotNode> findLeafNodesByTreeId(@Param("treeId") String treeId);
 
+    /**
+     * Find trees with nodes saved before structural metadata was maintained
+     */
+    @Query("SELECT DISTINCT t.treeId FROM TotNode t WHERE t.leaf IS NULL")
+    List<String> findTreeIdsMissingMetadata();
+
     /**
      * Find nodes by content containing the given text (case insensitive)
      */
@@ -0,0 +1,12 @@
+package com.tot.repository;
+
+import com.tot.entity.TreeBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for binary-encoded trees, keyed by treeId
+ */
+@Repository
+public interface TreeBlobRepository extends JpaRepository<TreeBlob, String> {
+}
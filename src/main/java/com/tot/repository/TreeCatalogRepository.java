@@ -0,0 +1,61 @@
+package com.tot.repository;
+
+import com.tot.entity.TreeCatalog;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for the tree catalog (one row per tree)
+ */
+@Repository
+public interface TreeCatalogRepository extends JpaRepository<TreeCatalog, String> {
+    /**
+     * Find all catalogued tree IDs
+     */
+    @Query("SELECT c.treeId FROM TreeCatalog c ORDER BY c.treeId")
+    List<String> findAllTreeIds();
+
+    /**
+     * Find the content hash of a tree without loading its row
+     */
+    @Query("SELECT c.contentHash FROM TreeCatalog c WHERE c.treeId = :treeId")
+    Optional<String> findContentHash(@Param("treeId") String treeId);
+
+    /**
+     * Find the IDs of the most recently evaluated trees, newest evaluation first
+     */
+    @Query("SELECT c.treeId FROM TreeCatalog c WHERE c.lastEvaluatedAt IS NOT NULL ORDER BY c.lastEvaluatedAt DESC")
+    List<String> findRecentlyEvaluatedTreeIds(Limit limit);
+
+    /**
+     * Find the next page of catalog rows after a treeId (keyset pagination on the primary key), with optional filters
+     */
+    @Query("SELECT c FROM TreeCatalog c WHERE c.treeId > :after " +
+            "AND (:prefix IS NULL OR c.treeId LIKE CONCAT(:prefix, '%')) " +
+            "AND (:structureValid IS NULL OR c.structureValid = :structureValid) " +
+            "AND (:lastResult IS NULL OR c.lastEvaluationResult = :lastResult) " +
+            "ORDER BY c.treeId")
+    List<TreeCatalog> findPageAfter(@Param("after") String after,
+                                    @Param("prefix") String prefix,
+                                    @Param("structureValid") Boolean structureValid,
+                                    @Param("lastResult") String lastResult,
+                                    Limit limit);
+
+    /**
+     * Record the outcome of the latest evaluation of a tree
+     */
+    @Modifying
+    @Query("UPDATE TreeCatalog c SET c.lastEvaluationResult = :result, c.lastEvaluatedAt = :evaluatedAt " +
+            "WHERE c.treeId = :treeId")
+    int recordEvaluation(@Param("treeId") String treeId,
+                         @Param("result") String result,
+                         @Param("evaluatedAt") LocalDateTime evaluatedAt);
+}
@@ -0,0 +1,18 @@
+package com.tot.repository;
+
+import com.tot.entity.TreeVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for content-addressed tree versions
+ */
+@Repository
+public interface TreeVersionRepository extends JpaRepository<TreeVersion, String> {
+    /**
+     * Find versions recorded for a tree, newest first
+     */
+    List<TreeVersion> findByTreeIdOrderByCreatedAtDesc(String treeId);
+}
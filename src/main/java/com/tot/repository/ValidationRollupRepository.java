@@ -0,0 +1,41 @@
+package com.tot.repository;
+
+import com.tot.entity.ValidationRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for per-tree, per-bucket validation rollups
+ */
+@Repository
+public interface ValidationRollupRepository extends JpaRepository<ValidationRollup, String> {
+    /**
+     * Sum the counters of the buckets in [start, end), optionally for one tree
+     */
+    @Query("SELECT new com.tot.repository.ValidationTotals(COALESCE(SUM(r.trueCount), 0), COALESCE(SUM(r.falseCount), 0), " +
+            "COALESCE(SUM(r.errorCount), 0), COALESCE(SUM(r.latencySumMs), 0), COALESCE(SUM(r.latencyCount), 0)) " +
+            "FROM ValidationRollup r WHERE r.granularity = :granularity " +
+            "AND (:treeId IS NULL OR r.treeId = :treeId) " +
+            "AND r.bucketStart >= :start AND r.bucketStart < :end")
+    ValidationTotals sumBuckets(@Param("granularity") String granularity,
+                                @Param("treeId") String treeId,
+                                @Param("start") LocalDateTime start,
+                                @Param("end") LocalDateTime end);
+
+    /**
+     * Find the buckets in [start, end), optionally for one tree, ordered by time
+     */
+    @Query("SELECT r FROM ValidationRollup r WHERE r.granularity = :granularity " +
+            "AND (:treeId IS NULL OR r.treeId = :treeId) " +
+            "AND r.bucketStart >= :start AND r.bucketStart < :end " +
+            "ORDER BY r.bucketStart, r.treeId")
+    List<ValidationRollup> findBuckets(@Param("granularity") String granularity,
+                                       @Param("treeId") String treeId,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end);
+}
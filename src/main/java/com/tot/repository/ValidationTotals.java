@@ -0,0 +1,7 @@
+package com.tot.repository;
+
+/**
+ * Sums of validation rollup counters over a set of buckets
+ */
+public record ValidationTotals(Long trueCount, Long falseCount, Long errorCount, Long latencySumMs, Long latencyCount) {
+}
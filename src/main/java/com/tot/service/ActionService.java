@@ -9,13 +9,18 @@ import com.tot.repository.ScheduleRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for core ToT processing and action execution
@@ -29,6 +34,8 @@ public class ActionService {
     private final LLMService llmService;
     private final LogService logService;
     private final ObjectMapper objectMapper;
+    private final Scheduler persistenceScheduler;
+    private final ScheduleEventBus scheduleEventBus;
 
     @Autowired
     public ActionService(
@@ -36,13 +43,17 @@ public class ActionService {
             ScheduleRepository scheduleRepository,
             TotService totService,
             LLMService llmService,
-            LogService logService) {
+            LogService logService,
+            @Qualifier("persistenceScheduler") Scheduler persistenceScheduler,
+            ScheduleEventBus scheduleEventBus) {
         this.actionRepository = actionRepository;
         this.scheduleRepository = scheduleRepository;
         this.totService = totService;
         this.llmService = llmService;
         this.logService = logService;
         this.objectMapper = new ObjectMapper();
+        this.persistenceScheduler = persistenceScheduler;
+        this.scheduleEventBus = scheduleEventBus;
     }
 
     /**
@@ -88,18 +99,22 @@ public class ActionService {
             // 1. Mark schedule as in-progress
             updateScheduleStatus(scheduleId, "IN_PROGRESS");
 
-            // 2. Get the tree of thought from TotService
+            // 2. Get the tree of thought from TotService (structure was validated at save time)
+            requireValidStructure(treeId);
             String treeJson = totService.getTreeOfThought(treeId);
             logger.info("Tree of thought retrieved for schedule {}", scheduleId);
 
             // 3. Validate the tree with LLMService using historical comparison
             int comparisonDays = schedule.getComparisonDays() != null ? schedule.getComparisonDays() : 1;
             logger.info("Starting LLM validation with {}-day historical comparison for schedule {}", comparisonDays, scheduleId);
+            long startedAt = System.nanoTime();
             ValidationResult validationResult = llmService.validateTreeWithHistoricalComparison(treeJson, comparisonDays);
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
             logger.info("LLM validation with {}-day historical comparison completed for schedule {}: result={}", comparisonDays, scheduleId, validationResult.getResult());
+            scheduleEventBus.publishEvaluation(scheduleId, treeId, validationResult.getResult());
 
             // 4. Log the tree evaluation with detailed criteria
-            logService.logTreeEvaluation(treeId, treeJson, validationResult.getResult(), validationResult.getCriteria());
+            logService.logTreeEvaluation(treeId, treeJson, validationResult.getResult(), validationResult.getCriteria(), latencyMs);
 
             // 5. Execute core logic if tree evaluation is true
             if (validationResult.isPositive()) {
@@ -126,20 +141,23 @@ public class ActionService {
      * Execute core business logic for validated schedules
      */
     private void executeCoreLogic(Schedule schedule, String treeId, String validationResult) {
-        logger.info("Executing core logic for schedule: {}", schedule.getId());
+        executeCoreLogic(schedule.getId(), schedule.getAction(), treeId, validationResult);
+    }
+
+    private void executeCoreLogic(String scheduleId, Action action, String treeId, String validationResult) {
+        logger.info("Executing core logic for schedule: {}", scheduleId);
         
         // Create context for execution
         ObjectNode context = objectMapper.createObjectNode();
         context.put("treeId", treeId);
-        context.put("scheduleId", schedule.getId());
+        context.put("scheduleId", scheduleId);
         context.put("validationResult", validationResult);
         
         // Execute the action if defined
-        Action action = schedule.getAction();
         if (action != null) {
             executeAction(action, context);
         } else {
-            logger.warn("No action defined for schedule {}", schedule.getId());
+            logger.warn("No action defined for schedule {}", scheduleId);
         }
     }
 
@@ -165,6 +183,7 @@ public class ActionService {
         
         try {
             // Get the tree of thought
+            requireValidStructure(treeId);
             String treeJson = totService.getTreeOfThought(treeId);
             
             if (treeJson == null || treeJson.trim().isEmpty()) {
@@ -172,28 +191,7 @@ public class ActionService {
                 throw new IllegalArgumentException("Tree not found for ID: " + treeId);
             }
 
-            // Validate the tree with LLMService using specific historical comparison period
-            ValidationResult validationResult = llmService.validateTreeWithHistoricalComparison(treeJson, comparisonDays);
-            logger.info("LLM validation with {}-day historical comparison completed for treeId {}: result={}", 
-                comparisonDays, treeId, validationResult.getResult());
-            
-            // Log the tree evaluation with detailed criteria
-            logService.logTreeEvaluation(treeId, treeJson, validationResult.getResult(), validationResult.getCriteria());
-
-            // Determine action based on validation result
-            String actionResult;
-            if (validationResult.isPositive()) {
-                actionResult = String.format("Action executed: Decision positive (vs %d days ago) - %s...", 
-                    comparisonDays, validationResult.getCriteria().substring(0, Math.min(150, validationResult.getCriteria().length())));
-                logger.info("Executing positive action for treeId {} (vs {} days ago)", treeId, comparisonDays);
-            } else {
-                actionResult = String.format("Action executed: Hold (no action taken). Decision: negative (vs %d days ago) - %s...", 
-                    comparisonDays, validationResult.getCriteria().substring(0, Math.min(150, validationResult.getCriteria().length())));
-                logger.info("Executing negative action (hold) for treeId {} (vs {} days ago)", treeId, comparisonDays);
-            }
-            
-            return actionResult;
-            
+            return evaluateTree(treeId, treeJson, comparisonDays, Map.of());
         } catch (Exception e) {
             logger.error("Error executing action for treeId {} with {}-day comparison: {}", treeId, comparisonDays, e.getMessage(), e);
             
@@ -208,6 +206,114 @@ public class ActionService {
         }
     }
 
+    /**
+     * Validate a loaded tree, log the evaluation and describe the action taken
+     * @param treeId ID of the tree
+     * @param treeJson JSON of the tree
+     * @param comparisonDays Number of days back to compare
+     * @param marketData Prefetched stock data by symbol (see StockDataService.fetchMarketData), may be empty
+     * @return Result message indicating the action taken
+     */
+    public String evaluateTree(String treeId, String treeJson, int comparisonDays,
+                               Map<String, StockDataService.SymbolData> marketData) {
+        // Validate the tree with LLMService using specific historical comparison period
+        long startedAt = System.nanoTime();
+        ValidationResult validationResult = llmService.validateTreeWithHistoricalComparison(treeJson, comparisonDays, marketData);
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        logger.info("LLM validation with {}-day historical comparison completed for treeId {}: result={}", 
+            comparisonDays, treeId, validationResult.getResult());
+        
+        // Log the tree evaluation with detailed criteria
+        logService.logTreeEvaluation(treeId, treeJson, validationResult.getResult(), validationResult.getCriteria(), latencyMs);
+
+        return describeAction(treeId, comparisonDays, validationResult);
+    }
+
+    /**
+     * Non-blocking variant of executeActionForTreeWithHistoricalComparison. The tree load, the structure check and
+     * the evaluation log run on the persistence scheduler; the stock data fetch and LLM call do not hold a thread
+     * @param treeId The tree ID to process
+     * @param comparisonDays Number of days back to compare
+     * @return Result message indicating the action taken; errors with IllegalArgumentException for unknown or invalid trees
+     */
+    public Mono<String> executeActionForTreeReactive(String treeId, int comparisonDays) {
+        logger.info("Executing reactive action for treeId: {} with {}-day historical comparison", treeId, comparisonDays);
+
+        return evaluateTreeReactive(treeId, comparisonDays)
+                .map(validationResult -> describeAction(treeId, comparisonDays, validationResult))
+                .doOnError(e -> {
+                    logger.error("Error executing reactive action for treeId {} with {}-day comparison: {}",
+                            treeId, comparisonDays, e.getMessage());
+                    if (!(e instanceof IllegalArgumentException)) {
+                        persistenceScheduler.schedule(() -> logService.logValidationFailure(treeId));
+                    }
+                });
+    }
+
+    /**
+     * Load, validate and log the evaluation of a tree without blocking the caller; the result is emitted on the
+     * persistence scheduler
+     * @param treeId The tree ID to process
+     * @param comparisonDays Number of days back to compare
+     * @return Validation result; errors with IllegalArgumentException for unknown or invalid trees
+     */
+    public Mono<ValidationResult> evaluateTreeReactive(String treeId, int comparisonDays) {
+        return Mono.fromCallable(() -> {
+                    requireValidStructure(treeId);
+                    return totService.getTreeOfThought(treeId);
+                })
+                .subscribeOn(persistenceScheduler)
+                .flatMap(treeJson -> {
+                    long startedAt = System.nanoTime();
+                    return llmService.validateTreeWithHistoricalComparisonReactive(treeJson, comparisonDays)
+                            .publishOn(persistenceScheduler)
+                            .doOnNext(validationResult -> {
+                                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                                logService.logTreeEvaluation(treeId, treeJson, validationResult.getResult(),
+                                        validationResult.getCriteria(), latencyMs);
+                            });
+                });
+    }
+
+    /**
+     * Execute the action of a schedule whose tree evaluated positive, for callers that hold the schedule's row
+     * rather than its entity (the reactive dispatcher)
+     * @param scheduleId ID of the schedule
+     * @param actionId ID of the schedule's action, may be null
+     * @param treeId ID of the evaluated tree
+     * @param validationResult Result of the evaluation
+     */
+    public void executeCoreLogic(String scheduleId, String actionId, String treeId, String validationResult) {
+        Action action = actionId != null ? actionRepository.findById(actionId).orElse(null) : null;
+        executeCoreLogic(scheduleId, action, treeId, validationResult);
+    }
+
+    /**
+     * Describe the action taken for a validation result
+     */
+    private String describeAction(String treeId, int comparisonDays, ValidationResult validationResult) {
+        // Determine action based on validation result
+        String actionResult;
+        if (validationResult.isPositive()) {
+            actionResult = String.format("Action executed: Decision positive (vs %d days ago) - %s...", 
+                comparisonDays, validationResult.getCriteria().substring(0, Math.min(150, validationResult.getCriteria().length())));
+            logger.info("Executing positive action for treeId {} (vs {} days ago)", treeId, comparisonDays);
+        } else {
+            actionResult = String.format("Action executed: Hold (no action taken). Decision: negative (vs %d days ago) - %s...", 
+                comparisonDays, validationResult.getCriteria().substring(0, Math.min(150, validationResult.getCriteria().length())));
+            logger.info("Executing negative action (hold) for treeId {} (vs {} days ago)", treeId, comparisonDays);
+        }
+        return actionResult;
+    }
+
+    /**
+     * Refuse to evaluate trees whose stored structural analysis failed (cycles, dangling children, no single root)
+     */
+    private void requireValidStructure(String treeId) {
+        if (!totService.isStructurallyValid(treeId)) {
+            throw new IllegalArgumentException("Tree " + treeId + " has an invalid structure and cannot be evaluated");
+        }
+    }
 
     /**
      * Find schedules that are due for processing
@@ -229,6 +335,7 @@ public class ActionService {
         scheduleRepository.findById(scheduleId).ifPresent(schedule -> {
             schedule.setStatus(status);
             scheduleRepository.save(schedule);
+            scheduleEventBus.publishStatus(scheduleId, schedule.getTargetNodeId(), status);
             logger.info("Updated schedule {} status to {}", scheduleId, status);
         });
     }
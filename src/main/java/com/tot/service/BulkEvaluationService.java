@@ -0,0 +1,249 @@
+package com.tot.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates many trees against the same comparison period in one request.
+ *
+ * All trees are loaded with one query, and the stock data for the union of their symbols is fetched once and
+ * shared by every evaluation instead of being fetched per tree. Evaluations then run on the evaluationJobExecutor
+ * with at most `parallelism` in flight per request: each finished evaluation starts the next one, so no thread
+ * waits on a slot. Results are handed to the caller's listener as each evaluation finishes, in completion order.
+ */
+@Service
+public class BulkEvaluationService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkEvaluationService.class);
+
+    public static final String EVALUATED = "EVALUATED";
+    public static final String FAILED = "FAILED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID = "INVALID";
+
+    private final TotService totService;
+    private final ActionService actionService;
+    private final StockDataService stockDataService;
+    private final LogService logService;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${tot.bulk.max-trees:500}")
+    private int maxTrees;
+
+    @Value("${tot.bulk.parallelism:4}")
+    private int parallelism;
+
+    @Autowired
+    public BulkEvaluationService(TotService totService,
+                                 ActionService actionService,
+                                 StockDataService stockDataService,
+                                 LogService logService,
+                                 @Qualifier("evaluationJobExecutor") ThreadPoolTaskExecutor executor) {
+        this.totService = totService;
+        this.actionService = actionService;
+        this.stockDataService = stockDataService;
+        this.logService = logService;
+        this.executor = executor;
+    }
+
+    /**
+     * Evaluate a list of trees
+     * @param treeIds IDs of the trees; duplicates are evaluated once
+     * @param comparisonDays Number of days back to compare
+     * @param listener Receives the result of each tree as it completes; calls may come from several threads
+     * @return Future completed with the summary once every tree has a result
+     * @throws IllegalArgumentException If the tree list is empty or too long, or comparisonDays is out of range
+     * @throws RejectedExecutionException If the executor cannot take the request
+     */
+    public CompletableFuture<BulkSummary> evaluate(List<String> treeIds, int comparisonDays, Consumer<TreeResult> listener) {
+        if (treeIds == null || treeIds.isEmpty()) {
+            throw new IllegalArgumentException("treeIds must not be empty");
+        }
+        Set<String> distinctIds = new LinkedHashSet<>(treeIds);
+        if (distinctIds.size() > maxTrees) {
+            throw new IllegalArgumentException("At most " + maxTrees + " trees can be evaluated in one request");
+        }
+        if (comparisonDays < 1 || comparisonDays > 365) {
+            throw new IllegalArgumentException("comparisonDays must be between 1 and 365");
+        }
+
+        BulkRun run = new BulkRun(new ArrayList<>(distinctIds), comparisonDays, listener);
+        executor.execute(() -> plan(run));
+        return run.completion;
+    }
+
+    /**
+     * Load the trees and their market data, report trees that cannot be evaluated, then start the evaluations
+     */
+    private void plan(BulkRun run) {
+        try {
+            Map<String, String> trees = totService.getTreesOfThought(run.treeIds);
+            Map<String, Boolean> validity = totService.areStructurallyValid(trees.keySet());
+
+            Set<String> symbols = new LinkedHashSet<>();
+            for (String treeId : run.treeIds) {
+                String treeJson = trees.get(treeId);
+                if (treeJson == null) {
+                    run.report(new TreeResult(treeId, NOT_FOUND, null, "Tree not found: " + treeId, null));
+                } else if (!Boolean.TRUE.equals(validity.get(treeId))) {
+                    run.report(new TreeResult(treeId, INVALID, null,
+                            "Tree " + treeId + " has an invalid structure and cannot be evaluated", null));
+                } else {
+                    run.pending.add(treeId);
+                    if (stockDataService.containsStockCriteria(treeJson)) {
+                        symbols.addAll(List.of(stockDataService.extractStockSymbols(treeJson)));
+                    }
+                }
+            }
+            run.trees = trees;
+            run.marketData = stockDataService.fetchMarketData(symbols, run.comparisonDays);
+            run.symbolsFetched = run.marketData.size();
+            logger.info("Bulk evaluation of {} trees ({} evaluable) with {}-day comparison, {} shared symbols",
+                    run.treeIds.size(), run.pending.size(), run.comparisonDays, run.symbolsFetched);
+        } catch (Exception e) {
+            logger.error("Bulk evaluation planning failed: {}", e.getMessage(), e);
+            for (String treeId : run.treeIds) {
+                if (!run.reported.contains(treeId)) {
+                    run.report(new TreeResult(treeId, FAILED, null, e.getMessage(), null));
+                }
+            }
+            run.pending.clear();
+        }
+
+        if (run.pending.isEmpty()) {
+            run.finish();
+            return;
+        }
+        for (int slot = 0; slot < Math.min(Math.max(parallelism, 1), run.pending.size()); slot++) {
+            launchNext(run);
+        }
+    }
+
+    /**
+     * Start the next pending evaluation, if any
+     */
+    private void launchNext(BulkRun run) {
+        int index = run.next.getAndIncrement();
+        if (index >= run.pending.size()) {
+            return;
+        }
+        String treeId = run.pending.get(index);
+        try {
+            executor.execute(() -> {
+                evaluateOne(run, treeId);
+                launchNext(run);
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Bulk evaluation of tree {} rejected: executor is full", treeId);
+            run.report(new TreeResult(treeId, FAILED, null, "Too many evaluations in progress, try again later", null));
+            launchNext(run);
+        }
+    }
+
+    private void evaluateOne(BulkRun run, String treeId) {
+        long startedAt = System.nanoTime();
+        try {
+            String result = actionService.evaluateTree(treeId, run.trees.get(treeId), run.comparisonDays, run.marketData);
+            run.report(new TreeResult(treeId, EVALUATED, result, null,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)));
+        } catch (Exception e) {
+            logger.error("Bulk evaluation of tree {} failed: {}", treeId, e.getMessage(), e);
+            try {
+                logService.logValidationFailure(treeId);
+            } catch (Exception logError) {
+                logger.error("Failed to log validation failure: {}", logError.getMessage());
+            }
+            run.report(new TreeResult(treeId, FAILED, null, e.getMessage(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)));
+        }
+    }
+
+    /**
+     * State of one bulk request
+     */
+    private static final class BulkRun {
+        private final List<String> treeIds;
+        private final int comparisonDays;
+        private final Consumer<TreeResult> listener;
+        private final long startedAt = System.nanoTime();
+        private final CompletableFuture<BulkSummary> completion = new CompletableFuture<>();
+        private final List<String> pending = new ArrayList<>();
+        private final Set<String> reported = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile Map<String, String> trees = Map.of();
+        private volatile Map<String, StockDataService.SymbolData> marketData = Map.of();
+        private volatile int symbolsFetched;
+
+        private BulkRun(List<String> treeIds, int comparisonDays, Consumer<TreeResult> listener) {
+            this.treeIds = treeIds;
+            this.comparisonDays = comparisonDays;
+            this.listener = listener;
+        }
+
+        private void report(TreeResult result) {
+            if (!reported.add(result.getTreeId())) {
+                return;
+            }
+            (EVALUATED.equals(result.getStatus()) ? succeeded : failed).incrementAndGet();
+            try {
+                listener.accept(result);
+            } catch (Exception e) {
+                logger.warn("Bulk evaluation listener failed for tree {}: {}", result.getTreeId(), e.getMessage());
+            }
+            if (reported.size() == treeIds.size()) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            completion.complete(new BulkSummary(treeIds.size(), succeeded.get(), failed.get(), symbolsFetched,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)));
+        }
+    }
+
+    /**
+     * Outcome of one tree; latencyMs is only set for trees that were evaluated
+     */
+    @Data
+    @AllArgsConstructor
+    public static class TreeResult {
+        private String treeId;
+        private String status;
+        private String result;
+        private String error;
+        private Long latencyMs;
+    }
+
+    /**
+     * Totals of a bulk request
+     */
+    @Data
+    @AllArgsConstructor
+    public static class BulkSummary {
+        private int total;
+        private int succeeded;
+        private int failed;
+        private int symbolsFetched;
+        private long elapsedMs;
+    }
+}
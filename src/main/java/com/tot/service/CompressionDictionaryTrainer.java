@@ -0,0 +1,135 @@
+package com.tot.service;
+
+import com.tot.repository.TotLogRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trains candidate preset dictionaries for TextCompressionCodec from recent validation criteria.
+ *
+ * Phrases of 2 to 4 words are scored by how many sampled values contain them times their length, and the
+ * best are packed into the dictionary with the highest scoring last (deflate reaches the end of the dictionary
+ * with the shortest distances). The candidate is measured against the current dictionary on the same sample;
+ * a better one is adopted by saving it as the next text-dictionary-v{N}.txt and bumping CURRENT_VERSION.
+ */
+@Service
+public class CompressionDictionaryTrainer {
+    private static final int MAX_DICTIONARY_BYTES = 16 * 1024;
+    private static final int MIN_PHRASE_WORDS = 2;
+    private static final int MAX_PHRASE_WORDS = 4;
+
+    private final TotLogRepository totLogRepository;
+
+    @Autowired
+    public CompressionDictionaryTrainer(TotLogRepository totLogRepository) {
+        this.totLogRepository = totLogRepository;
+    }
+
+    /**
+     * Train a candidate dictionary and compare it with the current one
+     * @param sampleSize Number of recent criteria values to sample
+     * @return Deflated sizes of the sample without a dictionary, with the current one and with the candidate
+     */
+    public TrainingResult train(int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("Sample size must be positive");
+        }
+        List<String> sample = totLogRepository.findRecentCriteriaText(Limit.of(sampleSize));
+
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (String value : sample) {
+            String[] words = value.split("\\s+");
+            Set<String> phrases = new HashSet<>();
+            for (int start = 0; start < words.length; start++) {
+                StringBuilder phrase = new StringBuilder(words[start]);
+                for (int length = 2; length <= MAX_PHRASE_WORDS && start + length <= words.length; length++) {
+                    phrase.append(' ').append(words[start + length - 1]);
+                    if (length >= MIN_PHRASE_WORDS) {
+                        phrases.add(phrase.toString() + ' ');
+                    }
+                }
+            }
+            phrases.forEach(phrase -> documentFrequency.merge(phrase, 1, Integer::sum));
+        }
+
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : documentFrequency.entrySet()) {
+            if (entry.getValue() > 1) {
+                ranked.add(entry);
+            }
+        }
+        ranked.sort(Comparator.comparingLong((Map.Entry<String, Integer> entry) -> score(entry)).reversed());
+
+        List<String> selected = new ArrayList<>();
+        int dictionaryBytes = 0;
+        for (Map.Entry<String, Integer> entry : ranked) {
+            String phrase = entry.getKey();
+            int phraseBytes = phrase.getBytes(StandardCharsets.UTF_8).length;
+            if (dictionaryBytes + phraseBytes > MAX_DICTIONARY_BYTES) {
+                break;
+            }
+            if (selected.stream().anyMatch(existing -> existing.contains(phrase))) {
+                continue;
+            }
+            selected.add(phrase);
+            dictionaryBytes += phraseBytes;
+        }
+        Collections.reverse(selected);
+        byte[] candidate = String.join("", selected).getBytes(StandardCharsets.UTF_8);
+
+        long sampleBytes = 0;
+        long withoutDictionary = 0;
+        long withCurrent = 0;
+        long withCandidate = 0;
+        byte[] current = TextCompressionCodec.currentDictionary();
+        for (String value : sample) {
+            byte[] plain = value.getBytes(StandardCharsets.UTF_8);
+            sampleBytes += plain.length;
+            withoutDictionary += TextCompressionCodec.deflate(plain, null).length;
+            withCurrent += TextCompressionCodec.deflate(plain, current).length;
+            withCandidate += TextCompressionCodec.deflate(plain, candidate).length;
+        }
+
+        return new TrainingResult(sample.size(), sampleBytes, withoutDictionary, withCurrent, withCandidate,
+                ratio(sampleBytes, withCurrent), ratio(sampleBytes, withCandidate), candidate.length,
+                new String(candidate, StandardCharsets.UTF_8));
+    }
+
+    private static long score(Map.Entry<String, Integer> entry) {
+        return (long) (entry.getValue() - 1) * entry.getKey().length();
+    }
+
+    private static double ratio(long plainBytes, long compressedBytes) {
+        return compressedBytes > 0 ? (double) plainBytes / compressedBytes : 0;
+    }
+
+    /**
+     * Candidate dictionary and its deflated sizes on the sample
+     */
+    @Data
+    @AllArgsConstructor
+    public static class TrainingResult {
+        private int sampleValues;
+        private long sampleBytes;
+        private long deflatedBytesWithoutDictionary;
+        private long deflatedBytesWithCurrentDictionary;
+        private long deflatedBytesWithCandidateDictionary;
+        private double currentRatio;
+        private double candidateRatio;
+        private int candidateDictionaryBytes;
+        private String candidateDictionary;
+    }
+}
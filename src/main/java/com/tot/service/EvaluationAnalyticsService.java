@@ -0,0 +1,289 @@
+package com.tot.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Aggregate questions over the evaluation history in the EvaluationColumnStore; never touches tot_logs.
+ *
+ * Each query splits the chunks in its time range into slices of at most SLICE_ROWS rows, scans the slices with
+ * a parallel stream and combines the per-slice partial results. Entries not yet exported (see the store's
+ * settle time) are not included.
+ */
+@Service
+public class EvaluationAnalyticsService {
+    private static final int SLICE_ROWS = 64 * 1024;
+
+    private final EvaluationColumnStore columnStore;
+
+    @Autowired
+    public EvaluationAnalyticsService(EvaluationColumnStore columnStore) {
+        this.columnStore = columnStore;
+    }
+
+    /**
+     * Count outcomes per tree
+     * @param start Start time (inclusive), or null for no lower bound
+     * @param end End time (inclusive), or null for no upper bound
+     * @return Hit rate of every tree with evaluations in the range, by tree ID
+     */
+    public AnalyticsResult<List<TreeHitRate>> getHitRates(LocalDateTime start, LocalDateTime end) {
+        long startedAt = System.nanoTime();
+        List<Slice> slices = slices(null, start, end);
+
+        Map<String, long[]> counts = slices.parallelStream()
+                .map(slice -> {
+                    Map<Integer, long[]> byCode = new HashMap<>();
+                    for (int row = slice.from(); row < slice.to(); row++) {
+                        byCode.computeIfAbsent(slice.chunk().treeCode(row), code -> new long[3])[slice.chunk().outcome(row)]++;
+                    }
+                    Map<String, long[]> byTree = new HashMap<>();
+                    byCode.forEach((code, outcomes) -> byTree.put(slice.chunk().tree(code), outcomes));
+                    return byTree;
+                })
+                .reduce(new HashMap<>(), EvaluationAnalyticsService::mergeCounts);
+
+        List<TreeHitRate> rates = new ArrayList<>();
+        counts.forEach((treeId, outcomes) -> {
+            long decisions = outcomes[EvaluationColumnChunk.TRUE] + outcomes[EvaluationColumnChunk.FALSE];
+            rates.add(new TreeHitRate(treeId, decisions + outcomes[EvaluationColumnChunk.ERROR],
+                    outcomes[EvaluationColumnChunk.TRUE], outcomes[EvaluationColumnChunk.FALSE],
+                    outcomes[EvaluationColumnChunk.ERROR],
+                    decisions > 0 ? (double) outcomes[EvaluationColumnChunk.TRUE] / decisions : 0));
+        });
+        rates.sort(Comparator.comparing(TreeHitRate::getTreeId));
+        return result(rates, slices, startedAt);
+    }
+
+    /**
+     * Count decision flips (a true decision followed by a false one, or the reverse) per tree; errors are skipped
+     * @param treeId ID of the tree, or null for all trees
+     * @param start Start time (inclusive), or null for no lower bound
+     * @param end End time (inclusive), or null for no upper bound
+     * @return Flips of every tree with decisions in the range, most flips first
+     */
+    public AnalyticsResult<List<TreeFlips>> getDecisionFlips(String treeId, LocalDateTime start, LocalDateTime end) {
+        long startedAt = System.nanoTime();
+        List<Slice> slices = slices(treeId, start, end);
+
+        // Slices are scanned in parallel; their partial results are combined in time order
+        List<Map<String, FlipState>> partials = slices.parallelStream()
+                .map(slice -> {
+                    Map<Integer, FlipState> byCode = new HashMap<>();
+                    int only = treeId == null ? -1 : slice.chunk().codeOf(treeId);
+                    for (int row = slice.from(); row < slice.to(); row++) {
+                        byte outcome = slice.chunk().outcome(row);
+                        int code = slice.chunk().treeCode(row);
+                        if (outcome == EvaluationColumnChunk.ERROR || (treeId != null && code != only)) {
+                            continue;
+                        }
+                        byCode.computeIfAbsent(code, c -> new FlipState()).add(outcome, slice.chunk().timeKey(row));
+                    }
+                    Map<String, FlipState> byTree = new HashMap<>();
+                    byCode.forEach((code, state) -> byTree.put(slice.chunk().tree(code), state));
+                    return byTree;
+                })
+                .toList();
+
+        Map<String, FlipState> combined = new HashMap<>();
+        for (Map<String, FlipState> partial : partials) {
+            partial.forEach((tree, state) -> combined.merge(tree, state, FlipState::followedBy));
+        }
+
+        List<TreeFlips> flips = new ArrayList<>();
+        combined.forEach((tree, state) -> flips.add(new TreeFlips(tree, state.decisions, state.flips,
+                state.lastFlipKey == Long.MIN_VALUE ? null : timestampOf(state.lastFlipKey),
+                state.last == EvaluationColumnChunk.TRUE)));
+        flips.sort(Comparator.comparingLong(TreeFlips::getFlips).reversed().thenComparing(TreeFlips::getTreeId));
+        return result(flips, slices, startedAt);
+    }
+
+    /**
+     * Compute evaluation latency percentiles over the evaluations with a measured latency
+     * @param treeId ID of the tree, or null for all trees
+     * @param start Start time (inclusive), or null for no lower bound
+     * @param end End time (inclusive), or null for no upper bound
+     * @return Latency percentiles in milliseconds
+     */
+    public AnalyticsResult<LatencyPercentiles> getLatencyPercentiles(String treeId, LocalDateTime start, LocalDateTime end) {
+        long startedAt = System.nanoTime();
+        List<Slice> slices = slices(treeId, start, end);
+
+        long[] latencies = slices.parallelStream()
+                .flatMapToLong(slice -> {
+                    int only = treeId == null ? -1 : slice.chunk().codeOf(treeId);
+                    return IntStream.range(slice.from(), slice.to())
+                            .filter(row -> treeId == null || slice.chunk().treeCode(row) == only)
+                            .mapToLong(row -> slice.chunk().latencyMs(row))
+                            .filter(latency -> latency >= 0);
+                })
+                .toArray();
+        Arrays.parallelSort(latencies);
+
+        LatencyPercentiles percentiles = new LatencyPercentiles(latencies.length,
+                latencies.length > 0 ? Arrays.stream(latencies).average().orElse(0) : 0,
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 95),
+                percentile(latencies, 99), latencies.length > 0 ? latencies[latencies.length - 1] : null);
+        return result(percentiles, slices, startedAt);
+    }
+
+    /**
+     * Split the chunks overlapping a time range into row ranges
+     */
+    private List<Slice> slices(String treeId, LocalDateTime start, LocalDateTime end) {
+        long startKey = start == null ? Long.MIN_VALUE : LogArchiveCodec.timeKey(start);
+        long endKey = end == null ? Long.MAX_VALUE : LogArchiveCodec.timeKey(end);
+        List<Slice> slices = new ArrayList<>();
+        for (EvaluationColumnChunk chunk : columnStore.getChunks()) {
+            if (chunk.lastTimeKey() < startKey || chunk.firstTimeKey() > endKey
+                    || (treeId != null && chunk.codeOf(treeId) < 0)) {
+                continue;
+            }
+            int from = start == null ? 0 : chunk.lowerBound(startKey);
+            int to = end == null ? chunk.rowCount() : chunk.upperBound(endKey);
+            for (int sliceFrom = from; sliceFrom < to; sliceFrom += SLICE_ROWS) {
+                slices.add(new Slice(chunk, sliceFrom, Math.min(sliceFrom + SLICE_ROWS, to)));
+            }
+        }
+        return slices;
+    }
+
+    private static Map<String, long[]> mergeCounts(Map<String, long[]> left, Map<String, long[]> right) {
+        Map<String, long[]> merged = new HashMap<>(left);
+        right.forEach((tree, outcomes) -> merged.merge(tree, outcomes, (a, b) -> {
+            long[] sum = new long[a.length];
+            for (int i = 0; i < a.length; i++) {
+                sum[i] = a[i] + b[i];
+            }
+            return sum;
+        }));
+        return merged;
+    }
+
+    private static Long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return null;
+        }
+        // Nearest-rank percentile
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static <T> AnalyticsResult<T> result(T value, List<Slice> slices, long startedAt) {
+        long rows = slices.stream().mapToLong(slice -> slice.to() - slice.from()).sum();
+        return new AnalyticsResult<>(value, rows, (System.nanoTime() - startedAt) / 1_000_000.0);
+    }
+
+    private static LocalDateTime timestampOf(long timeKey) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timeKey, 1_000_000_000L),
+                (int) Math.floorMod(timeKey, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private record Slice(EvaluationColumnChunk chunk, int from, int to) {
+    }
+
+    /**
+     * Decision sequence of one tree within a time-ordered run of rows
+     */
+    static final class FlipState {
+        byte first = -1;
+        byte last = -1;
+        long firstKey;
+        long decisions;
+        long flips;
+        long lastFlipKey = Long.MIN_VALUE;
+
+        void add(byte outcome, long timeKey) {
+            if (first < 0) {
+                first = outcome;
+                firstKey = timeKey;
+            } else if (outcome != last) {
+                flips++;
+                lastFlipKey = timeKey;
+            }
+            last = outcome;
+            decisions++;
+        }
+
+        /**
+         * Combine with the state of the rows that follow this run; a flip at the boundary happens at the first
+         * of the following rows
+         */
+        FlipState followedBy(FlipState next) {
+            FlipState combined = new FlipState();
+            combined.first = first;
+            combined.firstKey = firstKey;
+            combined.last = next.last;
+            combined.decisions = decisions + next.decisions;
+            boolean boundaryFlip = last != next.first;
+            combined.flips = flips + next.flips + (boundaryFlip ? 1 : 0);
+            combined.lastFlipKey = Math.max(lastFlipKey, Math.max(next.lastFlipKey, boundaryFlip ? next.firstKey : Long.MIN_VALUE));
+            return combined;
+        }
+    }
+
+    /**
+     * Query result with the number of scanned rows and the time the scan took
+     */
+    @Data
+    @AllArgsConstructor
+    public static class AnalyticsResult<T> {
+        private T result;
+        private long scannedRows;
+        private double elapsedMs;
+    }
+
+    /**
+     * Outcome counts of one tree; hitRate is the share of true decisions among true and false ones
+     */
+    @Data
+    @AllArgsConstructor
+    public static class TreeHitRate {
+        private String treeId;
+        private long evaluations;
+        private long trueCount;
+        private long falseCount;
+        private long errorCount;
+        private double hitRate;
+    }
+
+    /**
+     * Decision flips of one tree
+     */
+    @Data
+    @AllArgsConstructor
+    public static class TreeFlips {
+        private String treeId;
+        private long decisions;
+        private long flips;
+        private LocalDateTime lastFlipAt;
+        private boolean currentDecision;
+    }
+
+    /**
+     * Evaluation latency distribution in milliseconds
+     */
+    @Data
+    @AllArgsConstructor
+    public static class LatencyPercentiles {
+        private long count;
+        private double average;
+        private Long p50;
+        private Long p90;
+        private Long p95;
+        private Long p99;
+        private Long max;
+    }
+}
@@ -0,0 +1,321 @@
+package com.tot.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable columnar chunk of evaluation history, one primitive array per column.
+ *
+ * File layout (big endian, uncompressed so columns are read straight into arrays):
+ * <pre>
+ * int magic 'TOTC', short formatVersion, int rowCount
+ * int treeCount, string[treeCount]        tree dictionary
+ * byte outcomeCount, string[outcomeCount] outcome dictionary
+ * long[rowCount] timeKey     UTC epoch nanos (see LogArchiveCodec.timeKey), ascending
+ * int[rowCount]  tree        index into the tree dictionary
+ * byte[rowCount] outcome     index into the outcome dictionary
+ * long[rowCount] latencyMs   -1 when not measured
+ * string firstId, string lastId   ids of the first and last rows, for (timestamp, id) positions
+ * </pre>
+ * Strings are an int byte length followed by UTF-8 bytes.
+ */
+public final class EvaluationColumnChunk {
+    public static final int MAGIC = 0x544F5443; // "TOTC"
+    public static final short FORMAT_VERSION = 1;
+
+    /** Outcome dictionary; the index is the stored outcome code */
+    public static final List<String> OUTCOMES = List.of(
+            ValidationRollupService.OUTCOME_TRUE, ValidationRollupService.OUTCOME_FALSE, ValidationRollupService.OUTCOME_ERROR);
+    public static final byte TRUE = 0;
+    public static final byte FALSE = 1;
+    public static final byte ERROR = 2;
+
+    private final String[] trees;
+    private final long[] timeKeys;
+    private final int[] treeCodes;
+    private final byte[] outcomes;
+    private final long[] latencies;
+    private final String firstId;
+    private final String lastId;
+
+    private EvaluationColumnChunk(String[] trees, long[] timeKeys, int[] treeCodes, byte[] outcomes, long[] latencies,
+                                  String firstId, String lastId) {
+        this.trees = trees;
+        this.timeKeys = timeKeys;
+        this.treeCodes = treeCodes;
+        this.outcomes = outcomes;
+        this.latencies = latencies;
+        this.firstId = firstId;
+        this.lastId = lastId;
+    }
+
+    public int rowCount() {
+        return timeKeys.length;
+    }
+
+    public long timeKey(int row) {
+        return timeKeys[row];
+    }
+
+    public int treeCode(int row) {
+        return treeCodes[row];
+    }
+
+    public byte outcome(int row) {
+        return outcomes[row];
+    }
+
+    /**
+     * @return Latency of a row in milliseconds, or -1 when not measured
+     */
+    public long latencyMs(int row) {
+        return latencies[row];
+    }
+
+    public String tree(int code) {
+        return trees[code];
+    }
+
+    public int treeCount() {
+        return trees.length;
+    }
+
+    /**
+     * @return Dictionary code of a tree, or -1 when the chunk has no rows for it
+     */
+    public int codeOf(String treeId) {
+        for (int i = 0; i < trees.length; i++) {
+            if (trees[i].equals(treeId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long firstTimeKey() {
+        return timeKeys[0];
+    }
+
+    public long lastTimeKey() {
+        return timeKeys[timeKeys.length - 1];
+    }
+
+    public String firstId() {
+        return firstId;
+    }
+
+    public String lastId() {
+        return lastId;
+    }
+
+    /**
+     * @return First row with a time key at or after the given key (rowCount when there is none)
+     */
+    public int lowerBound(long timeKey) {
+        int index = Arrays.binarySearch(timeKeys, timeKey);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && timeKeys[index - 1] == timeKey) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * @return First row with a time key after the given key (rowCount when there is none)
+     */
+    public int upperBound(long timeKey) {
+        int index = Arrays.binarySearch(timeKeys, timeKey);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index < timeKeys.length && timeKeys[index] == timeKey) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @return Approximate size of the chunk file in bytes
+     */
+    public long sizeBytes() {
+        long dictionary = 0;
+        for (String tree : trees) {
+            dictionary += 4 + tree.length();
+        }
+        return 10 + 4 + dictionary + (long) rowCount() * (8 + 4 + 1 + 8);
+    }
+
+    /**
+     * Write the chunk in the file layout above
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeInt(rowCount());
+        out.writeInt(trees.length);
+        for (String tree : trees) {
+            writeString(out, tree);
+        }
+        out.writeByte(OUTCOMES.size());
+        for (String outcome : OUTCOMES) {
+            writeString(out, outcome);
+        }
+        for (long timeKey : timeKeys) {
+            out.writeLong(timeKey);
+        }
+        for (int treeCode : treeCodes) {
+            out.writeInt(treeCode);
+        }
+        out.write(outcomes);
+        for (long latency : latencies) {
+            out.writeLong(latency);
+        }
+        writeString(out, firstId);
+        writeString(out, lastId);
+        out.flush();
+    }
+
+    /**
+     * Read a chunk written by writeTo
+     */
+    public static EvaluationColumnChunk read(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not an evaluation column chunk");
+        }
+        short version = in.getShort();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported evaluation column chunk version: " + version);
+        }
+
+        int rows = in.getInt();
+        String[] trees = new String[in.getInt()];
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = readString(in);
+        }
+        // Map the stored outcome dictionary onto ours, so outcome codes are comparable across chunks
+        byte[] outcomeMapping = new byte[in.get()];
+        for (int i = 0; i < outcomeMapping.length; i++) {
+            int code = OUTCOMES.indexOf(readString(in));
+            outcomeMapping[i] = code < 0 ? FALSE : (byte) code;
+        }
+
+        long[] timeKeys = new long[rows];
+        in.asLongBuffer().get(timeKeys);
+        in.position(in.position() + rows * 8);
+        int[] treeCodes = new int[rows];
+        in.asIntBuffer().get(treeCodes);
+        in.position(in.position() + rows * 4);
+        byte[] outcomes = new byte[rows];
+        in.get(outcomes);
+        for (int i = 0; i < rows; i++) {
+            outcomes[i] = outcomeMapping[outcomes[i]];
+        }
+        long[] latencies = new long[rows];
+        in.asLongBuffer().get(latencies);
+        in.position(in.position() + rows * 8);
+        String firstId = readString(in);
+        String lastId = readString(in);
+        return new EvaluationColumnChunk(trees, timeKeys, treeCodes, outcomes, latencies, firstId, lastId);
+    }
+
+    /**
+     * Concatenate consecutive chunks into one
+     * @param chunks Chunks in time order
+     */
+    public static EvaluationColumnChunk merge(List<EvaluationColumnChunk> chunks) {
+        Builder builder = new Builder();
+        for (EvaluationColumnChunk chunk : chunks) {
+            for (int row = 0; row < chunk.rowCount(); row++) {
+                builder.add(chunk.timeKeys[row], chunk.trees[chunk.treeCodes[row]], chunk.outcomes[row], chunk.latencies[row]);
+            }
+        }
+        builder.firstId = chunks.get(0).firstId;
+        builder.lastId = chunks.get(chunks.size() - 1).lastId;
+        return builder.build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Accumulates rows in (timestamp, id) order and dictionary-encodes their trees
+     */
+    public static final class Builder {
+        private final Map<String, Integer> treeCodes = new HashMap<>();
+        private final List<String> trees = new ArrayList<>();
+        private long[] timeKeys = new long[1024];
+        private int[] codes = new int[1024];
+        private byte[] outcomes = new byte[1024];
+        private long[] latencies = new long[1024];
+        private int size;
+        private String firstId;
+        private String lastId;
+
+        /**
+         * Add an evaluation
+         * @param id ID of the log entry
+         * @param treeId ID of the tree
+         * @param outcome "TRUE", "FALSE" or "ERROR" (see ValidationRollupService.classify)
+         * @param latencyMs Evaluation latency, or null when not measured
+         * @param timeKey Time key of the log entry's timestamp
+         */
+        public void add(String id, String treeId, String outcome, Long latencyMs, long timeKey) {
+            int code = OUTCOMES.indexOf(outcome);
+            add(timeKey, treeId, code < 0 ? FALSE : (byte) code, latencyMs == null ? -1 : latencyMs);
+            if (firstId == null) {
+                firstId = id;
+            }
+            lastId = id;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public EvaluationColumnChunk build() {
+            return new EvaluationColumnChunk(trees.toArray(new String[0]), Arrays.copyOf(timeKeys, size),
+                    Arrays.copyOf(codes, size), Arrays.copyOf(outcomes, size), Arrays.copyOf(latencies, size),
+                    firstId, lastId);
+        }
+
+        private void add(long timeKey, String treeId, byte outcome, long latencyMs) {
+            if (size == timeKeys.length) {
+                int capacity = size * 2;
+                timeKeys = Arrays.copyOf(timeKeys, capacity);
+                codes = Arrays.copyOf(codes, capacity);
+                outcomes = Arrays.copyOf(outcomes, capacity);
+                latencies = Arrays.copyOf(latencies, capacity);
+            }
+            timeKeys[size] = timeKey;
+            codes[size] = treeCodes.computeIfAbsent(treeId == null ? "" : treeId, tree -> {
+                trees.add(tree);
+                return trees.size() - 1;
+            });
+            outcomes[size] = outcome;
+            latencies[size] = latencyMs;
+            size++;
+        }
+    }
+}
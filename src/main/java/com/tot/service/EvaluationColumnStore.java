@@ -0,0 +1,363 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.repository.TotLogOutcome;
+import com.tot.repository.TotLogRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Periodically exports evaluation history into columnar chunk files (see EvaluationColumnChunk) for analytics.
+ *
+ * Each run exports the log entries after the last exported (timestamp, id) position, the watermark, which is the
+ * last row of the newest chunk. Entries younger than settleSeconds are left for the next run, so entries still
+ * queued in the log backend are not skipped. Rows can commit after newer rows were exported, so chunks are cut at
+ * the start of the trailing rescanSeconds window and each run exports the chunks reaching into that window again;
+ * rows committed more than rescanSeconds after their timestamp may be missed. The first run also exports the
+ * log archive. All chunks are kept in memory in time order; when there are more than maxChunks, the last run of
+ * small chunks before the rescan window is merged into one.
+ */
+@Component
+public class EvaluationColumnStore {
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationColumnStore.class);
+
+    private static final String FILE_PREFIX = "evaluations-";
+    private static final String FILE_SUFFIX = ".col";
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TotLogRepository totLogRepository;
+    private final LogArchive logArchive;
+
+    @Value("${tot.analytics.export.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tot.analytics.export.dir:data/analytics}")
+    private String exportDir;
+
+    @Value("${tot.analytics.export.settle-seconds:60}")
+    private int settleSeconds;
+
+    @Value("${tot.analytics.export.rescan-seconds:900}")
+    private int rescanSeconds;
+
+    @Value("${tot.analytics.export.chunk-rows:100000}")
+    private int chunkRows;
+
+    @Value("${tot.analytics.export.max-chunks:32}")
+    private int maxChunks;
+
+    private Path directory;
+    private final List<StoredChunk> chunks = new CopyOnWriteArrayList<>();
+    private long nextSequence = 1;
+
+    @Autowired
+    public EvaluationColumnStore(TotLogRepository totLogRepository, LogArchive logArchive) {
+        this.totLogRepository = totLogRepository;
+        this.logArchive = logArchive;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = Paths.get(exportDir);
+        Files.createDirectories(directory);
+
+        List<StoredChunk> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(EvaluationColumnStore::isChunkFile).toList()) {
+                found.add(new StoredChunk(path, sequenceOf(path), EvaluationColumnChunk.read(Files.readAllBytes(path))));
+            }
+        }
+
+        // A merged chunk is written before its sources are deleted; sources it covers are leftovers of an interrupted merge
+        found.sort(Comparator.comparingLong((StoredChunk stored) -> stored.chunk().firstTimeKey())
+                .thenComparing(stored -> stored.chunk().firstId())
+                .thenComparing(Comparator.comparingLong(StoredChunk::sequence).reversed()));
+        for (StoredChunk stored : found) {
+            nextSequence = Math.max(nextSequence, stored.sequence() + 1);
+            StoredChunk previous = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (previous != null && compare(stored.chunk().lastTimeKey(), stored.chunk().lastId(),
+                    previous.chunk().lastTimeKey(), previous.chunk().lastId()) <= 0) {
+                Files.deleteIfExists(stored.path());
+                continue;
+            }
+            chunks.add(stored);
+        }
+        logger.info("Evaluation column store at {}: {} chunks, {} rows", directory.toAbsolutePath(), chunks.size(),
+                chunks.stream().mapToLong(stored -> stored.chunk().rowCount()).sum());
+    }
+
+    /**
+     * Export new log entries on the configured schedule
+     */
+    @Scheduled(fixedDelayString = "${tot.analytics.export.interval-ms:300000}",
+            initialDelayString = "${tot.analytics.export.initial-delay-ms:60000}")
+    public void exportScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            export();
+        } catch (Exception e) {
+            logger.error("Evaluation export failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Export every settled log entry after the watermark, and again the entries of the rescan window
+     * @return Number of rows added to the store
+     */
+    public synchronized long export() throws IOException {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(settleSeconds);
+        long boundary = LogArchiveCodec.timeKey(before.minusSeconds(rescanSeconds));
+
+        int tail = tailStart(boundary);
+        List<StoredChunk> replaced = List.copyOf(chunks.subList(tail, chunks.size()));
+        StoredChunk kept = tail == 0 ? null : chunks.get(tail - 1);
+        // Deleted before they are written again: after a crash the next run exports them from the database
+        for (StoredChunk stored : replaced) {
+            Files.deleteIfExists(stored.path());
+        }
+
+        ChunkWriter writer = kept == null ? new ChunkWriter(boundary, MIN_TIME, "")
+                : new ChunkWriter(boundary, timestampOf(kept.chunk().lastTimeKey()), kept.chunk().lastId());
+        if (kept == null) {
+            exportArchive(writer, before);
+        }
+        while (true) {
+            List<TotLogOutcome> page = totLogRepository.findOutcomePageAfter(before, writer.afterTimestamp(),
+                    writer.afterId(), Limit.of(chunkRows));
+            for (TotLogOutcome outcome : page) {
+                writer.add(outcome.id(), outcome.treeId(),
+                        ValidationRollupService.classify(outcome.validationResult(), outcome.validationCriteria()),
+                        outcome.latencyMs(), outcome.timestamp());
+            }
+            if (page.size() < chunkRows) {
+                break;
+            }
+        }
+        writer.flush();
+
+        chunks.removeAll(replaced);
+        chunks.addAll(writer.stored());
+        compact(boundary);
+
+        long exported = writer.rows() - replaced.stream().mapToLong(stored -> stored.chunk().rowCount()).sum();
+        if (exported > 0) {
+            logger.info("Exported {} evaluations to the column store", exported);
+        }
+        return exported;
+    }
+
+    /**
+     * @return Chunks in time order
+     */
+    public List<EvaluationColumnChunk> getChunks() {
+        return chunks.stream().map(StoredChunk::chunk).toList();
+    }
+
+    /**
+     * @return Size of the store and its watermark
+     */
+    public StoreStats getStats() {
+        long rows = 0;
+        long bytes = 0;
+        for (StoredChunk stored : chunks) {
+            rows += stored.chunk().rowCount();
+            bytes += stored.chunk().sizeBytes();
+        }
+        StoredChunk last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        return new StoreStats(directory.toAbsolutePath().toString(), chunks.size(), rows, bytes,
+                last == null ? null : timestampOf(last.chunk().lastTimeKey()),
+                last == null ? null : last.chunk().lastId());
+    }
+
+    private void exportArchive(ChunkWriter writer, LocalDateTime before) throws IOException {
+        try {
+            logArchive.forEachInRange(MIN_TIME, before, (TotLog log) -> {
+                try {
+                    writer.add(log.getId(), log.getTreeId(),
+                            ValidationRollupService.classify(log.getValidationResult(), log.getValidationCriteria()),
+                            log.getLatencyMs(), log.getTimestamp());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return Index of the first chunk reaching into the rescan window
+     */
+    private int tailStart(long boundary) {
+        int tail = chunks.size();
+        while (tail > 0 && chunks.get(tail - 1).chunk().lastTimeKey() >= boundary) {
+            tail--;
+        }
+        return tail;
+    }
+
+    /**
+     * Merge the last run of chunks smaller than chunkRows before the rescan window when there are too many chunks
+     */
+    private void compact(long boundary) throws IOException {
+        if (chunks.size() <= maxChunks) {
+            return;
+        }
+        int to = tailStart(boundary);
+        int from = to;
+        while (from > 0 && chunks.get(from - 1).chunk().rowCount() < chunkRows) {
+            from--;
+        }
+        List<StoredChunk> small = new ArrayList<>(chunks.subList(from, to));
+        if (small.size() < 2) {
+            return;
+        }
+
+        EvaluationColumnChunk merged = EvaluationColumnChunk.merge(small.stream().map(StoredChunk::chunk).toList());
+        StoredChunk stored = store(merged);
+        List<StoredChunk> replaced = new ArrayList<>(chunks.subList(0, from));
+        replaced.add(stored);
+        replaced.addAll(chunks.subList(to, chunks.size()));
+        chunks.clear();
+        chunks.addAll(replaced);
+        for (StoredChunk source : small) {
+            Files.deleteIfExists(source.path());
+        }
+        logger.debug("Merged {} evaluation chunks into {}", small.size(), stored.path().getFileName());
+    }
+
+    /**
+     * Write a chunk file; it only appears under its final name once complete
+     */
+    private StoredChunk store(EvaluationColumnChunk chunk) throws IOException {
+        long sequence = nextSequence++;
+        Path path = directory.resolve(String.format("%s%010d%s", FILE_PREFIX, sequence, FILE_SUFFIX));
+        Path temporary = directory.resolve(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            chunk.writeTo(out);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        return new StoredChunk(path, sequence, chunk);
+    }
+
+    private static boolean isChunkFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new UncheckedIOException(new IOException("Unexpected file in evaluation column store: " + name));
+        }
+    }
+
+    private static int compare(long timeKey, String id, long otherTimeKey, String otherId) {
+        int byTime = Long.compare(timeKey, otherTimeKey);
+        return byTime != 0 ? byTime : id.compareTo(otherId);
+    }
+
+    private static LocalDateTime timestampOf(long timeKey) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timeKey, 1_000_000_000L),
+                (int) Math.floorMod(timeKey, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private record StoredChunk(Path path, long sequence, EvaluationColumnChunk chunk) {
+    }
+
+    /**
+     * Writes rows in (timestamp, id) order as chunk files of up to chunkRows rows as soon as they fill, and starts a
+     * new chunk at the rescan window so the next run only exports the window again
+     */
+    private final class ChunkWriter {
+        private final long boundary;
+        private final List<StoredChunk> stored = new ArrayList<>();
+        private EvaluationColumnChunk.Builder builder = new EvaluationColumnChunk.Builder();
+        private LocalDateTime afterTimestamp;
+        private String afterId;
+        private long lastTimeKey = Long.MIN_VALUE;
+        private long rows;
+
+        ChunkWriter(long boundary, LocalDateTime afterTimestamp, String afterId) {
+            this.boundary = boundary;
+            this.afterTimestamp = afterTimestamp;
+            this.afterId = afterId;
+        }
+
+        void add(String id, String treeId, String outcome, Long latencyMs, LocalDateTime timestamp) throws IOException {
+            long timeKey = LogArchiveCodec.timeKey(timestamp);
+            if (builder.size() == chunkRows || (lastTimeKey < boundary && timeKey >= boundary)) {
+                flush();
+            }
+            builder.add(id, treeId, outcome, latencyMs, timeKey);
+            lastTimeKey = timeKey;
+            afterTimestamp = timestamp;
+            afterId = id;
+        }
+
+        void flush() throws IOException {
+            if (builder.size() > 0) {
+                stored.add(store(builder.build()));
+                rows += builder.size();
+                builder = new EvaluationColumnChunk.Builder();
+            }
+        }
+
+        LocalDateTime afterTimestamp() {
+            return afterTimestamp;
+        }
+
+        String afterId() {
+            return afterId;
+        }
+
+        List<StoredChunk> stored() {
+            return stored;
+        }
+
+        long rows() {
+            return rows;
+        }
+    }
+
+    /**
+     * Column store size summary
+     */
+    @Data
+    @AllArgsConstructor
+    public static class StoreStats {
+        private String directory;
+        private int chunks;
+        private long rows;
+        private long bytes;
+        private LocalDateTime watermarkTimestamp;
+        private String watermarkId;
+    }
+}
@@ -0,0 +1,182 @@
+package com.tot.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs tree evaluations as background jobs, so callers get a job id at once instead of holding a request thread
+ * through the tree load, stock enrichment and LLM call.
+ *
+ * Jobs run on the evaluationJobExecutor and are kept in memory until ttlMinutes after they finish. The store holds at
+ * most maxJobs jobs; when it is full the oldest finished job is dropped, and a submission is rejected if every job is
+ * still pending or running. Jobs do not survive a restart.
+ */
+@Service
+public class EvaluationJobService {
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationJobService.class);
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+
+    private final ActionService actionService;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${tot.jobs.max-jobs:1000}")
+    private int maxJobs;
+
+    @Value("${tot.jobs.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EvaluationJobService(ActionService actionService,
+                                @Qualifier("evaluationJobExecutor") ThreadPoolTaskExecutor executor) {
+        this.actionService = actionService;
+        this.executor = executor;
+    }
+
+    /**
+     * Submit an evaluation of a tree
+     * @param treeId ID of the tree
+     * @param comparisonDays Number of days back to compare
+     * @return Status of the new job
+     * @throws IllegalArgumentException If comparisonDays is out of range
+     * @throws RejectedExecutionException If the job store or the executor is full
+     */
+    public JobStatus submit(String treeId, int comparisonDays) {
+        if (comparisonDays < 1 || comparisonDays > 365) {
+            throw new IllegalArgumentException("comparisonDays must be between 1 and 365");
+        }
+        makeRoom();
+
+        Job job = new Job(UUID.randomUUID().toString(), treeId, comparisonDays, LocalDateTime.now());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RejectedExecutionException("Too many evaluation jobs in progress, try again later", e);
+        }
+        logger.info("Submitted evaluation job {} for treeId {} with {}-day comparison", job.id, treeId, comparisonDays);
+        return job.status();
+    }
+
+    /**
+     * @return Current status of a job, or empty if it is unknown or expired
+     */
+    public Optional<JobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+    }
+
+    /**
+     * @return Future completed with the final status of a job, or empty if it is unknown or expired
+     */
+    public Optional<CompletableFuture<JobStatus>> getCompletion(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(job -> job.completion);
+    }
+
+    /**
+     * Drop finished jobs older than the TTL
+     */
+    @Scheduled(fixedDelayString = "${tot.jobs.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private void run(Job job) {
+        job.state = RUNNING;
+        job.startedAt = LocalDateTime.now();
+        try {
+            job.result = actionService.executeActionForTreeWithHistoricalComparison(job.treeId, job.comparisonDays);
+            job.state = SUCCEEDED;
+        } catch (Exception e) {
+            logger.error("Evaluation job {} for treeId {} failed: {}", job.id, job.treeId, e.getMessage(), e);
+            job.error = e.getMessage();
+            job.state = FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.completion.complete(job.status());
+        }
+    }
+
+    /**
+     * Keep the store below maxJobs by dropping expired, then the oldest finished, jobs
+     */
+    private synchronized void makeRoom() {
+        if (jobs.size() < maxJobs) {
+            return;
+        }
+        purgeExpired();
+        while (jobs.size() >= maxJobs) {
+            Optional<Job> oldestFinished = jobs.values().stream()
+                    .filter(job -> job.finishedAt != null)
+                    .min(Comparator.comparing((Job job) -> job.finishedAt));
+            if (oldestFinished.isEmpty()) {
+                throw new RejectedExecutionException("Too many evaluation jobs in progress, try again later");
+            }
+            jobs.remove(oldestFinished.get().id);
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String treeId;
+        private final int comparisonDays;
+        private final LocalDateTime submittedAt;
+        private final CompletableFuture<JobStatus> completion = new CompletableFuture<>();
+        private volatile String state = PENDING;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String result;
+        private volatile String error;
+
+        private Job(String id, String treeId, int comparisonDays, LocalDateTime submittedAt) {
+            this.id = id;
+            this.treeId = treeId;
+            this.comparisonDays = comparisonDays;
+            this.submittedAt = submittedAt;
+        }
+
+        private JobStatus status() {
+            return new JobStatus(id, treeId, comparisonDays, state, result, error, submittedAt, startedAt, finishedAt);
+        }
+    }
+
+    /**
+     * Snapshot of a job
+     */
+    @Data
+    @AllArgsConstructor
+    public static class JobStatus {
+        private String jobId;
+        private String treeId;
+        private int comparisonDays;
+        private String status;
+        private String result;
+        private String error;
+        private LocalDateTime submittedAt;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+    }
+}
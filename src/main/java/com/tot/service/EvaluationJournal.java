@@ -0,0 +1,497 @@
+package com.tot.service;
+
+import com.tot.entity.JournalCheckpoint;
+import com.tot.entity.TotLog;
+import com.tot.repository.JournalCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal log backend ("journal"): evaluation entries are appended to memory-mapped segment files and
+ * materialized into the relational tables by a background indexer.
+ *
+ * Each record is {int payloadLength, long sequence, int crc32(payload), payload}, where the payload is a
+ * LogArchiveCodec record. Segments are preallocated, so a zero length marks the end of the written part.
+ * Mapped pages are forced to disk every fsyncInterval milliseconds and when a segment fills up.
+ * On startup every segment is scanned and stops at the first torn or corrupt record; the indexer then
+ * resumes after the sequence number stored in tot_journal_checkpoint, which LogBatchPersister updates in
+ * the same transaction as the rows it writes. Fully indexed segments are deleted, and so are recovered segments
+ * that hold no records, before the new active segment (which may have the same name) is created.
+ * A record that still fails to index after maxIndexAttempts attempts (not counting failures to reach the
+ * database) is appended to dead-letter.log, in the same
+ * record format, and skipped so it cannot stall the indexer.
+ */
+@Component
+@ConditionalOnProperty(name = "tot.logs.backend", havingValue = "journal")
+public class EvaluationJournal implements EvaluationLogSink {
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationJournal.class);
+
+    private static final int HEADER_BYTES = 4 + 8 + 4;
+    private static final String FILE_PREFIX = "journal-";
+    private static final String FILE_SUFFIX = ".log";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+    private static final String CHECKPOINT_NAME = "evaluation-journal";
+
+    private final LogBatchPersister logBatchPersister;
+    private final JournalCheckpointRepository checkpointRepository;
+
+    @Value("${tot.logs.journal.dir:data/journal}")
+    private String journalDir;
+
+    @Value("${tot.logs.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${tot.logs.journal.fsync-interval-ms:100}")
+    private long fsyncIntervalMs;
+
+    @Value("${tot.logs.journal.index-batch-size:500}")
+    private int indexBatchSize;
+
+    @Value("${tot.logs.journal.index-interval-ms:200}")
+    private long indexIntervalMs;
+
+    @Value("${tot.logs.journal.max-index-attempts:5}")
+    private int maxIndexAttempts;
+
+    private Path directory;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private volatile Segment active; // Written under the journal's lock
+    private long lastSequence; // Guarded by the journal's lock
+    private volatile long indexedSequence;
+
+    private ScheduledExecutorService flusher;
+    private Thread indexer;
+    private volatile boolean running;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong appendNanos = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private long recoveredRecords;
+
+    @Autowired
+    public EvaluationJournal(LogBatchPersister logBatchPersister, JournalCheckpointRepository checkpointRepository) {
+        this.logBatchPersister = logBatchPersister;
+        this.checkpointRepository = checkpointRepository;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = Paths.get(journalDir);
+        Files.createDirectories(directory);
+        indexedSequence = checkpointRepository.findById(CHECKPOINT_NAME)
+                .map(JournalCheckpoint::getLastSequence)
+                .orElse(0L);
+
+        recover();
+        synchronized (this) {
+            lastSequence = Math.max(lastSequence, indexedSequence);
+            active = createSegment(lastSequence + 1);
+        }
+
+        running = true;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "tot-journal-fsync"));
+        flusher.scheduleWithFixedDelay(this::force, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        indexer = new Thread(this::runIndexer, "tot-journal-indexer");
+        indexer.start();
+
+        logger.info("Evaluation journal at {}: {} records recovered, resuming indexing after sequence {}",
+                directory.toAbsolutePath(), recoveredRecords, indexedSequence);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        indexer.interrupt();
+        indexer.join(TimeUnit.SECONDS.toMillis(30));
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        force();
+        logger.info("Evaluation journal closed at sequence {} (indexed up to {})", lastSequence, indexedSequence);
+    }
+
+    /**
+     * Append a log entry to the journal; it is written to tot_logs by the indexer
+     * @param logEntry Entry to append; its timestamp is set now if missing
+     */
+    @Override
+    public void append(TotLog logEntry) {
+        long startedAt = System.nanoTime();
+        if (logEntry.getTimestamp() == null) {
+            logEntry.setTimestamp(LocalDateTime.now());
+        }
+
+        byte[] payload = encode(logEntry);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes()) {
+            throw new IllegalArgumentException("Log entry of " + payload.length + " bytes does not fit in a journal segment");
+        }
+
+        synchronized (this) {
+            if (active.capacity() - active.writePosition < recordBytes) {
+                roll();
+            }
+            Segment segment = active;
+            int position = segment.writePosition;
+            long sequence = ++lastSequence;
+            segment.buffer.putInt(position, payload.length);
+            segment.buffer.putLong(position + 4, sequence);
+            segment.buffer.putInt(position + 12, (int) crc.getValue());
+            segment.buffer.put(position + HEADER_BYTES, payload);
+            segment.lastSequence = sequence;
+            segment.writePosition = position + recordBytes; // Publishes the record to the indexer
+        }
+
+        appended.incrementAndGet();
+        appendNanos.addAndGet(System.nanoTime() - startedAt);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long appendedCount = appended.get();
+        long last;
+        synchronized (this) {
+            last = lastSequence;
+        }
+        stats.put("backend", "journal");
+        stats.put("appended", appendedCount);
+        stats.put("written", logBatchPersister.getWrittenCount());
+        stats.put("failed", logBatchPersister.getFailedCount());
+        stats.put("lastSequence", last);
+        stats.put("indexedSequence", indexedSequence);
+        stats.put("indexLag", last - indexedSequence);
+        stats.put("segments", segments.size());
+        stats.put("fsyncs", fsyncs.get());
+        stats.put("recoveredRecords", recoveredRecords);
+        stats.put("deadLettered", deadLettered.get());
+        stats.put("averageAppendMicros", appendedCount > 0 ? appendNanos.get() / 1000.0 / appendedCount : 0);
+        return stats;
+    }
+
+    private void force() {
+        Segment segment = active;
+        if (segment != null) {
+            segment.buffer.force();
+            fsyncs.incrementAndGet();
+        }
+    }
+
+    /**
+     * Seal the active segment and start a new one; caller holds the journal's lock
+     */
+    private void roll() {
+        Segment previous = active;
+        previous.buffer.force();
+        fsyncs.incrementAndGet();
+        // The next segment is listed before the previous one is sealed, so the indexer always finds it
+        active = createSegment(lastSequence + 1);
+        previous.sealed = true;
+    }
+
+    private Segment createSegment(long firstSequence) {
+        Path path = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, firstSequence, FILE_SUFFIX));
+        for (Segment existing : segments) {
+            if (existing.path.equals(path)) {
+                throw new IllegalStateException("Journal segment " + path + " is already in use");
+            }
+        }
+        Segment segment = new Segment(path, map(path, segmentBytes()));
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Scan existing segments, stopping each at its first torn or corrupt record
+     */
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+            }).sorted().toList();
+        }
+
+        for (Path path : paths) {
+            Segment segment = new Segment(path, map(path, Files.size(path)));
+            int position = 0;
+            while (position + HEADER_BYTES <= segment.capacity()) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > segment.capacity()) {
+                    break;
+                }
+                long sequence = segment.buffer.getLong(position + 4);
+                byte[] payload = new byte[length];
+                segment.buffer.get(position + HEADER_BYTES, payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != segment.buffer.getInt(position + 12) || sequence <= lastSequence) {
+                    logger.warn("Journal segment {} has a torn record at offset {}, ignoring the rest", path.getFileName(), position);
+                    break;
+                }
+                lastSequence = sequence;
+                segment.lastSequence = sequence;
+                position += HEADER_BYTES + length;
+                recoveredRecords++;
+            }
+            if (position == 0) {
+                // Holds no records; its name may be the one the new active segment gets
+                Files.delete(path);
+                continue;
+            }
+            segment.writePosition = position;
+            segment.sealed = true; // New appends always go to a fresh segment
+            segments.add(segment);
+        }
+    }
+
+    private void runIndexer() {
+        Segment segment = segments.isEmpty() ? null : segments.get(0);
+        int position = 0;
+        long failingSequence = 0;
+        int attempts = 0;
+
+        while (running) {
+            Segment batchSegment = segment;
+            int batchPosition = position;
+            List<TotLog> batch = new ArrayList<>();
+            Map<TotLog, Long> sequences = new IdentityHashMap<>();
+            try {
+                while (batch.size() < indexBatchSize) {
+                    int end = segment.writePosition;
+                    if (position < end) {
+                        int length = segment.buffer.getInt(position);
+                        long sequence = segment.buffer.getLong(position + 4);
+                        if (sequence > indexedSequence) {
+                            byte[] payload = new byte[length];
+                            segment.buffer.get(position + HEADER_BYTES, payload);
+                            TotLog entry = decode(payload);
+                            batch.add(entry);
+                            sequences.put(entry, sequence);
+                        }
+                        position += HEADER_BYTES + length;
+                    } else if (segment.sealed && position >= segment.writePosition && nextSegment(segment) != null) {
+                        segment = nextSegment(segment);
+                        position = 0;
+                    } else {
+                        break; // Caught up with the writer
+                    }
+                }
+
+                if (batch.isEmpty()) {
+                    deleteIndexedSegments(segment);
+                    Thread.sleep(indexIntervalMs);
+                    continue;
+                }
+
+                // indexedSequence advances as each checkpoint commits; a failure leaves the rest for the retry below
+                logBatchPersister.persistOrThrow(batch, written -> saveCheckpoint(sequences.get(written.get(written.size() - 1))));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return; // Unindexed records stay in the journal and are indexed after restart
+            } catch (Exception e) {
+                // The entries before the failing one are committed, so it is the first one past indexedSequence
+                long committed = indexedSequence;
+                TotLog failedEntry = batch.stream()
+                        .filter(entry -> sequences.get(entry) > committed)
+                        .findFirst()
+                        .orElse(null);
+                long failed = failedEntry == null ? committed + 1 : sequences.get(failedEntry);
+                // Outages are retried for as long as they last; only failures of the record itself count
+                attempts = isUnavailable(e) ? 0 : failed == failingSequence ? attempts + 1 : 1;
+                failingSequence = failed;
+                segment = batchSegment;
+                position = batchPosition;
+
+                if (failedEntry != null && attempts >= maxIndexAttempts) {
+                    logger.error("Journal record {} failed to index {} times, moving it to {}: {}",
+                            failed, attempts, DEAD_LETTER_FILE, e.getMessage(), e);
+                    try {
+                        deadLetter(failed, failedEntry);
+                        continue;
+                    } catch (Exception deadLetterError) {
+                        logger.error("Could not dead-letter journal record {}: {}", failed, deadLetterError.getMessage());
+                    }
+                } else {
+                    logger.error("Journal indexer failed after sequence {} (attempt {}), retrying the rest of the batch: {}",
+                            indexedSequence, attempts, e.getMessage(), e);
+                }
+                try {
+                    Thread.sleep(indexIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private Segment nextSegment(Segment segment) {
+        int index = segments.indexOf(segment);
+        return index >= 0 && index + 1 < segments.size() ? segments.get(index + 1) : null;
+    }
+
+    /**
+     * Store the checkpoint in the current transaction; indexedSequence (and so segment deletion) only moves once it
+     * commits
+     */
+    private void saveCheckpoint(long sequence) {
+        checkpointRepository.save(new JournalCheckpoint(CHECKPOINT_NAME, sequence, LocalDateTime.now()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indexedSequence = sequence;
+            }
+        });
+    }
+
+    /**
+     * Append a record that cannot be indexed to the dead-letter file, then move the checkpoint past it
+     */
+    private void deadLetter(long sequence, TotLog entry) throws IOException {
+        byte[] payload = encode(entry);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length).putLong(sequence).putInt((int) crc.getValue()).put(payload);
+        record.flip();
+        try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(true);
+        }
+        checkpointRepository.save(new JournalCheckpoint(CHECKPOINT_NAME, sequence, LocalDateTime.now()));
+        indexedSequence = sequence;
+        deadLettered.incrementAndGet();
+    }
+
+    /**
+     * Whether a failure means the database could not be reached, rather than that the record could not be written
+     */
+    private static boolean isUnavailable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deleteIndexedSegments(Segment current) {
+        Segment writing = active;
+        for (Segment segment : segments) {
+            if (segment == current || segment == writing) {
+                return; // Only segments the indexer has moved past
+            }
+            if (segment.path.equals(writing.path)) {
+                continue;
+            }
+            if (segment.sealed && segment.lastSequence <= indexedSequence) {
+                segments.remove(segment);
+                try {
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete indexed journal segment {}: {}", segment.path, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private long segmentBytes() {
+        return segmentSizeMb * 1024L * 1024L;
+    }
+
+    private static MappedByteBuffer map(Path path, long size) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map journal segment " + path, e);
+        }
+    }
+
+    private static byte[] encode(TotLog logEntry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            LogArchiveCodec.writeRecord(out, logEntry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static TotLog decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return LogArchiveCodec.readRecord(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private volatile int writePosition;
+        private volatile long lastSequence;
+        private volatile boolean sealed;
+
+        private Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        private int capacity() {
+            return buffer.capacity();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+
+import java.util.Map;
+
+/**
+ * Backend that accepts evaluation log entries from LogService.
+ * Selected with tot.logs.backend: "jpa" (TotLogWriter), "journal" (EvaluationJournal) or "r2dbc" (R2dbcLogWriter).
+ */
+public interface EvaluationLogSink {
+
+    /**
+     * Accept a log entry; it reaches tot_logs asynchronously
+     * @param logEntry Entry with its timestamp set
+     */
+    void append(TotLog logEntry);
+
+    /**
+     * @return Backend name and throughput counters
+     */
+    Map<String, Object> getStats();
+}
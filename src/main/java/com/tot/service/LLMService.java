@@ -4,7 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  * Service for interacting with Language Learning Models using Perplexity API
@@ -15,22 +18,7 @@ public class LLMService {
     private final PerplexityService perplexityService;
     private final StockDataService stockDataService;
 
-    @Autowired
-    public LLMService(PerplexityService perplexityService, StockDataService stockDataService) {
-        this.perplexityService = perplexityService;
-        this.stockDataService = stockDataService;
-        logger.info("LLMService initialized with PerplexityService and StockDataService");
-    }
-
-    /**
-     * Generate a Tree of Thought structure in JSON format based on the given prompt
-     * @param prompt The prompt to generate a tree from
-     * @return JSON string representation of the generated tree
-     */
-    public String generateTreeOfThought(String prompt) {
-        logger.info("Generating Tree of Thought from prompt");
-
-        String systemPrompt = """
+    private static final String GENERATE_SYSTEM_PROMPT = """
             You are an expert in creating Tree of Thought (ToT) structures in JSON format using binary decision logic.
             
             Based on the user's prompt, create a comprehensive Tree of Thought structure that follows YES/NO decision patterns.
@@ -97,30 +85,7 @@ public class LLMService {
             Return ONLY the JSON array with the tree nodes, without any explanations or additional text.
         """;
 
-        try {
-            String response = perplexityService.generateCompletionWithSystem(systemPrompt, prompt);
-
-            // Clean up response to ensure it's valid JSON
-            response = cleanJsonResponse(response);
-            logger.debug("Generated tree JSON: {}", response);
-
-            return response;
-        } catch (Exception e) {
-            logger.error("Error generating tree: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to generate Tree of Thought", e);
-        }
-    }
-
-    /**
-     * Refine an existing Tree of Thought with the latest data and details based on a new prompt
-     * @param treeJson The JSON representation of the existing tree
-     * @param newPrompt The new prompt requirement to guide refinement
-     * @return JSON string representation of the refined tree
-     */
-    public String refineTreeOfThought(String treeJson, String newPrompt) {
-        logger.info("Refining existing Tree of Thought with new prompt");
-
-        String systemPrompt = """
+    private static final String REFINE_SYSTEM_PROMPT = """
         You are an expert in refining Tree of Thought (ToT) structures in JSON format using binary decision logic.
         
         You will be given an existing Tree of Thought structure and a new prompt requirement. Your task is to:
@@ -149,32 +114,7 @@ public class LLMService {
         Return the complete refined JSON array with all nodes, without any explanations or additional text.
     """;
 
-        String userPrompt = "Here is the existing Tree of Thought to refine:\n" + treeJson + "\n\nNew prompt requirement:\n" + newPrompt;
-
-        try {
-            String response = perplexityService.generateCompletionWithSystem(systemPrompt, userPrompt);
-
-            // Clean up response to ensure it's valid JSON
-            response = cleanJsonResponse(response);
-            logger.debug("Refined tree JSON: {}", response);
-
-            return response;
-        } catch (Exception e) {
-            logger.error("Error refining tree: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to refine Tree of Thought", e);
-        }
-    }
-
-    /**
-     * Validate a Tree of Thought structure using latest internet data with historical comparison
-     * @param treeJson JSON representation of the tree
-     * @return ValidationResult containing both decision and detailed criteria
-     */
-    public ValidationResult validateTreeWithCriteria(String treeJson) {
-        logger.info("Validating Tree of Thought with current data and historical comparison");
-
-        try {
-            String systemPrompt = """
+    private static final String CRITERIA_SYSTEM_PROMPT = """
                 You are evaluating a Tree of Thought decision structure with today's latest information compared to historical data.
                 
                 Your task: Run through this Tree of Thought and provide both a decision and comprehensive analysis that includes historical comparisons.
@@ -211,10 +151,69 @@ public class LLMService {
                 Focus on what has CHANGED rather than just current static values.
             """;
 
-            String userPrompt = "Run through this TOT and provide decision + detailed criteria analysis comparing today's data with historical trends:\n" + treeJson;
+    @Autowired
+    public LLMService(PerplexityService perplexityService, StockDataService stockDataService) {
+        this.perplexityService = perplexityService;
+        this.stockDataService = stockDataService;
+        logger.info("LLMService initialized with PerplexityService and StockDataService");
+    }
+
+    /**
+     * Generate a Tree of Thought structure in JSON format based on the given prompt
+     * @param prompt The prompt to generate a tree from
+     * @return JSON string representation of the generated tree
+     */
+    public String generateTreeOfThought(String prompt) {
+        logger.info("Generating Tree of Thought from prompt");
+
+        try {
+            String response = perplexityService.generateCompletionWithSystem(GENERATE_SYSTEM_PROMPT, prompt);
+
+            // Clean up response to ensure it's valid JSON
+            response = cleanJsonResponse(response);
+            logger.debug("Generated tree JSON: {}", response);
+
+            return response;
+        } catch (Exception e) {
+            logger.error("Error generating tree: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to generate Tree of Thought", e);
+        }
+    }
+
+    /**
+     * Refine an existing Tree of Thought with the latest data and details based on a new prompt
+     * @param treeJson The JSON representation of the existing tree
+     * @param newPrompt The new prompt requirement to guide refinement
+     * @return JSON string representation of the refined tree
+     */
+    public String refineTreeOfThought(String treeJson, String newPrompt) {
+        logger.info("Refining existing Tree of Thought with new prompt");
+
+        try {
+            String response = perplexityService.generateCompletionWithSystem(REFINE_SYSTEM_PROMPT, refineUserPrompt(treeJson, newPrompt));
+
+            // Clean up response to ensure it's valid JSON
+            response = cleanJsonResponse(response);
+            logger.debug("Refined tree JSON: {}", response);
+
+            return response;
+        } catch (Exception e) {
+            logger.error("Error refining tree: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to refine Tree of Thought", e);
+        }
+    }
+
+    /**
+     * Validate a Tree of Thought structure using latest internet data with historical comparison
+     * @param treeJson JSON representation of the tree
+     * @return ValidationResult containing both decision and detailed criteria
+     */
+    public ValidationResult validateTreeWithCriteria(String treeJson) {
+        logger.info("Validating Tree of Thought with current data and historical comparison");
 
+        try {
             logger.debug("Sending historical comparison validation request to Perplexity");
-            String response = perplexityService.generateCompletionWithSystem(systemPrompt, userPrompt);
+            String response = perplexityService.generateCompletionWithSystem(CRITERIA_SYSTEM_PROMPT, criteriaUserPrompt(treeJson));
 
             // Parse the response to extract decision and criteria
             return parseValidationResponse(response);
@@ -232,67 +231,29 @@ public class LLMService {
      * @return ValidationResult containing both decision and detailed criteria
      */
     public ValidationResult validateTreeWithHistoricalComparison(String treeJson, int comparisonDays) {
+        return validateTreeWithHistoricalComparison(treeJson, comparisonDays, Map.of());
+    }
+
+    /**
+     * Validate a Tree of Thought structure with specific historical comparison period, using prefetched market data
+     * @param treeJson JSON representation of the tree
+     * @param comparisonDays Number of days back to compare
+     * @param marketData Stock data by symbol from StockDataService.fetchMarketData; missing symbols are fetched
+     * @return ValidationResult containing both decision and detailed criteria
+     */
+    public ValidationResult validateTreeWithHistoricalComparison(String treeJson, int comparisonDays,
+                                                                 Map<String, StockDataService.SymbolData> marketData) {
         logger.info("Validating Tree of Thought with {}-day historical comparison", comparisonDays);
 
         try {
-            String timeframe = switch (comparisonDays) {
-                case 1 -> "yesterday";
-                case 7 -> "last week (7 days ago)";
-                case 30 -> "last month (30 days ago)";
-                default -> comparisonDays + " days ago";
-            };
-
-            String systemPrompt = String.format("""
-                You are evaluating a Tree of Thought decision structure with today's latest information compared to data from %s.
-                
-                CRITICAL: You MUST systematically walk through the provided Tree of Thought structure node by node. DO NOT perform general self-analysis or commentary. You must follow the tree's decision logic exactly.
-                
-                Your task: Execute the Tree of Thought step-by-step and provide both a decision and comprehensive analysis that focuses on changes over the %d-day period.
-                
-                Instructions:
-                1. START with the root node of the provided Tree of Thought JSON structure
-                2. Evaluate EACH node's specific criteria using real-time information and current data
-                3. For each node evaluation, compare today's data specifically with end-of-day data from %s (use closing prices, final daily values, and end-of-day metrics whenever possible)
-                4. Based on the criteria evaluation, follow the tree's children mapping to the next node (e.g., if criteria is met, go to "yes" branch, otherwise "no" branch)
-                5. Continue traversing through each node until you reach a leaf node (node with no children)
-                6. Calculate percentage changes and identify trends over this %d-day period using day-end data points for each node's criteria
-                7. The final leaf node determines your decision outcome - provide detailed reasoning for each step of the tree traversal
-                
-                MANDATORY TREE TRAVERSAL FORMAT:
-                Start with: "TREE TRAVERSAL:"
-                For each node visited, document:
-                - Node ID: [nodeId]
-                - Content: [node content]
-                - Criteria: [node criteria]
-                - Current Data: [relevant current data for evaluation]
-                - Historical Data (%s): [relevant historical data]
-                - Evaluation Result: [met/not met with reasoning]
-                - Next Node: [which child node to follow]
-                
-                Response format: 
-                DECISION: true|false
-                CRITERIA: [Provide comprehensive analysis including:
-                - Step-by-step tree traversal results (not general analysis)
-                - Today's current values vs %s end-of-day values for each evaluated node
-                - Exact percentage changes over %d days (using closing/end-of-day data) for each node's criteria
-                - Direction of trend (improving/declining/stable) based on day-end comparisons for each decision point
-                - Momentum analysis (accelerating/decelerating changes) using daily closing data for each node
-                - Significant events that occurred during this %d-day period relevant to each node's criteria
-                - Market sentiment evolution over this timeframe using end-of-day indicators for each evaluation
-                - Final decision path taken through the tree with supporting data
-                This %d-day comparison data will be used for future tree refinement and trend analysis.]
-                
-                REMEMBER: Follow the tree structure exactly. Do not skip nodes or make assumptions. Evaluate each node's criteria methodically using end-of-day data comparisons.
-                """, timeframe, comparisonDays, timeframe, comparisonDays, timeframe, timeframe, comparisonDays, comparisonDays, comparisonDays);
-
-            String userPrompt = String.format("Run through this TOT and provide decision + detailed criteria analysis comparing today's data with data from %s (%d days ago):\n%s", 
-                timeframe, comparisonDays, treeJson);
+            String systemPrompt = historicalSystemPrompt(comparisonDays);
+            String userPrompt = historicalUserPrompt(treeJson, comparisonDays);
 
             // Enrich prompt with real stock data if stock criteria detected
             boolean stockDataEnriched = false;
             if (stockDataService.containsStockCriteria(treeJson)) {
                 logger.info("Stock criteria detected, enriching prompt with real market data");
-                userPrompt = stockDataService.enrichPromptWithStockData(userPrompt, treeJson, comparisonDays);
+                userPrompt = stockDataService.enrichPromptWithStockData(userPrompt, treeJson, comparisonDays, marketData);
                 stockDataEnriched = true;
             }
 
@@ -304,13 +265,7 @@ public class LLMService {
             ValidationResult result = parseValidationResponse(response);
             
             // Create enhanced ValidationResult with stock data tracking
-            if (stockDataEnriched) {
-                return new ValidationResult(result.getResult(), result.getCriteria(), 
-                    Arrays.asList("Yahoo Finance API", "Perplexity Web Search"), null, true);
-            } else {
-                return new ValidationResult(result.getResult(), result.getCriteria(), 
-                    Arrays.asList("Perplexity Web Search"), null, false);
-            }
+            return withDataSources(result, stockDataEnriched);
             
         } catch (Exception e) {
             logger.error("Error validating tree with {}-day historical criteria: {}", comparisonDays, e.getMessage(), e);
@@ -318,6 +273,50 @@ public class LLMService {
         }
     }
 
+    /**
+     * Non-blocking variant of generateTreeOfThought
+     */
+    public Mono<String> generateTreeOfThoughtReactive(String prompt) {
+        return perplexityService.generateCompletionWithSystemReactive(GENERATE_SYSTEM_PROMPT, prompt)
+                .map(this::cleanJsonResponse);
+    }
+
+    /**
+     * Non-blocking variant of refineTreeOfThought
+     */
+    public Mono<String> refineTreeOfThoughtReactive(String treeJson, String newPrompt) {
+        return perplexityService.generateCompletionWithSystemReactive(REFINE_SYSTEM_PROMPT, refineUserPrompt(treeJson, newPrompt))
+                .map(this::cleanJsonResponse);
+    }
+
+    /**
+     * Non-blocking variant of validateTree
+     */
+    public Mono<String> validateTreeReactive(String treeJson) {
+        return perplexityService.generateCompletionWithSystemReactive(CRITERIA_SYSTEM_PROMPT, criteriaUserPrompt(treeJson))
+                .map(response -> parseValidationResponse(response).getResult())
+                .onErrorResume(e -> {
+                    logger.error("Error validating tree with historical criteria: {}", e.getMessage(), e);
+                    return Mono.just("false");
+                });
+    }
+
+    /**
+     * Non-blocking variant of validateTreeWithHistoricalComparison: the stock data fetch and the LLM call both run
+     * on the WebClient's event loop
+     */
+    public Mono<ValidationResult> validateTreeWithHistoricalComparisonReactive(String treeJson, int comparisonDays) {
+        String userPrompt = historicalUserPrompt(treeJson, comparisonDays);
+        return stockDataService.enrichPromptWithStockDataReactive(userPrompt, treeJson, comparisonDays)
+                .flatMap(prompt -> perplexityService
+                        .generateCompletionWithSystemAndWebSearchReactive(historicalSystemPrompt(comparisonDays), prompt, comparisonDays)
+                        .map(response -> withDataSources(parseValidationResponse(response), !prompt.equals(userPrompt))))
+                .onErrorResume(e -> {
+                    logger.error("Error validating tree with {}-day historical criteria: {}", comparisonDays, e.getMessage(), e);
+                    return Mono.just(new ValidationResult("false", "Error during validation: " + e.getMessage()));
+                });
+    }
+
     /**
      * Legacy method for backward compatibility
      */
@@ -326,6 +325,86 @@ public class LLMService {
         return result.getResult();
     }
 
+    /**
+     * Prompts shared by the blocking and reactive variants
+     */
+    private static String refineUserPrompt(String treeJson, String newPrompt) {
+        return "Here is the existing Tree of Thought to refine:\n" + treeJson + "\n\nNew prompt requirement:\n" + newPrompt;
+    }
+
+    private static String criteriaUserPrompt(String treeJson) {
+        return "Run through this TOT and provide decision + detailed criteria analysis comparing today's data with historical trends:\n" + treeJson;
+    }
+
+    private static String timeframe(int comparisonDays) {
+        return switch (comparisonDays) {
+            case 1 -> "yesterday";
+            case 7 -> "last week (7 days ago)";
+            case 30 -> "last month (30 days ago)";
+            default -> comparisonDays + " days ago";
+        };
+    }
+
+    private static String historicalSystemPrompt(int comparisonDays) {
+        String timeframe = timeframe(comparisonDays);
+        return String.format("""
+            You are evaluating a Tree of Thought decision structure with today's latest information compared to data from %s.
+            
+            CRITICAL: You MUST systematically walk through the provided Tree of Thought structure node by node. DO NOT perform general self-analysis or commentary. You must follow the tree's decision logic exactly.
+            
+            Your task: Execute the Tree of Thought step-by-step and provide both a decision and comprehensive analysis that focuses on changes over the %d-day period.
+            
+            Instructions:
+            1. START with the root node of the provided Tree of Thought JSON structure
+            2. Evaluate EACH node's specific criteria using real-time information and current data
+            3. For each node evaluation, compare today's data specifically with end-of-day data from %s (use closing prices, final daily values, and end-of-day metrics whenever possible)
+            4. Based on the criteria evaluation, follow the tree's children mapping to the next node (e.g., if criteria is met, go to "yes" branch, otherwise "no" branch)
+            5. Continue traversing through each node until you reach a leaf node (node with no children)
+            6. Calculate percentage changes and identify trends over this %d-day period using day-end data points for each node's criteria
+            7. The final leaf node determines your decision outcome - provide detailed reasoning for each step of the tree traversal
+            
+            MANDATORY TREE TRAVERSAL FORMAT:
+            Start with: "TREE TRAVERSAL:"
+            For each node visited, document:
+            - Node ID: [nodeId]
+            - Content: [node content]
+            - Criteria: [node criteria]
+            - Current Data: [relevant current data for evaluation]
+            - Historical Data (%s): [relevant historical data]
+            - Evaluation Result: [met/not met with reasoning]
+            - Next Node: [which child node to follow]
+            
+            Response format: 
+            DECISION: true|false
+            CRITERIA: [Provide comprehensive analysis including:
+            - Step-by-step tree traversal results (not general analysis)
+            - Today's current values vs %s end-of-day values for each evaluated node
+            - Exact percentage changes over %d days (using closing/end-of-day data) for each node's criteria
+            - Direction of trend (improving/declining/stable) based on day-end comparisons for each decision point
+            - Momentum analysis (accelerating/decelerating changes) using daily closing data for each node
+            - Significant events that occurred during this %d-day period relevant to each node's criteria
+            - Market sentiment evolution over this timeframe using end-of-day indicators for each evaluation
+            - Final decision path taken through the tree with supporting data
+            This %d-day comparison data will be used for future tree refinement and trend analysis.]
+            
+            REMEMBER: Follow the tree structure exactly. Do not skip nodes or make assumptions. Evaluate each node's criteria methodically using end-of-day data comparisons.
+            """, timeframe, comparisonDays, timeframe, comparisonDays, timeframe, timeframe, comparisonDays, comparisonDays, comparisonDays);
+    }
+
+    private static String historicalUserPrompt(String treeJson, int comparisonDays) {
+        return String.format("Run through this TOT and provide decision + detailed criteria analysis comparing today's data with data from %s (%d days ago):\n%s", 
+            timeframe(comparisonDays), comparisonDays, treeJson);
+    }
+
+    private static ValidationResult withDataSources(ValidationResult result, boolean stockDataEnriched) {
+        if (stockDataEnriched) {
+            return new ValidationResult(result.getResult(), result.getCriteria(), 
+                Arrays.asList("Yahoo Finance API", "Perplexity Web Search"), null, true);
+        }
+        return new ValidationResult(result.getResult(), result.getCriteria(), 
+            Arrays.asList("Perplexity Web Search"), null, false);
+    }
+
     /**
      * Parse the LLM response to extract decision and criteria
      */
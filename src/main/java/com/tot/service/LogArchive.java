@@ -0,0 +1,473 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Append-only archive of evaluation logs on local disk, partitioned by day.
+ *
+ * Each day has a segment file of gzip-compressed blocks (see LogArchiveCodec) and a sparse index file
+ * with one fixed-size entry per block:
+ * <pre>
+ * long firstTimeKey, long lastTimeKey, long offset, int length, int recordCount, short lastIdLength, byte[64] lastId
+ * </pre>
+ * Blocks are forced to disk before their index entries are appended, so the index never points at a
+ * partial block. Entries are normally archived in (timestamp, id) order; rows inserted late (below the last
+ * archived key) are appended as blocks of their own, and reads merge the blocks that overlap by (timestamp, id).
+ * The highest archived key (the high water mark) only tells which entries are certainly not archived; whether an
+ * entry at or below it is archived is checked against the blocks (archivedIds).
+ */
+@Component
+public class LogArchive {
+    private static final Logger logger = LoggerFactory.getLogger(LogArchive.class);
+
+    private static final String FILE_PREFIX = "tot-logs-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int ID_BYTES = 64;
+    private static final int ENTRY_BYTES = 8 + 8 + 8 + 4 + 4 + 2 + ID_BYTES;
+
+    @Value("${tot.logs.archive.dir:data/log-archive}")
+    private String archiveDir;
+
+    @Value("${tot.logs.archive.block-size:512}")
+    private int blockSize;
+
+    private Path directory;
+    private final ConcurrentSkipListMap<LocalDate, Partition> partitions = new ConcurrentSkipListMap<>();
+    private volatile ArchiveKey highWater;
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = Paths.get(archiveDir);
+        Files.createDirectories(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(FILE_PREFIX) && name.endsWith(INDEX_SUFFIX))
+                    .forEach(name -> {
+                        String date = name.substring(FILE_PREFIX.length(), name.length() - INDEX_SUFFIX.length());
+                        try {
+                            LocalDate day = LocalDate.parse(date);
+                            partitions.put(day, partitionOf(day));
+                        } catch (DateTimeParseException e) {
+                            logger.warn("Ignoring unexpected file in log archive: {}", name);
+                        }
+                    });
+        }
+
+        if (!partitions.isEmpty()) {
+            // Blocks of late rows may follow the block holding the highest key
+            for (IndexEntry entry : readIndex(partitions.lastEntry().getValue())) {
+                ArchiveKey key = new ArchiveKey(entry.lastTimeKey(), entry.lastId());
+                if (highWater == null || key.compareTo(highWater) > 0) {
+                    highWater = key;
+                }
+            }
+        }
+        logger.info("Log archive at {}: {} day partitions", directory.toAbsolutePath(), partitions.size());
+    }
+
+    /**
+     * Append log entries to the archive
+     * @param logs Entries in (timestamp, id) order, not yet in the archive
+     */
+    public synchronized void append(List<TotLog> logs) throws IOException {
+        if (logs.isEmpty()) {
+            return;
+        }
+
+        Map<LocalDate, List<TotLog>> byDay = new LinkedHashMap<>();
+        for (TotLog log : logs) {
+            byDay.computeIfAbsent(log.getTimestamp().toLocalDate(), day -> new ArrayList<>()).add(log);
+        }
+
+        for (Map.Entry<LocalDate, List<TotLog>> day : byDay.entrySet()) {
+            Partition partition = partitions.computeIfAbsent(day.getKey(), this::partitionOf);
+            List<TotLog> dayLogs = day.getValue();
+            ByteBuffer indexEntries = ByteBuffer.allocate(((dayLogs.size() + blockSize - 1) / blockSize) * ENTRY_BYTES);
+
+            try (FileChannel segment = FileChannel.open(partition.segment(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long offset = segment.size();
+                for (int from = 0; from < dayLogs.size(); from += blockSize) {
+                    List<TotLog> blockLogs = dayLogs.subList(from, Math.min(from + blockSize, dayLogs.size()));
+                    byte[] block = LogArchiveCodec.encodeBlock(blockLogs);
+                    writeFully(segment, ByteBuffer.wrap(block), offset);
+
+                    TotLog first = blockLogs.get(0);
+                    TotLog last = blockLogs.get(blockLogs.size() - 1);
+                    indexEntries.putLong(LogArchiveCodec.timeKey(first.getTimestamp()));
+                    indexEntries.putLong(LogArchiveCodec.timeKey(last.getTimestamp()));
+                    indexEntries.putLong(offset);
+                    indexEntries.putInt(block.length);
+                    indexEntries.putInt(blockLogs.size());
+                    putId(indexEntries, last.getId());
+                    offset += block.length;
+                }
+                segment.force(true);
+            }
+
+            // The index entries commit the blocks written above
+            indexEntries.flip();
+            try (FileChannel index = FileChannel.open(partition.index(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                writeFully(index, indexEntries, index.size());
+                index.force(true);
+            }
+        }
+
+        TotLog last = logs.get(logs.size() - 1);
+        ArchiveKey lastKey = new ArchiveKey(LogArchiveCodec.timeKey(last.getTimestamp()), last.getId());
+        if (highWater == null || lastKey.compareTo(highWater) > 0) {
+            highWater = lastKey;
+        }
+    }
+
+    /**
+     * Read the archived entries in a time range, in (timestamp, id) order.
+     * Only blocks whose index entry overlaps the range are read and decompressed.
+     * @param start Start time (inclusive)
+     * @param end End time (inclusive)
+     * @param consumer Receives each entry in the range
+     */
+    public void forEachInRange(LocalDateTime start, LocalDateTime end, Consumer<TotLog> consumer) {
+        scan(start, end, log -> {
+            consumer.accept(log);
+            return true;
+        });
+    }
+
+    /**
+     * Read the archived entries of a time range that follow a (timestamp, id) position, in (timestamp, id) order
+     * @param start Start time (inclusive)
+     * @param end End time (inclusive)
+     * @param afterTimestamp Timestamp of the position
+     * @param afterId ID of the position; entries at afterTimestamp with a greater ID are included
+     * @param limit Maximum number of entries
+     * @return Up to limit entries
+     */
+    public List<TotLog> readAfter(LocalDateTime start, LocalDateTime end, LocalDateTime afterTimestamp, String afterId,
+                                  int limit) {
+        List<TotLog> logs = new ArrayList<>();
+        ArchiveKey after = new ArchiveKey(LogArchiveCodec.timeKey(afterTimestamp), afterId);
+        LocalDateTime from = afterTimestamp.isAfter(start) ? afterTimestamp : start;
+        if (limit > 0 && !from.isAfter(end)) {
+            scan(from, end, log -> {
+                if (keyOf(log.getTimestamp(), log.getId()).compareTo(after) > 0) {
+                    logs.add(log);
+                }
+                return logs.size() < limit;
+            });
+        }
+        return logs;
+    }
+
+    /**
+     * Find an archived entry by ID
+     * @param id ID of the entry
+     * @param timestamp Timestamp of the entry when known, so only the blocks around it are read; when null every
+     *                  partition may be read, newest first
+     * @return The entry if it is in the archive
+     */
+    public Optional<TotLog> find(String id, LocalDateTime timestamp) {
+        TotLog[] found = new TotLog[1];
+        Predicate<TotLog> match = log -> {
+            if (log.getId().equals(id)) {
+                found[0] = log;
+                return false;
+            }
+            return true;
+        };
+        if (timestamp != null) {
+            if (mayContain(timestamp, id)) {
+                scan(timestamp, timestamp, match);
+            }
+            return Optional.ofNullable(found[0]);
+        }
+        for (LocalDate day : partitions.descendingKeySet()) {
+            scan(day.atStartOfDay(), day.atTime(LocalTime.MAX), match);
+            if (found[0] != null) {
+                break;
+            }
+        }
+        return Optional.ofNullable(found[0]);
+    }
+
+    /**
+     * Whether an entry may be in the archive; false means it certainly is not (it is above the high water mark)
+     */
+    public boolean mayContain(LocalDateTime timestamp, String id) {
+        ArchiveKey mark = highWater;
+        return mark != null && keyOf(timestamp, id).compareTo(mark) <= 0;
+    }
+
+    /**
+     * Find which entries are in the archive, reading only the blocks that overlap their timestamps
+     * @param timestampsById Timestamps of the entries, by ID
+     * @return IDs of the entries found in the archive
+     */
+    public Set<String> archivedIds(Map<String, LocalDateTime> timestampsById) {
+        Map<String, LocalDateTime> candidates = new HashMap<>();
+        timestampsById.forEach((id, timestamp) -> {
+            if (mayContain(timestamp, id)) {
+                candidates.put(id, timestamp);
+            }
+        });
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+
+        LocalDateTime start = Collections.min(candidates.values());
+        LocalDateTime end = Collections.max(candidates.values());
+        Set<String> found = new HashSet<>();
+        scan(start, end, log -> {
+            if (log.getTimestamp().equals(candidates.get(log.getId()))) {
+                found.add(log.getId());
+            }
+            return found.size() < candidates.size();
+        });
+        return found;
+    }
+
+    /**
+     * @return Size of the archive on disk
+     */
+    public ArchiveStats getStats() {
+        long blocks = 0;
+        long records = 0;
+        long bytes = 0;
+        for (Partition partition : partitions.values()) {
+            for (IndexEntry entry : readIndex(partition)) {
+                blocks++;
+                records += entry.recordCount();
+                bytes += entry.length();
+            }
+        }
+        ArchiveKey mark = highWater;
+        return new ArchiveStats(directory.toAbsolutePath().toString(), partitions.size(), blocks, records, bytes,
+                partitions.isEmpty() ? null : partitions.firstKey(),
+                partitions.isEmpty() ? null : partitions.lastKey(),
+                mark == null ? null : mark.id());
+    }
+
+    /**
+     * Feed the entries in a time range to a consumer in (timestamp, id) order until it returns false
+     */
+    private void scan(LocalDateTime start, LocalDateTime end, Predicate<TotLog> consumer) {
+        long startKey = LogArchiveCodec.timeKey(start);
+        long endKey = LogArchiveCodec.timeKey(end);
+        NavigableMap<LocalDate, Partition> days = partitions.subMap(start.toLocalDate(), true, end.toLocalDate(), true);
+
+        for (Partition partition : days.values()) {
+            // Blocks are opened in order of their first time key, and only once the merge reaches that key: blocks
+            // that follow each other are read one after another, and only blocks of late rows that really overlap
+            // others are held and merged together
+            List<IndexEntry> blocks = readIndex(partition).stream()
+                    .filter(entry -> entry.lastTimeKey() >= startKey && entry.firstTimeKey() <= endKey)
+                    .sorted(Comparator.comparingLong(IndexEntry::firstTimeKey))
+                    .toList();
+            PriorityQueue<BlockCursor> open = new PriorityQueue<>(Comparator.comparing(BlockCursor::key));
+            int next = 0;
+
+            try (FileChannel segment = FileChannel.open(partition.segment(), StandardOpenOption.READ)) {
+                while (next < blocks.size() || !open.isEmpty()) {
+                    while (next < blocks.size()
+                            && (open.isEmpty() || blocks.get(next).firstTimeKey() <= open.peek().key().timeKey())) {
+                        IndexEntry entry = blocks.get(next++);
+                        ByteBuffer block = ByteBuffer.allocate(entry.length());
+                        readFully(segment, block, entry.offset());
+                        BlockCursor cursor = new BlockCursor(LogArchiveCodec.decodeBlock(block.array()), startKey, endKey);
+                        if (cursor.advance()) {
+                            open.add(cursor);
+                        }
+                    }
+                    BlockCursor smallest = open.poll();
+                    if (smallest == null) {
+                        continue;
+                    }
+                    if (!consumer.test(smallest.current())) {
+                        return;
+                    }
+                    if (smallest.advance()) {
+                        open.add(smallest);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read log archive partition " + partition.day(), e);
+            }
+        }
+    }
+
+    private static ArchiveKey keyOf(LocalDateTime timestamp, String id) {
+        return new ArchiveKey(LogArchiveCodec.timeKey(timestamp), id);
+    }
+
+    private Partition partitionOf(LocalDate day) {
+        return new Partition(day,
+                directory.resolve(FILE_PREFIX + day + SEGMENT_SUFFIX),
+                directory.resolve(FILE_PREFIX + day + INDEX_SUFFIX));
+    }
+
+    private static List<IndexEntry> readIndex(Partition partition) {
+        byte[] bytes;
+        try {
+            bytes = Files.exists(partition.index()) ? Files.readAllBytes(partition.index()) : new byte[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read log archive index " + partition.index(), e);
+        }
+
+        // A trailing partial entry (interrupted append) is ignored, along with the block it would have committed
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int count = bytes.length / ENTRY_BYTES;
+        List<IndexEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long firstTimeKey = buffer.getLong();
+            long lastTimeKey = buffer.getLong();
+            long offset = buffer.getLong();
+            int length = buffer.getInt();
+            int recordCount = buffer.getInt();
+            short idLength = buffer.getShort();
+            byte[] id = new byte[ID_BYTES];
+            buffer.get(id);
+            entries.add(new IndexEntry(firstTimeKey, lastTimeKey, offset, length, recordCount,
+                    new String(id, 0, idLength, StandardCharsets.UTF_8)));
+        }
+        return entries;
+    }
+
+    private static void putId(ByteBuffer buffer, String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > ID_BYTES) {
+            throw new IllegalArgumentException("Log id too long to archive: " + id);
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+        buffer.put(new byte[ID_BYTES - bytes.length]);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of log archive segment");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Position in a decoded block during a scan; skips the entries outside the scanned time range
+     */
+    private static class BlockCursor {
+        private final List<TotLog> logs;
+        private final long startKey;
+        private final long endKey;
+        private int position;
+        private TotLog current;
+        private ArchiveKey key;
+
+        BlockCursor(List<TotLog> logs, long startKey, long endKey) {
+            this.logs = logs;
+            this.startKey = startKey;
+            this.endKey = endKey;
+        }
+
+        boolean advance() {
+            while (position < logs.size()) {
+                TotLog log = logs.get(position++);
+                long timeKey = LogArchiveCodec.timeKey(log.getTimestamp());
+                if (timeKey >= startKey && timeKey <= endKey) {
+                    current = log;
+                    key = new ArchiveKey(timeKey, log.getId());
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        TotLog current() {
+            return current;
+        }
+
+        ArchiveKey key() {
+            return key;
+        }
+    }
+
+    private record Partition(LocalDate day, Path segment, Path index) {
+    }
+
+    private record IndexEntry(long firstTimeKey, long lastTimeKey, long offset, int length, int recordCount,
+                              String lastId) {
+    }
+
+    /**
+     * Position of an entry in archive order: (timestamp, id)
+     */
+    private record ArchiveKey(long timeKey, String id) implements Comparable<ArchiveKey> {
+        @Override
+        public int compareTo(ArchiveKey other) {
+            int byTime = Long.compare(timeKey, other.timeKey);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+    }
+
+    /**
+     * Archive size summary
+     */
+    @Data
+    @AllArgsConstructor
+    public static class ArchiveStats {
+        private String directory;
+        private int partitions;
+        private long blocks;
+        private long records;
+        private long compressedBytes;
+        private LocalDate oldestDay;
+        private LocalDate newestDay;
+        private String lastArchivedId;
+    }
+}
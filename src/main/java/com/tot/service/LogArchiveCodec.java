@@ -0,0 +1,149 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes blocks of archived log entries.
+ *
+ * A block is a gzip stream of (big endian):
+ * <pre>
+ * int magic 'TOTA', short formatVersion, int recordCount
+ * record x recordCount:
+ *   string id, treeId, validationResult, validationCriteria, treeJson, treeVersionHash
+ *   byte hasLatency, [long latencyMs], long epochSecond, int nano
+ * </pre>
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes. Timestamps are stored as UTC
+ * epoch seconds and nanos of the LocalDateTime, with no zone conversion.
+ */
+public final class LogArchiveCodec {
+    public static final int MAGIC = 0x544F5441; // "TOTA"
+    public static final short FORMAT_VERSION = 1;
+
+    private LogArchiveCodec() {
+    }
+
+    /**
+     * Encode and compress one block of log entries
+     * @param logs Entries of the block, in (timestamp, id) order
+     * @return Compressed block
+     */
+    public static byte[] encodeBlock(List<TotLog> logs) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeInt(logs.size());
+            for (TotLog log : logs) {
+                writeRecord(out, log);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decompress and decode one block
+     * @param block Compressed block as written by encodeBlock
+     * @return Entries of the block, in the order they were written
+     */
+    public static List<TotLog> decodeBlock(byte[] block) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(block)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not an archived log block");
+            }
+            short version = in.readShort();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported archived log block version: " + version);
+            }
+
+            int count = in.readInt();
+            List<TotLog> logs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                logs.add(readRecord(in));
+            }
+            return logs;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write one uncompressed record (the per-entry part of the block layout)
+     */
+    public static void writeRecord(DataOutputStream out, TotLog log) throws IOException {
+        writeString(out, log.getId());
+        writeString(out, log.getTreeId());
+        writeString(out, log.getValidationResult());
+        writeString(out, log.getValidationCriteria());
+        writeString(out, log.getTreeJson());
+        writeString(out, log.getTreeVersionHash());
+        out.writeBoolean(log.getLatencyMs() != null);
+        if (log.getLatencyMs() != null) {
+            out.writeLong(log.getLatencyMs());
+        }
+        out.writeLong(log.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(log.getTimestamp().getNano());
+    }
+
+    /**
+     * Read one uncompressed record written by writeRecord
+     */
+    public static TotLog readRecord(DataInputStream in) throws IOException {
+        TotLog log = new TotLog();
+        log.setId(readString(in));
+        log.setTreeId(readString(in));
+        log.setValidationResult(readString(in));
+        log.setValidationCriteria(readString(in));
+        log.setTreeJson(readString(in));
+        log.setTreeVersionHash(readString(in));
+        if (in.readBoolean()) {
+            log.setLatencyMs(in.readLong());
+        }
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        log.setTimestamp(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+        return log;
+    }
+
+    /**
+     * Sort key of a timestamp: UTC epoch nanos of the LocalDateTime
+     */
+    public static long timeKey(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,180 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.repository.TotLogRepository;
+import com.tot.repository.TreeCatalogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Writes batches of evaluation log entries to the relational tables in one transaction each.
+ * Each transaction inserts the entries, adds them to the validation rollups and updates the catalog's
+ * last evaluation; committed entries are then added to the RecentEvaluationCache. If a batch fails,
+ * its entries are retried one transaction each so a single bad entry does not lose the batch.
+ * Shared by the log backends (TotLogWriter, EvaluationJournal and R2dbcLogWriter).
+ */
+@Component
+public class LogBatchPersister {
+    private static final Logger logger = LoggerFactory.getLogger(LogBatchPersister.class);
+
+    private final TotLogRepository totLogRepository;
+    private final TreeCatalogRepository treeCatalogRepository;
+    private final ValidationRollupService validationRollupService;
+    private final RecentEvaluationCache recentEvaluationCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Autowired
+    public LogBatchPersister(TotLogRepository totLogRepository,
+                             TreeCatalogRepository treeCatalogRepository,
+                             ValidationRollupService validationRollupService,
+                             RecentEvaluationCache recentEvaluationCache,
+                             PlatformTransactionManager transactionManager) {
+        this.totLogRepository = totLogRepository;
+        this.treeCatalogRepository = treeCatalogRepository;
+        this.validationRollupService = validationRollupService;
+        this.recentEvaluationCache = recentEvaluationCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Write a batch of log entries
+     * @param batch Entries to write
+     */
+    public void persist(List<TotLog> batch) {
+        persist(batch, written -> {
+        });
+    }
+
+    /**
+     * Write a batch of log entries, running extra work in each transaction that commits entries
+     * @param batch Entries to write
+     * @param inTransaction Called inside the transaction with the entries it writes (the whole batch, or a single
+     *                      entry when retrying individually)
+     */
+    public void persist(List<TotLog> batch, Consumer<List<TotLog>> inTransaction) {
+        ReentrantLock rollupLock = validationRollupService.getUpdateLock();
+        rollupLock.lock();
+        try {
+            writeInTransaction(batch, inTransaction, true);
+        } finally {
+            rollupLock.unlock();
+        }
+    }
+
+    /**
+     * Write a batch of log entries without dropping any. If the batch fails, its entries are retried one transaction
+     * each in order, and the first entry that still fails stops the write: its exception is rethrown and it and the
+     * entries after it are left to the caller to write again.
+     * @param batch Entries to write
+     * @param inTransaction Called inside the transaction with the entries it writes
+     */
+    public void persistOrThrow(List<TotLog> batch, Consumer<List<TotLog>> inTransaction) {
+        ReentrantLock rollupLock = validationRollupService.getUpdateLock();
+        rollupLock.lock();
+        try {
+            writeInTransaction(batch, inTransaction, false);
+        } finally {
+            rollupLock.unlock();
+        }
+    }
+
+    /**
+     * Apply the side effects of entries another writer has already committed to tot_logs: rollups, the catalog's
+     * last evaluation and the recent evaluation cache
+     * @param batch Entries already in tot_logs
+     */
+    public void applyCommitted(List<TotLog> batch) {
+        ReentrantLock rollupLock = validationRollupService.getUpdateLock();
+        rollupLock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                validationRollupService.applyBatch(batch);
+                recordLatestEvaluations(batch);
+            });
+            recentEvaluationCache.record(batch);
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            // The entries are stored; only the derived data missed them
+            logger.error("Rollup and catalog update for {} committed log entries failed: {}", batch.size(), e.getMessage());
+        } finally {
+            rollupLock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of entries written since startup
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * @return Number of entries dropped because they could not be written
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    private void writeInTransaction(List<TotLog> batch, Consumer<List<TotLog>> inTransaction, boolean dropFailures) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                writeBatch(batch);
+                inTransaction.accept(batch);
+            });
+            recentEvaluationCache.record(batch);
+            written.addAndGet(batch.size());
+            logger.debug("Wrote {} log entries in one transaction", batch.size());
+        } catch (Exception e) {
+            logger.error("Batch insert of {} log entries failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (TotLog entry : batch) {
+                try {
+                    entry.setId(null);
+                    List<TotLog> single = List.of(entry);
+                    transactionTemplate.executeWithoutResult(status -> {
+                        writeBatch(single);
+                        inTransaction.accept(single);
+                    });
+                    recentEvaluationCache.record(single);
+                    written.incrementAndGet();
+                } catch (RuntimeException rowError) {
+                    if (!dropFailures) {
+                        throw rowError;
+                    }
+                    failed.incrementAndGet();
+                    logger.error("Dropping log entry for tree {}: {}", entry.getTreeId(), rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<TotLog> batch) {
+        totLogRepository.saveAll(batch);
+        validationRollupService.applyBatch(batch);
+        recordLatestEvaluations(batch);
+    }
+
+    private void recordLatestEvaluations(List<TotLog> batch) {
+        // One catalog update per tree, with its latest evaluation in the batch
+        Map<String, TotLog> latestByTree = new LinkedHashMap<>();
+        for (TotLog entry : batch) {
+            latestByTree.merge(entry.getTreeId(), entry,
+                    (current, candidate) -> candidate.getTimestamp().isBefore(current.getTimestamp()) ? current : candidate);
+        }
+        latestByTree.values().forEach(entry -> treeCatalogRepository.recordEvaluation(
+                entry.getTreeId(), entry.getValidationResult(), entry.getTimestamp()));
+    }
+}
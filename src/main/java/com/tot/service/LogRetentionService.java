@@ -0,0 +1,103 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.repository.TotLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves evaluation logs older than the retention period from tot_logs into the on-disk LogArchive.
+ * A row is only deleted once it is in the archive: rows a previous run archived without deleting (the process
+ * stopped in between) are found in the archive blocks, and every other row of the batch is appended first.
+ */
+@Service
+public class LogRetentionService {
+    private static final Logger logger = LoggerFactory.getLogger(LogRetentionService.class);
+
+    private final TotLogRepository totLogRepository;
+    private final LogArchive logArchive;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${tot.logs.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tot.logs.retention.days:30}")
+    private int retentionDays;
+
+    @Value("${tot.logs.retention.batch-size:5000}")
+    private int batchSize;
+
+    @Autowired
+    public LogRetentionService(TotLogRepository totLogRepository, LogArchive logArchive,
+                               PlatformTransactionManager transactionManager) {
+        this.totLogRepository = totLogRepository;
+        this.logArchive = logArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Archive logs older than the retention period, on the configured schedule
+     */
+    @Scheduled(cron = "${tot.logs.retention.cron:0 30 3 * * *}")
+    public void archiveExpiredLogs() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archiveOlderThan(LocalDateTime.now().minusDays(retentionDays).truncatedTo(ChronoUnit.DAYS));
+        } catch (Exception e) {
+            logger.error("Log archiving failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Move every log entry older than a cutoff from the table into the archive
+     * @param cutoff Entries with an earlier timestamp are archived
+     * @return Number of entries removed from the table
+     */
+    public synchronized long archiveOlderThan(LocalDateTime cutoff) throws IOException {
+        long moved = 0;
+        while (true) {
+            List<TotLog> batch = totLogRepository.findByTimestampBeforeOrderByTimestampAscIdAsc(cutoff, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            Map<String, LocalDateTime> timestamps = new HashMap<>();
+            batch.forEach(log -> timestamps.put(log.getId(), log.getTimestamp()));
+            Set<String> alreadyArchived = logArchive.archivedIds(timestamps);
+            List<TotLog> notYetArchived = batch.stream()
+                    .filter(log -> !alreadyArchived.contains(log.getId()))
+                    .toList();
+            logArchive.append(notYetArchived);
+
+            // Every row is now either verified in the archive or was just appended to it
+            List<String> ids = new ArrayList<>(alreadyArchived);
+            notYetArchived.forEach(log -> ids.add(log.getId()));
+            transactionTemplate.executeWithoutResult(status -> totLogRepository.deleteAllByIdInBatch(ids));
+            moved += batch.size();
+            logger.debug("Archived {} log entries up to {}", batch.size(), batch.get(batch.size() - 1).getTimestamp());
+        }
+
+        if (moved > 0) {
+            logger.info("Archived {} log entries older than {}", moved, cutoff);
+        }
+        return moved;
+    }
+}
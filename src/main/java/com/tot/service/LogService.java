@@ -1,15 +1,44 @@
 package com.tot.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.tot.entity.TotLog;
+import com.tot.repository.TotLogCriteria;
 import com.tot.repository.TotLogRepository;
+import com.tot.repository.TotLogSummary;
+import com.tot.repository.ValidationTotals;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Service for logging Tree of Thought evaluations and results
@@ -17,12 +46,35 @@ import java.util.List;
 @Service
 public class LogService {
     private static final Logger logger = LoggerFactory.getLogger(LogService.class);
+    private static final int ARCHIVE_CHECK_CHUNK = 500;
 
     private final TotLogRepository totLogRepository;
+    private final TreeVersionService treeVersionService;
+    private final EvaluationLogSink evaluationLogSink;
+    private final ValidationRollupService validationRollupService;
+    private final LogArchive logArchive;
+    private final RecentEvaluationCache recentEvaluationCache;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public LogService(TotLogRepository totLogRepository) {
+    public LogService(TotLogRepository totLogRepository, TreeVersionService treeVersionService,
+                      EvaluationLogSink evaluationLogSink, ValidationRollupService validationRollupService,
+                      LogArchive logArchive, RecentEvaluationCache recentEvaluationCache,
+                      EntityManager entityManager, PlatformTransactionManager transactionManager) {
         this.totLogRepository = totLogRepository;
+        this.treeVersionService = treeVersionService;
+        this.evaluationLogSink = evaluationLogSink;
+        this.validationRollupService = validationRollupService;
+        this.logArchive = logArchive;
+        this.recentEvaluationCache = recentEvaluationCache;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     }
 
     /**
@@ -30,9 +82,8 @@ public class LogService {
      * @param treeId ID of the evaluated tree
      * @param treeJson JSON representation of the tree
      * @param validationResult Result of tree validation (true/false)
-     * @return The created log entry
+     * @return The queued log entry
      */
-    @Transactional
     public TotLog logTreeEvaluation(String treeId, String treeJson, String validationResult) {
         return logTreeEvaluation(treeId, treeJson, validationResult, null);
     }
@@ -43,12 +94,25 @@ public class LogService {
      * @param treeJson JSON representation of the tree
      * @param validationResult Result of tree validation (true/false)
      * @param validationCriteria Detailed criteria and analysis from validation
-     * @return The created log entry
+     * @return The queued log entry; it is written (and gets its ID) asynchronously by the log backend
      */
-    @Transactional
     public TotLog logTreeEvaluation(String treeId, String treeJson, String validationResult, String validationCriteria) {
-        logger.info("Tree Evaluation - ID: {}, Result: {}, Time: {}, Has Criteria: {}",
-                treeId, validationResult, LocalDateTime.now(), validationCriteria != null);
+        return logTreeEvaluation(treeId, treeJson, validationResult, validationCriteria, null);
+    }
+
+    /**
+     * Log a Tree of Thought evaluation with detailed validation criteria and the time it took
+     * @param treeId ID of the evaluated tree
+     * @param treeJson JSON representation of the tree
+     * @param validationResult Result of tree validation (true/false)
+     * @param validationCriteria Detailed criteria and analysis from validation
+     * @param latencyMs Time spent evaluating the tree, or null if not measured
+     * @return The queued log entry; it is written (and gets its ID) asynchronously by the log backend
+     */
+    public TotLog logTreeEvaluation(String treeId, String treeJson, String validationResult, String validationCriteria,
+                                    Long latencyMs) {
+        logger.info("Tree Evaluation - ID: {}, Result: {}, Time: {}, Has Criteria: {}, Latency: {} ms",
+                treeId, validationResult, LocalDateTime.now(), validationCriteria != null, latencyMs);
 
         // Log the full tree content at debug level to avoid cluttering logs
         logger.debug("Tree Content for {}: {}", treeId, treeJson);
@@ -57,50 +121,266 @@ public class LogService {
             logger.debug("Validation Criteria for {}: {}", treeId, validationCriteria);
         }
 
-        // Create and save log entry
+        // Create and queue log entry; the tree itself is stored once per distinct version
         TotLog logEntry = new TotLog();
         logEntry.setTreeId(treeId);
-        logEntry.setTreeJson(treeJson);
+        if (treeJson != null) {
+            logEntry.setTreeVersionHash(treeVersionService.recordVersion(treeId, treeJson));
+        }
         logEntry.setValidationResult(validationResult);
         logEntry.setValidationCriteria(validationCriteria);
+        logEntry.setLatencyMs(latencyMs);
+        logEntry.setTimestamp(LocalDateTime.now());
 
-        return totLogRepository.save(logEntry);
+        evaluationLogSink.append(logEntry);
+        return logEntry;
     }
 
     /**
      * Log validation failure for a tree
      * @param treeId ID of the tree that failed validation
-     * @return The created log entry
+     * @return The queued log entry
      */
-    @Transactional
     public TotLog logValidationFailure(String treeId) {
         logger.warn("Tree validation failed for tree: {}", treeId);
 
-        // Create and save log entry
+        // Create and queue log entry
         TotLog logEntry = new TotLog();
         logEntry.setTreeId(treeId);
         logEntry.setValidationResult("false");
+        logEntry.setTimestamp(LocalDateTime.now());
+
+        evaluationLogSink.append(logEntry);
+        return logEntry;
+    }
 
-        return totLogRepository.save(logEntry);
+    /**
+     * @return Name and counters of the active log backend
+     */
+    public Map<String, Object> getBackendStats() {
+        return evaluationLogSink.getStats();
     }
 
     /**
-     * Get recent logs for a specific tree
+     * Get recent logs for a specific tree, served from the in-memory RecentEvaluationCache
      * @param treeId ID of the tree
-     * @return List of recent log entries
+     * @return Summaries of the most recent written log entries (10 by default), newest first
      */
-    public List<TotLog> getRecentLogsForTree(String treeId) {
-        return totLogRepository.findTop10ByTreeIdOrderByTimestampDesc(treeId);
+    public List<TotLogSummary> getRecentLogsForTree(String treeId) {
+        return recentEvaluationCache.getRecent(treeId);
     }
 
     /**
-     * Get logs from a specific time period
-     * @param start Start time
-     * @param end End time
-     * @return List of log entries in the time period
+     * Get the latest evaluation of a tree, served from the in-memory RecentEvaluationCache
+     * @param treeId ID of the tree
+     * @return Summary of the latest written log entry, if any
+     */
+    public Optional<TotLogSummary> getLastEvaluation(String treeId) {
+        return recentEvaluationCache.getLast(treeId);
+    }
+
+    /**
+     * Get recent logs for a specific tree with their validation criteria
+     * @param treeId ID of the tree
+     * @return The 10 most recent log entries, without the legacy tree JSON
      */
-    public List<TotLog> getLogsBetweenDates(LocalDateTime start, LocalDateTime end) {
-        return totLogRepository.findByTimestampBetween(start, end);
+    public List<TotLogCriteria> getRecentCriteriaForTree(String treeId) {
+        return totLogRepository.findRecentCriteria(treeId, Limit.of(10));
+    }
+
+    /**
+     * Get a single log entry with all its columns, from the hot table or else the archive
+     * @param logId ID of the log entry
+     * @param timestamp Timestamp of the entry when known; without it an archive lookup may read every partition
+     * @return The log entry if found
+     */
+    public Optional<TotLog> getLogById(String logId, LocalDateTime timestamp) {
+        Optional<TotLog> hot = totLogRepository.findById(logId);
+        return hot.isPresent() ? hot : logArchive.find(logId, timestamp);
+    }
+
+    /**
+     * Get one page of log summaries (no criteria or tree JSON) from a time period, archived and hot, ordered by
+     * (timestamp, id)
+     * @param start Start time (inclusive)
+     * @param end End time (inclusive)
+     * @param after Cursor returned with the previous page, or null for the first page
+     * @param size Maximum number of entries in the page
+     * @return Page of summaries with the cursor for the next page
+     */
+    public LogPage<TotLogSummary> getLogSummaryPage(LocalDateTime start, LocalDateTime end, String after, int size) {
+        LogCursor cursor = LogCursor.decode(after, start);
+        List<TotLogSummary> archived = logArchive.readAfter(start, end, cursor.timestamp(), cursor.id(), size + 1).stream()
+                .map(LogService::toSummary)
+                .toList();
+        List<TotLogSummary> hot = totLogRepository.findSummaryPageAfter(
+                start, end, cursor.timestamp(), cursor.id(), Limit.of(size + 1));
+        return mergePage(archived, hot, size, TotLogSummary::timestamp, TotLogSummary::id);
+    }
+
+    /**
+     * Get one page of full log entries from a time period, archived and hot, ordered by (timestamp, id)
+     * @param start Start time (inclusive)
+     * @param end End time (inclusive)
+     * @param after Cursor returned with the previous page, or null for the first page
+     * @param size Maximum number of entries in the page
+     * @return Page of log entries with the cursor for the next page
+     */
+    public LogPage<TotLog> getLogPage(LocalDateTime start, LocalDateTime end, String after, int size) {
+        LogCursor cursor = LogCursor.decode(after, start);
+        List<TotLog> archived = logArchive.readAfter(start, end, cursor.timestamp(), cursor.id(), size + 1);
+        List<TotLog> hot = totLogRepository.findPageAfter(
+                start, end, cursor.timestamp(), cursor.id(), Limit.of(size + 1));
+        return mergePage(archived, hot, size, TotLog::getTimestamp, TotLog::getId);
+    }
+
+    /**
+     * Merge the next size + 1 archived and hot entries after a cursor into one page. A hot row that is also in the
+     * archive (archived but not yet deleted) sorts right next to its archived copy, so it is dropped by ID.
+     */
+    private static <T> LogPage<T> mergePage(List<T> archived, List<T> hot, int size,
+                                            Function<T, LocalDateTime> timestampOf, Function<T, String> idOf) {
+        Set<String> archivedIds = new HashSet<>();
+        archived.forEach(log -> archivedIds.add(idOf.apply(log)));
+        List<T> logs = new ArrayList<>(archived);
+        hot.stream().filter(log -> !archivedIds.contains(idOf.apply(log))).forEach(logs::add);
+        logs.sort(Comparator.comparing(timestampOf).thenComparing(idOf));
+
+        // One extra entry from each source tells us whether another page exists without a count query
+        boolean hasMore = logs.size() > size || archived.size() > size || hot.size() > size;
+        if (logs.size() > size) {
+            logs = logs.subList(0, size);
+        }
+        String nextCursor = hasMore && !logs.isEmpty()
+                ? new LogCursor(timestampOf.apply(logs.get(logs.size() - 1)), idOf.apply(logs.get(logs.size() - 1))).encode()
+                : null;
+        return new LogPage<>(logs, nextCursor);
+    }
+
+    /**
+     * Write all logs from a time period, archived and hot, as newline-delimited JSON.
+     * Archive blocks and database rows are streamed and written one at a time, so memory use does not grow with the period.
+     * @param start Start time (inclusive)
+     * @param end End time (inclusive)
+     * @param full Whether to write full entries (with criteria and tree JSON) instead of summaries
+     * @param outputStream Destination of the export
+     * @return Number of entries written
+     */
+    public long exportLogs(LocalDateTime start, LocalDateTime end, boolean full, OutputStream outputStream) {
+        return writeLogs(start, end, full, false, outputStream);
+    }
+
+    /**
+     * Write all full log entries from a time period, archived and hot, as one JSON array.
+     * Entries are streamed like exportLogs, so memory use does not grow with the period.
+     * @param start Start time (inclusive)
+     * @param end End time (inclusive)
+     * @param outputStream Destination of the array
+     * @return Number of entries written
+     */
+    public long writeLogsAsArray(LocalDateTime start, LocalDateTime end, OutputStream outputStream) {
+        return writeLogs(start, end, true, true, outputStream);
+    }
+
+    private long writeLogs(LocalDateTime start, LocalDateTime end, boolean full, boolean array, OutputStream outputStream) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long[] count = {0};
+        write(writer, array ? "[" : "");
+
+        // Archived entries all precede the hot ones, so writing them first keeps the export in order
+        logArchive.forEachInRange(start, end, log -> writeEntry(writer, full ? log : toSummary(log), array, count));
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<?> logs = full
+                    ? totLogRepository.streamBetween(start, end)
+                    : totLogRepository.streamSummariesBetween(start, end)) {
+                List<Object> unchecked = new ArrayList<>();
+                Iterator<?> iterator = logs.iterator();
+                while (iterator.hasNext()) {
+                    Object log = iterator.next();
+                    if (full) {
+                        // Keep the persistence context from accumulating every streamed entity
+                        entityManager.detach(log);
+                    }
+                    if (logArchive.mayContain(timestampOf(log), idOf(log))) {
+                        // Rows at or below the archive's high water mark come first; check them in chunks
+                        unchecked.add(log);
+                        if (unchecked.size() >= ARCHIVE_CHECK_CHUNK) {
+                            writeUnarchived(writer, unchecked, array, count);
+                        }
+                        continue;
+                    }
+                    writeUnarchived(writer, unchecked, array, count);
+                    writeEntry(writer, log, array, count);
+                }
+                writeUnarchived(writer, unchecked, array, count);
+            }
+        });
+
+        write(writer, array ? "]" : "");
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Exported {} log entries between {} and {}", count[0], start, end);
+        return count[0];
+    }
+
+    /**
+     * Write one entry: a line of newline-delimited JSON, or an element of a JSON array
+     */
+    private void writeEntry(Writer writer, Object log, boolean array, long[] count) {
+        try {
+            String json = objectMapper.writeValueAsString(log);
+            write(writer, array ? (count[0] > 0 ? "," : "") + json : json + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count[0]++;
+    }
+
+    private static void write(Writer writer, String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write the hot rows that are not in the archive (a retention run may have archived rows without deleting them)
+     */
+    private void writeUnarchived(Writer writer, List<Object> logs, boolean array, long[] count) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        Set<String> archived = logArchive.archivedIds(timestampsOf(logs));
+        for (Object log : logs) {
+            if (!archived.contains(idOf(log))) {
+                writeEntry(writer, log, array, count);
+            }
+        }
+        logs.clear();
+    }
+
+    private static Map<String, LocalDateTime> timestampsOf(List<?> logs) {
+        Map<String, LocalDateTime> timestamps = new HashMap<>();
+        logs.forEach(log -> timestamps.put(idOf(log), timestampOf(log)));
+        return timestamps;
+    }
+
+    private static LocalDateTime timestampOf(Object log) {
+        return log instanceof TotLog entry ? entry.getTimestamp() : ((TotLogSummary) log).timestamp();
+    }
+
+    private static String idOf(Object log) {
+        return log instanceof TotLog entry ? entry.getId() : ((TotLogSummary) log).id();
+    }
+
+    private static TotLogSummary toSummary(TotLog log) {
+        return new TotLogSummary(log.getId(), log.getTreeId(), log.getValidationResult(),
+                log.getTreeVersionHash(), log.getTimestamp());
     }
 
     /**
@@ -108,10 +388,25 @@ public class LogService {
      * @return Object with counts of true and false results
      */
     public ValidateStats getValidationStats() {
+        return getValidationStats(null, null, null);
+    }
+
+    /**
+     * Get validation statistics from the rollups, optionally for one tree and time range
+     * @param treeId ID of the tree, or null for all trees
+     * @param start Start time, or null for no lower bound (widened to the start of its hour or day bucket)
+     * @param end End time, or null for no upper bound
+     * @return Object with counts of true, false and error results and the average latency
+     */
+    public ValidateStats getValidationStats(String treeId, LocalDateTime start, LocalDateTime end) {
+        ValidationTotals totals = validationRollupService.getTotals(treeId, start, end);
         ValidateStats stats = new ValidateStats();
-        stats.setValidCount(totLogRepository.countByValidationResult("true"));
-        stats.setInvalidCount(totLogRepository.countByValidationResult("false"));
-        stats.setTotalCount(totLogRepository.count());
+        stats.setValidCount(totals.trueCount());
+        // Errors are logged with result "false", so they stay part of the invalid count
+        stats.setInvalidCount(totals.falseCount() + totals.errorCount());
+        stats.setErrorCount(totals.errorCount());
+        stats.setTotalCount(totals.trueCount() + totals.falseCount() + totals.errorCount());
+        stats.setAverageLatencyMs(totals.latencyCount() > 0 ? (double) totals.latencySumMs() / totals.latencyCount() : null);
         return stats;
     }
 
@@ -121,7 +416,9 @@ public class LogService {
     public static class ValidateStats {
         private long validCount;
         private long invalidCount;
+        private long errorCount;
         private long totalCount;
+        private Double averageLatencyMs;
 
         public long getValidCount() {
             return validCount;
@@ -139,6 +436,22 @@ public class LogService {
             this.invalidCount = invalidCount;
         }
 
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public void setErrorCount(long errorCount) {
+            this.errorCount = errorCount;
+        }
+
+        public Double getAverageLatencyMs() {
+            return averageLatencyMs;
+        }
+
+        public void setAverageLatencyMs(Double averageLatencyMs) {
+            this.averageLatencyMs = averageLatencyMs;
+        }
+
         public long getTotalCount() {
             return totalCount;
         }
@@ -151,4 +464,39 @@ public class LogService {
             return totalCount > 0 ? (double) validCount / totalCount * 100 : 0;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * One page of log entries
+     */
+    @Data
+    @AllArgsConstructor
+    public static class LogPage<T> {
+        private List<T> logs;
+        private String nextCursor; // Pass as "after" to fetch the next page; null on the last page
+    }
+
+    /**
+     * Position after the last entry of a page: (timestamp, id), encoded as an opaque URL-safe string
+     */
+    private record LogCursor(LocalDateTime timestamp, String id) {
+
+        private String encode() {
+            String raw = timestamp + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static LogCursor decode(String cursor, LocalDateTime start) {
+            if (cursor == null || cursor.isBlank()) {
+                // Every id sorts after "", so this includes entries exactly at start
+                return new LogCursor(start, "");
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new LogCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid log cursor: " + cursor);
+            }
+        }
+    }
+}
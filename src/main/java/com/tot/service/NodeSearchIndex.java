@@ -0,0 +1,509 @@
+package com.tot.service;
+
+import com.tot.entity.TotNode;
+import com.tot.repository.TotNodeRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over TotNode content and criteria.
+ * Each term maps to a positional posting list held in primitive int arrays. Documents are only ever
+ * appended, so posting lists stay sorted by document id; re-indexing a tree tombstones its old
+ * documents and the index is compacted once tombstones make up half of it.
+ * Supports AND queries over plain terms, prefix terms (tick*) and quoted phrases ("moving average").
+ */
+@Service
+public class NodeSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(NodeSearchIndex.class);
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern CLAUSE = Pattern.compile("\"([^\"]*)\"|(\\S+)");
+    private static final int FIELD_POSITION_GAP = 1_000; // keeps phrases from matching across content/criteria
+
+    private final TotNodeRepository totNodeRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${tot.search.index.enabled:true}")
+    private boolean enabled;
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final List<TotNode> documents = new ArrayList<>();
+    private final Map<String, int[]> documentsByTree = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private Map<String, List<TotNode>> replacedDuringRebuild; // Set while a rebuild loads the stored nodes
+
+    @Autowired
+    public NodeSearchIndex(TotNodeRepository totNodeRepository) {
+        this.totNodeRepository = totNodeRepository;
+    }
+
+    /**
+     * Build the index from all stored nodes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            logger.info("Node search index disabled");
+            return;
+        }
+
+        long start = System.nanoTime();
+        // Nodes are loaded without holding the lock; trees replaced meanwhile are newer than what was loaded
+        lock.writeLock().lock();
+        try {
+            replacedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<String, List<TotNode>> nodesByTree = new LinkedHashMap<>();
+        try {
+            for (TotNode node : totNodeRepository.findAll()) {
+                nodesByTree.computeIfAbsent(node.getTreeId(), id -> new ArrayList<>()).add(node);
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                nodesByTree.putAll(replacedDuringRebuild);
+                replacedDuringRebuild = null;
+                clear();
+                nodesByTree.forEach(this::addTree);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        logger.info("Node search index built: {} nodes, {} terms in {} ms",
+                documents.size(), terms.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Replace the indexed nodes of a tree. Inside a transaction the update is applied after commit.
+     * @param treeId ID of the tree
+     * @param nodes Current nodes of the tree
+     */
+    public void indexTree(String treeId, List<TotNode> nodes) {
+        if (!enabled) {
+            return;
+        }
+        List<TotNode> snapshot = new ArrayList<>(nodes);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replaceTree(treeId, snapshot);
+                }
+            });
+        } else {
+            replaceTree(treeId, snapshot);
+        }
+    }
+
+    /**
+     * Search node content and criteria
+     * @param query Terms, prefix terms ending in '*' and quoted phrases; all must match
+     * @param page Zero-based page number
+     * @param size Page size
+     * @return Page of matching nodes, best matches first
+     */
+    public SearchPage search(String query, int page, int size) {
+        if (!enabled) {
+            throw new IllegalStateException("Node search index is disabled");
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] matches = null;
+            ScoreMap scores = new ScoreMap();
+            boolean hasClause = false;
+
+            Matcher clause = CLAUSE.matcher(query);
+            while (clause.find()) {
+                int[] clauseMatches;
+                if (clause.group(1) != null) {
+                    List<String> phrase = tokenize(clause.group(1));
+                    if (phrase.isEmpty()) {
+                        continue;
+                    }
+                    clauseMatches = matchPhrase(phrase, scores);
+                } else if (clause.group(2).endsWith("*")) {
+                    List<String> prefix = tokenize(clause.group(2));
+                    if (prefix.isEmpty()) {
+                        continue;
+                    }
+                    clauseMatches = matchPrefix(prefix.get(0), scores);
+                } else {
+                    List<String> tokens = tokenize(clause.group(2));
+                    if (tokens.isEmpty()) {
+                        continue;
+                    }
+                    clauseMatches = tokens.size() == 1 ? matchTerm(tokens.get(0), scores) : matchPhrase(tokens, scores);
+                }
+                hasClause = true;
+                matches = matches == null ? clauseMatches : intersect(matches, clauseMatches);
+                if (matches.length == 0) {
+                    break;
+                }
+            }
+
+            if (!hasClause || matches == null) {
+                return new SearchPage(query, 0, page, size, List.of());
+            }
+
+            // Rank by how often the clauses matched, then by document order
+            Integer[] ranked = new Integer[matches.length];
+            int live = 0;
+            for (int doc : matches) {
+                if (!deleted.get(doc)) {
+                    ranked[live++] = doc;
+                }
+            }
+            Integer[] liveDocs = Arrays.copyOf(ranked, live);
+            Arrays.sort(liveDocs, (a, b) -> scores.get(a) != scores.get(b)
+                    ? Integer.compare(scores.get(b), scores.get(a)) : Integer.compare(a, b));
+
+            List<SearchHit> hits = new ArrayList<>();
+            int from = (int) Math.min((long) page * size, live); // Pages past the last hit are empty
+            int to = Math.min(from + size, live);
+            for (int i = from; i < to; i++) {
+                TotNode node = documents.get(liveDocs[i]);
+                hits.add(new SearchHit(node.getTreeId(), node.getNodeId(), node.getContent(), node.getCriteria(), scores.get(liveDocs[i])));
+            }
+            return new SearchPage(query, live, page, size, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of live indexed nodes
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size() - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void replaceTree(String treeId, List<TotNode> nodes) {
+        lock.writeLock().lock();
+        try {
+            if (replacedDuringRebuild != null) {
+                replacedDuringRebuild.put(treeId, nodes);
+            }
+            int[] previous = documentsByTree.remove(treeId);
+            if (previous != null) {
+                for (int doc : previous) {
+                    deleted.set(doc);
+                }
+                deletedCount += previous.length;
+            }
+            addTree(treeId, nodes);
+
+            if (deletedCount > 1_000 && deletedCount * 2 > documents.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addTree(String treeId, List<TotNode> nodes) {
+        int[] docs = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            docs[i] = addDocument(nodes.get(i));
+        }
+        documentsByTree.put(treeId, docs);
+    }
+
+    private int addDocument(TotNode node) {
+        int doc = documents.size();
+        documents.add(node);
+
+        // Collect positions per term, then append one posting per term
+        Map<String, int[]> positions = new HashMap<>();
+        int position = 0;
+        for (String field : new String[]{node.getContent(), node.getCriteria()}) {
+            for (String token : tokenize(field)) {
+                int[] list = positions.get(token);
+                if (list == null) {
+                    list = new int[]{0, 0, 0, 0, 0};
+                    positions.put(token, list);
+                }
+                if (list[0] + 1 >= list.length) {
+                    list = Arrays.copyOf(list, list.length * 2);
+                    positions.put(token, list);
+                }
+                list[++list[0]] = position++;
+            }
+            position += FIELD_POSITION_GAP;
+        }
+
+        positions.forEach((term, list) -> terms.computeIfAbsent(term, t -> new Postings())
+                .append(doc, list, list[0]));
+        return doc;
+    }
+
+    private void compact() {
+        long start = System.nanoTime();
+        Map<String, List<TotNode>> live = new LinkedHashMap<>();
+        documentsByTree.forEach((treeId, docs) -> {
+            List<TotNode> nodes = new ArrayList<>(docs.length);
+            for (int doc : docs) {
+                nodes.add(documents.get(doc));
+            }
+            live.put(treeId, nodes);
+        });
+        clear();
+        live.forEach(this::addTree);
+        logger.info("Node search index compacted to {} nodes in {} ms", documents.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void clear() {
+        terms.clear();
+        documents.clear();
+        documentsByTree.clear();
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private int[] matchTerm(String term, ScoreMap scores) {
+        Postings postings = terms.get(term);
+        if (postings == null) {
+            return new int[0];
+        }
+        for (int i = 0; i < postings.size; i++) {
+            scores.add(postings.docs[i], postings.frequency(i));
+        }
+        return Arrays.copyOf(postings.docs, postings.size);
+    }
+
+    private int[] matchPrefix(String prefix, ScoreMap scores) {
+        BitSet union = new BitSet(documents.size());
+        for (Postings postings : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (int i = 0; i < postings.size; i++) {
+                union.set(postings.docs[i]);
+                scores.add(postings.docs[i], postings.frequency(i));
+            }
+        }
+        return union.stream().toArray();
+    }
+
+    private int[] matchPhrase(List<String> phrase, ScoreMap scores) {
+        Postings[] lists = new Postings[phrase.size()];
+        for (int i = 0; i < phrase.size(); i++) {
+            lists[i] = terms.get(phrase.get(i));
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+
+        // Walk all posting lists in doc order; for common docs check that positions line up
+        int[] cursors = new int[lists.length];
+        int[] result = new int[lists[0].size];
+        int count = 0;
+        outer:
+        while (cursors[0] < lists[0].size) {
+            int doc = lists[0].docs[cursors[0]];
+            for (int i = 1; i < lists.length; i++) {
+                while (cursors[i] < lists[i].size && lists[i].docs[cursors[i]] < doc) {
+                    cursors[i]++;
+                }
+                if (cursors[i] >= lists[i].size) {
+                    break outer;
+                }
+                if (lists[i].docs[cursors[i]] != doc) {
+                    cursors[0]++;
+                    continue outer;
+                }
+            }
+
+            int occurrences = 0;
+            Postings first = lists[0];
+            for (int p = first.positionStart[cursors[0]]; p < first.positionStart[cursors[0] + 1]; p++) {
+                int startPosition = first.positions[p];
+                boolean matched = true;
+                for (int i = 1; i < lists.length && matched; i++) {
+                    matched = lists[i].hasPosition(cursors[i], startPosition + i);
+                }
+                if (matched) {
+                    occurrences++;
+                }
+            }
+            if (occurrences > 0) {
+                result[count++] = doc;
+                scores.add(doc, occurrences * phrase.size());
+            }
+            cursors[0]++;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = TOKEN.matcher(text.toLowerCase());
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    /**
+     * Positional posting list for one term, stored in growable primitive arrays.
+     * positionStart[i] .. positionStart[i + 1] is the slice of positions for docs[i].
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] positionStart = new int[5];
+        private int[] positions = new int[8];
+        private int size;
+
+        private void append(int doc, int[] list, int count) {
+            if (size + 1 >= docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+                positionStart = Arrays.copyOf(positionStart, docs.length + 1);
+            }
+            int end = positionStart[size];
+            if (end + count > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, end + count));
+            }
+            System.arraycopy(list, 1, positions, end, count);
+            docs[size] = doc;
+            positionStart[++size] = end + count;
+        }
+
+        private int frequency(int index) {
+            return positionStart[index + 1] - positionStart[index];
+        }
+
+        private boolean hasPosition(int index, int position) {
+            return Arrays.binarySearch(positions, positionStart[index], positionStart[index + 1], position) >= 0;
+        }
+    }
+
+    /**
+     * Scores of the documents a query touched, in an open-addressing map sized by the matches rather than the index
+     */
+    private static final class ScoreMap {
+        private int[] docs = new int[16];
+        private int[] scores = new int[16];
+        private int size;
+
+        ScoreMap() {
+            Arrays.fill(docs, -1);
+        }
+
+        void add(int doc, int score) {
+            int slot = slot(docs, doc);
+            if (docs[slot] < 0) {
+                docs[slot] = doc;
+                if (++size * 2 > docs.length) {
+                    grow();
+                    slot = slot(docs, doc);
+                }
+            }
+            scores[slot] += score;
+        }
+
+        int get(int doc) {
+            int slot = slot(docs, doc);
+            return docs[slot] < 0 ? 0 : scores[slot];
+        }
+
+        private void grow() {
+            int[] oldDocs = docs;
+            int[] oldScores = scores;
+            docs = new int[oldDocs.length * 2];
+            scores = new int[oldDocs.length * 2];
+            Arrays.fill(docs, -1);
+            for (int i = 0; i < oldDocs.length; i++) {
+                if (oldDocs[i] >= 0) {
+                    int slot = slot(docs, oldDocs[i]);
+                    docs[slot] = oldDocs[i];
+                    scores[slot] = oldScores[i];
+                }
+            }
+        }
+
+        private static int slot(int[] docs, int doc) {
+            int mask = docs.length - 1;
+            int hash = doc * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (docs[slot] >= 0 && docs[slot] != doc) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * A matching node
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SearchHit {
+        private String treeId;
+        private String nodeId;
+        private String content;
+        private String criteria;
+        private int score;
+    }
+
+    /**
+     * One page of search results
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SearchPage {
+        private String query;
+        private int totalHits;
+        private int page;
+        private int size;
+        private List<SearchHit> hits;
+    }
+}
@@ -1,11 +1,14 @@
 package com.tot.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -17,12 +20,14 @@ import java.util.Map;
 @Service
 public class PerplexityService {
     private final RestClient restClient;
+    private final WebClient webClient;
     private final String defaultModel;
     private final ObjectMapper objectMapper;
     private static final Logger log = LoggerFactory.getLogger(PerplexityService.class);
 
-    public PerplexityService(RestClient restClient, String defaultModel) {
+    public PerplexityService(RestClient restClient, WebClient webClient, String defaultModel) {
         this.restClient = restClient;
+        this.webClient = webClient;
         this.defaultModel = defaultModel;
         this.objectMapper = new ObjectMapper();
         log.info("PerplexityService initialized with model: {}", defaultModel);
@@ -48,9 +53,7 @@ public class PerplexityService {
                     .retrieve()
                     .body(String.class);
 
-            // Parse the response
-            JsonNode rootNode = objectMapper.readTree(responseJson);
-            String content = rootNode.path("choices").path(0).path("message").path("content").asText();
+            String content = extractContent(responseJson);
             log.debug("Received response from Perplexity API: {}", content);
             return content;
         } catch (Exception e) {
@@ -67,24 +70,14 @@ public class PerplexityService {
      */
     public String generateCompletionWithSystem(String systemPrompt, String userPrompt) {
         try {
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", defaultModel);
-
-            List<Map<String, String>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", systemPrompt));
-            messages.add(Map.of("role", "user", "content", userPrompt));
-            requestBody.put("messages", messages);
-
             log.debug("Sending request to Perplexity API with system prompt");
             String responseJson = restClient.post()
                     .uri("/chat/completions")
-                    .body(requestBody)
+                    .body(systemRequest(systemPrompt, userPrompt))
                     .retrieve()
                     .body(String.class);
 
-            // Parse the response
-            JsonNode rootNode = objectMapper.readTree(responseJson);
-            String content = rootNode.path("choices").path(0).path("message").path("content").asText();
+            String content = extractContent(responseJson);
             log.debug("Received response from Perplexity API: {}", content);
             return content;
         } catch (Exception e) {
@@ -102,37 +95,14 @@ public class PerplexityService {
      */
     public String generateCompletionWithSystemAndWebSearch(String systemPrompt, String userPrompt, int comparisonDays) {
         try {
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", defaultModel);
-            requestBody.put("temperature", 0);
-
-            List<Map<String, String>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", systemPrompt));
-            messages.add(Map.of("role", "user", "content", userPrompt));
-            requestBody.put("messages", messages);
-
-            // Add web search options
-            Map<String, Object> webSearchOptions = new HashMap<>();
-            webSearchOptions.put("search_context_size", "high");
-            webSearchOptions.put("search_recency_filter", "day");
-            
-            // Calculate search_after_date_filter based on comparisonDays
-            LocalDate searchAfterDate = LocalDate.now().minusDays(comparisonDays);
-            String searchAfterDateStr = searchAfterDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            webSearchOptions.put("search_after_date_filter", searchAfterDateStr);
-            
-            requestBody.put("web_search_options", webSearchOptions);
-
-            log.debug("Sending request to Perplexity API with web search options - search_after_date: {}", searchAfterDateStr);
+            log.debug("Sending request to Perplexity API with web search options - comparisonDays: {}", comparisonDays);
             String responseJson = restClient.post()
                     .uri("/chat/completions")
-                    .body(requestBody)
+                    .body(webSearchRequest(systemPrompt, userPrompt, comparisonDays))
                     .retrieve()
                     .body(String.class);
 
-            // Parse the response
-            JsonNode rootNode = objectMapper.readTree(responseJson);
-            String content = rootNode.path("choices").path(0).path("message").path("content").asText();
+            String content = extractContent(responseJson);
             log.debug("Received response from Perplexity API with web search: {}", content);
             return content;
         } catch (Exception e) {
@@ -140,4 +110,72 @@ public class PerplexityService {
             return "Error: " + e.getMessage();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Non-blocking variant of generateCompletionWithSystem; the call runs on the WebClient's event loop
+     * @return The generated completion text, or "Error: ..." like the blocking variant
+     */
+    public Mono<String> generateCompletionWithSystemReactive(String systemPrompt, String userPrompt) {
+        return post(systemRequest(systemPrompt, userPrompt), "system prompt");
+    }
+
+    /**
+     * Non-blocking variant of generateCompletionWithSystemAndWebSearch
+     * @return The generated completion text, or "Error: ..." like the blocking variant
+     */
+    public Mono<String> generateCompletionWithSystemAndWebSearchReactive(String systemPrompt, String userPrompt,
+                                                                        int comparisonDays) {
+        return post(webSearchRequest(systemPrompt, userPrompt, comparisonDays), "web search options");
+    }
+
+    private Mono<String> post(Map<String, Object> requestBody, String description) {
+        return webClient.post()
+                .uri("/chat/completions")
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(this::extractContent)
+                .doOnNext(content -> log.debug("Received response from Perplexity API with {}: {}", description, content))
+                .onErrorResume(e -> {
+                    log.error("Error calling Perplexity API with {}", description, e);
+                    return Mono.just("Error: " + e.getMessage());
+                });
+    }
+
+    private Map<String, Object> systemRequest(String systemPrompt, String userPrompt) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", defaultModel);
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", systemPrompt));
+        messages.add(Map.of("role", "user", "content", userPrompt));
+        requestBody.put("messages", messages);
+        return requestBody;
+    }
+
+    private Map<String, Object> webSearchRequest(String systemPrompt, String userPrompt, int comparisonDays) {
+        Map<String, Object> requestBody = systemRequest(systemPrompt, userPrompt);
+        requestBody.put("temperature", 0);
+
+        // Add web search options
+        Map<String, Object> webSearchOptions = new HashMap<>();
+        webSearchOptions.put("search_context_size", "high");
+        webSearchOptions.put("search_recency_filter", "day");
+
+        // Calculate search_after_date_filter based on comparisonDays
+        LocalDate searchAfterDate = LocalDate.now().minusDays(comparisonDays);
+        webSearchOptions.put("search_after_date_filter", searchAfterDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+
+        requestBody.put("web_search_options", webSearchOptions);
+        return requestBody;
+    }
+
+    private String extractContent(String responseJson) {
+        try {
+            JsonNode rootNode = objectMapper.readTree(responseJson);
+            return rootNode.path("choices").path(0).path("message").path("content").asText();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unparseable Perplexity response: " + e.getOriginalMessage(), e);
+        }
+    }
+}
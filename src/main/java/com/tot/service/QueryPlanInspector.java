@@ -0,0 +1,225 @@
+package com.tot.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Runs EXPLAIN on the SQL behind the hot repository queries and reports the ones that scan a whole table.
+ *
+ * Each check is a copy of the SQL Hibernate generates for a selective query (unbounded list queries such as findAll are
+ * full scans by design and are not checked). MariaDB/MySQL plans are full scans when the checked table has access
+ * type ALL; H2 plans when they use the table's tableScan. Tables with fewer than minTableRows rows are skipped,
+ * since optimizers prefer a scan on small tables; MariaDB/MySQL row counts are the statistics estimate in
+ * information_schema, other databases count each table once per inspection. With failOnFullScan, a full scan found at startup stops the
+ * application. This is a diagnostic for the production database; QueryPlanTest checks the plans of the SQL the
+ * repositories actually emit.
+ */
+@Service
+public class QueryPlanInspector {
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanInspector.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${tot.query-plan.check-on-startup:false}")
+    private boolean checkOnStartup;
+
+    @Value("${tot.query-plan.fail-on-full-scan:false}")
+    private boolean failOnFullScan;
+
+    @Value("${tot.query-plan.min-table-rows:1000}")
+    private long minTableRows;
+
+    @Autowired
+    public QueryPlanInspector(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Checked queries, with sample parameters for the last day before now
+     */
+    private static List<PlanCheck> checks(LocalDateTime now) {
+        LocalDateTime from = now.minusDays(1);
+        return List.of(
+                new PlanCheck("ScheduleRepository.findByScheduledTimeBetweenAndStatus", "schedule",
+                        "SELECT id FROM schedule WHERE scheduled_time BETWEEN ? AND ? AND status = ?", from, now, "PENDING"),
+                new PlanCheck("ScheduleRepository.findByScheduledTimeBeforeAndStatus", "schedule",
+                        "SELECT id FROM schedule WHERE scheduled_time < ? AND status = ?", now, "PENDING"),
+                new PlanCheck("ScheduleRepository.countByStatus", "schedule",
+                        "SELECT COUNT(*) FROM schedule WHERE status = ?", "PENDING"),
+                new PlanCheck("ScheduleRepository.findByTargetNodeId", "schedule",
+                        "SELECT id FROM schedule WHERE target_node_id = ?", "root"),
+                new PlanCheck("ScheduleRepository.findSummaryPage(status)", "schedule",
+                        "SELECT id FROM schedule WHERE status = ? AND (scheduled_time > ? OR (scheduled_time = ? AND id > ?)) " +
+                                "ORDER BY scheduled_time, id LIMIT 101", "PENDING", from, from, ""),
+                new PlanCheck("ScheduleRepository.findSummaryPage(treeId)", "schedule",
+                        "SELECT id FROM schedule WHERE target_node_id = ? AND (scheduled_time > ? OR (scheduled_time = ? AND id > ?)) " +
+                                "ORDER BY scheduled_time, id LIMIT 101", "root", from, from, ""),
+                new PlanCheck("ScheduleRepository.findSummaryPage(time range)", "schedule",
+                        "SELECT id FROM schedule WHERE scheduled_time >= ? AND scheduled_time <= ? " +
+                                "ORDER BY scheduled_time, id LIMIT 101", from, now),
+                new PlanCheck("TotLogRepository.findTop10ByTreeIdOrderByTimestampDesc", "tot_logs",
+                        "SELECT id FROM tot_logs WHERE tree_id = ? ORDER BY timestamp DESC LIMIT 10", "tree"),
+                new PlanCheck("TotLogRepository.findByTreeId", "tot_logs",
+                        "SELECT id FROM tot_logs WHERE tree_id = ?", "tree"),
+                new PlanCheck("TotLogRepository.findByTimestampBetween", "tot_logs",
+                        "SELECT id FROM tot_logs WHERE timestamp BETWEEN ? AND ?", from, now),
+                new PlanCheck("TotLogRepository.countByValidationResult", "tot_logs",
+                        "SELECT COUNT(*) FROM tot_logs WHERE validation_result = ?", "true"),
+                new PlanCheck("TotLogRepository.findSummaryPageAfter", "tot_logs",
+                        "SELECT id FROM tot_logs WHERE timestamp >= ? AND timestamp <= ? " +
+                                "AND (timestamp > ? OR (timestamp = ? AND id > ?)) ORDER BY timestamp, id LIMIT 51",
+                        from, now, from, from, ""),
+                new PlanCheck("TotLogRepository.findByTimestampBeforeOrderByTimestampAscIdAsc", "tot_logs",
+                        "SELECT id FROM tot_logs WHERE timestamp < ? ORDER BY timestamp, id LIMIT 5000", from),
+                new PlanCheck("TotNodeRepository.findByTreeId", "tot_node",
+                        "SELECT node_id FROM tot_node WHERE tree_id = ?", "tree"),
+                new PlanCheck("TreeCatalogRepository.findRecentlyEvaluatedTreeIds", "tot_tree_catalog",
+                        "SELECT tree_id FROM tot_tree_catalog WHERE last_evaluated_at IS NOT NULL " +
+                                "ORDER BY last_evaluated_at DESC LIMIT 1000"),
+                new PlanCheck("ValidationRollupRepository.sumBuckets", "tot_validation_rollups",
+                        "SELECT SUM(true_count) FROM tot_validation_rollups WHERE granularity = ? " +
+                                "AND bucket_start >= ? AND bucket_start <= ?", "DAY", from, now)
+        );
+    }
+
+    /**
+     * Check the query plans once the schema is up to date, when enabled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkOnStartup() {
+        if (!checkOnStartup) {
+            return;
+        }
+        List<PlanResult> results = inspect();
+        List<String> fullScans = results.stream().filter(PlanResult::isFullScan).map(PlanResult::getQuery).toList();
+        if (fullScans.isEmpty()) {
+            logger.info("Query plan check passed for {} queries", results.size());
+        } else if (failOnFullScan) {
+            throw new IllegalStateException("Queries degraded to a full table scan: " + fullScans);
+        } else {
+            logger.warn("Queries degraded to a full table scan: {}", fullScans);
+        }
+    }
+
+    /**
+     * Explain every checked query
+     * @return Plan summary of each query, in check order
+     */
+    public List<PlanResult> inspect() {
+        boolean mysqlPlans = isMysqlFamily();
+        Map<String, Long> tableRows = new HashMap<>();
+        List<PlanResult> results = new ArrayList<>();
+        for (PlanCheck check : checks(LocalDateTime.now())) {
+            long rows = tableRows.computeIfAbsent(check.table(), table -> countRows(table, mysqlPlans));
+            List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + check.sql(), check.parameters());
+
+            boolean fullScan;
+            String index;
+            if (mysqlPlans) {
+                Map<String, Object> access = plan.stream()
+                        .filter(row -> check.table().equalsIgnoreCase(String.valueOf(value(row, "table"))))
+                        .findFirst()
+                        .orElse(plan.isEmpty() ? Map.of() : plan.get(0));
+                fullScan = "ALL".equalsIgnoreCase(String.valueOf(value(access, "type")));
+                index = Objects.toString(value(access, "key"), null);
+            } else {
+                String text = plan.isEmpty() ? "" : String.valueOf(plan.get(0).values().iterator().next());
+                String tableScan = (check.table() + ".tableScan").toUpperCase();
+                fullScan = text.toUpperCase().contains(tableScan);
+                index = indexFromH2Plan(text, check.table());
+            }
+
+            boolean skipped = rows < minTableRows;
+            results.add(new PlanResult(check.name(), check.table(), rows, index, fullScan && !skipped, skipped,
+                    plan.toString()));
+        }
+        return results;
+    }
+
+    private long countRows(String table, boolean mysqlPlans) {
+        if (mysqlPlans) {
+            List<Long> estimate = jdbcTemplate.queryForList("SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", Long.class, table);
+            if (!estimate.isEmpty() && estimate.get(0) != null) {
+                return estimate.get(0);
+            }
+        }
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private boolean isMysqlFamily() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (product == null) {
+            return false;
+        }
+        String normalized = product.toLowerCase();
+        return normalized.contains("mariadb") || normalized.contains("mysql");
+    }
+
+    private static Object value(Map<String, Object> row, String column) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * H2 plans name the access path in a comment after the table:
+     * {@code "PUBLIC"."TOT_LOGS" /* PUBLIC.IDX_TOT_LOGS_TREE_TIME: ... *\/}
+     */
+    private static String indexFromH2Plan(String plan, String table) {
+        String upper = plan.toUpperCase();
+        int tableAt = upper.indexOf("\"" + table.toUpperCase() + "\"");
+        int commentAt = tableAt < 0 ? -1 : upper.indexOf("/* ", tableAt);
+        if (commentAt < 0) {
+            return null;
+        }
+        int start = commentAt + 3;
+        int end = start;
+        while (end < upper.length() && (Character.isLetterOrDigit(upper.charAt(end)) || upper.charAt(end) == '_'
+                || upper.charAt(end) == '.')) {
+            end++;
+        }
+        String access = plan.substring(start, end);
+        return access.toUpperCase().endsWith(".TABLESCAN") ? null : access.substring(access.lastIndexOf('.') + 1);
+    }
+
+    private record PlanCheck(String name, String table, String sql, Object... parameters) {
+    }
+
+    /**
+     * Plan summary of one query; fullScan is only set for tables large enough to be checked.
+     * tableRows is an estimate on MariaDB/MySQL.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class PlanResult {
+        private String query;
+        private String table;
+        private long tableRows;
+        private String index;
+        private boolean fullScan;
+        private boolean skipped;
+        private String plan;
+    }
+}
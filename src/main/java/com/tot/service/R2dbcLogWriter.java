@@ -0,0 +1,181 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.entity.TotLogRow;
+import com.tot.repository.ReactiveTotLogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluation log backend that inserts into tot_logs over R2DBC ("r2dbc" backend, needs tot.r2dbc.enabled).
+ * Entries are buffered in a bounded queue and inserted in one R2DBC transaction per batch, flushing every batchSize
+ * entries or flushInterval milliseconds; no thread waits on the inserts. Rollups, the catalog and the recent
+ * evaluation cache are then updated through LogBatchPersister on the persistence scheduler, so they trail tot_logs
+ * by one batch. When the queue is full the caller writes its entry through JPA, and a batch whose R2DBC transaction
+ * fails is written through JPA as well.
+ */
+@Component
+@ConditionalOnProperty(name = "tot.logs.backend", havingValue = "r2dbc")
+public class R2dbcLogWriter implements EvaluationLogSink {
+    private static final Logger logger = LoggerFactory.getLogger(R2dbcLogWriter.class);
+
+    private final ReactiveTotLogRepository reactiveTotLogRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final LogBatchPersister logBatchPersister;
+    private final Scheduler persistenceScheduler;
+
+    @Value("${tot.logs.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${tot.logs.writer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${tot.logs.writer.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    private BlockingQueue<TotLog> queue;
+    private Sinks.Many<TotLog> sink;
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong callerWrites = new AtomicLong();
+    private final AtomicLong fallbackBatches = new AtomicLong();
+    private final AtomicLong appendNanos = new AtomicLong();
+
+    @Autowired
+    public R2dbcLogWriter(ReactiveTotLogRepository reactiveTotLogRepository,
+                          @Qualifier("r2dbcTransactionalOperator") TransactionalOperator transactionalOperator,
+                          LogBatchPersister logBatchPersister,
+                          @Qualifier("persistenceScheduler") Scheduler persistenceScheduler) {
+        this.reactiveTotLogRepository = reactiveTotLogRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.logBatchPersister = logBatchPersister;
+        this.persistenceScheduler = persistenceScheduler;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        sink = Sinks.many().unicast().onBackpressureBuffer(queue);
+        sink.asFlux()
+                .bufferTimeout(batchSize, Duration.ofMillis(flushIntervalMs), true)
+                .concatMap(this::write)
+                .doFinally(signal -> drained.countDown())
+                .subscribe();
+        running = true;
+        logger.info("R2DBC log writer started (queue capacity {}, batch size {}, flush interval {} ms)",
+                queueCapacity, batchSize, flushIntervalMs);
+    }
+
+    /**
+     * Stop accepting entries and wait for everything queued to be written
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        synchronized (this) {
+            running = false;
+            sink.tryEmitComplete();
+        }
+        if (!drained.await(30, TimeUnit.SECONDS)) {
+            logger.warn("R2DBC log writer stopped with {} entries still queued", queue.size());
+        }
+        logger.info("R2DBC log writer stopped: {} enqueued, {} written, {} written by callers, {} failed",
+                enqueued.get(), logBatchPersister.getWrittenCount(), callerWrites.get(), logBatchPersister.getFailedCount());
+    }
+
+    /**
+     * Queue a log entry for writing
+     * @param logEntry Entry to write; its timestamp is set now if missing
+     */
+    @Override
+    public void append(TotLog logEntry) {
+        long startedAt = System.nanoTime();
+        if (logEntry.getTimestamp() == null) {
+            logEntry.setTimestamp(LocalDateTime.now());
+        }
+        enqueued.incrementAndGet();
+
+        Sinks.EmitResult result;
+        synchronized (this) {
+            result = running ? sink.tryEmitNext(logEntry) : Sinks.EmitResult.FAIL_TERMINATED;
+        }
+        if (result.isFailure()) {
+            // Queue full (or writer stopped): apply backpressure by writing on the caller's thread
+            logger.warn("Log queue full or writer stopped ({}), writing entry for tree {} synchronously",
+                    result, logEntry.getTreeId());
+            callerWrites.incrementAndGet();
+            logBatchPersister.persist(List.of(logEntry));
+        }
+        appendNanos.addAndGet(System.nanoTime() - startedAt);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long appended = enqueued.get();
+        stats.put("backend", "r2dbc");
+        stats.put("appended", appended);
+        stats.put("written", logBatchPersister.getWrittenCount());
+        stats.put("failed", logBatchPersister.getFailedCount());
+        stats.put("queued", queue.size());
+        stats.put("writtenByCallers", callerWrites.get());
+        stats.put("fallbackBatches", fallbackBatches.get());
+        stats.put("averageAppendMicros", appended > 0 ? appendNanos.get() / 1000.0 / appended : 0);
+        return stats;
+    }
+
+    private Mono<Void> write(List<TotLog> batch) {
+        List<TotLogRow> rows = batch.stream().map(TotLogRow::from).toList();
+        // Only a failed R2DBC transaction falls back to JPA; once it commits the rows must not be inserted again
+        Mono<Boolean> inserted = reactiveTotLogRepository.saveAll(rows)
+                .then()
+                .as(transactionalOperator::transactional)
+                .thenReturn(true)
+                .onErrorResume(e -> {
+                    logger.error("R2DBC insert of {} log entries failed, writing them through JPA: {}",
+                            batch.size(), e.getMessage());
+                    fallbackBatches.incrementAndGet();
+                    return Mono.<Void>fromRunnable(() -> {
+                        batch.forEach(entry -> entry.setId(null));
+                        logBatchPersister.persist(batch);
+                    }).subscribeOn(persistenceScheduler).thenReturn(false);
+                })
+                .onErrorResume(e -> {
+                    logger.error("Dropping batch of {} log entries: {}", batch.size(), e.getMessage());
+                    return Mono.just(false);
+                });
+
+        return inserted.flatMap(committed -> !committed ? Mono.<Void>empty()
+                : Mono.<Void>fromRunnable(() -> logBatchPersister.applyCommitted(batch))
+                        .subscribeOn(persistenceScheduler)
+                        .onErrorResume(e -> {
+                            // The entries are in tot_logs; only the rollups and catalog missed them
+                            logger.error("Could not apply {} committed log entries to rollups and catalog: {}",
+                                    batch.size(), e.getMessage());
+                            return Mono.empty();
+                        }));
+    }
+}
@@ -0,0 +1,101 @@
+package com.tot.service;
+
+import com.tot.entity.ScheduleRow;
+import com.tot.repository.ReactiveScheduleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Processes due schedules without holding a thread per schedule, used by ScheduleService when tot.r2dbc.enabled
+ * is set.
+ *
+ * Due schedules are read and their status moved over R2DBC; each is claimed with a conditional PENDING to
+ * IN_PROGRESS update, so overlapping runs never process a schedule twice. At most dispatchConcurrency schedules are
+ * evaluated at once through ActionService.evaluateTreeReactive (tree reads and the action stay on JPA, on the
+ * persistence scheduler).
+ */
+@Service
+@ConditionalOnProperty(name = "tot.r2dbc.enabled", havingValue = "true")
+public class ReactiveScheduleDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveScheduleDispatcher.class);
+
+    private final ReactiveScheduleRepository reactiveScheduleRepository;
+    private final ActionService actionService;
+    private final ScheduleEventBus scheduleEventBus;
+
+    @Value("${tot.r2dbc.dispatch-concurrency:16}")
+    private int dispatchConcurrency;
+
+    @Autowired
+    public ReactiveScheduleDispatcher(ReactiveScheduleRepository reactiveScheduleRepository, ActionService actionService,
+                                      ScheduleEventBus scheduleEventBus) {
+        this.reactiveScheduleRepository = reactiveScheduleRepository;
+        this.actionService = actionService;
+        this.scheduleEventBus = scheduleEventBus;
+    }
+
+    /**
+     * Claim and process the schedules that are due now
+     * @return Number of schedules processed (completed or failed), once all of them are done
+     */
+    public Mono<Long> dispatchDue() {
+        LocalDateTime now = LocalDateTime.now();
+        return reactiveScheduleRepository.findByScheduledTimeBetweenAndStatus(now.minusMinutes(5), now.plusMinutes(1), "PENDING")
+                .concatMap(this::claim)
+                .flatMap(this::process, Math.max(dispatchConcurrency, 1))
+                .count();
+    }
+
+    /**
+     * @return The schedule if this dispatcher moved it to IN_PROGRESS, empty if another run got it first
+     */
+    private Mono<ScheduleRow> claim(ScheduleRow schedule) {
+        return reactiveScheduleRepository.transitionStatus(schedule.getId(), "PENDING", "IN_PROGRESS")
+                .filter(updated -> updated == 1)
+                .doOnNext(updated -> scheduleEventBus.publishStatus(schedule.getId(), schedule.getTargetNodeId(), "IN_PROGRESS"))
+                .map(updated -> schedule);
+    }
+
+    /**
+     * Evaluate the schedule's tree, run its action on a positive result and record the final status
+     * @return The final status
+     */
+    private Mono<String> process(ScheduleRow schedule) {
+        String scheduleId = schedule.getId();
+        String treeId = schedule.getTargetNodeId();
+        int comparisonDays = schedule.getComparisonDays() != null ? schedule.getComparisonDays() : 1;
+        logger.info("Reactive processing of schedule {} for tree {} with {}-day comparison", scheduleId, treeId, comparisonDays);
+
+        return actionService.evaluateTreeReactive(treeId, comparisonDays)
+                .doOnNext(validationResult -> {
+                    scheduleEventBus.publishEvaluation(scheduleId, treeId, validationResult.getResult());
+                    if (validationResult.isPositive()) {
+                        logger.info("Executing core logic for schedule {} (TOT result: true)", scheduleId);
+                        actionService.executeCoreLogic(scheduleId, schedule.getActionId(), treeId, validationResult.getResult());
+                    } else {
+                        logger.info("TOT evaluation returned false for schedule {} - no action taken", scheduleId);
+                    }
+                })
+                .then(finish(schedule, "COMPLETED"))
+                .onErrorResume(e -> {
+                    logger.error("Error in reactive processing of schedule {}: {}", scheduleId, e.getMessage());
+                    return finish(schedule, "ERROR");
+                });
+    }
+
+    private Mono<String> finish(ScheduleRow schedule, String status) {
+        return reactiveScheduleRepository.transitionStatus(schedule.getId(), "IN_PROGRESS", status)
+                .doOnNext(updated -> {
+                    logger.info("Updated schedule {} status to {}", schedule.getId(), status);
+                    scheduleEventBus.publishStatus(schedule.getId(), schedule.getTargetNodeId(), status);
+                })
+                .thenReturn(status);
+    }
+}
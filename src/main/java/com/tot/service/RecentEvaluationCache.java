@@ -0,0 +1,219 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.repository.TotLogRepository;
+import com.tot.repository.TotLogSummary;
+import com.tot.repository.TreeCatalogRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the most recent evaluation summaries of each tree in a fixed-size ring buffer.
+ * Rings are filled from the database on first read (or at startup for the most recently evaluated trees)
+ * and then kept current by LogBatchPersister after each committed batch, so repeated reads do not touch the
+ * database. When more than maxTrees trees are cached, the least recently read ones are evicted.
+ */
+@Component
+public class RecentEvaluationCache {
+    private static final Logger logger = LoggerFactory.getLogger(RecentEvaluationCache.class);
+
+    private final TotLogRepository totLogRepository;
+    private final TreeCatalogRepository treeCatalogRepository;
+
+    @Value("${tot.logs.recent.per-tree:10}")
+    private int perTree;
+
+    @Value("${tot.logs.recent.max-trees:10000}")
+    private int maxTrees;
+
+    @Value("${tot.logs.recent.warm-trees:1000}")
+    private int warmTrees;
+
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public RecentEvaluationCache(TotLogRepository totLogRepository, TreeCatalogRepository treeCatalogRepository) {
+        this.totLogRepository = totLogRepository;
+        this.treeCatalogRepository = treeCatalogRepository;
+    }
+
+    @PostConstruct
+    public void validate() {
+        if (perTree < 1) {
+            throw new IllegalStateException("tot.logs.recent.per-tree must be at least 1, was " + perTree);
+        }
+        if (maxTrees < 1) {
+            throw new IllegalStateException("tot.logs.recent.max-trees must be at least 1, was " + maxTrees);
+        }
+    }
+
+    /**
+     * Load the rings of the most recently evaluated trees
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        List<String> treeIds = treeCatalogRepository.findRecentlyEvaluatedTreeIds(Limit.of(Math.min(warmTrees, maxTrees)));
+        // Warmed rings have never been read, so they are the first to go if real reads need the room
+        treeIds.forEach(treeId -> rings.computeIfAbsent(treeId, this::load));
+        logger.info("Warmed recent evaluations for {} trees", treeIds.size());
+    }
+
+    /**
+     * Get the most recent evaluations of a tree
+     * @param treeId ID of the tree
+     * @return Up to perTree summaries, newest first
+     */
+    public List<TotLogSummary> getRecent(String treeId) {
+        return ringOf(treeId).newestFirst();
+    }
+
+    /**
+     * Get the most recent evaluation of a tree
+     * @param treeId ID of the tree
+     * @return The newest summary, or empty if the tree has never been evaluated
+     */
+    public Optional<TotLogSummary> getLast(String treeId) {
+        return Optional.ofNullable(ringOf(treeId).newest());
+    }
+
+    /**
+     * Add committed log entries to the rings of their trees.
+     * Trees that are not cached are skipped; their next read loads them from the database, committed entries included.
+     * @param logs Entries that were just written, in write order
+     */
+    public void record(List<TotLog> logs) {
+        for (TotLog log : logs) {
+            TotLogSummary summary = new TotLogSummary(log.getId(), log.getTreeId(), log.getValidationResult(),
+                    log.getTreeVersionHash(), log.getTimestamp());
+            rings.computeIfPresent(log.getTreeId(), (treeId, ring) -> {
+                ring.add(summary);
+                return ring;
+            });
+        }
+    }
+
+    /**
+     * @return Cache size and hit counters
+     */
+    public CacheStats getStats() {
+        return new CacheStats(rings.size(), maxTrees, perTree, hits.get(), misses.get(), evictions.get());
+    }
+
+    private Ring ringOf(String treeId) {
+        Ring ring = rings.get(treeId);
+        if (ring != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            // Loading inside computeIfAbsent keeps record() for the same tree from running until the ring is installed
+            ring = rings.computeIfAbsent(treeId, this::load);
+            if (rings.size() > maxTrees) {
+                evictRarelyRead();
+            }
+        }
+        ring.lastReadAt = System.currentTimeMillis();
+        return ring;
+    }
+
+    private Ring load(String treeId) {
+        Ring ring = new Ring(perTree);
+        List<TotLogSummary> newestFirst = totLogRepository.findRecentSummaries(treeId, Limit.of(perTree));
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            ring.add(newestFirst.get(i));
+        }
+        return ring;
+    }
+
+    /**
+     * Drop the least recently read tenth of the cache (at least down to maxTrees)
+     */
+    private synchronized void evictRarelyRead() {
+        int excess = rings.size() - maxTrees;
+        if (excess <= 0) {
+            return;
+        }
+        int toEvict = Math.max(excess, maxTrees / 10);
+        List<Map.Entry<String, Ring>> entries = new ArrayList<>(rings.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastReadAt));
+        int evicted = 0;
+        for (int i = 0; i < toEvict && i < entries.size(); i++) {
+            if (rings.remove(entries.get(i).getKey(), entries.get(i).getValue())) {
+                evicted++;
+            }
+        }
+        evictions.addAndGet(evicted);
+        logger.debug("Evicted {} rarely read trees from the recent evaluation cache", evicted);
+    }
+
+    /**
+     * Fixed-size ring of summaries; the oldest entry is overwritten when full
+     */
+    private static final class Ring {
+        private final TotLogSummary[] slots;
+        private int next;
+        private int size;
+        private volatile long lastReadAt; // 0 until first read, so warmed but unread rings are evicted first
+
+        private Ring(int capacity) {
+            this.slots = new TotLogSummary[capacity];
+        }
+
+        private synchronized void add(TotLogSummary summary) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i].id().equals(summary.id())) {
+                    return; // Already loaded from the database
+                }
+            }
+            slots[next] = summary;
+            next = (next + 1) % slots.length;
+            size = Math.min(size + 1, slots.length);
+        }
+
+        private synchronized TotLogSummary newest() {
+            return size == 0 ? null : slots[(next - 1 + slots.length) % slots.length];
+        }
+
+        private synchronized List<TotLogSummary> newestFirst() {
+            List<TotLogSummary> result = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                result.add(slots[(next - i + slots.length) % slots.length]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Cache size and hit counters
+     */
+    @Data
+    @AllArgsConstructor
+    public static class CacheStats {
+        private int trees;
+        private int maxTrees;
+        private int entriesPerTree;
+        private long hits;
+        private long misses;
+        private long evictions;
+    }
+}
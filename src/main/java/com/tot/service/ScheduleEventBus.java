@@ -0,0 +1,134 @@
+package com.tot.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process bus of schedule lifecycle events (creation, status transitions, evaluation results) behind the
+ * /api/schedule/events stream.
+ *
+ * Publishing never waits on subscribers: each subscriber has its own buffer of bufferSize events, and when a slow
+ * subscriber's buffer is full its oldest event is dropped. Events published inside a transaction are delivered after
+ * commit. Events are not persisted; a subscriber only sees what happens while it is connected.
+ */
+@Component
+public class ScheduleEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleEventBus.class);
+
+    public static final String CREATED = "created";
+    public static final String STATUS = "status";
+    public static final String EVALUATION = "evaluation";
+    public static final String DELETED = "deleted";
+
+    @Value("${tot.schedule.events.buffer-size:256}")
+    private int bufferSize;
+
+    private final Sinks.Many<ScheduleEvent> sink = Sinks.many().multicast().directBestEffort();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    /**
+     * Publish a new schedule
+     */
+    public void publishCreated(String scheduleId, String treeId, String status) {
+        publish(CREATED, scheduleId, treeId, status, null);
+    }
+
+    /**
+     * Publish a status transition of a schedule
+     */
+    public void publishStatus(String scheduleId, String treeId, String status) {
+        publish(STATUS, scheduleId, treeId, status, null);
+    }
+
+    /**
+     * Publish the evaluation result of a schedule's tree
+     * @param result Validation result ("true"/"false")
+     */
+    public void publishEvaluation(String scheduleId, String treeId, String result) {
+        publish(EVALUATION, scheduleId, treeId, null, result);
+    }
+
+    /**
+     * Publish the deletion of a schedule
+     */
+    public void publishDeleted(String scheduleId) {
+        publish(DELETED, scheduleId, null, null, null);
+    }
+
+    /**
+     * Subscribe to schedule events
+     * @param treeId Only deliver events of this tree's schedules, or null for all (deletions are always delivered)
+     * @return Events in publish order, with the oldest dropped when this subscriber falls bufferSize events behind
+     */
+    public Flux<ScheduleEvent> subscribe(String treeId) {
+        return sink.asFlux()
+                .filter(event -> treeId == null || event.getTreeId() == null || treeId.equals(event.getTreeId()))
+                .onBackpressureBuffer(bufferSize, event -> dropped.incrementAndGet(), BufferOverflowStrategy.DROP_OLDEST)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.get());
+        stats.put("published", sequence.get());
+        stats.put("dropped", dropped.get());
+        stats.put("bufferSize", bufferSize);
+        return stats;
+    }
+
+    private void publish(String type, String scheduleId, String treeId, String status, String result) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    emit(type, scheduleId, treeId, status, result);
+                }
+            });
+        } else {
+            emit(type, scheduleId, treeId, status, result);
+        }
+    }
+
+    private synchronized void emit(String type, String scheduleId, String treeId, String status, String result) {
+        ScheduleEvent event = new ScheduleEvent(sequence.incrementAndGet(), type, scheduleId, treeId, status, result,
+                LocalDateTime.now());
+        Sinks.EmitResult emitResult = sink.tryEmitNext(event);
+        if (emitResult.isFailure() && emitResult != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            logger.warn("Schedule event {} for schedule {} not delivered: {}", type, scheduleId, emitResult);
+        }
+    }
+
+    /**
+     * One schedule lifecycle event; status is set for created and status events, result for evaluation events
+     */
+    @Data
+    @AllArgsConstructor
+    public static class ScheduleEvent {
+        private long sequence;
+        private String type;
+        private String scheduleId;
+        private String treeId;
+        private String status;
+        private String result;
+        private LocalDateTime timestamp;
+    }
+}
@@ -3,16 +3,35 @@ package com.tot.service;
 import com.tot.entity.Action;
 import com.tot.entity.Schedule;
 import com.tot.repository.ActionRepository;
+import com.tot.repository.ScheduleFilter;
 import com.tot.repository.ScheduleRepository;
+import com.tot.repository.ScheduleSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for managing schedules and delegating schedule processing
@@ -24,19 +43,47 @@ public class ScheduleService {
     private final ActionService actionService;
     private final ScheduleRepository scheduleRepository;
     private final ActionRepository actionRepository;
+    private final ObjectProvider<ReactiveScheduleDispatcher> reactiveDispatcher;
+    private final ScheduleEventBus scheduleEventBus;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_SCHEDULE_SQL =
+            "INSERT INTO schedule (id, scheduled_time, target_node_id, status, comparison_days, action_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Value("${tot.schedule.page.count-cap:10000}")
+    private long countCap;
+
+    @Value("${tot.schedule.bulk.max-rows:1000000}")
+    private long maxRows;
+
+    @Value("${tot.schedule.bulk.batch-size:1000}")
+    private int batchSize;
 
     @Autowired
-    public ScheduleService(ActionService actionService, ScheduleRepository scheduleRepository, ActionRepository actionRepository) {
+    public ScheduleService(ActionService actionService, ScheduleRepository scheduleRepository, ActionRepository actionRepository,
+                           ObjectProvider<ReactiveScheduleDispatcher> reactiveDispatcher, ScheduleEventBus scheduleEventBus,
+                           JdbcTemplate jdbcTemplate) {
         this.actionService = actionService;
         this.scheduleRepository = scheduleRepository;
         this.actionRepository = actionRepository;
+        this.reactiveDispatcher = reactiveDispatcher;
+        this.scheduleEventBus = scheduleEventBus;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     /**
      * Process all schedules that are due now asynchronously
-     * Delegates to ActionService for core processing logic
+     * Delegates to the ReactiveScheduleDispatcher when R2DBC is enabled, otherwise to ActionService
      */
     public void processSchedulesForCurrentTimeAsync() {
+        ReactiveScheduleDispatcher dispatcher = reactiveDispatcher.getIfAvailable();
+        if (dispatcher != null) {
+            logger.info("Delegating schedule processing to ReactiveScheduleDispatcher");
+            dispatcher.dispatchDue().subscribe(
+                    processed -> logger.info("Reactive schedule processing finished: {} schedules processed", processed),
+                    e -> logger.error("Reactive schedule processing failed: {}", e.getMessage(), e));
+            return;
+        }
         logger.info("Delegating schedule processing to ActionService");
         actionService.processSchedulesForCurrentTimeAsync();
     }
@@ -53,18 +100,7 @@ public class ScheduleService {
         logger.info("Creating schedule for treeId: {} at {} with {}-day comparison", treeId, targetDateTime, comparisonDays);
 
         // Validate inputs
-        if (treeId == null || treeId.trim().isEmpty()) {
-            throw new IllegalArgumentException("Tree ID cannot be null or empty");
-        }
-        if (targetDateTime == null) {
-            throw new IllegalArgumentException("Target date time cannot be null");
-        }
-        if (targetDateTime.isBefore(LocalDateTime.now())) {
-            throw new IllegalArgumentException("Target date time cannot be in the past");
-        }
-        if (comparisonDays == null || comparisonDays < 1 || comparisonDays > 365) {
-            throw new IllegalArgumentException("Comparison days must be between 1 and 365");
-        }
+        validateSchedule(treeId, targetDateTime, comparisonDays, LocalDateTime.now());
 
         Schedule schedule = new Schedule();
         schedule.setTargetNodeId(treeId);
@@ -72,26 +108,119 @@ public class ScheduleService {
         schedule.setComparisonDays(comparisonDays);
         schedule.setStatus("PENDING");
 
-        // Create a default action if none exists
-        Action action = new Action();
-        action.setActionType("TOT_EVALUATION");
-        action.setActionData("{\"description\":\"Tree of Thought evaluation with " + comparisonDays + "-day historical comparison\"}");
-        Action savedAction = actionRepository.save(action);
-        schedule.setAction(savedAction);
+        // Share the action with every other schedule that performs the same evaluation
+        schedule.setAction(actionTemplate(comparisonDays, new int[1]));
 
         Schedule savedSchedule = scheduleRepository.save(schedule);
+        scheduleEventBus.publishCreated(savedSchedule.getId(), treeId, savedSchedule.getStatus());
         logger.info("Created schedule with ID: {} for treeId: {}", savedSchedule.getId(), treeId);
 
         return savedSchedule;
     }
 
     /**
-     * Get all schedules
-     * @return List of all schedules
+     * Create many schedules in one transaction, from an explicit list or a generator spec ("every N minutes between
+     * from and to" for each tree). Rows are inserted with JDBC batches of batchSize, and schedules with the same
+     * comparison period share one action. No schedule events are published for bulk-created schedules.
+     * @param request Either schedules, or treeIds with from, to and everyMinutes
+     * @return Number of schedules created, actions used and insert throughput
+     * @throws IllegalArgumentException If the request is malformed, a schedule is invalid or more than maxRows would be
+     *                                  created; nothing is created then
      */
-    public List<Schedule> getAllSchedules() {
-        logger.info("Retrieving all schedules");
-        return scheduleRepository.findAll();
+    @Transactional
+    public BulkScheduleResult createSchedules(BulkScheduleRequest request) {
+        long startedAt = System.nanoTime();
+        boolean listed = request.getSchedules() != null && !request.getSchedules().isEmpty();
+        boolean generated = request.getTreeIds() != null && !request.getTreeIds().isEmpty();
+        if (listed == generated) {
+            throw new IllegalArgumentException("Provide either schedules or a generator (treeIds, from, to, everyMinutes)");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, String> actionIds = new HashMap<>();
+        int[] actionsCreated = new int[1];
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long created = 0;
+
+        if (listed) {
+            if (request.getSchedules().size() > maxRows) {
+                throw new IllegalArgumentException("At most " + maxRows + " schedules can be created in one request");
+            }
+            logger.info("Creating {} listed schedules", request.getSchedules().size());
+            for (ScheduleSpec spec : request.getSchedules()) {
+                int comparisonDays = spec.getComparisonDays() != null ? spec.getComparisonDays() : 1;
+                validateSchedule(spec.getTreeId(), spec.getTargetDateTime(), comparisonDays, now);
+                String actionId = actionIds.computeIfAbsent(comparisonDays, days -> actionTemplate(days, actionsCreated).getId());
+                created += addRow(batch, spec.getTreeId(), spec.getTargetDateTime(), comparisonDays, actionId);
+            }
+        } else {
+            LocalDateTime from = request.getFrom();
+            LocalDateTime to = request.getTo();
+            Integer everyMinutes = request.getEveryMinutes();
+            int comparisonDays = request.getComparisonDays() != null ? request.getComparisonDays() : 1;
+            if (from == null || to == null || everyMinutes == null || everyMinutes < 1 || to.isBefore(from)) {
+                throw new IllegalArgumentException("A generator needs from <= to and everyMinutes >= 1");
+            }
+            Set<String> treeIds = new LinkedHashSet<>(request.getTreeIds());
+            long slots = Duration.between(from, to).toMinutes() / everyMinutes + 1;
+            if (slots * treeIds.size() > maxRows) {
+                throw new IllegalArgumentException("The generator would create " + slots * treeIds.size() +
+                        " schedules; at most " + maxRows + " can be created in one request");
+            }
+            logger.info("Generating {} schedules: {} trees every {} minutes from {} to {}",
+                    slots * treeIds.size(), treeIds.size(), everyMinutes, from, to);
+            for (String treeId : treeIds) {
+                validateSchedule(treeId, from, comparisonDays, now);
+            }
+            String actionId = actionTemplate(comparisonDays, actionsCreated).getId();
+            for (LocalDateTime time = from; !time.isAfter(to); time = time.plusMinutes(everyMinutes)) {
+                for (String treeId : treeIds) {
+                    created += addRow(batch, treeId, time, comparisonDays, actionId);
+                }
+            }
+        }
+        flush(batch);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        double rowsPerSecond = created * 1000.0 / Math.max(elapsedMs, 1);
+        logger.info("Created {} schedules in {} ms ({} rows/s), {} shared actions ({} new)",
+                created, elapsedMs, Math.round(rowsPerSecond), Math.max(actionIds.size(), 1), actionsCreated[0]);
+        return new BulkScheduleResult(created, listed ? actionIds.size() : 1, actionsCreated[0], elapsedMs, rowsPerSecond);
+    }
+
+    /**
+     * List schedule summaries one page at a time, ordered by scheduled time (keyset pagination on scheduledTime, id)
+     * @param filter Optional status, tree and scheduled time range filters
+     * @param after Cursor returned with the previous page, or null for the first page
+     * @param size Maximum number of schedules to return
+     * @param descending Latest scheduled time first
+     * @param withCount Also count the matching schedules, up to the configured cap
+     * @return Page of summaries with the cursor for the next page
+     * @throws IllegalArgumentException If the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public SchedulePage getSchedulePage(ScheduleFilter filter, String after, int size, boolean descending, boolean withCount) {
+        logger.info("Retrieving schedules after {} (size {}, filter {})", after, size, filter);
+        ScheduleCursor cursor = ScheduleCursor.decode(after);
+        List<ScheduleSummary> schedules = scheduleRepository.findSummaryPage(filter,
+                cursor == null ? null : cursor.scheduledTime(), cursor == null ? null : cursor.id(), descending, size + 1);
+
+        // One extra row tells us whether another page exists without a count query
+        boolean hasMore = schedules.size() > size;
+        if (hasMore) {
+            schedules = schedules.subList(0, size);
+        }
+        ScheduleSummary last = hasMore ? schedules.get(schedules.size() - 1) : null;
+        String nextCursor = last != null ? new ScheduleCursor(last.scheduledTime(), last.id()).encode() : null;
+
+        Long total = null;
+        Boolean totalExact = null;
+        if (withCount) {
+            long counted = scheduleRepository.countUpTo(filter, countCap);
+            totalExact = counted <= countCap;
+            total = Math.min(counted, countCap);
+        }
+        return new SchedulePage(schedules, nextCursor, total, totalExact);
     }
 
     /**
@@ -118,7 +247,9 @@ public class ScheduleService {
                 .orElseThrow(() -> new IllegalArgumentException("Schedule not found: " + scheduleId));
         
         schedule.setStatus(status);
-        return scheduleRepository.save(schedule);
+        Schedule savedSchedule = scheduleRepository.save(schedule);
+        scheduleEventBus.publishStatus(scheduleId, savedSchedule.getTargetNodeId(), status);
+        return savedSchedule;
     }
 
     /**
@@ -134,6 +265,137 @@ public class ScheduleService {
         }
         
         scheduleRepository.deleteById(scheduleId);
+        scheduleEventBus.publishDeleted(scheduleId);
         logger.info("Successfully deleted schedule: {}", scheduleId);
     }
-}
\ No newline at end of file
+
+    private void validateSchedule(String treeId, LocalDateTime targetDateTime, Integer comparisonDays, LocalDateTime now) {
+        if (treeId == null || treeId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Tree ID cannot be null or empty");
+        }
+        if (targetDateTime == null) {
+            throw new IllegalArgumentException("Target date time cannot be null");
+        }
+        if (targetDateTime.isBefore(now)) {
+            throw new IllegalArgumentException("Target date time cannot be in the past");
+        }
+        if (comparisonDays == null || comparisonDays < 1 || comparisonDays > 365) {
+            throw new IllegalArgumentException("Comparison days must be between 1 and 365");
+        }
+    }
+
+    /**
+     * Find or create the shared evaluation action for a comparison period
+     * @param created Incremented when a new action row is inserted
+     */
+    private Action actionTemplate(int comparisonDays, int[] created) {
+        String actionType = "TOT_EVALUATION";
+        String actionData = "{\"description\":\"Tree of Thought evaluation with " + comparisonDays + "-day historical comparison\"}";
+        String templateHash = TreeVersionService.contentHash(actionType + "\n" + actionData);
+
+        return actionRepository.findFirstByTemplateHash(templateHash).orElseGet(() -> {
+            Action action = new Action();
+            action.setActionType(actionType);
+            action.setActionData(actionData);
+            action.setTemplateHash(templateHash);
+            created[0]++;
+            return actionRepository.saveAndFlush(action); // Flushed so the JDBC batch inserts can reference it
+        });
+    }
+
+    /**
+     * Queue a schedule row, inserting the batch when it is full
+     * @return 1, the number of rows added
+     */
+    private int addRow(List<Object[]> batch, String treeId, LocalDateTime scheduledTime, int comparisonDays, String actionId) {
+        batch.add(new Object[]{UUID.randomUUID().toString(), scheduledTime, treeId, "PENDING", comparisonDays, actionId});
+        if (batch.size() >= batchSize) {
+            flush(batch);
+        }
+        return 1;
+    }
+
+    private void flush(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SCHEDULE_SQL, batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Bulk schedule creation request: either a list of schedules, or a generator that schedules each tree every
+     * everyMinutes from from to to (inclusive)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BulkScheduleRequest {
+        private List<ScheduleSpec> schedules;
+        private List<String> treeIds;
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private Integer everyMinutes;
+        private Integer comparisonDays; // Generator only; listed schedules carry their own (default 1)
+    }
+
+    /**
+     * One schedule of a bulk request
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ScheduleSpec {
+        private String treeId;
+        private LocalDateTime targetDateTime;
+        private Integer comparisonDays;
+    }
+
+    /**
+     * Outcome of a bulk schedule creation
+     */
+    @Data
+    @AllArgsConstructor
+    public static class BulkScheduleResult {
+        private long created;
+        private int actionsUsed;
+        private int actionsCreated;
+        private long elapsedMs;
+        private double rowsPerSecond;
+    }
+
+    /**
+     * One page of schedule summaries
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SchedulePage {
+        private List<ScheduleSummary> schedules;
+        private String nextCursor; // Pass as "after" to fetch the next page; null on the last page
+        private Long total; // Matching schedules, if requested; a lower bound when totalExact is false
+        private Boolean totalExact;
+    }
+
+    /**
+     * Position after the last schedule of a page: (scheduledTime, id), encoded as an opaque URL-safe string
+     */
+    private record ScheduleCursor(LocalDateTime scheduledTime, String id) {
+
+        private String encode() {
+            String raw = scheduledTime + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static ScheduleCursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new ScheduleCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid schedule cursor: " + cursor);
+            }
+        }
+    }
+}
@@ -8,9 +8,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -23,8 +30,15 @@ import java.util.regex.Pattern;
 public class StockDataService {
     private static final Logger logger = LoggerFactory.getLogger(StockDataService.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile("\\b[A-Z]{2,5}\\b");
+    private static final String MARKET_DATA_HEADER = "\n\n=== REAL MARKET DATA ===\n";
+    private static final String MARKET_DATA_FOOTER = "=== END REAL DATA ===\nUse the above REAL data (not web search) for your analysis.\n\n";
+    private static final String QUOTE_URL = "/api/v1/quote?symbol=%s&token=%s";
+    private static final String METRIC_URL = "/api/v1/stock/metric?symbol=%s&metric=all&token=%s";
+
     private final RestClient restClient;
-    private final Map<String, Boolean> symbolValidationCache = new HashMap<>();
+    private final WebClient webClient;
+    private final Map<String, Boolean> symbolValidationCache = new ConcurrentHashMap<>(); // Shared by parallel evaluations
     
     @Value("${tot.stock.validation.enabled:false}")
     private boolean stockValidationEnabled;
@@ -39,6 +53,9 @@ public class StockDataService {
         this.restClient = RestClient.builder()
                 .baseUrl("https://finnhub.io")
                 .build();
+        this.webClient = WebClient.builder()
+                .baseUrl("https://finnhub.io")
+                .build();
     }
 
     /**
@@ -63,21 +80,50 @@ public class StockDataService {
      * Extracts stock symbols from ToT content using regex
      */
     public String[] extractStockSymbols(String treeJson) {
-        Pattern pattern = Pattern.compile("\\b[A-Z]{2,5}\\b");
-        Matcher matcher = pattern.matcher(treeJson);
-        
+        return candidateSymbols(treeJson).stream()
+                .filter(this::isValidStockSymbol)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Tokens that look like stock symbols, before checking with the API that they exist
+     */
+    private List<String> candidateSymbols(String treeJson) {
+        Matcher matcher = SYMBOL_PATTERN.matcher(treeJson);
         return matcher.results()
                 .map(MatchResult::group)
                 .filter(this::isLikelyStockSymbol)
-                .filter(this::isValidStockSymbol)
                 .distinct()
-                .toArray(String[]::new);
+                .toList();
     }
 
     /**
      * Enriches user prompt with real stock data before sending to LLM
      */
     public String enrichPromptWithStockData(String originalPrompt, String treeJson, int comparisonDays) {
+        return enrichPromptWithStockData(originalPrompt, treeJson, comparisonDays, Map.of());
+    }
+
+    /**
+     * Fetch current and historical data for a set of symbols once, so evaluations of several trees can share it
+     * @param symbols Symbols to fetch (e.g. the union of the symbols of all trees in a bulk evaluation)
+     * @param comparisonDays Number of days back to compare
+     * @return Data by symbol; symbols whose data could not be fetched map to empty data
+     */
+    public Map<String, SymbolData> fetchMarketData(Collection<String> symbols, int comparisonDays) {
+        Map<String, SymbolData> marketData = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            marketData.put(symbol, fetchSymbolData(symbol, comparisonDays));
+        }
+        return marketData;
+    }
+
+    /**
+     * Enriches user prompt with real stock data before sending to LLM, using prefetched data where available
+     * @param prefetched Data from fetchMarketData; symbols missing from it are fetched now
+     */
+    public String enrichPromptWithStockData(String originalPrompt, String treeJson, int comparisonDays,
+                                            Map<String, SymbolData> prefetched) {
         if (!containsStockCriteria(treeJson)) {
             logger.debug("No stock criteria detected, using original prompt");
             return originalPrompt;
@@ -90,45 +136,116 @@ public class StockDataService {
         }
 
         StringBuilder enrichedPrompt = new StringBuilder(originalPrompt);
-        enrichedPrompt.append("\n\n=== REAL MARKET DATA ===\n");
+        enrichedPrompt.append(MARKET_DATA_HEADER);
 
         for (String symbol : symbols) {
             try {
-                StockData currentData = fetchCurrentStockData(symbol);
-                StockData historicalData = fetchHistoricalStockData(symbol, comparisonDays);
-                
-                if (currentData != null && historicalData != null) {
-                    double priceChange = currentData.price - historicalData.price;
-                    double percentChange = (priceChange / historicalData.price) * 100;
-                    
-                    enrichedPrompt.append(String.format("""
-                        %s:
-                        - Current Price: $%.2f
-                        - 52-Week Low: $%.2f
-                        - Change from 52W Low: $%.2f (%.2f%%)
-                        - Average Volume: %,d
-                        - Market Cap: $%.2fB
-                        
-                        """, symbol, currentData.price, historicalData.price,
-                        priceChange, percentChange, historicalData.volume,
-                        currentData.marketCap / 1_000_000_000.0));
-                }
+                SymbolData data = prefetched.containsKey(symbol) ? prefetched.get(symbol) : fetchSymbolData(symbol, comparisonDays);
+                appendMarketData(enrichedPrompt, symbol, data);
             } catch (Exception e) {
                 logger.warn("Failed to fetch data for symbol {}: {}", symbol, e.getMessage());
                 enrichedPrompt.append(String.format("%s: Data unavailable\n", symbol));
             }
         }
 
-        enrichedPrompt.append("=== END REAL DATA ===\nUse the above REAL data (not web search) for your analysis.\n\n");
+        enrichedPrompt.append(MARKET_DATA_FOOTER);
         return enrichedPrompt.toString();
     }
 
+    /**
+     * Non-blocking variant of enrichPromptWithStockData. The quote and metric calls of all candidate symbols run
+     * concurrently on the WebClient's event loop, and the quote doubles as the check that the symbol exists
+     * @return The prompt with a market data section, or the original prompt when no symbol has data
+     */
+    public Mono<String> enrichPromptWithStockDataReactive(String originalPrompt, String treeJson, int comparisonDays) {
+        if (!stockValidationEnabled) {
+            return Mono.just(originalPrompt);
+        }
+        List<String> symbols = candidateSymbols(treeJson).stream()
+                .filter(symbol -> !Boolean.FALSE.equals(symbolValidationCache.get(symbol)))
+                .toList();
+        if (symbols.isEmpty()) {
+            logger.debug("No stock symbols extracted, using original prompt");
+            return Mono.just(originalPrompt);
+        }
+
+        return Flux.fromIterable(symbols)
+                .flatMapSequential(symbol -> fetchSymbolDataReactive(symbol).map(data -> Map.entry(symbol, data)))
+                .collectList()
+                .map(entries -> {
+                    if (entries.isEmpty()) {
+                        return originalPrompt;
+                    }
+                    StringBuilder enrichedPrompt = new StringBuilder(originalPrompt).append(MARKET_DATA_HEADER);
+                    entries.forEach(entry -> appendMarketData(enrichedPrompt, entry.getKey(), entry.getValue()));
+                    return enrichedPrompt.append(MARKET_DATA_FOOTER).toString();
+                });
+    }
+
+    /**
+     * Fetch the quote and metrics of a symbol concurrently; empty if the symbol does not exist
+     */
+    private Mono<SymbolData> fetchSymbolDataReactive(String symbol) {
+        Mono<String> quote = getReactive(String.format(QUOTE_URL, symbol, stockApiKey));
+        Mono<String> metrics = getReactive(String.format(METRIC_URL, symbol, stockApiKey));
+        return Mono.zip(quote, metrics).flatMap(responses -> {
+            boolean valid = isValidQuote(responses.getT1());
+            symbolValidationCache.put(symbol, valid);
+            if (!valid) {
+                return Mono.empty();
+            }
+            long marketCap = marketCapFrom(responses.getT2());
+            return Mono.just(new SymbolData(parseFinnhubQuoteResponse(responses.getT1(), symbol, () -> marketCap),
+                    parseFinnhubMetricResponse(responses.getT2(), symbol)));
+        });
+    }
+
+    private Mono<String> getReactive(String url) {
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(String.class)
+                .onErrorResume(e -> {
+                    logger.debug("Finnhub request failed: {}", e.getMessage());
+                    return Mono.just("{}");
+                });
+    }
+
+    /**
+     * Append the market data lines of one symbol; symbols missing current or historical data are left out
+     */
+    private void appendMarketData(StringBuilder enrichedPrompt, String symbol, SymbolData data) {
+        StockData currentData = data.current;
+        StockData historicalData = data.historical;
+        if (currentData == null || historicalData == null) {
+            return;
+        }
+        double priceChange = currentData.price - historicalData.price;
+        double percentChange = (priceChange / historicalData.price) * 100;
+
+        enrichedPrompt.append(String.format("""
+            %s:
+            - Current Price: $%.2f
+            - 52-Week Low: $%.2f
+            - Change from 52W Low: $%.2f (%.2f%%)
+            - Average Volume: %,d
+            - Market Cap: $%.2fB
+            
+            """, symbol, currentData.price, historicalData.price,
+            priceChange, percentChange, historicalData.volume,
+            currentData.marketCap / 1_000_000_000.0));
+    }
+
+    private SymbolData fetchSymbolData(String symbol, int comparisonDays) {
+        return new SymbolData(fetchCurrentStockData(symbol), fetchHistoricalStockData(symbol, comparisonDays));
+    }
+
     /**
      * Fetches current stock data from Finnhub API
      */
     private StockData fetchCurrentStockData(String symbol) {
         try {
-            String url = String.format("/api/v1/quote?symbol=%s&token=%s", symbol, stockApiKey);
+            String url = String.format(QUOTE_URL, symbol, stockApiKey);
             String response = restClient.get()
                     .uri(url)
                     .retrieve()
@@ -147,7 +264,7 @@ public class StockDataService {
      */
     private StockData fetchHistoricalStockData(String symbol, int daysBack) {
         try {
-            String url = String.format("/api/v1/stock/metric?symbol=%s&metric=all&token=%s", symbol, stockApiKey);
+            String url = String.format(METRIC_URL, symbol, stockApiKey);
             
             String response = restClient.get()
                     .uri(url)
@@ -176,6 +293,10 @@ public class StockDataService {
      * Parses Finnhub quote API response
      */
     private StockData parseFinnhubQuoteResponse(String response, String symbol) {
+        return parseFinnhubQuoteResponse(response, symbol, () -> fetchMarketCap(symbol));
+    }
+
+    private StockData parseFinnhubQuoteResponse(String response, String symbol, LongSupplier marketCapSource) {
         try {
             JsonNode root = objectMapper.readTree(response);
             
@@ -188,7 +309,7 @@ public class StockDataService {
             double previousClose = root.path("pc").asDouble(); // previous close
             
             // Finnhub quote doesn't provide volume directly, fetch basic financials for market cap
-            long marketCap = fetchMarketCap(symbol);
+            long marketCap = marketCapSource.getAsLong();
             
             // Use 0 as volume placeholder since it's not in the quote endpoint
             return new StockData(currentPrice, 0, marketCap);
@@ -248,24 +369,28 @@ public class StockDataService {
      */
     private long fetchMarketCap(String symbol) {
         try {
-            String url = String.format("/api/v1/stock/metric?symbol=%s&metric=all&token=%s", symbol, stockApiKey);
+            String url = String.format(METRIC_URL, symbol, stockApiKey);
             String response = restClient.get()
                     .uri(url)
                     .retrieve()
                     .body(String.class);
-            
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode metric = root.path("metric");
-            
+            return marketCapFrom(response);
+        } catch (Exception e) {
+            logger.debug("Could not fetch market cap for {}: {}", symbol, e.getMessage());
+            return 0;
+        }
+    }
+
+    private long marketCapFrom(String metricResponse) {
+        try {
+            JsonNode metric = objectMapper.readTree(metricResponse).path("metric");
             if (!metric.isMissingNode() && metric.has("marketCapitalization")) {
                 return metric.path("marketCapitalization").asLong();
             }
-            
-            return 0; // Default if not available
         } catch (Exception e) {
-            logger.debug("Could not fetch market cap for {}: {}", symbol, e.getMessage());
-            return 0;
+            logger.debug("Could not parse market cap: {}", e.getMessage());
         }
+        return 0; // Default if not available
     }
 
     /**
@@ -312,22 +437,12 @@ public class StockDataService {
         }
         
         try {
-            String url = String.format("/api/v1/quote?symbol=%s&token=%s", symbol, stockApiKey);
+            String url = String.format(QUOTE_URL, symbol, stockApiKey);
             String response = restClient.get()
                     .uri(url)
                     .retrieve()
                     .body(String.class);
-            
-            JsonNode root = objectMapper.readTree(response);
-            
-            // Check if the response contains valid data
-            // If the symbol doesn't exist, Finnhub returns current price as 0
-            double currentPrice = root.path("c").asDouble();
-            
-            // Also check if there's any error or if all values are 0 (invalid symbol)
-            boolean isValid = currentPrice > 0 && 
-                             !root.has("error") && 
-                             !root.path("c").isMissingNode();
+            boolean isValid = isValidQuote(response);
             
             // Cache the result
             symbolValidationCache.put(symbol, isValid);
@@ -342,6 +457,25 @@ public class StockDataService {
         }
     }
 
+    /**
+     * Check that a quote response describes an existing symbol
+     */
+    private boolean isValidQuote(String response) {
+        try {
+            JsonNode root = objectMapper.readTree(response);
+
+            // If the symbol doesn't exist, Finnhub returns current price as 0
+            double currentPrice = root.path("c").asDouble();
+
+            // Also check if there's any error or if all values are 0 (invalid symbol)
+            return currentPrice > 0 &&
+                    !root.has("error") &&
+                    !root.path("c").isMissingNode();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     private boolean containsStockSymbol(String content) {
         String[] symbols = extractStockSymbols(content);
         return symbols.length > 0;
@@ -361,4 +495,17 @@ public class StockDataService {
             this.marketCap = marketCap;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Current and historical data of one symbol; either may be null when it could not be fetched
+     */
+    public static class SymbolData {
+        public final StockData current;
+        public final StockData historical;
+
+        public SymbolData(StockData current, StockData historical) {
+            this.current = current;
+            this.historical = historical;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.tot.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Transparent compression of large text columns (see {@link com.tot.entity.CompressedTextConverter}).
+ *
+ * Stored form of a value:
+ * <pre>
+ * shorter than MIN_LENGTH, or not smaller once compressed:  the value itself
+ * otherwise:  "~z" formatVersion ":" Base64(int utf8Length, raw deflate of the UTF-8 bytes)
+ * </pre>
+ * Each format version deflates with its own preset dictionary (compression/text-dictionary-v{N}.txt), built
+ * from the phrases of our validation criteria, tree JSON and action data. Version 0 ("~z0:" + value) escapes
+ * plain values that happen to start with the marker. Values without the marker are returned unchanged, so rows
+ * written before compression stay readable. A dictionary must never change once rows use it; a retrained
+ * dictionary is added as the next version.
+ */
+public final class TextCompressionCodec {
+    public static final String MARKER = "~z";
+    public static final int CURRENT_VERSION = 1;
+    public static final int MIN_LENGTH = 256;
+
+    private static final String ESCAPED_PREFIX = MARKER + "0:";
+    private static final Map<Integer, byte[]> DICTIONARIES = new ConcurrentHashMap<>();
+
+    private static final AtomicLong compressedValues = new AtomicLong();
+    private static final AtomicLong plainValues = new AtomicLong();
+    private static final AtomicLong inputBytes = new AtomicLong();
+    private static final AtomicLong storedBytes = new AtomicLong();
+    private static final AtomicLong compressNanos = new AtomicLong();
+    private static final AtomicLong decompressedValues = new AtomicLong();
+    private static final AtomicLong decompressNanos = new AtomicLong();
+
+    private TextCompressionCodec() {
+    }
+
+    /**
+     * Encode a value for storage
+     * @param value Plain value, may be null
+     * @return Stored form of the value
+     */
+    public static String encode(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        long startedAt = System.nanoTime();
+        byte[] plain = value.getBytes(StandardCharsets.UTF_8);
+        String stored = null;
+        if (value.length() >= MIN_LENGTH) {
+            byte[] deflated = deflate(plain, dictionary(CURRENT_VERSION));
+            ByteBuffer payload = ByteBuffer.allocate(4 + deflated.length).putInt(plain.length).put(deflated);
+            String compressed = MARKER + CURRENT_VERSION + ":" + Base64.getEncoder().encodeToString(payload.array());
+            if (compressed.length() < plain.length) {
+                stored = compressed;
+            }
+        }
+
+        if (stored != null) {
+            compressedValues.incrementAndGet();
+            storedBytes.addAndGet(stored.length());
+        } else {
+            stored = value.startsWith(MARKER) ? ESCAPED_PREFIX + value : value;
+            plainValues.incrementAndGet();
+            storedBytes.addAndGet(stored.length() == value.length() ? plain.length : plain.length + ESCAPED_PREFIX.length());
+        }
+        inputBytes.addAndGet(plain.length);
+        compressNanos.addAndGet(System.nanoTime() - startedAt);
+        return stored;
+    }
+
+    /**
+     * Decode a stored value
+     * @param stored Stored form, or a plain value written before compression; may be null
+     * @return Plain value
+     */
+    public static String decode(String stored) {
+        if (stored == null || !stored.startsWith(MARKER)) {
+            return stored;
+        }
+
+        int separator = stored.indexOf(':', MARKER.length());
+        if (separator < 0) {
+            return stored;
+        }
+        int version;
+        try {
+            version = Integer.parseInt(stored.substring(MARKER.length(), separator));
+        } catch (NumberFormatException e) {
+            return stored; // Not written by this codec
+        }
+        if (version == 0) {
+            return stored.substring(separator + 1);
+        }
+
+        long startedAt = System.nanoTime();
+        ByteBuffer payload = ByteBuffer.wrap(Base64.getDecoder().decode(stored.substring(separator + 1)));
+        int length = payload.getInt();
+        String value = new String(inflate(payload, length, dictionary(version)), StandardCharsets.UTF_8);
+        decompressedValues.incrementAndGet();
+        decompressNanos.addAndGet(System.nanoTime() - startedAt);
+        return value;
+    }
+
+    /**
+     * Raw deflate a value with a preset dictionary
+     * @param plain Bytes to compress
+     * @param dictionary Preset dictionary, or null for none
+     * @return Compressed bytes
+     */
+    public static byte[] deflate(byte[] plain, byte[] dictionary) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(plain);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return Preset dictionary of the version used for new values
+     */
+    public static byte[] currentDictionary() {
+        return dictionary(CURRENT_VERSION);
+    }
+
+    /**
+     * @return Compression counters since startup
+     */
+    public static CompressionStats getStats() {
+        long input = inputBytes.get();
+        long stored = storedBytes.get();
+        long encoded = compressedValues.get() + plainValues.get();
+        long decoded = decompressedValues.get();
+        return new CompressionStats(CURRENT_VERSION, MIN_LENGTH, compressedValues.get(), plainValues.get(), input, stored,
+                stored > 0 ? (double) input / stored : 0,
+                encoded > 0 ? compressNanos.get() / 1000.0 / encoded : 0,
+                decoded,
+                decoded > 0 ? decompressNanos.get() / 1000.0 / decoded : 0);
+    }
+
+    private static byte[] inflate(ByteBuffer payload, int length, byte[] dictionary) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(dictionary);
+            inflater.setInput(payload);
+            byte[] plain = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = inflater.inflate(plain, offset, length - offset);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Compressed text is truncated");
+                }
+                offset += read;
+            }
+            return plain;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed text is corrupt: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] dictionary(int version) {
+        return DICTIONARIES.computeIfAbsent(version, v -> {
+            String resource = "/compression/text-dictionary-v" + v + ".txt";
+            try (InputStream in = TextCompressionCodec.class.getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IllegalStateException("Unknown compressed text format version: " + v);
+                }
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load compression dictionary " + resource, e);
+            }
+        });
+    }
+
+    /**
+     * Compression counters: ratio of input to stored bytes and average CPU time per value
+     */
+    @Data
+    @AllArgsConstructor
+    public static class CompressionStats {
+        private int formatVersion;
+        private int minLength;
+        private long compressedValues;
+        private long plainValues;
+        private long inputBytes;
+        private long storedBytes;
+        private double ratio;
+        private double averageCompressMicros;
+        private long decompressedValues;
+        private double averageDecompressMicros;
+    }
+}
@@ -0,0 +1,181 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind writer for evaluation logs.
+ * Producers enqueue entries into a bounded queue and return immediately; a single writer thread
+ * drains the queue and inserts entries in one transaction per batch (group commit), flushing every
+ * batchSize entries or flushInterval milliseconds, whichever comes first.
+ * When the queue is full, producers wait up to offerTimeout and then write their entry themselves,
+ * so a stalled database slows producers down instead of losing entries.
+ * Batches are written by LogBatchPersister. This is the default ("jpa") log backend.
+ */
+@Component
+@ConditionalOnProperty(name = "tot.logs.backend", havingValue = "jpa", matchIfMissing = true)
+public class TotLogWriter implements EvaluationLogSink {
+    private static final Logger logger = LoggerFactory.getLogger(TotLogWriter.class);
+
+    private final LogBatchPersister logBatchPersister;
+
+    @Value("${tot.logs.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${tot.logs.writer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${tot.logs.writer.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${tot.logs.writer.offer-timeout-ms:1000}")
+    private long offerTimeoutMs;
+
+    private BlockingQueue<TotLog> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong callerWrites = new AtomicLong();
+    private final AtomicLong appendNanos = new AtomicLong();
+
+    @Autowired
+    public TotLogWriter(LogBatchPersister logBatchPersister) {
+        this.logBatchPersister = logBatchPersister;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runWriter, "tot-log-writer");
+        writerThread.start();
+        logger.info("Log writer started (queue capacity {}, batch size {}, flush interval {} ms)",
+                queueCapacity, batchSize, flushIntervalMs);
+    }
+
+    /**
+     * Stop the writer thread and flush everything still queued
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+
+        // Anything enqueued after the writer exited is written here
+        List<TotLog> remaining = new ArrayList<>(batchSize);
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining = new ArrayList<>(batchSize);
+        }
+        logger.info("Log writer stopped: {} enqueued, {} written, {} written by callers, {} failed",
+                enqueued.get(), logBatchPersister.getWrittenCount(), callerWrites.get(), logBatchPersister.getFailedCount());
+    }
+
+    /**
+     * Queue a log entry for writing
+     * @param logEntry Entry to write; its timestamp is set now if missing
+     */
+    @Override
+    public void append(TotLog logEntry) {
+        long startedAt = System.nanoTime();
+        if (logEntry.getTimestamp() == null) {
+            logEntry.setTimestamp(LocalDateTime.now());
+        }
+        enqueued.incrementAndGet();
+
+        try {
+            if (running && queue.offer(logEntry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                appendNanos.addAndGet(System.nanoTime() - startedAt);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Queue full (or writer stopped): apply backpressure by writing on the caller's thread
+        logger.warn("Log queue full or writer stopped, writing entry for tree {} synchronously", logEntry.getTreeId());
+        callerWrites.incrementAndGet();
+        flush(List.of(logEntry));
+        appendNanos.addAndGet(System.nanoTime() - startedAt);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long appended = enqueued.get();
+        stats.put("backend", "jpa");
+        stats.put("appended", appended);
+        stats.put("written", logBatchPersister.getWrittenCount());
+        stats.put("failed", logBatchPersister.getFailedCount());
+        stats.put("queued", queue.size());
+        stats.put("writtenByCallers", callerWrites.get());
+        stats.put("averageAppendMicros", appended > 0 ? appendNanos.get() / 1000.0 / appended : 0);
+        return stats;
+    }
+
+    /**
+     * @return Number of entries waiting to be written
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        List<TotLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TotLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Collect until the batch is full or the oldest entry has waited flushInterval
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    TotLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested: keep draining in full batches and exit once the queue is empty
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private void flush(List<TotLog> batch) {
+        logBatchPersister.persist(batch);
+    }
+}
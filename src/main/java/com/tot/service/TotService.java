@@ -6,17 +6,34 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.tot.entity.TotNode;
+import com.tot.entity.TreeBlob;
+import com.tot.entity.TreeCatalog;
 import com.tot.repository.TotNodeRepository;
+import com.tot.repository.TreeBlobRepository;
+import com.tot.repository.TreeCatalogRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Service for managing Tree of Thought operations
@@ -25,11 +42,27 @@ import java.util.Map;
 public class TotService {
     private static final Logger logger = LoggerFactory.getLogger(TotService.class);
     private final TotNodeRepository totNodeRepository;
+    private final TreeBlobRepository treeBlobRepository;
+    private final TreeCatalogRepository treeCatalogRepository;
+    private final NodeSearchIndex nodeSearchIndex;
+    private final TreeResponseCache treeResponseCache;
     private final ObjectMapper objectMapper;
 
+    // "rows" keeps the per-node row model only; "blob" also stores each tree as one binary row and reads from it
+    @Value("${tot.tree.storage:rows}")
+    private String storageMode;
+
     @Autowired
-    public TotService(TotNodeRepository totNodeRepository) {
+    public TotService(TotNodeRepository totNodeRepository,
+                      TreeBlobRepository treeBlobRepository,
+                      TreeCatalogRepository treeCatalogRepository,
+                      NodeSearchIndex nodeSearchIndex,
+                      TreeResponseCache treeResponseCache) {
         this.totNodeRepository = totNodeRepository;
+        this.treeBlobRepository = treeBlobRepository;
+        this.treeCatalogRepository = treeCatalogRepository;
+        this.nodeSearchIndex = nodeSearchIndex;
+        this.treeResponseCache = treeResponseCache;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -38,91 +71,178 @@ public class TotService {
      * @param treeId ID of the tree to retrieve
      * @return JSON string representation of the tree
      */
+    @Transactional(readOnly = true) // Node children are lazy; callers off the request thread have no open session
     public String getTreeOfThought(String treeId) {
         logger.info("Retrieving Tree of Thought: {}", treeId);
 
         try {
-            // Get all nodes for the tree
-            List<TotNode> nodes = totNodeRepository.findByTreeId(treeId);
+            return toJson(getTreeNodes(treeId));
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing tree: {}", e.getMessage());
+            throw new RuntimeException("Failed to serialize tree", e);
+        }
+    }
 
-            if (nodes.isEmpty()) {
-                logger.warn("Tree not found: {}", treeId);
-                throw new IllegalArgumentException("Tree not found: " + treeId);
-            }
+    /**
+     * Get a Tree of Thought as JSON with its ETag, served from the TreeResponseCache when possible
+     * @param treeId ID of the tree to retrieve
+     * @return JSON of the tree and its ETag (the quoted content hash)
+     */
+    @Transactional(readOnly = true)
+    public TreeResponseCache.Entry<String> getTreeResponse(String treeId) {
+        TreeResponseCache.Entry<String> cached = treeResponseCache.getTree(treeId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = treeResponseCache.generation();
+        return treeResponseCache.putTree(treeId, getTreeOfThought(treeId), generation);
+    }
 
-            // Convert nodes to JSON array
-            ArrayNode treeArray = objectMapper.createArrayNode();
+    /**
+     * Get the ETag of a saved tree without loading its nodes, from the TreeResponseCache or the catalog
+     * @param treeId ID of the tree
+     * @return ETag of the tree's current content, or null if it is not known
+     */
+    public String getTreeETag(String treeId) {
+        TreeResponseCache.Entry<String> cached = treeResponseCache.getTree(treeId);
+        if (cached != null) {
+            return cached.getETag();
+        }
+        return treeCatalogRepository.findContentHash(treeId).map(TreeResponseCache::eTagOf).orElse(null);
+    }
 
-            for (TotNode node : nodes) {
-                ObjectNode nodeJson = objectMapper.createObjectNode();
-                nodeJson.put("nodeId", node.getNodeId());
-                nodeJson.put("treeId", node.getTreeId());
-                nodeJson.put("content", node.getContent());
-                nodeJson.put("criteria", node.getCriteria());
-
-                // Add children
-                ObjectNode childrenObj = nodeJson.putObject("children");
-                if (node.getChildren() != null) {
-                    node.getChildren().forEach(childrenObj::put);
-                }
+    /**
+     * Get all tree IDs with the ETag of the list, served from the TreeResponseCache when possible
+     * @return Tree IDs and the ETag of the list
+     */
+    public TreeResponseCache.Entry<List<String>> getTreeListResponse() {
+        TreeResponseCache.Entry<List<String>> cached = treeResponseCache.getTreeList();
+        if (cached != null) {
+            return cached;
+        }
+        long generation = treeResponseCache.generation();
+        return treeResponseCache.putTreeList(getAllTreeIds(), generation);
+    }
 
-                treeArray.add(nodeJson);
+    /**
+     * Get several Trees of Thought as JSON with one query per storage model instead of one per tree
+     * @param treeIds IDs of the trees to retrieve
+     * @return JSON of each tree found, by tree ID; unknown trees are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<String, String> getTreesOfThought(Collection<String> treeIds) {
+        Map<String, List<TotNode>> nodesByTree = new LinkedHashMap<>();
+        if (isBlobStorage()) {
+            for (TreeBlob blob : treeBlobRepository.findAllById(treeIds)) {
+                nodesByTree.put(blob.getTreeId(), TreeBinaryCodec.decode(blob.getPayload()));
             }
+        }
 
-            return objectMapper.writeValueAsString(treeArray);
+        // Rows remain the source of truth for trees that have no blob yet
+        List<String> missing = treeIds.stream().filter(treeId -> !nodesByTree.containsKey(treeId)).distinct().toList();
+        if (!missing.isEmpty()) {
+            for (TotNode node : totNodeRepository.findByTreeIdInWithChildren(missing)) {
+                nodesByTree.computeIfAbsent(node.getTreeId(), treeId -> new ArrayList<>()).add(node);
+            }
+        }
 
+        Map<String, String> trees = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, List<TotNode>> entry : nodesByTree.entrySet()) {
+                trees.put(entry.getKey(), toJson(entry.getValue()));
+            }
         } catch (JsonProcessingException e) {
             logger.error("Error serializing tree: {}", e.getMessage());
             throw new RuntimeException("Failed to serialize tree", e);
         }
+        logger.info("Retrieved {} of {} requested Trees of Thought", trees.size(), treeIds.size());
+        return trees;
+    }
+
+    /**
+     * Get all nodes of a Tree of Thought
+     * In blob storage mode this is a single primary-key read; otherwise the per-node rows are loaded
+     * @param treeId ID of the tree to retrieve
+     * @return Nodes of the tree
+     */
+    public List<TotNode> getTreeNodes(String treeId) {
+        List<TotNode> nodes = null;
+
+        if (isBlobStorage()) {
+            nodes = treeBlobRepository.findById(treeId)
+                    .map(blob -> TreeBinaryCodec.decode(blob.getPayload()))
+                    .orElse(null);
+        }
+
+        // Rows remain the source of truth for trees that have no blob yet
+        if (nodes == null) {
+            nodes = totNodeRepository.findByTreeId(treeId);
+        }
+
+        if (nodes.isEmpty()) {
+            logger.warn("Tree not found: {}", treeId);
+            throw new IllegalArgumentException("Tree not found: " + treeId);
+        }
+
+        return nodes;
+    }
+
+    private String toJson(List<TotNode> nodes) throws JsonProcessingException {
+        // Convert nodes to JSON array in a canonical order, so identical trees always produce identical JSON
+        // (tree versions are addressed by the hash of this string)
+        ArrayNode treeArray = objectMapper.createArrayNode();
+        List<TotNode> sortedNodes = new ArrayList<>(nodes);
+        sortedNodes.sort(Comparator.comparing(TotNode::getNodeId, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        for (TotNode node : sortedNodes) {
+            ObjectNode nodeJson = objectMapper.createObjectNode();
+            nodeJson.put("nodeId", node.getNodeId());
+            nodeJson.put("treeId", node.getTreeId());
+            nodeJson.put("content", node.getContent());
+            nodeJson.put("criteria", node.getCriteria());
+
+            // Add children
+            ObjectNode childrenObj = nodeJson.putObject("children");
+            if (node.getChildren() != null) {
+                new TreeMap<>(node.getChildren()).forEach(childrenObj::put);
+            }
+
+            treeArray.add(nodeJson);
+        }
+
+        return objectMapper.writeValueAsString(treeArray);
     }
 
     /**
      * Save a Tree of Thought from JSON representation
      * @param treeJson JSON string representation of the tree
      * @return List of saved nodes
+     * @throws IllegalArgumentException if a tree in the JSON is structurally invalid
      */
     @Transactional
     public String saveTreeOfThought(String treeJson) {
         logger.info("Saving Tree of Thought from JSON");
 
         try {
-            // Parse the JSON into a list of node objects
-            List<Map<String, Object>> nodeList = objectMapper.readValue(
-                    treeJson, new TypeReference<>() {
-                    });
-
-            List<TotNode> savedNodes = new ArrayList<>();
+            List<TotNode> nodes = parseNodes(treeJson);
 
-            // Convert and save each node
-            for (Map<String, Object> nodeMap : nodeList) {
-                TotNode node = new TotNode();
-
-                // Explicitly set properties using JSON key names to avoid field order dependency
-                String nodeId = (String) nodeMap.get("nodeId");
-                String treeId = (String) nodeMap.get("treeId");
-                String content = (String) nodeMap.get("content");
-                String criteria = (String) nodeMap.get("criteria");
-                
-                // Log the values being set for debugging
-                logger.debug("Setting node - nodeId: {}, treeId: {}, content: {}, criteria: {}", 
-                            nodeId, treeId, content, criteria);
-                
-                // Set properties explicitly
-                node.setNodeId(nodeId);
-                node.setTreeId(treeId);
-                node.setContent(content);
-                node.setCriteria(criteria);
-
-                // Handle children map
-                @SuppressWarnings("unchecked")
-                Map<String, String> children = (Map<String, String>) nodeMap.get("children");
-                if (children == null) {
-                    children = new HashMap<>();
+            // Reject structurally broken trees before anything is written
+            Map<String, List<TotNode>> nodesByTree = new LinkedHashMap<>();
+            nodes.forEach(node -> nodesByTree.computeIfAbsent(node.getTreeId(), id -> new ArrayList<>()).add(node));
+            for (Map.Entry<String, List<TotNode>> tree : nodesByTree.entrySet()) {
+                TreeAnalysis analysis = TreeStructureAnalyzer.analyze(tree.getValue());
+                if (!analysis.isValid()) {
+                    logger.warn("Rejecting tree {}: {}", tree.getKey(), analysis.getProblems());
+                    throw new IllegalArgumentException(
+                            "Invalid tree structure for " + tree.getKey() + ": " + String.join("; ", analysis.getProblems()));
                 }
-                node.setChildren(children);
+                applyStructure(tree.getValue(), analysis);
+            }
 
-                // Save node to repository
+            List<TotNode> savedNodes = new ArrayList<>();
+
+            // Save each node
+            for (TotNode node : nodes) {
                 TotNode savedNode = totNodeRepository.save(node);
                 savedNodes.add(savedNode);
                 logger.debug("Saved node: nodeId={}, treeId={}, content={}", 
@@ -131,6 +251,8 @@ public class TotService {
 
             logger.info("Saved {} nodes for Tree of Thought", savedNodes.size());
 
+            nodesByTree.keySet().forEach(this::refreshStoredTree);
+
             if (!savedNodes.isEmpty()) {
                 String treeId = savedNodes.get(0).getTreeId();
                 logger.info("Returning treeId: {}", treeId);
@@ -140,12 +262,131 @@ public class TotService {
                 return null;
             }
 
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error saving tree from JSON: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to save Tree of Thought from JSON", e);
         }
     }
 
+    /**
+     * Analyze the structure of a tree given as JSON, e.g. LLM output before it is saved
+     * @param treeJson JSON string representation of the tree
+     * @return Structural analysis of the tree
+     */
+    public TreeAnalysis analyzeTreeJson(String treeJson) {
+        try {
+            return TreeStructureAnalyzer.analyze(parseNodes(treeJson));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Tree JSON could not be parsed: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Check whether a saved tree is structurally valid, using the result stored in the catalog when available.
+     * Nothing is written: trees without a catalog row are analyzed in memory (migrateLegacyTrees stores the result).
+     * @param treeId ID of the tree
+     * @return true if the tree passed structural validation
+     * @throws IllegalArgumentException if the tree does not exist
+     */
+    @Transactional(readOnly = true)
+    public boolean isStructurallyValid(String treeId) {
+        return structureValidity(treeId)
+                .orElseThrow(() -> new IllegalArgumentException("Tree not found: " + treeId));
+    }
+
+    /**
+     * Check the structural validity of several saved trees, reading the catalog rows in one query
+     * @param treeIds IDs of the trees
+     * @return Validity of each tree, by tree ID; trees that do not exist are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Boolean> areStructurallyValid(Collection<String> treeIds) {
+        Map<String, Boolean> validity = new HashMap<>();
+        for (TreeCatalog catalog : treeCatalogRepository.findAllById(treeIds)) {
+            if (catalog.getStructureValid() != null) {
+                validity.put(catalog.getTreeId(), catalog.getStructureValid());
+            }
+        }
+        for (String treeId : treeIds) {
+            if (!validity.containsKey(treeId)) {
+                structureValidity(treeId).ifPresent(valid -> validity.put(treeId, valid));
+            }
+        }
+        return validity;
+    }
+
+    /**
+     * @return Stored validity of a tree, or the result of analyzing its node rows when the catalog has none; empty
+     *         if the tree does not exist
+     */
+    private Optional<Boolean> structureValidity(String treeId) {
+        Boolean valid = treeCatalogRepository.findById(treeId)
+                .map(TreeCatalog::getStructureValid)
+                .orElse(null);
+        if (valid != null) {
+            return Optional.of(valid);
+        }
+        List<TotNode> nodes = totNodeRepository.findByTreeId(treeId);
+        if (nodes.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(TreeStructureAnalyzer.analyze(nodes).isValid());
+    }
+
+    /**
+     * Copy leaf flag, depth and parent from a structural analysis onto the analyzed nodes
+     */
+    private void applyStructure(List<TotNode> nodes, TreeAnalysis analysis) {
+        for (int i = 0; i < nodes.size(); i++) {
+            TotNode node = nodes.get(i);
+            int depth = analysis.getNodeDepth(i);
+            int parent = analysis.getParentIndex(i);
+            node.setLeaf(node.getChildren() == null || node.getChildren().isEmpty());
+            node.setDepth(depth < 0 ? null : depth);
+            node.setParentNodeId(parent < 0 ? null : nodes.get(parent).getNodeId());
+        }
+    }
+
+    private List<TotNode> parseNodes(String treeJson) throws JsonProcessingException {
+        // Parse the JSON into a list of node objects
+        List<Map<String, Object>> nodeList = objectMapper.readValue(
+                treeJson, new TypeReference<>() {
+                });
+
+        List<TotNode> nodes = new ArrayList<>(nodeList.size());
+        for (Map<String, Object> nodeMap : nodeList) {
+            TotNode node = new TotNode();
+
+            // Explicitly set properties using JSON key names to avoid field order dependency
+            String nodeId = (String) nodeMap.get("nodeId");
+            String treeId = (String) nodeMap.get("treeId");
+            String content = (String) nodeMap.get("content");
+            String criteria = (String) nodeMap.get("criteria");
+            
+            // Log the values being set for debugging
+            logger.debug("Setting node - nodeId: {}, treeId: {}, content: {}, criteria: {}", 
+                        nodeId, treeId, content, criteria);
+            
+            // Set properties explicitly
+            node.setNodeId(nodeId);
+            node.setTreeId(treeId);
+            node.setContent(content);
+            node.setCriteria(criteria);
+
+            // Handle children map
+            @SuppressWarnings("unchecked")
+            Map<String, String> children = (Map<String, String>) nodeMap.get("children");
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            node.setChildren(children);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
     /**
      * Get all available tree IDs
      * @return List of tree IDs
@@ -154,7 +395,7 @@ public class TotService {
         logger.info("Retrieving all tree IDs");
         
         try {
-            List<String> treeIds = totNodeRepository.findAllTreeIds();
+            List<String> treeIds = treeCatalogRepository.findAllTreeIds();
             logger.info("Found {} tree IDs", treeIds.size());
             return treeIds;
         } catch (Exception e) {
@@ -162,4 +403,108 @@ public class TotService {
             throw new RuntimeException("Failed to retrieve tree IDs", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * List catalogued trees using keyset pagination on treeId
+     * @param after Return trees whose ID sorts after this one (null or empty for the first page)
+     * @param size Maximum number of trees to return
+     * @param prefix Optional treeId prefix filter
+     * @param structureValid Optional filter on the stored structural validation result
+     * @param lastResult Optional filter on the latest evaluation result
+     * @return Page of catalog rows with the cursor for the next page
+     */
+    public TreePage listTrees(String after, int size, String prefix, Boolean structureValid, String lastResult) {
+        List<TreeCatalog> trees = treeCatalogRepository.findPageAfter(
+                after == null ? "" : after, prefix, structureValid, lastResult, Limit.of(size + 1));
+
+        // One extra row tells us whether another page exists without a count query
+        boolean hasMore = trees.size() > size;
+        if (hasMore) {
+            trees = trees.subList(0, size);
+        }
+        String nextCursor = hasMore ? trees.get(trees.size() - 1).getTreeId() : null;
+        return new TreePage(trees, nextCursor);
+    }
+
+    /**
+     * Rebuild the catalog row (and the binary blob in blob storage mode) of a tree from its node rows
+     * @param treeId ID of the tree to refresh
+     * @return The updated catalog row
+     */
+    private TreeCatalog refreshStoredTree(String treeId) {
+        List<TotNode> nodes = totNodeRepository.findByTreeId(treeId);
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+        applyStructure(nodes, analysis); // Managed entities: only changed values are flushed
+
+        TreeCatalog catalog = treeCatalogRepository.findById(treeId).orElseGet(TreeCatalog::new);
+        catalog.setTreeId(treeId);
+        catalog.setNodeCount(nodes.size());
+        catalog.setStorageFormat(isBlobStorage() ? "BLOB" : "ROWS");
+        catalog.setRootNodeId(analysis.getRootNodeId());
+        catalog.setDepth(analysis.getDepth());
+        catalog.setLeafCount(analysis.getLeafNodeIds().size());
+        catalog.setStructureValid(analysis.isValid());
+        catalog.setContentHash(contentHashOf(nodes));
+        if (!analysis.isValid()) {
+            logger.warn("Tree {} is structurally invalid: {}", treeId, analysis.getProblems());
+        }
+        TreeCatalog savedCatalog = treeCatalogRepository.save(catalog);
+        nodeSearchIndex.indexTree(treeId, nodes);
+        treeResponseCache.invalidate(treeId);
+
+        if (isBlobStorage()) {
+            TreeBlob blob = new TreeBlob();
+            blob.setTreeId(treeId);
+            blob.setFormatVersion((int) TreeBinaryCodec.FORMAT_VERSION);
+            blob.setPayload(TreeBinaryCodec.encode(treeId, nodes));
+            treeBlobRepository.save(blob);
+            logger.debug("Stored binary tree {} ({} nodes, {} bytes)", treeId, nodes.size(), blob.getPayload().length);
+        }
+
+        return savedCatalog;
+    }
+
+    /**
+     * Migrate trees saved before the catalog (or blob storage) existed, so every tree has a catalog row,
+     * structural node metadata and, in blob storage mode, a blob
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void migrateLegacyTrees() {
+        List<String> treeIds = totNodeRepository.findAllTreeIds();
+        Set<String> missingMetadata = new HashSet<>(totNodeRepository.findTreeIdsMissingMetadata());
+        int migrated = 0;
+        for (String treeId : treeIds) {
+            boolean missing = missingMetadata.contains(treeId) || (isBlobStorage()
+                    ? !treeBlobRepository.existsById(treeId)
+                    : !treeCatalogRepository.existsById(treeId));
+            if (missing) {
+                refreshStoredTree(treeId);
+                migrated++;
+            }
+        }
+        logger.info("Migrated {} of {} trees from node rows to the catalog", migrated, treeIds.size());
+    }
+
+    private String contentHashOf(List<TotNode> nodes) {
+        try {
+            return TreeVersionService.contentHash(toJson(nodes));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize tree", e);
+        }
+    }
+
+    private boolean isBlobStorage() {
+        return "blob".equalsIgnoreCase(storageMode);
+    }
+
+    /**
+     * One page of catalogued trees
+     */
+    @Data
+    @AllArgsConstructor
+    public static class TreePage {
+        private List<TreeCatalog> trees;
+        private String nextCursor; // Pass as "after" to fetch the next page; null on the last page
+    }
+}
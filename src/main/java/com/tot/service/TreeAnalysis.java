@@ -0,0 +1,133 @@
+package com.tot.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a structural analysis of a Tree of Thought
+ */
+public class TreeAnalysis {
+    private final int nodeCount;
+    private final List<String> rootNodeIds;
+    private final int depth;
+    private final List<String> leafNodeIds;
+    private final List<String> danglingEdges;
+    private final List<String> cycles;
+    private final List<String> unreachableNodeIds;
+    private final List<String> sharedNodeIds;
+    private final List<String> duplicateNodeIds;
+    private final int[] nodeDepths;
+    private final int[] parentIndexes;
+
+    public TreeAnalysis(int nodeCount, List<String> rootNodeIds, int depth, List<String> leafNodeIds,
+                        List<String> danglingEdges, List<String> cycles, List<String> unreachableNodeIds,
+                        List<String> sharedNodeIds, List<String> duplicateNodeIds,
+                        int[] nodeDepths, int[] parentIndexes) {
+        this.nodeCount = nodeCount;
+        this.rootNodeIds = rootNodeIds;
+        this.depth = depth;
+        this.leafNodeIds = leafNodeIds;
+        this.danglingEdges = danglingEdges;
+        this.cycles = cycles;
+        this.unreachableNodeIds = unreachableNodeIds;
+        this.sharedNodeIds = sharedNodeIds;
+        this.duplicateNodeIds = duplicateNodeIds;
+        this.nodeDepths = nodeDepths;
+        this.parentIndexes = parentIndexes;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return The single root node ID, or null if the tree has no root or several
+     */
+    public String getRootNodeId() {
+        return rootNodeIds.size() == 1 ? rootNodeIds.get(0) : null;
+    }
+
+    public List<String> getRootNodeIds() {
+        return rootNodeIds;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public List<String> getLeafNodeIds() {
+        return leafNodeIds;
+    }
+
+    public List<String> getDanglingEdges() {
+        return danglingEdges;
+    }
+
+    public List<String> getCycles() {
+        return cycles;
+    }
+
+    public List<String> getUnreachableNodeIds() {
+        return unreachableNodeIds;
+    }
+
+    public List<String> getSharedNodeIds() {
+        return sharedNodeIds;
+    }
+
+    public List<String> getDuplicateNodeIds() {
+        return duplicateNodeIds;
+    }
+
+    /**
+     * @param index Position of the node in the analyzed list
+     * @return Depth of the node below its root, or -1 if it is not reachable from a root
+     */
+    public int getNodeDepth(int index) {
+        return nodeDepths[index];
+    }
+
+    /**
+     * @param index Position of the node in the analyzed list
+     * @return Position of the parent it was first reached from, or -1 for roots and unreachable nodes
+     */
+    public int getParentIndex(int index) {
+        return nodeDepths[index] < 0 ? -1 : parentIndexes[index];
+    }
+
+    /**
+     * A tree is valid when it has exactly one root, no cycles, no dangling child ids and no duplicate node ids.
+     * Shared nodes (several parents) are allowed and only reported.
+     */
+    public boolean isValid() {
+        return nodeCount > 0 && rootNodeIds.size() == 1 && cycles.isEmpty()
+                && danglingEdges.isEmpty() && duplicateNodeIds.isEmpty() && unreachableNodeIds.isEmpty();
+    }
+
+    /**
+     * @return Human-readable list of structural problems, empty if the tree is valid
+     */
+    public List<String> getProblems() {
+        List<String> problems = new ArrayList<>();
+        if (nodeCount == 0) {
+            problems.add("Tree has no nodes");
+        } else if (rootNodeIds.isEmpty()) {
+            problems.add("No root node found");
+        } else if (rootNodeIds.size() > 1) {
+            problems.add("Multiple root nodes: " + rootNodeIds);
+        }
+        if (!cycles.isEmpty()) {
+            problems.add("Cycles: " + cycles);
+        }
+        if (!danglingEdges.isEmpty()) {
+            problems.add("Dangling child references: " + danglingEdges);
+        }
+        if (!duplicateNodeIds.isEmpty()) {
+            problems.add("Duplicate node IDs: " + duplicateNodeIds);
+        }
+        if (!unreachableNodeIds.isEmpty()) {
+            problems.add("Nodes unreachable from the root: " + unreachableNodeIds);
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,259 @@
+package com.tot.service;
+
+import com.tot.entity.TotNode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes a whole Tree of Thought into a single compact binary payload and reads it back.
+ *
+ * Layout (big endian):
+ * <pre>
+ * header   : int magic 'TOTB', short formatVersion, short reserved,
+ *            int stringCount, int nodeCount, int edgeCount, int stringBytes
+ * offsets  : int[stringCount + 1]   start offset of each string in the data section
+ * nodes    : nodeCount x {nodeId, content, criteria, firstEdge, edgeCount}
+ * edges    : edgeCount x {branchKey, childNodeId, childNodeIndex}
+ * data     : UTF-8 bytes of the string table
+ * </pre>
+ * String references are indexes into the string table (-1 for null). String 0 is always the treeId.
+ * childNodeIndex is the position of the child in the node array, or -1 when the child id is dangling.
+ */
+public final class TreeBinaryCodec {
+    public static final int MAGIC = 0x544F5442; // "TOTB"
+    public static final short FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 24;
+    private static final int NODE_INTS = 5;
+    private static final int EDGE_INTS = 3;
+
+    private TreeBinaryCodec() {
+    }
+
+    /**
+     * Encode the nodes of one tree
+     * @param treeId ID of the tree the nodes belong to
+     * @param nodes Nodes of the tree, in the order they should be decoded
+     * @return Binary payload
+     */
+    public static byte[] encode(String treeId, List<TotNode> nodes) {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        intern(treeId, strings, stringIndex);
+
+        Map<String, Integer> nodeIndex = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            nodeIndex.putIfAbsent(nodes.get(i).getNodeId(), i);
+        }
+
+        int[] nodeRecords = new int[nodes.size() * NODE_INTS];
+        List<int[]> edgeRecords = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            TotNode node = nodes.get(i);
+            int base = i * NODE_INTS;
+            nodeRecords[base] = intern(node.getNodeId(), strings, stringIndex);
+            nodeRecords[base + 1] = intern(node.getContent(), strings, stringIndex);
+            nodeRecords[base + 2] = intern(node.getCriteria(), strings, stringIndex);
+            nodeRecords[base + 3] = edgeRecords.size();
+
+            Map<String, String> children = node.getChildren();
+            if (children != null) {
+                for (Map.Entry<String, String> child : children.entrySet()) {
+                    edgeRecords.add(new int[]{
+                            intern(child.getKey(), strings, stringIndex),
+                            intern(child.getValue(), strings, stringIndex),
+                            nodeIndex.getOrDefault(child.getValue(), -1)
+                    });
+                }
+            }
+            nodeRecords[base + 4] = edgeRecords.size() - nodeRecords[base + 3];
+        }
+
+        byte[][] encodedStrings = new byte[strings.size()][];
+        int stringBytes = 0;
+        for (int i = 0; i < strings.size(); i++) {
+            encodedStrings[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            stringBytes += encodedStrings[i].length;
+        }
+
+        int size = HEADER_BYTES
+                + (strings.size() + 1) * Integer.BYTES
+                + nodeRecords.length * Integer.BYTES
+                + edgeRecords.size() * EDGE_INTS * Integer.BYTES
+                + stringBytes;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        buffer.putInt(MAGIC);
+        buffer.putShort(FORMAT_VERSION);
+        buffer.putShort((short) 0);
+        buffer.putInt(strings.size());
+        buffer.putInt(nodes.size());
+        buffer.putInt(edgeRecords.size());
+        buffer.putInt(stringBytes);
+
+        int offset = 0;
+        for (byte[] encoded : encodedStrings) {
+            buffer.putInt(offset);
+            offset += encoded.length;
+        }
+        buffer.putInt(offset);
+
+        for (int value : nodeRecords) {
+            buffer.putInt(value);
+        }
+        for (int[] edge : edgeRecords) {
+            buffer.putInt(edge[0]).putInt(edge[1]).putInt(edge[2]);
+        }
+        for (byte[] encoded : encodedStrings) {
+            buffer.put(encoded);
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Decode a payload back into detached TotNode objects
+     * @param payload Binary payload produced by {@link #encode}
+     * @return Nodes in their encoded order
+     */
+    public static List<TotNode> decode(byte[] payload) {
+        TreeView view = view(payload);
+        String treeId = view.treeId();
+        List<TotNode> nodes = new ArrayList<>(view.nodeCount());
+
+        for (int i = 0; i < view.nodeCount(); i++) {
+            TotNode node = new TotNode();
+            node.setNodeId(view.nodeId(i));
+            node.setTreeId(treeId);
+            node.setContent(view.content(i));
+            node.setCriteria(view.criteria(i));
+
+            Map<String, String> children = new LinkedHashMap<>();
+            for (int k = 0; k < view.childCount(i); k++) {
+                children.put(view.branchKey(i, k), view.childNodeId(i, k));
+            }
+            node.setChildren(children);
+            nodes.add(node);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Wrap a payload for random access without copying or parsing it up front
+     * @param payload Binary payload produced by {@link #encode}
+     * @return Read-only view over the payload
+     */
+    public static TreeView view(byte[] payload) {
+        return new TreeView(ByteBuffer.wrap(payload));
+    }
+
+    private static int intern(String value, List<String> strings, Map<String, Integer> stringIndex) {
+        if (value == null) {
+            return -1;
+        }
+        return stringIndex.computeIfAbsent(value, v -> {
+            strings.add(v);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Random-access view over an encoded tree; all lookups are O(1) reads from the underlying buffer
+     */
+    public static final class TreeView {
+        private final ByteBuffer buffer;
+        private final int stringCount;
+        private final int nodeCount;
+        private final int edgeCount;
+        private final int offsetsStart;
+        private final int nodesStart;
+        private final int edgesStart;
+        private final int dataStart;
+
+        private TreeView(ByteBuffer buffer) {
+            this.buffer = buffer;
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not an encoded tree payload");
+            }
+            short version = buffer.getShort(4);
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported tree format version: " + version);
+            }
+            this.stringCount = buffer.getInt(8);
+            this.nodeCount = buffer.getInt(12);
+            this.edgeCount = buffer.getInt(16);
+            this.offsetsStart = HEADER_BYTES;
+            this.nodesStart = offsetsStart + (stringCount + 1) * Integer.BYTES;
+            this.edgesStart = nodesStart + nodeCount * NODE_INTS * Integer.BYTES;
+            this.dataStart = edgesStart + edgeCount * EDGE_INTS * Integer.BYTES;
+        }
+
+        public String treeId() {
+            return string(0);
+        }
+
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        public String nodeId(int node) {
+            return string(nodeField(node, 0));
+        }
+
+        public String content(int node) {
+            return string(nodeField(node, 1));
+        }
+
+        public String criteria(int node) {
+            return string(nodeField(node, 2));
+        }
+
+        public int childCount(int node) {
+            return nodeField(node, 4);
+        }
+
+        public String branchKey(int node, int child) {
+            return string(edgeField(node, child, 0));
+        }
+
+        public String childNodeId(int node, int child) {
+            return string(edgeField(node, child, 1));
+        }
+
+        /**
+         * @return Index of the child node, or -1 if the child id does not exist in this tree
+         */
+        public int childNodeIndex(int node, int child) {
+            return edgeField(node, child, 2);
+        }
+
+        private int nodeField(int node, int field) {
+            return buffer.getInt(nodesStart + (node * NODE_INTS + field) * Integer.BYTES);
+        }
+
+        private int edgeField(int node, int child, int field) {
+            int edge = nodeField(node, 3) + child;
+            return buffer.getInt(edgesStart + (edge * EDGE_INTS + field) * Integer.BYTES);
+        }
+
+        private String string(int index) {
+            if (index < 0 || index >= stringCount) {
+                return null;
+            }
+            int start = buffer.getInt(offsetsStart + index * Integer.BYTES);
+            int end = buffer.getInt(offsetsStart + (index + 1) * Integer.BYTES);
+            return new String(buffer.array(), buffer.arrayOffset() + dataStart + start, end - start, StandardCharsets.UTF_8);
+        }
+    }
+}
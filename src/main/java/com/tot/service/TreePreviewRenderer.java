@@ -0,0 +1,341 @@
+package com.tot.service;
+
+import com.tot.entity.TotNode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Renders a Tree of Thought preview straight to a Writer.
+ * Nodes are indexed by id once and walked with an explicit stack, so rendering is O(n)
+ * and neither deep trees nor cycles can overflow the call stack. Every node is expanded
+ * at most once; later references to an already rendered node are printed as a pointer.
+ */
+public final class TreePreviewRenderer {
+
+    public enum Format {
+        TEXT, PATHS, DOT;
+
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown preview format: " + value + " (expected text, paths or dot)");
+            }
+        }
+    }
+
+    private TreePreviewRenderer() {
+    }
+
+    /**
+     * Render the nodes of one tree
+     * @param treeId ID of the tree being rendered
+     * @param nodes Nodes of the tree
+     * @param format Output format
+     * @param maxDepth Maximum node depth to expand, or a negative value for no limit
+     * @param out Destination of the rendered preview
+     */
+    public static void render(String treeId, List<TotNode> nodes, Format format, int maxDepth, Writer out) throws IOException {
+        Map<String, Integer> index = new HashMap<>(nodes.size() * 2);
+        Set<String> childNodeIds = new HashSet<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            index.putIfAbsent(nodes.get(i).getNodeId(), i);
+            Map<String, String> children = nodes.get(i).getChildren();
+            if (children != null) {
+                childNodeIds.addAll(children.values());
+            }
+        }
+
+        // Roots are nodes that are not a child of any other node in this tree
+        List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!childNodeIds.contains(nodes.get(i).getNodeId())) {
+                roots.add(i);
+            }
+        }
+        if (roots.isEmpty() && !nodes.isEmpty()) {
+            // Every node is someone's child, so the tree is cyclic: start from the first node to show something
+            roots.add(0);
+        }
+
+        Sink sink = switch (format) {
+            case TEXT -> new TextSink(out);
+            case PATHS -> new PathSink(out, roots.size() > 1);
+            case DOT -> new DotSink(out);
+        };
+
+        boolean[] expanded = new boolean[nodes.size()];
+        boolean[] onPath = new boolean[nodes.size()];
+        Deque<Frame> stack = new ArrayDeque<>();
+
+        sink.begin(treeId);
+        for (int root : roots) {
+            if (expanded[root]) {
+                continue;
+            }
+            stack.push(new Frame(root, nodes.get(root), 0, sink.rootPath(nodes.get(root))));
+            expanded[root] = true;
+            onPath[root] = true;
+            sink.node(nodes.get(root), 0, stack.peek().path);
+
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (!frame.hasNextChild()) {
+                    onPath[frame.node] = false;
+                    stack.pop();
+                    continue;
+                }
+
+                if (maxDepth >= 0 && frame.level >= maxDepth) {
+                    sink.truncated(nodes.get(frame.node), frame.level, frame.remainingChildren());
+                    onPath[frame.node] = false;
+                    stack.pop();
+                    continue;
+                }
+
+                Map.Entry<String, String> edge = frame.nextChild();
+                TotNode parent = nodes.get(frame.node);
+                sink.branch(parent, frame.level, edge.getKey(), edge.getValue());
+
+                Integer child = index.get(edge.getValue());
+                if (child == null) {
+                    sink.missing(frame.level + 1, edge.getValue());
+                } else if (onPath[child]) {
+                    sink.reference(frame.level + 1, nodes.get(child), true);
+                } else if (expanded[child]) {
+                    sink.reference(frame.level + 1, nodes.get(child), false);
+                } else {
+                    String path = sink.childPath(frame.path, edge.getKey());
+                    Frame childFrame = new Frame(child, nodes.get(child), frame.level + 1, path);
+                    expanded[child] = true;
+                    onPath[child] = true;
+                    sink.node(nodes.get(child), childFrame.level, path);
+                    stack.push(childFrame);
+                }
+            }
+        }
+        sink.end();
+        out.flush();
+    }
+
+    private static final class Frame {
+        private final int node;
+        private final int level;
+        private final String path;
+        private final List<Map.Entry<String, String>> children;
+        private int cursor;
+
+        private Frame(int node, TotNode totNode, int level, String path) {
+            this.node = node;
+            this.level = level;
+            this.path = path;
+            this.children = totNode.getChildren() == null
+                    ? List.of()
+                    : new ArrayList<>(new TreeMap<>(totNode.getChildren()).entrySet());
+        }
+
+        private boolean hasNextChild() {
+            return cursor < children.size();
+        }
+
+        private Map.Entry<String, String> nextChild() {
+            return children.get(cursor++);
+        }
+
+        private int remainingChildren() {
+            return children.size() - cursor;
+        }
+    }
+
+    /**
+     * Receives traversal events and writes them in one output format
+     */
+    private abstract static class Sink {
+        protected final Writer out;
+
+        protected Sink(Writer out) {
+            this.out = out;
+        }
+
+        void begin(String treeId) throws IOException {
+        }
+
+        void end() throws IOException {
+        }
+
+        String rootPath(TotNode root) {
+            return null;
+        }
+
+        String childPath(String parentPath, String branchKey) {
+            return null;
+        }
+
+        abstract void node(TotNode node, int level, String path) throws IOException;
+
+        abstract void branch(TotNode parent, int level, String branchKey, String childNodeId) throws IOException;
+
+        abstract void missing(int level, String childNodeId) throws IOException;
+
+        abstract void reference(int level, TotNode node, boolean cycle) throws IOException;
+
+        abstract void truncated(TotNode node, int level, int remainingBranches) throws IOException;
+
+        protected void indent(int spaces) throws IOException {
+            for (int i = 0; i < spaces; i++) {
+                out.write(' ');
+            }
+        }
+    }
+
+    /**
+     * Indented outline: each node level is indented by 4 spaces, branch labels by 2
+     */
+    private static final class TextSink extends Sink {
+        private TextSink(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void node(TotNode node, int level, String path) throws IOException {
+            indent(level * 4);
+            out.write(node.getNodeId() + ": " + node.getContent() + "\n");
+        }
+
+        @Override
+        void branch(TotNode parent, int level, String branchKey, String childNodeId) throws IOException {
+            indent(level * 4 + 2);
+            out.write(branchKey + " ->\n");
+        }
+
+        @Override
+        void missing(int level, String childNodeId) throws IOException {
+            indent(level * 4);
+            out.write(childNodeId + ": [Node not found in provided list for this treeId]\n");
+        }
+
+        @Override
+        void reference(int level, TotNode node, boolean cycle) throws IOException {
+            indent(level * 4);
+            out.write(node.getNodeId() + (cycle ? ": [Cycle back to ancestor]\n" : ": [Shown above]\n"));
+        }
+
+        @Override
+        void truncated(TotNode node, int level, int remainingBranches) throws IOException {
+            indent(level * 4 + 2);
+            out.write("... (" + remainingBranches + " more branches below depth limit)\n");
+        }
+    }
+
+    /**
+     * One line per node: a JSONPath-style path of branch keys from the root, then the node itself
+     */
+    private static final class PathSink extends Sink {
+        private final boolean multipleRoots;
+
+        private PathSink(Writer out, boolean multipleRoots) {
+            super(out);
+            this.multipleRoots = multipleRoots;
+        }
+
+        @Override
+        String rootPath(TotNode root) {
+            return multipleRoots ? "$" + segment(root.getNodeId()) : "$";
+        }
+
+        @Override
+        String childPath(String parentPath, String branchKey) {
+            return parentPath + segment(branchKey);
+        }
+
+        @Override
+        void node(TotNode node, int level, String path) throws IOException {
+            out.write(path + "\t" + node.getNodeId() + ": " + node.getContent() + "\n");
+        }
+
+        @Override
+        void branch(TotNode parent, int level, String branchKey, String childNodeId) {
+        }
+
+        @Override
+        void missing(int level, String childNodeId) throws IOException {
+            out.write("!\t" + childNodeId + ": [Node not found in provided list for this treeId]\n");
+        }
+
+        @Override
+        void reference(int level, TotNode node, boolean cycle) {
+        }
+
+        @Override
+        void truncated(TotNode node, int level, int remainingBranches) throws IOException {
+            out.write("...\t" + node.getNodeId() + ": " + remainingBranches + " more branches below depth limit\n");
+        }
+
+        private static String segment(String key) {
+            if (key.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+                return "." + key;
+            }
+            return "['" + key.replace("\\", "\\\\").replace("'", "\\'") + "']";
+        }
+    }
+
+    /**
+     * Graphviz digraph of the expanded part of the tree
+     */
+    private static final class DotSink extends Sink {
+        private DotSink(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin(String treeId) throws IOException {
+            out.write("digraph " + quote(treeId) + " {\n");
+        }
+
+        @Override
+        void end() throws IOException {
+            out.write("}\n");
+        }
+
+        @Override
+        void node(TotNode node, int level, String path) throws IOException {
+            out.write("  " + quote(node.getNodeId()) + " [label=" + quote(node.getNodeId() + ": " + node.getContent()) + "];\n");
+        }
+
+        @Override
+        void branch(TotNode parent, int level, String branchKey, String childNodeId) throws IOException {
+            out.write("  " + quote(parent.getNodeId()) + " -> " + quote(childNodeId) + " [label=" + quote(branchKey) + "];\n");
+        }
+
+        @Override
+        void missing(int level, String childNodeId) throws IOException {
+            out.write("  " + quote(childNodeId) + " [label=" + quote(childNodeId + ": [not found]") + ", style=dashed];\n");
+        }
+
+        @Override
+        void reference(int level, TotNode node, boolean cycle) {
+        }
+
+        @Override
+        void truncated(TotNode node, int level, int remainingBranches) throws IOException {
+            String placeholder = node.getNodeId() + "...";
+            out.write("  " + quote(placeholder) + " [label=" + quote(remainingBranches + " more") + ", shape=plaintext];\n");
+            out.write("  " + quote(node.getNodeId()) + " -> " + quote(placeholder) + " [style=dotted];\n");
+        }
+
+        private static String quote(String value) {
+            String text = value == null ? "null" : value;
+            return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+        }
+    }
+}
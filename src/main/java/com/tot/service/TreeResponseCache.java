@@ -0,0 +1,147 @@
+package com.tot.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized responses of the tree endpoints (/api/user/tree/{treeId} and /api/user/getAllTree) with their ETags.
+ * Trees are kept in an LRU map of at most maxEntries; the tree list is a single entry. Entries are dropped after a
+ * tree is saved (after commit when inside a transaction). Every invalidation bumps a generation counter and entries
+ * loaded under an older generation are not stored, so a read racing a save cannot cache the old tree.
+ */
+@Component
+public class TreeResponseCache {
+
+    @Value("${tot.tree.response-cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final Map<String, Entry<String>> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile Entry<List<String>> treeList;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @return Current generation; pass it to put so a load that raced an invalidation is not cached
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * @return Cached JSON and ETag of a tree, or null
+     */
+    public Entry<String> getTree(String treeId) {
+        Entry<String> entry;
+        synchronized (trees) {
+            entry = trees.get(treeId);
+        }
+        (entry != null ? hits : misses).incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Cache the JSON of a tree, unless a tree was saved since generation was read
+     * @return The entry, with its ETag
+     */
+    public Entry<String> putTree(String treeId, String treeJson, long loadedAt) {
+        Entry<String> entry = new Entry<>(treeJson, eTagOf(TreeVersionService.contentHash(treeJson)));
+        synchronized (trees) {
+            if (generation.get() == loadedAt) {
+                trees.put(treeId, entry);
+                if (trees.size() > maxEntries) {
+                    trees.remove(trees.keySet().iterator().next());
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @return Cached tree ID list and its ETag, or null
+     */
+    public Entry<List<String>> getTreeList() {
+        Entry<List<String>> entry = treeList;
+        (entry != null ? hits : misses).incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Cache the tree ID list, unless a tree was saved since generation was read
+     * @return The entry, with its ETag
+     */
+    public Entry<List<String>> putTreeList(List<String> treeIds, long loadedAt) {
+        Entry<List<String>> entry = new Entry<>(List.copyOf(treeIds),
+                eTagOf(TreeVersionService.contentHash(String.join("\n", treeIds))));
+        synchronized (trees) {
+            if (generation.get() == loadedAt) {
+                treeList = entry;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Drop the cached tree and tree list after a save. Inside a transaction this happens after commit.
+     * @param treeId ID of the saved tree
+     */
+    public void invalidate(String treeId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(treeId);
+                }
+            });
+        } else {
+            evict(treeId);
+        }
+    }
+
+    /**
+     * @return Quoted ETag for a content hash
+     */
+    public static String eTagOf(String contentHash) {
+        return "\"" + contentHash + "\"";
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (trees) {
+            stats.put("trees", trees.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", generation.get());
+        return stats;
+    }
+
+    private void evict(String treeId) {
+        synchronized (trees) {
+            generation.incrementAndGet();
+            trees.remove(treeId);
+            treeList = null;
+        }
+    }
+
+    /**
+     * A cached response body with its ETag
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Entry<T> {
+        private T body;
+        private String eTag;
+    }
+}
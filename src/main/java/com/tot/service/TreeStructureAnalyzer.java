@@ -0,0 +1,145 @@
+package com.tot.service;
+
+import com.tot.entity.TotNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Linear-time structural validator for Tree of Thought node lists.
+ * Builds an index of the nodes in one pass, then walks them with an iterative DFS
+ * (no recursion, so deep or cyclic input cannot overflow the stack).
+ */
+public final class TreeStructureAnalyzer {
+    private static final byte WHITE = 0;
+    private static final byte GREY = 1;
+    private static final byte BLACK = 2;
+
+    private TreeStructureAnalyzer() {
+    }
+
+    /**
+     * Analyze the structure of a tree
+     * @param nodes Nodes of a single tree
+     * @return Analysis with root, depth, leaves and any structural problems
+     */
+    public static TreeAnalysis analyze(List<TotNode> nodes) {
+        int n = nodes.size();
+        Map<String, Integer> index = new HashMap<>(n * 2);
+        List<String> duplicateNodeIds = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            if (index.putIfAbsent(nodes.get(i).getNodeId(), i) != null) {
+                duplicateNodeIds.add(nodes.get(i).getNodeId());
+            }
+        }
+
+        // Resolve child edges into int adjacency lists
+        int[][] adjacency = new int[n][];
+        int[] inDegree = new int[n];
+        List<String> danglingEdges = new ArrayList<>();
+        List<String> leafNodeIds = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            TotNode node = nodes.get(i);
+            Map<String, String> children = node.getChildren();
+            if (children == null || children.isEmpty()) {
+                adjacency[i] = new int[0];
+                leafNodeIds.add(node.getNodeId());
+                continue;
+            }
+
+            int[] targets = new int[children.size()];
+            int count = 0;
+            for (Map.Entry<String, String> child : children.entrySet()) {
+                Integer target = index.get(child.getValue());
+                if (target == null) {
+                    danglingEdges.add(node.getNodeId() + " -[" + child.getKey() + "]-> " + child.getValue());
+                } else {
+                    targets[count++] = target;
+                    inDegree[target]++;
+                }
+            }
+            adjacency[i] = count == targets.length ? targets : Arrays.copyOf(targets, count);
+        }
+
+        List<String> rootNodeIds = new ArrayList<>();
+        List<String> sharedNodeIds = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                rootNodeIds.add(nodes.get(i).getNodeId());
+            } else if (inDegree[i] > 1) {
+                sharedNodeIds.add(nodes.get(i).getNodeId());
+            }
+        }
+
+        // Iterative DFS: first from the roots, then from anything left over (pure cycles have no root)
+        byte[] color = new byte[n];
+        int[] depth = new int[n];
+        int[] parent = new int[n];
+        Arrays.fill(parent, -1);
+        int[] stack = new int[n];
+        int[] nextEdge = new int[n];
+        List<String> cycles = new ArrayList<>();
+        int maxDepth = 0;
+
+        List<Integer> starts = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                starts.add(i);
+            }
+        }
+        List<String> unreachableNodeIds = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int start : starts) {
+                if (color[start] != WHITE) {
+                    continue;
+                }
+                int top = 0;
+                stack[0] = start;
+                nextEdge[start] = 0;
+                color[start] = GREY;
+                boolean reachable = pass == 0;
+                depth[start] = reachable ? 0 : -1;
+
+                while (top >= 0) {
+                    int current = stack[top];
+                    if (nextEdge[current] < adjacency[current].length) {
+                        int child = adjacency[current][nextEdge[current]++];
+                        if (color[child] == WHITE) {
+                            color[child] = GREY;
+                            depth[child] = reachable ? depth[current] + 1 : -1;
+                            parent[child] = current;
+                            maxDepth = Math.max(maxDepth, depth[child]);
+                            nextEdge[child] = 0;
+                            stack[++top] = child;
+                        } else if (color[child] == GREY) {
+                            cycles.add(nodes.get(current).getNodeId() + " -> " + nodes.get(child).getNodeId());
+                        }
+                    } else {
+                        color[current] = BLACK;
+                        top--;
+                    }
+                }
+            }
+
+            if (pass == 0) {
+                // Anything not reached from a root only hangs off a cycle
+                starts.clear();
+                for (int i = 0; i < n; i++) {
+                    if (color[i] == WHITE) {
+                        starts.add(i);
+                        unreachableNodeIds.add(nodes.get(i).getNodeId());
+                        depth[i] = -1;
+                    }
+                }
+            }
+        }
+
+        return new TreeAnalysis(n, rootNodeIds, maxDepth, leafNodeIds, danglingEdges, cycles,
+                unreachableNodeIds, sharedNodeIds, duplicateNodeIds, depth, parent);
+    }
+}
@@ -0,0 +1,141 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.entity.TreeVersion;
+import com.tot.repository.TotLogRepository;
+import com.tot.repository.TreeVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for content-addressed tree versions: each distinct tree JSON is stored once and referenced by hash
+ */
+@Service
+public class TreeVersionService {
+    private static final Logger logger = LoggerFactory.getLogger(TreeVersionService.class);
+    private static final int MAX_KNOWN_HASHES = 10_000;
+
+    private final TreeVersionRepository treeVersionRepository;
+    private final TotLogRepository totLogRepository;
+    private final TransactionTemplate newTransaction;
+    private final TransactionTemplate transactionTemplate;
+
+    // Hashes already known to be stored, so repeated evaluations of an unchanged tree skip the lookup
+    private final Set<String> knownHashes = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public TreeVersionService(TreeVersionRepository treeVersionRepository,
+                              TotLogRepository totLogRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.treeVersionRepository = treeVersionRepository;
+        this.totLogRepository = totLogRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Record a tree version, storing its JSON only if this content has not been seen before
+     * @param treeId ID of the tree
+     * @param treeJson JSON representation of the tree
+     * @return Content hash identifying the version
+     */
+    public String recordVersion(String treeId, String treeJson) {
+        String hash = contentHash(treeJson);
+        if (knownHashes.contains(hash)) {
+            return hash;
+        }
+
+        try {
+            // Insert in its own transaction so a concurrent insert of the same hash cannot roll back the caller
+            newTransaction.executeWithoutResult(status -> {
+                if (!treeVersionRepository.existsById(hash)) {
+                    treeVersionRepository.save(new TreeVersion(hash, treeId, treeJson, null));
+                    logger.info("Stored new version {} for tree {}", hash, treeId);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Version {} was stored concurrently", hash);
+        }
+
+        if (knownHashes.size() >= MAX_KNOWN_HASHES) {
+            knownHashes.clear();
+        }
+        knownHashes.add(hash);
+        return hash;
+    }
+
+    /**
+     * Get the JSON of a stored tree version
+     * @param contentHash Content hash of the version
+     * @return The tree JSON if the version exists
+     */
+    public Optional<String> getTreeJson(String contentHash) {
+        return treeVersionRepository.findById(contentHash).map(TreeVersion::getTreeJson);
+    }
+
+    /**
+     * Backfill legacy log entries: move their embedded tree JSON into versions and keep only the hash
+     * @param batchSize Number of log entries migrated per transaction
+     * @return Number of migrated log entries
+     */
+    public int backfillLogVersions(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        logger.info("Starting tree version backfill with batch size {}", batchSize);
+        int migrated = 0;
+
+        while (true) {
+            Integer count = transactionTemplate.execute(status -> {
+                List<TotLog> batch = totLogRepository.findByTreeVersionHashIsNullAndTreeJsonIsNotNull(
+                        PageRequest.of(0, batchSize));
+                for (TotLog log : batch) {
+                    log.setTreeVersionHash(recordVersion(log.getTreeId(), log.getTreeJson()));
+                    log.setTreeJson(null);
+                }
+                totLogRepository.saveAll(batch);
+                return batch.size();
+            });
+
+            if (count == null || count == 0) {
+                break;
+            }
+            migrated += count;
+            logger.info("Tree version backfill migrated {} log entries so far", migrated);
+        }
+
+        logger.info("Tree version backfill completed: {} log entries migrated", migrated);
+        return migrated;
+    }
+
+    /**
+     * Compute the SHA-256 content hash of a tree JSON
+     * @param treeJson JSON representation of the tree
+     * @return Lowercase hex digest
+     */
+    public static String contentHash(String treeJson) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(treeJson.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
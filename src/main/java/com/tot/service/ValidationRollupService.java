@@ -0,0 +1,251 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.entity.ValidationRollup;
+import com.tot.repository.TotLogOutcome;
+import com.tot.repository.TotLogRepository;
+import com.tot.repository.ValidationRollupRepository;
+import com.tot.repository.ValidationTotals;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Maintains per-tree hourly and daily validation rollups.
+ * LogBatchPersister adds each written batch to its buckets in the same transaction, so statistics are read from
+ * O(buckets) rows instead of counting tot_logs. The rollups can be rebuilt from the raw logs at any time.
+ */
+@Service
+public class ValidationRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(ValidationRollupService.class);
+
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+
+    public static final String OUTCOME_TRUE = "TRUE";
+    public static final String OUTCOME_FALSE = "FALSE";
+    public static final String OUTCOME_ERROR = "ERROR";
+
+    // Ranges are clamped to these: a MariaDB TIMESTAMP holds 1970-01-01 00:00:01 to 2038-01-19 03:14:07 UTC, and a
+    // day of margin keeps both bounds storable in any session time zone
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 2, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(2038, 1, 18, 0, 0);
+
+    private final ValidationRollupRepository rollupRepository;
+    private final TotLogRepository totLogRepository;
+    private final LogArchive logArchive;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    // Held while a log batch is written and while rebuilding, so a rebuild never misses or double counts a batch
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    @Autowired
+    public ValidationRollupService(ValidationRollupRepository rollupRepository, TotLogRepository totLogRepository,
+                                   LogArchive logArchive, EntityManager entityManager,
+                                   PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.totLogRepository = totLogRepository;
+        this.logArchive = logArchive;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Classify an evaluation: "TRUE" for a positive result, "ERROR" when validation failed to produce criteria
+     * (no criteria, or criteria starting with "Error"), otherwise "FALSE"
+     */
+    public static String classify(String validationResult, String validationCriteria) {
+        if ("true".equalsIgnoreCase(validationResult)) {
+            return OUTCOME_TRUE;
+        }
+        if (validationCriteria == null || validationCriteria.startsWith("Error")) {
+            return OUTCOME_ERROR;
+        }
+        return OUTCOME_FALSE;
+    }
+
+    /**
+     * @return Lock that callers writing log entries must hold around the transaction that calls applyBatch
+     */
+    public ReentrantLock getUpdateLock() {
+        return updateLock;
+    }
+
+    /**
+     * Add newly written log entries to their hourly and daily buckets.
+     * Must run inside the transaction that writes the entries, with the update lock held.
+     * @param batch Log entries being written
+     */
+    public void applyBatch(List<TotLog> batch) {
+        Map<String, ValidationRollup> deltas = new LinkedHashMap<>();
+        for (TotLog entry : batch) {
+            add(deltas, entry.getTreeId(), classify(entry.getValidationResult(), entry.getValidationCriteria()),
+                    entry.getLatencyMs(), entry.getTimestamp());
+        }
+
+        Map<String, ValidationRollup> existing = rollupRepository.findAllById(deltas.keySet()).stream()
+                .collect(Collectors.toMap(ValidationRollup::getId, Function.identity()));
+        for (ValidationRollup delta : deltas.values()) {
+            ValidationRollup current = existing.get(delta.getId());
+            if (current == null) {
+                entityManager.persist(delta);
+            } else {
+                // Managed entity: the new totals are flushed with the transaction
+                current.setTrueCount(current.getTrueCount() + delta.getTrueCount());
+                current.setFalseCount(current.getFalseCount() + delta.getFalseCount());
+                current.setErrorCount(current.getErrorCount() + delta.getErrorCount());
+                current.setLatencySumMs(current.getLatencySumMs() + delta.getLatencySumMs());
+                current.setLatencyCount(current.getLatencyCount() + delta.getLatencyCount());
+            }
+        }
+    }
+
+    /**
+     * Recompute every rollup from the raw logs, archived and hot
+     * @return Number of buckets written
+     */
+    public int rebuild() {
+        updateLock.lock();
+        try {
+            Integer buckets = transactionTemplate.execute(status -> {
+                rollupRepository.deleteAllInBatch();
+
+                Map<String, ValidationRollup> rollups = new HashMap<>();
+                logArchive.forEachInRange(MIN_TIME, MAX_TIME, log -> add(rollups, log.getTreeId(),
+                        classify(log.getValidationResult(), log.getValidationCriteria()), log.getLatencyMs(), log.getTimestamp()));
+                // Hot rows at or below the archive's high water mark are counted unless they are in the archive
+                List<TotLogOutcome> unchecked = new ArrayList<>();
+                try (Stream<TotLogOutcome> outcomes = totLogRepository.streamOutcomes()) {
+                    outcomes.forEach(outcome -> {
+                        if (logArchive.mayContain(outcome.timestamp(), outcome.id())) {
+                            unchecked.add(outcome);
+                        } else {
+                            add(rollups, outcome);
+                        }
+                    });
+                }
+                Map<String, LocalDateTime> timestamps = new HashMap<>();
+                unchecked.forEach(outcome -> timestamps.put(outcome.id(), outcome.timestamp()));
+                Set<String> archived = logArchive.archivedIds(timestamps);
+                unchecked.stream().filter(outcome -> !archived.contains(outcome.id())).forEach(outcome -> add(rollups, outcome));
+                rollups.values().forEach(entityManager::persist);
+                return rollups.size();
+            });
+            logger.info("Rebuilt {} validation rollup buckets from raw logs", buckets);
+            return buckets == null ? 0 : buckets;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Build the rollups on first start against an existing log table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeRollups() {
+        if (rollupRepository.count() == 0 && totLogRepository.count() > 0) {
+            logger.info("No validation rollups found, building them from existing logs");
+            rebuild();
+        }
+    }
+
+    /**
+     * Sum the rollups of a tree (or all trees) over a time range.
+     * Daily buckets are used when the range is open or aligned on days, hourly buckets otherwise;
+     * the range is widened to whole buckets.
+     * @param treeId ID of the tree, or null for all trees
+     * @param start Start time, or null for no lower bound
+     * @param end End time, or null for no upper bound
+     * @return Summed counters
+     */
+    public ValidationTotals getTotals(String treeId, LocalDateTime start, LocalDateTime end) {
+        String granularity = isDayAligned(start) && isDayAligned(end) ? DAY : HOUR;
+        return rollupRepository.sumBuckets(granularity, treeId, lowerBound(start, granularity), upperBound(end));
+    }
+
+    /**
+     * Get the individual buckets of a tree (or all trees) over a time range
+     * @param granularity "HOUR" or "DAY"
+     * @param treeId ID of the tree, or null for all trees
+     * @param start Start time
+     * @param end End time
+     * @return Buckets ordered by time, then tree
+     */
+    public List<ValidationRollup> getBuckets(String granularity, String treeId, LocalDateTime start, LocalDateTime end) {
+        String normalized = granularity.trim().toUpperCase();
+        if (!HOUR.equals(normalized) && !DAY.equals(normalized)) {
+            throw new IllegalArgumentException("Unknown granularity: " + granularity + " (expected hour or day)");
+        }
+        return rollupRepository.findBuckets(normalized, treeId, lowerBound(start, normalized), upperBound(end));
+    }
+
+    private static void add(Map<String, ValidationRollup> rollups, TotLogOutcome outcome) {
+        add(rollups, outcome.treeId(), classify(outcome.validationResult(), outcome.validationCriteria()),
+                outcome.latencyMs(), outcome.timestamp());
+    }
+
+    private static void add(Map<String, ValidationRollup> rollups, String treeId, String outcome,
+                            Long latencyMs, LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return;
+        }
+        addToBucket(rollups, treeId, HOUR, timestamp.truncatedTo(ChronoUnit.HOURS), outcome, latencyMs);
+        addToBucket(rollups, treeId, DAY, timestamp.truncatedTo(ChronoUnit.DAYS), outcome, latencyMs);
+    }
+
+    private static void addToBucket(Map<String, ValidationRollup> rollups, String treeId, String granularity,
+                                    LocalDateTime bucketStart, String outcome, Long latencyMs) {
+        ValidationRollup rollup = rollups.computeIfAbsent(ValidationRollup.idOf(granularity, bucketStart, treeId), id -> {
+            ValidationRollup bucket = new ValidationRollup();
+            bucket.setId(id);
+            bucket.setTreeId(treeId);
+            bucket.setGranularity(granularity);
+            bucket.setBucketStart(bucketStart);
+            return bucket;
+        });
+        switch (outcome) {
+            case OUTCOME_TRUE -> rollup.setTrueCount(rollup.getTrueCount() + 1);
+            case OUTCOME_ERROR -> rollup.setErrorCount(rollup.getErrorCount() + 1);
+            default -> rollup.setFalseCount(rollup.getFalseCount() + 1);
+        }
+        if (latencyMs != null) {
+            rollup.setLatencySumMs(rollup.getLatencySumMs() + latencyMs);
+            rollup.setLatencyCount(rollup.getLatencyCount() + 1);
+        }
+    }
+
+    private static boolean isDayAligned(LocalDateTime time) {
+        return time == null || time.equals(time.truncatedTo(ChronoUnit.DAYS));
+    }
+
+    private static LocalDateTime lowerBound(LocalDateTime start, String granularity) {
+        if (start == null || start.isBefore(MIN_TIME)) {
+            return MIN_TIME;
+        }
+        return start.truncatedTo(DAY.equals(granularity) ? ChronoUnit.DAYS : ChronoUnit.HOURS);
+    }
+
+    private static LocalDateTime upperBound(LocalDateTime end) {
+        return end == null || end.isAfter(MAX_TIME) ? MAX_TIME : end;
+    }
+}
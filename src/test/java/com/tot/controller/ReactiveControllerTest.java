@@ -0,0 +1,103 @@
+package com.tot.controller;
+
+import com.tot.service.ActionService;
+import com.tot.service.LLMService;
+import com.tot.service.TotService;
+import com.tot.service.TreeAnalysis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReactiveControllerTest {
+
+    private TotService totService;
+    private LLMService llmService;
+    private ActionService actionService;
+    private Scheduler persistenceScheduler;
+    private ReactiveController controller;
+
+    @BeforeEach
+    void setUp() {
+        totService = mock(TotService.class);
+        llmService = mock(LLMService.class);
+        actionService = mock(ActionService.class);
+        persistenceScheduler = Schedulers.newBoundedElastic(2, 10, "test-persistence");
+        controller = new ReactiveController(totService, llmService, actionService, persistenceScheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        persistenceScheduler.dispose();
+    }
+
+    @Test
+    void generatedTreeIsSavedOnThePersistenceScheduler() {
+        AtomicReference<String> savingThread = new AtomicReference<>();
+        when(llmService.generateTreeOfThoughtReactive("prompt")).thenReturn(Mono.just("[{\"nodeId\":\"root\"}]"));
+        when(totService.saveTreeOfThought(anyString())).thenAnswer(invocation -> {
+            savingThread.set(Thread.currentThread().getName());
+            return "tree-1";
+        });
+
+        ResponseEntity<String> response = controller.generateTot("prompt").block();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("Generated and saved ToT with treeId: tree-1");
+        assertThat(savingThread.get()).startsWith("test-persistence");
+    }
+
+    @Test
+    void generationErrorsMatchTheBlockingEndpoint() {
+        when(llmService.generateTreeOfThoughtReactive("invalid")).thenReturn(Mono.just("[]"));
+        when(totService.saveTreeOfThought("[]")).thenThrow(new IllegalArgumentException("Tree has no root"));
+        when(llmService.generateTreeOfThoughtReactive("down")).thenReturn(Mono.error(new IllegalStateException("timeout")));
+
+        ResponseEntity<String> invalid = controller.generateTot("invalid").block();
+        ResponseEntity<String> failed = controller.generateTot("down").block();
+
+        assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(invalid.getBody()).isEqualTo("Generated ToT is invalid: Tree has no root");
+        assertThat(failed.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(failed.getBody()).isEqualTo("Error generating ToT: timeout");
+    }
+
+    @Test
+    void refinedTreeCarriesItsStructureCheck() {
+        TreeAnalysis analysis = mock(TreeAnalysis.class);
+        when(totService.getTreeOfThought("tree-1")).thenReturn("[existing]");
+        when(llmService.refineTreeOfThoughtReactive("[existing]", "prompt")).thenReturn(Mono.just("[refined]"));
+        when(totService.analyzeTreeJson("[refined]")).thenReturn(analysis);
+
+        ResponseEntity<String> response = controller.refineTot("tree-1", "prompt").block();
+
+        assertThat(response.getBody()).isEqualTo("[refined]");
+        assertThat(response.getHeaders().getFirst("X-ToT-Validation")).isEqualTo("false");
+    }
+
+    @Test
+    void executeRejectsBadInputWithoutEvaluating() {
+        when(actionService.executeActionForTreeReactive("missing", 7))
+                .thenReturn(Mono.error(new IllegalArgumentException("Tree not found: missing")));
+
+        ResponseEntity<String> outOfRange = controller.executeAction("tree-1", 0).block();
+        ResponseEntity<String> missing = controller.executeAction("missing", 7).block();
+
+        assertThat(outOfRange.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(missing.getBody()).isEqualTo("Tree not found: missing");
+        verifyNoInteractions(llmService);
+    }
+}
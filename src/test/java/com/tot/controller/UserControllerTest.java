@@ -0,0 +1,176 @@
+package com.tot.controller;
+
+import com.tot.entity.TotNode;
+import com.tot.repository.TotNodeRepository;
+import com.tot.repository.TreeBlobRepository;
+import com.tot.repository.TreeCatalogRepository;
+import com.tot.service.LLMService;
+import com.tot.service.NodeSearchIndex;
+import com.tot.service.TotService;
+import com.tot.service.TreeResponseCache;
+import com.tot.service.TreeVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ETag revalidation of the tree endpoints, with a real TotService and TreeResponseCache over mocked repositories
+ */
+class UserControllerTest {
+
+    private TotNodeRepository totNodeRepository;
+    private TreeCatalogRepository treeCatalogRepository;
+    private TreeResponseCache treeResponseCache;
+    private TotService totService;
+    private UserController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        totNodeRepository = mock(TotNodeRepository.class);
+        treeCatalogRepository = mock(TreeCatalogRepository.class);
+        when(treeCatalogRepository.findContentHash(anyString())).thenReturn(Optional.empty());
+
+        treeResponseCache = new TreeResponseCache();
+        Field field = TreeResponseCache.class.getDeclaredField("maxEntries");
+        field.setAccessible(true);
+        field.setInt(treeResponseCache, 10);
+
+        totService = new TotService(totNodeRepository, mock(TreeBlobRepository.class), treeCatalogRepository,
+                mock(NodeSearchIndex.class), treeResponseCache);
+        controller = new UserController(totService, mock(LLMService.class), mock(NodeSearchIndex.class), treeResponseCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static WebRequest request(String ifNoneMatch) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getDateHeader(anyString())).thenReturn(-1L);
+        when(request.getHeaders(anyString())).thenAnswer(invocation -> Collections.emptyEnumeration());
+        if (ifNoneMatch != null) {
+            when(request.getHeaders(HttpHeaders.IF_NONE_MATCH))
+                    .thenAnswer(invocation -> Collections.enumeration(List.of(ifNoneMatch)));
+        }
+        return new ServletWebRequest(request);
+    }
+
+    private static TotNode node(String nodeId, String content, Map<String, String> children) {
+        TotNode node = new TotNode();
+        node.setNodeId(nodeId);
+        node.setTreeId("t1");
+        node.setContent(content);
+        node.setChildren(children);
+        return node;
+    }
+
+    private void treeContent(String rootContent) {
+        when(totNodeRepository.findByTreeId("t1")).thenReturn(List.of(
+                node("root", rootContent, Map.of("yes", "leaf")),
+                node("leaf", "Buy", Map.of())));
+    }
+
+    @Test
+    void matchingETagIsNotModifiedWithoutReloadingTheTree() {
+        treeContent("SPY above its 50 day moving average?");
+
+        ResponseEntity<String> first = controller.getTree("t1", request(null));
+        String eTag = first.getHeaders().getETag();
+        ResponseEntity<String> second = controller.getTree("t1", request(eTag));
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(eTag).isEqualTo(TreeResponseCache.eTagOf(TreeVersionService.contentHash(first.getBody())));
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getBody()).isNull();
+        verify(totNodeRepository, times(1)).findByTreeId("t1");
+    }
+
+    @Test
+    void catalogHashAnswersRevalidationOnACacheMiss() {
+        treeContent("SPY above its 50 day moving average?");
+        String eTag = TreeResponseCache.eTagOf(TreeVersionService.contentHash(totService.getTreeOfThought("t1")));
+        when(treeCatalogRepository.findContentHash("t1"))
+                .thenReturn(Optional.of(eTag.substring(1, eTag.length() - 1)));
+
+        ResponseEntity<String> response = controller.getTree("t1", request(eTag));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(totNodeRepository, times(1)).findByTreeId("t1"); // Only the call above that computed the ETag
+    }
+
+    @Test
+    void savedTreeIsServedFreshAfterCommit() {
+        treeContent("SPY above its 50 day moving average?");
+        String oldETag = controller.getTree("t1", request(null)).getHeaders().getETag();
+
+        treeContent("QQQ above its 200 day moving average?");
+        TransactionSynchronizationManager.initSynchronization();
+        treeResponseCache.invalidate("t1");
+
+        // Until the save commits, readers still get the committed tree
+        assertThat(controller.getTree("t1", request(oldETag)).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        ResponseEntity<String> response = controller.getTree("t1", request(oldETag));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(oldETag);
+        assertThat(response.getBody()).contains("QQQ above its 200 day moving average?");
+    }
+
+    @Test
+    void loadThatRacedASaveIsNotCached() {
+        long loadedAt = treeResponseCache.generation();
+        treeResponseCache.invalidate("t1");
+
+        TreeResponseCache.Entry<String> stale = treeResponseCache.putTree("t1", "[]", loadedAt);
+
+        assertThat(stale.getETag()).isNotNull();
+        assertThat(treeResponseCache.getTree("t1")).isNull();
+    }
+
+    @Test
+    void treeListETagChangesWhenATreeIsAdded() {
+        when(treeCatalogRepository.findAllTreeIds()).thenReturn(List.of("t1"));
+        ResponseEntity<List<String>> first = controller.getTreeList(request(null));
+        String eTag = first.getHeaders().getETag();
+
+        assertThat(controller.getTreeList(request(eTag)).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(treeCatalogRepository, times(1)).findAllTreeIds();
+
+        when(treeCatalogRepository.findAllTreeIds()).thenReturn(List.of("t1", "t2"));
+        treeResponseCache.invalidate("t2");
+        ResponseEntity<List<String>> second = controller.getTreeList(request(eTag));
+
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getHeaders().getETag()).isNotEqualTo(eTag);
+        assertThat(second.getBody()).containsExactly("t1", "t2");
+        verify(totNodeRepository, never()).findByTreeId(anyString());
+    }
+}
@@ -0,0 +1,34 @@
+package com.tot.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void largeTextIsStoredCompressedAndReadBack() {
+        String treeJson = "{\"nodeId\":\"n\",\"content\":\"Is the trend up?\",\"children\":{\"yes\":\"buy\"}}".repeat(20);
+
+        String column = converter.convertToDatabaseColumn(treeJson);
+
+        assertThat(column).startsWith("~z1:").hasSizeLessThan(treeJson.length());
+        assertThat(converter.convertToEntityAttribute(column)).isEqualTo(treeJson);
+    }
+
+    @Test
+    void rowsWrittenBeforeCompressionAreReadUnchanged() {
+        String legacy = "{\"nodeId\":\"n\",\"content\":\"Is the trend up?\"}".repeat(20);
+
+        assertThat(converter.convertToEntityAttribute(legacy)).isEqualTo(legacy);
+    }
+
+    @Test
+    void nullAndShortValuesPassThrough() {
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+        assertThat(converter.convertToDatabaseColumn("VALID")).isEqualTo("VALID");
+    }
+}
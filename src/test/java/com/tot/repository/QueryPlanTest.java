@@ -0,0 +1,270 @@
+package com.tot.repository;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the selective repository queries use their indexes. Each query is run against a seeded H2 database,
+ * the SQL Hibernate sends is captured and EXPLAINed, and the plan must name the expected index instead of a table scan.
+ */
+class QueryPlanTest {
+
+    private static final int TREES = 200;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime FROM = START.plusDays(50);
+    private static final LocalDateTime TO = FROM.plusDays(1);
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {
+            R2dbcAutoConfiguration.class,
+            R2dbcTransactionManagerAutoConfiguration.class,
+            R2dbcDataAutoConfiguration.class,
+            R2dbcRepositoriesAutoConfiguration.class
+    })
+    @EntityScan("com.tot.entity")
+    @EnableJpaRepositories("com.tot.repository")
+    static class RepositoryApplication {
+
+        @Bean
+        HibernatePropertiesCustomizer capturingStatementInspector() {
+            StatementInspector inspector = sql -> {
+                STATEMENTS.add(sql);
+                return sql;
+            };
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    @BeforeAll
+    static void startAndSeed() {
+        context = new SpringApplicationBuilder(RepositoryApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:query-plans;MODE=MariaDB;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        seed();
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    private static void seed() {
+        String[] statuses = {"COMPLETED", "COMPLETED", "COMPLETED", "FAILED", "PENDING"};
+        List<Object[]> schedules = new ArrayList<>();
+        List<Object[]> logs = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            LocalDateTime time = START.plusMinutes(i * 29L);
+            schedules.add(new Object[] {String.format("s-%05d", i), time, "tree-" + (i % TREES), statuses[i % statuses.length], 1});
+            logs.add(new Object[] {String.format("l-%05d", i), "tree-" + (i % TREES), i % 3 == 0 ? "false" : "true",
+                    "criteria " + i, (long) (i % 900), time});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO schedule (id, scheduled_time, target_node_id, status, comparison_days) " +
+                "VALUES (?, ?, ?, ?, ?)", schedules);
+        jdbcTemplate.batchUpdate("INSERT INTO tot_logs (id, tree_id, validation_result, validation_criteria, latency_ms, timestamp) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", logs);
+
+        List<Object[]> nodes = new ArrayList<>();
+        List<Object[]> catalog = new ArrayList<>();
+        for (int tree = 0; tree < TREES; tree++) {
+            for (int node = 0; node < 25; node++) {
+                int depth = node == 0 ? 0 : 1 + (node - 1) / 6;
+                nodes.add(new Object[] {"n" + node, "tree-" + tree, "content " + node, depth, depth == 4,
+                        node == 0 ? null : "n" + (node - 1) / 6});
+            }
+        }
+        for (int tree = 0; tree < 2000; tree++) {
+            catalog.add(new Object[] {"tree-" + tree, 25, true, tree % 10 == 0 ? null : START.plusMinutes(tree * 71L)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tot_node (node_id, tree_id, content, depth, leaf, parent_node_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", nodes);
+        jdbcTemplate.batchUpdate("INSERT INTO tot_tree_catalog (tree_id, node_count, structure_valid, last_evaluated_at) " +
+                "VALUES (?, ?, ?, ?)", catalog);
+
+        List<Object[]> rollups = new ArrayList<>();
+        for (int hour = 0; hour < 250; hour++) {
+            for (int tree = 0; tree < 20; tree++) {
+                LocalDateTime bucket = START.plusHours(hour * 12L);
+                String granularity = hour % 5 == 0 ? "DAY" : "HOUR";
+                rollups.add(new Object[] {granularity + "|" + bucket + "|tree-" + tree, "tree-" + tree, granularity, bucket,
+                        3L, 1L, 0L, 400L, 4L});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tot_validation_rollups (id, tree_id, granularity, bucket_start, true_count, " +
+                "false_count, error_count, latency_sum_ms, latency_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rollups);
+    }
+
+    private static void assertUsesIndex(String table, String index, Runnable query) {
+        STATEMENTS.clear();
+        transactionTemplate.executeWithoutResult(status -> query.run());
+        String sql = STATEMENTS.stream()
+                .filter(statement -> statement.toLowerCase().contains("from " + table))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No query on " + table + " in " + STATEMENTS));
+
+        String plan = explain(sql).toUpperCase();
+
+        assertThat(plan).as(sql)
+                .contains("." + index.toUpperCase())
+                .doesNotContain("." + table.toUpperCase() + ".TABLESCAN");
+    }
+
+    /**
+     * EXPLAIN a captured statement, binding a sample value of the type H2 infers for each parameter
+     */
+    private static String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                ParameterMetaData parameters = statement.getParameterMetaData();
+                for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                    statement.setObject(i, sampleValue(parameters.getParameterType(i)));
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    private static Object sampleValue(int sqlType) {
+        return switch (sqlType) {
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> Timestamp.valueOf(FROM);
+            case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> 1;
+            case Types.BIGINT -> 1L;
+            case Types.BOOLEAN -> true;
+            default -> "tree-1";
+        };
+    }
+
+    private static <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Test
+    void scheduleQueriesUseTheirIndexes() {
+        ScheduleRepository schedules = bean(ScheduleRepository.class);
+
+        assertUsesIndex("schedule", "idx_schedule_status_time",
+                () -> schedules.findByScheduledTimeBetweenAndStatus(FROM, TO, "PENDING"));
+        assertUsesIndex("schedule", "idx_schedule_status_time",
+                () -> schedules.findByScheduledTimeBeforeAndStatus(FROM, "PENDING"));
+        assertUsesIndex("schedule", "idx_schedule_status_time", () -> schedules.countByStatus("PENDING"));
+        assertUsesIndex("schedule", "idx_schedule_target_time", () -> schedules.findByTargetNodeId("tree-1"));
+        assertUsesIndex("schedule", "idx_schedule_time",
+                () -> schedules.findByScheduledTimeBetweenOrderByScheduledTimeAsc(FROM, TO));
+    }
+
+    @Test
+    void schedulePagesUseTheIndexOfTheirFilter() {
+        ScheduleRepository schedules = bean(ScheduleRepository.class);
+
+        assertUsesIndex("schedule", "idx_schedule_status_time", () -> schedules.findSummaryPage(
+                new ScheduleFilter("PENDING", null, null, null), FROM, "s-00000", false, 101));
+        assertUsesIndex("schedule", "idx_schedule_target_time", () -> schedules.findSummaryPage(
+                new ScheduleFilter(null, "tree-1", null, null), FROM, "s-00000", false, 101));
+        assertUsesIndex("schedule", "idx_schedule_time", () -> schedules.findSummaryPage(
+                new ScheduleFilter(null, null, FROM, TO), null, null, false, 101));
+        assertUsesIndex("schedule", "idx_schedule_status_time",
+                () -> schedules.countUpTo(new ScheduleFilter("PENDING", null, null, null), 10_000));
+    }
+
+    @Test
+    void logQueriesUseTheirIndexes() {
+        TotLogRepository logs = bean(TotLogRepository.class);
+
+        assertUsesIndex("tot_logs", "idx_tot_logs_tree_time", () -> logs.findByTreeId("tree-1"));
+        assertUsesIndex("tot_logs", "idx_tot_logs_tree_time", () -> logs.findTop10ByTreeIdOrderByTimestampDesc("tree-1"));
+        assertUsesIndex("tot_logs", "idx_tot_logs_tree_time", () -> logs.findRecentSummaries("tree-1", Limit.of(10)));
+        assertUsesIndex("tot_logs", "idx_tot_logs_tree_time", () -> logs.findRecentCriteria("tree-1", Limit.of(10)));
+        assertUsesIndex("tot_logs", "idx_tot_logs_time_id", () -> logs.findByTimestampBetween(FROM, TO));
+        assertUsesIndex("tot_logs", "idx_tot_logs_time_id",
+                () -> logs.findByTimestampBeforeOrderByTimestampAscIdAsc(FROM, Limit.of(5000)));
+        assertUsesIndex("tot_logs", "idx_tot_logs_result", () -> logs.countByValidationResult("false"));
+    }
+
+    @Test
+    void logPagesAndStreamsUseTheTimeIndex() {
+        TotLogRepository logs = bean(TotLogRepository.class);
+
+        assertUsesIndex("tot_logs", "idx_tot_logs_time_id",
+                () -> logs.findSummaryPageAfter(FROM, TO, FROM, "", Limit.of(51)));
+        assertUsesIndex("tot_logs", "idx_tot_logs_time_id", () -> logs.findPageAfter(FROM, TO, FROM, "", Limit.of(51)));
+        assertUsesIndex("tot_logs", "idx_tot_logs_time_id", () -> logs.findOutcomePageAfter(TO, FROM, "", Limit.of(500)));
+        assertUsesIndex("tot_logs", "idx_tot_logs_time_id", () -> {
+            try (Stream<TotLogSummary> stream = logs.streamSummariesBetween(FROM, TO)) {
+                stream.findFirst();
+            }
+        });
+    }
+
+    @Test
+    void nodeQueriesUseTheTreeIndexes() {
+        TotNodeRepository nodes = bean(TotNodeRepository.class);
+
+        assertUsesIndex("tot_node", "idx_tot_node_tree_", () -> nodes.findByTreeId("tree-1"));
+        assertUsesIndex("tot_node", "idx_tot_node_tree_", () -> nodes.countByTreeId("tree-1"));
+        assertUsesIndex("tot_node", "idx_tot_node_tree_leaf", () -> nodes.findLeafNodesByTreeId("tree-1"));
+    }
+
+    @Test
+    void catalogAndRollupQueriesUseTheirIndexes() {
+        TreeCatalogRepository catalog = bean(TreeCatalogRepository.class);
+        ValidationRollupRepository rollups = bean(ValidationRollupRepository.class);
+
+        assertUsesIndex("tot_tree_catalog", "idx_tree_catalog_last_evaluated",
+                () -> catalog.findRecentlyEvaluatedTreeIds(Limit.of(1000)));
+        assertUsesIndex("tot_validation_rollups", "idx_rollup_granularity_bucket",
+                () -> rollups.sumBuckets("DAY", null, FROM, TO));
+        assertUsesIndex("tot_validation_rollups", "idx_rollup_granularity_bucket",
+                () -> rollups.findBuckets("HOUR", "tree-1", FROM, TO));
+    }
+}
@@ -0,0 +1,154 @@
+package com.tot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkEvaluationServiceTest {
+
+    private TotService totService;
+    private ActionService actionService;
+    private StockDataService stockDataService;
+    private LogService logService;
+    private ThreadPoolTaskExecutor executor;
+    private BulkEvaluationService bulkEvaluationService;
+    private final List<BulkEvaluationService.TreeResult> results = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        totService = mock(TotService.class);
+        actionService = mock(ActionService.class);
+        stockDataService = mock(StockDataService.class);
+        logService = mock(LogService.class);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(100);
+        executor.initialize();
+
+        bulkEvaluationService = new BulkEvaluationService(totService, actionService, stockDataService, logService, executor);
+        set(bulkEvaluationService, "maxTrees", 20);
+        set(bulkEvaluationService, "parallelism", 2);
+
+        when(stockDataService.containsStockCriteria(anyString())).thenReturn(true);
+        when(stockDataService.extractStockSymbols(anyString()))
+                .thenAnswer(invocation -> new String[] {"SPY", invocation.<String>getArgument(0)});
+        when(stockDataService.fetchMarketData(any(), anyInt())).thenAnswer(invocation -> {
+            Map<String, StockDataService.SymbolData> data = new LinkedHashMap<>();
+            invocation.<Collection<String>>getArgument(0).forEach(symbol -> data.put(symbol, null));
+            return data;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * Trees whose JSON is their ID (used as their second symbol), all structurally valid unless listed
+     */
+    private void trees(List<String> found, List<String> invalid) {
+        Map<String, String> trees = new LinkedHashMap<>();
+        Map<String, Boolean> validity = new LinkedHashMap<>();
+        found.forEach(treeId -> {
+            trees.put(treeId, treeId);
+            validity.put(treeId, !invalid.contains(treeId));
+        });
+        when(totService.getTreesOfThought(any())).thenReturn(trees);
+        when(totService.areStructurallyValid(any())).thenReturn(validity);
+    }
+
+    @Test
+    void everyTreeGetsOneResultAndMarketDataIsFetchedOnce() throws Exception {
+        trees(List.of("AAPL", "MSFT", "BROKEN", "FAILS"), List.of("BROKEN"));
+        when(actionService.evaluateTree(anyString(), anyString(), eq(30), any())).thenReturn("BUY");
+        when(actionService.evaluateTree(eq("FAILS"), anyString(), eq(30), any()))
+                .thenThrow(new IllegalStateException("LLM unavailable"));
+
+        BulkEvaluationService.BulkSummary summary = bulkEvaluationService
+                .evaluate(List.of("AAPL", "MSFT", "AAPL", "MISSING", "BROKEN", "FAILS"), 30, results::add)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(summary.getTotal()).isEqualTo(5);
+        assertThat(summary.getSucceeded()).isEqualTo(2);
+        assertThat(summary.getFailed()).isEqualTo(3);
+        assertThat(summary.getSymbolsFetched()).isEqualTo(4); // SPY, AAPL, MSFT and FAILS
+        Map<String, String> statuses = new LinkedHashMap<>();
+        results.forEach(result -> statuses.put(result.getTreeId(), result.getStatus()));
+        assertThat(statuses).hasSize(5).containsEntry("AAPL", BulkEvaluationService.EVALUATED)
+                .containsEntry("MSFT", BulkEvaluationService.EVALUATED)
+                .containsEntry("MISSING", BulkEvaluationService.NOT_FOUND)
+                .containsEntry("BROKEN", BulkEvaluationService.INVALID)
+                .containsEntry("FAILS", BulkEvaluationService.FAILED);
+        verify(stockDataService, times(1)).fetchMarketData(any(), eq(30));
+        verify(logService).logValidationFailure("FAILS");
+    }
+
+    @Test
+    void noMoreThanParallelismEvaluationsRunAtOnce() throws Exception {
+        List<String> treeIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            treeIds.add("T" + i);
+        }
+        trees(treeIds, List.of());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(actionService.evaluateTree(anyString(), anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return "HOLD";
+        });
+
+        BulkEvaluationService.BulkSummary summary = bulkEvaluationService.evaluate(treeIds, 7, results::add)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(summary.getSucceeded()).isEqualTo(10);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void oversizedRequestsAreRejected() {
+        List<String> treeIds = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            treeIds.add("T" + i);
+        }
+
+        assertThatThrownBy(() -> bulkEvaluationService.evaluate(treeIds, 7, results::add))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("At most 20 trees can be evaluated in one request");
+        assertThatThrownBy(() -> bulkEvaluationService.evaluate(List.of(), 7, results::add))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bulkEvaluationService.evaluate(List.of("T1"), 366, results::add))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
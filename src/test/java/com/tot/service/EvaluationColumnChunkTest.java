@@ -0,0 +1,124 @@
+package com.tot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EvaluationColumnChunkTest {
+
+    private static EvaluationColumnChunk chunk(String firstId, long... timeKeys) {
+        EvaluationColumnChunk.Builder builder = new EvaluationColumnChunk.Builder();
+        for (int i = 0; i < timeKeys.length; i++) {
+            String id = i == 0 ? firstId : firstId + "-" + i;
+            String tree = i % 2 == 0 ? "tree-a" : "tree-b";
+            String outcome = i % 3 == 0 ? ValidationRollupService.OUTCOME_TRUE : ValidationRollupService.OUTCOME_FALSE;
+            builder.add(id, tree, outcome, i % 4 == 0 ? null : (long) i, timeKeys[i]);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void builderDictionaryEncodesTreesAndOutcomes() {
+        EvaluationColumnChunk.Builder builder = new EvaluationColumnChunk.Builder();
+        builder.add("1", "tree-a", ValidationRollupService.OUTCOME_TRUE, 12L, 100);
+        builder.add("2", "tree-b", ValidationRollupService.OUTCOME_ERROR, null, 200);
+        builder.add("3", "tree-a", "UNKNOWN", 7L, 300);
+
+        EvaluationColumnChunk chunk = builder.build();
+
+        assertThat(chunk.rowCount()).isEqualTo(3);
+        assertThat(chunk.treeCount()).isEqualTo(2);
+        assertThat(chunk.tree(chunk.treeCode(2))).isEqualTo("tree-a");
+        assertThat(chunk.codeOf("tree-b")).isEqualTo(chunk.treeCode(1));
+        assertThat(chunk.codeOf("missing")).isEqualTo(-1);
+        assertThat(chunk.outcome(0)).isEqualTo(EvaluationColumnChunk.TRUE);
+        assertThat(chunk.outcome(1)).isEqualTo(EvaluationColumnChunk.ERROR);
+        assertThat(chunk.outcome(2)).isEqualTo(EvaluationColumnChunk.FALSE);
+        assertThat(chunk.latencyMs(1)).isEqualTo(-1);
+        assertThat(chunk.firstId()).isEqualTo("1");
+        assertThat(chunk.lastId()).isEqualTo("3");
+    }
+
+    @Test
+    void boundsSkipOverDuplicateTimeKeys() {
+        EvaluationColumnChunk chunk = chunk("x", 10, 20, 20, 20, 30, 30, 40);
+
+        assertThat(chunk.lowerBound(20)).isEqualTo(1);
+        assertThat(chunk.upperBound(20)).isEqualTo(4);
+        assertThat(chunk.lowerBound(30)).isEqualTo(4);
+        assertThat(chunk.upperBound(30)).isEqualTo(6);
+        assertThat(chunk.lowerBound(25)).isEqualTo(4);
+        assertThat(chunk.upperBound(25)).isEqualTo(4);
+        assertThat(chunk.lowerBound(5)).isZero();
+        assertThat(chunk.upperBound(40)).isEqualTo(7);
+        assertThat(chunk.lowerBound(50)).isEqualTo(7);
+    }
+
+    @Test
+    void boundsOfARunOfEqualKeysCoverTheWholeChunk() {
+        EvaluationColumnChunk chunk = chunk("x", 5, 5, 5, 5, 5, 5, 5, 5, 5);
+
+        assertThat(chunk.lowerBound(5)).isZero();
+        assertThat(chunk.upperBound(5)).isEqualTo(9);
+    }
+
+    @Test
+    void mergeConcatenatesRowsAndRemapsTreeCodes() {
+        EvaluationColumnChunk.Builder second = new EvaluationColumnChunk.Builder();
+        second.add("b-0", "tree-b", ValidationRollupService.OUTCOME_ERROR, 3L, 50);
+        second.add("b-1", "tree-c", ValidationRollupService.OUTCOME_TRUE, null, 60);
+        EvaluationColumnChunk first = chunk("a", 10, 20, 30);
+
+        EvaluationColumnChunk merged = EvaluationColumnChunk.merge(List.of(first, second.build()));
+
+        assertThat(merged.rowCount()).isEqualTo(5);
+        assertThat(merged.firstId()).isEqualTo("a");
+        assertThat(merged.lastId()).isEqualTo("b-1");
+        assertThat(merged.firstTimeKey()).isEqualTo(10);
+        assertThat(merged.lastTimeKey()).isEqualTo(60);
+        assertThat(merged.treeCount()).isEqualTo(3);
+        assertThat(merged.tree(merged.treeCode(3))).isEqualTo("tree-b");
+        assertThat(merged.tree(merged.treeCode(4))).isEqualTo("tree-c");
+        assertThat(merged.outcome(3)).isEqualTo(EvaluationColumnChunk.ERROR);
+        assertThat(merged.latencyMs(3)).isEqualTo(3);
+        for (int row = 0; row < first.rowCount(); row++) {
+            assertThat(merged.tree(merged.treeCode(row))).isEqualTo(first.tree(first.treeCode(row)));
+            assertThat(merged.outcome(row)).isEqualTo(first.outcome(row));
+            assertThat(merged.latencyMs(row)).isEqualTo(first.latencyMs(row));
+        }
+    }
+
+    @Test
+    void writtenChunksReadBackUnchanged() throws Exception {
+        long[] timeKeys = new long[3000];
+        for (int i = 0; i < timeKeys.length; i++) {
+            timeKeys[i] = 1_700_000_000_000_000_000L + i * 1_000L;
+        }
+        EvaluationColumnChunk chunk = chunk("first", timeKeys);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        chunk.writeTo(bytes);
+        EvaluationColumnChunk read = EvaluationColumnChunk.read(bytes.toByteArray());
+
+        assertThat(read.rowCount()).isEqualTo(chunk.rowCount());
+        assertThat(read.firstId()).isEqualTo("first");
+        assertThat(read.lastId()).isEqualTo("first-2999");
+        for (int row = 0; row < chunk.rowCount(); row++) {
+            assertThat(read.timeKey(row)).isEqualTo(chunk.timeKey(row));
+            assertThat(read.tree(read.treeCode(row))).isEqualTo(chunk.tree(chunk.treeCode(row)));
+            assertThat(read.outcome(row)).isEqualTo(chunk.outcome(row));
+            assertThat(read.latencyMs(row)).isEqualTo(chunk.latencyMs(row));
+        }
+    }
+
+    @Test
+    void foreignBytesAreRejected() {
+        assertThatThrownBy(() -> EvaluationColumnChunk.read(new byte[] {1, 2, 3, 4, 0, 1}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not an evaluation column chunk");
+    }
+}
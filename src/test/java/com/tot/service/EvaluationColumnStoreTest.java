@@ -0,0 +1,160 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.repository.TotLogOutcome;
+import com.tot.repository.TotLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EvaluationColumnStoreTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @TempDir
+    Path directory;
+
+    private final List<TotLogOutcome> database = new ArrayList<>();
+    private final List<TotLog> archived = new ArrayList<>();
+
+    private TotLogRepository totLogRepository;
+    private LogArchive logArchive;
+
+    @BeforeEach
+    void setUp() {
+        totLogRepository = mock(TotLogRepository.class);
+        when(totLogRepository.findOutcomePageAfter(any(), any(), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime before = invocation.getArgument(0);
+            LocalDateTime afterTimestamp = invocation.getArgument(1);
+            String afterId = invocation.getArgument(2);
+            Limit limit = invocation.getArgument(3);
+            return database.stream()
+                    .filter(row -> row.timestamp().isBefore(before))
+                    .filter(row -> row.timestamp().isAfter(afterTimestamp)
+                            || (row.timestamp().equals(afterTimestamp) && row.id().compareTo(afterId) > 0))
+                    .sorted(Comparator.comparing(TotLogOutcome::timestamp).thenComparing(TotLogOutcome::id))
+                    .limit(limit.max())
+                    .toList();
+        });
+
+        logArchive = mock(LogArchive.class);
+        doAnswer(invocation -> {
+            Consumer<TotLog> consumer = invocation.getArgument(2);
+            archived.forEach(consumer);
+            return null;
+        }).when(logArchive).forEachInRange(any(), any(), any());
+    }
+
+    private EvaluationColumnStore openStore() throws Exception {
+        EvaluationColumnStore store = new EvaluationColumnStore(totLogRepository, logArchive);
+        set(store, "exportDir", directory.toString());
+        set(store, "settleSeconds", 60);
+        set(store, "rescanSeconds", 900);
+        set(store, "chunkRows", 10);
+        set(store, "maxChunks", 32);
+        store.open();
+        return store;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private void insert(String id, LocalDateTime timestamp) {
+        database.add(new TotLogOutcome(id, "tree-1", "true", null, 5L, timestamp));
+    }
+
+    private static List<Integer> rowCounts(EvaluationColumnStore store) {
+        return store.getChunks().stream().map(EvaluationColumnChunk::rowCount).toList();
+    }
+
+    private long chunkFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".col")).count();
+        }
+    }
+
+    @Test
+    void archiveAndDatabaseAreWrittenInChunksOfChunkRows() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            archived.add(new TotLog(String.format("a-%02d", i), "tree-1", "true", null, null, null, 5L,
+                    NOW.minusDays(40).plusMinutes(i)));
+        }
+        for (int i = 0; i < 7; i++) {
+            insert(String.format("d-%02d", i), NOW.minusDays(10).plusMinutes(i));
+        }
+        EvaluationColumnStore store = openStore();
+
+        assertThat(store.export()).isEqualTo(32);
+
+        assertThat(rowCounts(store)).containsExactly(10, 10, 10, 2);
+        assertThat(chunkFiles()).isEqualTo(4);
+        assertThat(store.getStats().getWatermarkId()).isEqualTo("d-06");
+    }
+
+    @Test
+    void chunksAreCutAtTheRescanWindow() throws Exception {
+        insert("old-1", NOW.minusHours(2));
+        insert("old-2", NOW.minusHours(2).plusSeconds(1));
+        insert("recent", NOW.minusMinutes(5));
+        EvaluationColumnStore store = openStore();
+
+        store.export();
+
+        assertThat(rowCounts(store)).containsExactly(2, 1);
+    }
+
+    @Test
+    void rowsCommittedLateWithinTheRescanWindowAreExportedByTheNextRun() throws Exception {
+        insert("a", NOW.minusHours(2));
+        insert("c", NOW.minusMinutes(5));
+        insert("settling", NOW.minusSeconds(10));
+        EvaluationColumnStore store = openStore();
+        assertThat(store.export()).isEqualTo(2);
+
+        insert("b", NOW.minusMinutes(10)); // Older than the watermark, committed after it was exported
+        insert("too-late", NOW.minusHours(3)); // Before the chunks left out of the rescan
+
+        assertThat(store.export()).isEqualTo(1);
+        assertThat(store.getStats().getRows()).isEqualTo(3);
+        EvaluationColumnChunk last = store.getChunks().get(store.getChunks().size() - 1);
+        assertThat(last.rowCount()).isEqualTo(2);
+        assertThat(last.timeKey(0)).isLessThan(last.timeKey(1));
+        assertThat(store.getStats().getWatermarkId()).isEqualTo("c");
+    }
+
+    @Test
+    void rerunsAndReopeningKeepEachRowOnce() throws Exception {
+        for (int i = 0; i < 15; i++) {
+            insert(String.format("r-%02d", i), NOW.minusMinutes(20).plusSeconds(i));
+        }
+        EvaluationColumnStore store = openStore();
+        store.export();
+
+        assertThat(store.export()).isZero();
+        EvaluationColumnStore reopened = openStore();
+        assertThat(reopened.export()).isZero();
+
+        assertThat(rowCounts(reopened)).containsExactly(10, 5);
+        assertThat(chunkFiles()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EvaluationJobServiceTest {
+
+    private ActionService actionService;
+    private ThreadPoolTaskExecutor executor;
+    private EvaluationJobService jobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        actionService = mock(ActionService.class);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+
+        jobService = new EvaluationJobService(actionService, executor);
+        set(jobService, "maxJobs", 2);
+        set(jobService, "ttlMinutes", 60L);
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private EvaluationJobService.JobStatus await(EvaluationJobService.JobStatus submitted) throws Exception {
+        return jobService.getCompletion(submitted.getJobId()).orElseThrow().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void jobsCompleteWithTheirResultOrError() throws Exception {
+        when(actionService.executeActionForTreeWithHistoricalComparison(eq("good"), anyInt())).thenReturn("BUY");
+        when(actionService.executeActionForTreeWithHistoricalComparison(eq("bad"), anyInt()))
+                .thenThrow(new IllegalArgumentException("Tree not found: bad"));
+
+        EvaluationJobService.JobStatus good = await(jobService.submit("good", 30));
+        EvaluationJobService.JobStatus bad = await(jobService.submit("bad", 30));
+
+        assertThat(good.getStatus()).isEqualTo(EvaluationJobService.SUCCEEDED);
+        assertThat(good.getResult()).isEqualTo("BUY");
+        assertThat(bad.getStatus()).isEqualTo(EvaluationJobService.FAILED);
+        assertThat(bad.getError()).isEqualTo("Tree not found: bad");
+        assertThat(jobService.getStatus(good.getJobId())).map(EvaluationJobService.JobStatus::getFinishedAt).isPresent();
+    }
+
+    @Test
+    void fullStoreDropsTheOldestFinishedJob() throws Exception {
+        when(actionService.executeActionForTreeWithHistoricalComparison(eq("t1"), anyInt())).thenReturn("HOLD");
+
+        EvaluationJobService.JobStatus first = await(jobService.submit("t1", 7));
+        Thread.sleep(10); // Finish times must differ for "oldest" to be well defined
+        EvaluationJobService.JobStatus second = await(jobService.submit("t1", 7));
+        EvaluationJobService.JobStatus third = await(jobService.submit("t1", 7));
+
+        assertThat(jobService.getStatus(first.getJobId())).isEmpty();
+        assertThat(jobService.getStatus(second.getJobId())).isPresent();
+        assertThat(jobService.getStatus(third.getJobId())).isPresent();
+    }
+
+    @Test
+    void submissionIsRejectedWhileEveryJobIsInProgress() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(actionService.executeActionForTreeWithHistoricalComparison(eq("slow"), anyInt())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "SELL";
+        });
+
+        EvaluationJobService.JobStatus first = jobService.submit("slow", 7);
+        jobService.submit("slow", 7);
+
+        assertThatThrownBy(() -> jobService.submit("slow", 7)).isInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> jobService.submit("slow", 0)).isInstanceOf(IllegalArgumentException.class);
+
+        release.countDown();
+        assertThat(await(first).getStatus()).isEqualTo(EvaluationJobService.SUCCEEDED);
+    }
+}
@@ -0,0 +1,249 @@
+package com.tot.service;
+
+import com.tot.entity.JournalCheckpoint;
+import com.tot.entity.TotLog;
+import com.tot.repository.JournalCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EvaluationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final Map<String, JournalCheckpoint> checkpoints = new ConcurrentHashMap<>();
+    private final List<String> persisted = new CopyOnWriteArrayList<>();
+    private final Map<String, Boolean> failingTrees = new ConcurrentHashMap<>();
+    private volatile boolean persisterDown;
+
+    private JournalCheckpointRepository checkpointRepository;
+    private LogBatchPersister logBatchPersister;
+    private EvaluationJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository = mock(JournalCheckpointRepository.class);
+        when(checkpointRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(checkpoints.get(invocation.<String>getArgument(0))));
+        when(checkpointRepository.save(any())).thenAnswer(invocation -> {
+            JournalCheckpoint checkpoint = invocation.getArgument(0);
+            checkpoints.put(checkpoint.getName(), checkpoint);
+            return checkpoint;
+        });
+
+        // Commits the entries one transaction each, like the persister's row-by-row retry
+        logBatchPersister = mock(LogBatchPersister.class);
+        doAnswer(invocation -> {
+            List<TotLog> batch = invocation.getArgument(0);
+            Consumer<List<TotLog>> inTransaction = invocation.getArgument(1);
+            for (TotLog entry : batch) {
+                if (persisterDown) {
+                    throw new CannotCreateTransactionException("Database is down");
+                }
+                if (failingTrees.containsKey(entry.getTreeId())) {
+                    throw new DataIntegrityViolationException("Cannot write " + entry.getTreeId());
+                }
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    inTransaction.accept(List.of(entry));
+                    persisted.add(entry.getTreeId());
+                    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            }
+            return null;
+        }).when(logBatchPersister).persistOrThrow(any(), any());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private EvaluationJournal openJournal() throws Exception {
+        EvaluationJournal opened = new EvaluationJournal(logBatchPersister, checkpointRepository);
+        set(opened, "journalDir", directory.toString());
+        set(opened, "segmentSizeMb", 1);
+        set(opened, "fsyncIntervalMs", 10L);
+        set(opened, "indexBatchSize", 50);
+        set(opened, "indexIntervalMs", 10L);
+        set(opened, "maxIndexAttempts", 3);
+        opened.open();
+        return opened;
+    }
+
+    private void restart() throws Exception {
+        journal.close();
+        journal = openJournal();
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private void append(String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            TotLog entry = new TotLog();
+            entry.setTreeId(prefix + "-" + i);
+            entry.setValidationResult("true");
+            entry.setTimestamp(LocalDateTime.of(2024, 3, 1, 9, 0).plusSeconds(i));
+            journal.append(entry);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private long indexedSequence() {
+        return ((Number) journal.getStats().get("indexedSequence")).longValue();
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    @Test
+    void appendedEntriesAreIndexedInOrderAndCheckpointed() throws Exception {
+        journal = openJournal();
+
+        append("tree", 120);
+
+        await(() -> persisted.size() == 120);
+        assertThat(persisted).containsExactlyElementsOf(expected("tree", 120));
+        await(() -> indexedSequence() == 120);
+        assertThat(checkpoints.get("evaluation-journal").getLastSequence()).isEqualTo(120);
+    }
+
+    @Test
+    void unindexedEntriesAreRecoveredAfterRestart() throws Exception {
+        journal = openJournal();
+        persisterDown = true;
+        append("tree", 30);
+        Thread.sleep(100); // Longer than maxIndexAttempts retries; an outage must not dead-letter anything
+
+        persisterDown = false;
+        restart();
+
+        await(() -> persisted.size() == 30);
+        assertThat(persisted).containsExactlyElementsOf(expected("tree", 30));
+        assertThat(journal.getStats().get("recoveredRecords")).isEqualTo(30L);
+    }
+
+    @Test
+    void indexedEntriesAreNotWrittenAgainAfterRestart() throws Exception {
+        journal = openJournal();
+        append("first", 10);
+        await(() -> indexedSequence() == 10);
+
+        restart();
+        append("second", 5);
+
+        await(() -> persisted.size() == 15);
+        Thread.sleep(50);
+        assertThat(persisted).hasSize(15).endsWith("second-0", "second-1", "second-2", "second-3", "second-4");
+    }
+
+    @Test
+    void entriesSurviveARestartAfterARunWithoutAppends() throws Exception {
+        journal = openJournal();
+        append("first", 10);
+        await(() -> indexedSequence() == 10);
+
+        restart(); // The new active segment gets no appends
+        restart(); // Recovery finds it empty; the next active segment has the same name
+        Thread.sleep(100); // Lets the indexer delete the fully indexed segments
+        persisterDown = true;
+        append("second", 5);
+        Thread.sleep(50);
+
+        persisterDown = false;
+        restart();
+
+        await(() -> persisted.size() == 15);
+        assertThat(persisted.subList(10, 15)).containsExactlyElementsOf(expected("second", 5));
+    }
+
+    @Test
+    void fullyIndexedSegmentsAreDeleted() throws Exception {
+        journal = openJournal();
+        append("tree", 10);
+        await(() -> indexedSequence() == 10);
+
+        restart();
+        append("more", 1);
+        await(() -> indexedSequence() == 11);
+        await(() -> {
+            try {
+                return segmentFiles().size() == 1;
+            } catch (Exception e) {
+                return false;
+            }
+        });
+    }
+
+    @Test
+    void entryThatKeepsFailingIsDeadLetteredAndIndexingContinues() throws Exception {
+        failingTrees.put("tree-3", true);
+        journal = openJournal();
+
+        append("tree", 8);
+
+        await(() -> persisted.size() == 7);
+        assertThat(persisted).doesNotContain("tree-3").containsExactly(
+                "tree-0", "tree-1", "tree-2", "tree-4", "tree-5", "tree-6", "tree-7");
+        assertThat(journal.getStats().get("deadLettered")).isEqualTo(1L);
+        assertThat(Files.size(directory.resolve("dead-letter.log"))).isPositive();
+
+        restart();
+        Thread.sleep(50);
+        assertThat(persisted).hasSize(7);
+    }
+
+    private static List<String> expected(String prefix, int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(prefix + "-" + i);
+        }
+        return ids;
+    }
+}
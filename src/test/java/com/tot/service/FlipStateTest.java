@@ -0,0 +1,71 @@
+package com.tot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static com.tot.service.EvaluationColumnChunk.FALSE;
+import static com.tot.service.EvaluationColumnChunk.TRUE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlipStateTest {
+
+    private static EvaluationAnalyticsService.FlipState state(long firstKey, byte... outcomes) {
+        EvaluationAnalyticsService.FlipState state = new EvaluationAnalyticsService.FlipState();
+        for (int i = 0; i < outcomes.length; i++) {
+            state.add(outcomes[i], firstKey + i);
+        }
+        return state;
+    }
+
+    @Test
+    void countsFlipsWithinARun() {
+        EvaluationAnalyticsService.FlipState state = state(10, TRUE, TRUE, FALSE, TRUE);
+
+        assertThat(state.decisions).isEqualTo(4);
+        assertThat(state.flips).isEqualTo(2);
+        assertThat(state.lastFlipKey).isEqualTo(13);
+    }
+
+    @Test
+    void flipAtTheBoundaryHappensAtTheFirstFollowingRow() {
+        EvaluationAnalyticsService.FlipState combined = state(10, TRUE, TRUE).followedBy(state(20, FALSE, FALSE));
+
+        assertThat(combined.decisions).isEqualTo(4);
+        assertThat(combined.flips).isEqualTo(1);
+        assertThat(combined.lastFlipKey).isEqualTo(20);
+        assertThat(combined.first).isEqualTo(TRUE);
+        assertThat(combined.last).isEqualTo(FALSE);
+    }
+
+    @Test
+    void noFlipWhenTheBoundaryKeepsTheOutcome() {
+        EvaluationAnalyticsService.FlipState combined = state(10, FALSE, TRUE).followedBy(state(20, TRUE, TRUE));
+
+        assertThat(combined.flips).isEqualTo(1);
+        assertThat(combined.lastFlipKey).isEqualTo(11);
+    }
+
+    @Test
+    void combiningSplitRunsMatchesOneSequentialRun() {
+        byte[] outcomes = {TRUE, FALSE, FALSE, TRUE, TRUE, TRUE, FALSE, TRUE, FALSE, FALSE, TRUE, TRUE};
+        EvaluationAnalyticsService.FlipState sequential = state(0, outcomes);
+
+        for (int split = 1; split < outcomes.length; split++) {
+            for (int second = split + 1; second < outcomes.length; second++) {
+                EvaluationAnalyticsService.FlipState combined = state(0, slice(outcomes, 0, split))
+                        .followedBy(state(split, slice(outcomes, split, second)))
+                        .followedBy(state(second, slice(outcomes, second, outcomes.length)));
+
+                assertThat(combined.decisions).isEqualTo(sequential.decisions);
+                assertThat(combined.flips).isEqualTo(sequential.flips);
+                assertThat(combined.lastFlipKey).isEqualTo(sequential.lastFlipKey);
+                assertThat(combined.last).isEqualTo(sequential.last);
+            }
+        }
+    }
+
+    private static byte[] slice(byte[] outcomes, int from, int to) {
+        return Arrays.copyOfRange(outcomes, from, to);
+    }
+}
@@ -0,0 +1,83 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogArchiveCodecTest {
+
+    private static TotLog log(String id, LocalDateTime timestamp, Long latencyMs) {
+        return new TotLog(id, "tree-1", "VALID", "criteria ✓", null, "hash-" + id, latencyMs, timestamp);
+    }
+
+    @Test
+    void blockRoundTripKeepsEveryField() {
+        List<TotLog> logs = List.of(
+                log("a", LocalDateTime.of(2024, 3, 1, 9, 30, 0, 123_456_789), 42L),
+                new TotLog("b", null, null, null, "{\"legacy\":true}", null, null, LocalDateTime.of(1999, 12, 31, 23, 59)));
+
+        List<TotLog> decoded = LogArchiveCodec.decodeBlock(LogArchiveCodec.encodeBlock(logs));
+
+        assertThat(decoded).containsExactlyElementsOf(logs);
+    }
+
+    @Test
+    void recordRoundTrip() throws Exception {
+        TotLog original = log("a", LocalDateTime.of(2024, 3, 1, 9, 30), null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            LogArchiveCodec.writeRecord(out, original);
+        }
+
+        TotLog decoded = LogArchiveCodec.readRecord(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(decoded).isEqualTo(original);
+        assertThat(decoded.getLatencyMs()).isNull();
+    }
+
+    @Test
+    void repetitiveBlocksCompress() {
+        List<TotLog> logs = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        for (int i = 0; i < 500; i++) {
+            logs.add(log("log-" + i, start.plusSeconds(i), (long) i));
+        }
+
+        byte[] block = LogArchiveCodec.encodeBlock(logs);
+
+        assertThat(block.length).isLessThan(500 * 40);
+        assertThat(LogArchiveCodec.decodeBlock(block)).containsExactlyElementsOf(logs);
+    }
+
+    @Test
+    void foreignBlocksAreRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(0x12345678);
+        }
+
+        assertThatThrownBy(() -> LogArchiveCodec.decodeBlock(bytes.toByteArray()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not an archived log block");
+    }
+
+    @Test
+    void timeKeyOrdersLikeTimestamps() {
+        LocalDateTime earlier = LocalDateTime.of(2024, 3, 1, 9, 30, 0, 999_999_999);
+        LocalDateTime later = LocalDateTime.of(2024, 3, 1, 9, 30, 1);
+
+        assertThat(LogArchiveCodec.timeKey(earlier)).isLessThan(LogArchiveCodec.timeKey(later));
+        assertThat(LogArchiveCodec.timeKey(later) - LogArchiveCodec.timeKey(earlier)).isEqualTo(1);
+    }
+}
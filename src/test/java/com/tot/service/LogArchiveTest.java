@@ -0,0 +1,143 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogArchiveTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    private LogArchive archive;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        archive = openArchive();
+    }
+
+    private LogArchive openArchive() throws Exception {
+        LogArchive opened = new LogArchive();
+        set(opened, "archiveDir", directory.toString());
+        set(opened, "blockSize", 4);
+        opened.open();
+        return opened;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static TotLog log(String id, LocalDateTime timestamp) {
+        return new TotLog(id, "tree-1", "VALID", "criteria", null, null, 5L, timestamp);
+    }
+
+    private static List<TotLog> logs(String prefix, LocalDateTime start, int count) {
+        List<TotLog> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            logs.add(log(String.format("%s-%03d", prefix, i), start.plusMinutes(i)));
+        }
+        return logs;
+    }
+
+    private List<String> idsInRange(LogArchive source, LocalDateTime start, LocalDateTime end) {
+        List<String> ids = new ArrayList<>();
+        source.forEachInRange(start, end, log -> ids.add(log.getId()));
+        return ids;
+    }
+
+    @Test
+    void rangeReadsReturnOnlyTheRangeInOrderAcrossDays() throws Exception {
+        archive.append(logs("a", DAY.plusHours(23), 90)); // spans midnight, ten blocks
+
+        assertThat(idsInRange(archive, DAY.plusHours(23).plusMinutes(10), DAY.plusHours(23).plusMinutes(12)))
+                .containsExactly("a-010", "a-011", "a-012");
+        assertThat(idsInRange(archive, DAY, DAY.plusDays(2))).hasSize(90).isSorted();
+    }
+
+    @Test
+    void lateRowsAreFoundAndReadInOrder() throws Exception {
+        archive.append(List.of(log("b", DAY.plusMinutes(2)), log("d", DAY.plusMinutes(4))));
+        archive.append(List.of(log("a", DAY.plusMinutes(1)), log("c", DAY.plusMinutes(3))));
+
+        assertThat(idsInRange(archive, DAY, DAY.plusHours(1))).containsExactly("a", "b", "c", "d");
+        assertThat(archive.archivedIds(Map.of(
+                "a", DAY.plusMinutes(1),
+                "c", DAY.plusMinutes(3),
+                "missing", DAY.plusMinutes(3),
+                "above", DAY.plusMinutes(9))))
+                .containsExactlyInAnyOrder("a", "c");
+    }
+
+    @Test
+    void blocksSharingATimestampAtTheirBoundaryAreReadInOrder() throws Exception {
+        List<TotLog> sameMinute = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sameMinute.add(log(String.format("s-%02d", i), DAY.plusMinutes(5))); // three blocks, one timestamp
+        }
+        archive.append(sameMinute);
+        archive.append(List.of(log("s-03a", DAY.plusMinutes(5)), log("t", DAY.plusMinutes(6)))); // late row in between
+
+        List<String> ids = idsInRange(archive, DAY, DAY.plusHours(1));
+        List<TotLog> firstTwo = archive.readAfter(DAY, DAY.plusHours(1), DAY.plusMinutes(5), "s-02", 2);
+
+        assertThat(ids).hasSize(12).isSorted().startsWith("s-00", "s-01", "s-02", "s-03", "s-03a", "s-04").endsWith("t");
+        assertThat(firstTwo).extracting(TotLog::getId).containsExactly("s-03", "s-03a");
+    }
+
+    @Test
+    void highWaterMarkSurvivesLateRowsAndReopening() throws Exception {
+        archive.append(List.of(log("b", DAY.plusMinutes(2))));
+        archive.append(List.of(log("a", DAY.plusMinutes(1))));
+
+        LogArchive reopened = openArchive();
+
+        for (LogArchive source : List.of(archive, reopened)) {
+            assertThat(source.mayContain(DAY.plusMinutes(2), "b")).isTrue();
+            assertThat(source.mayContain(DAY.plusMinutes(2), "c")).isFalse();
+            assertThat(source.mayContain(DAY.plusMinutes(3), "a")).isFalse();
+        }
+        assertThat(reopened.archivedIds(Map.of("a", DAY.plusMinutes(1), "b", DAY.plusMinutes(2))))
+                .containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void emptyArchiveContainsNothing() {
+        assertThat(archive.mayContain(DAY, "a")).isFalse();
+        assertThat(archive.archivedIds(Map.of("a", DAY))).isEmpty();
+        assertThat(archive.readAfter(DAY, DAY.plusDays(1), DAY, "", 10)).isEmpty();
+    }
+
+    @Test
+    void readAfterPagesByTimestampAndId() throws Exception {
+        archive.append(List.of(
+                log("a", DAY.plusMinutes(1)),
+                log("b", DAY.plusMinutes(1)),
+                log("c", DAY.plusMinutes(2)),
+                log("d", DAY.plusMinutes(3)),
+                log("e", DAY.plusMinutes(4))));
+
+        List<TotLog> first = archive.readAfter(DAY, DAY.plusHours(1), DAY, "", 2);
+        TotLog last = first.get(first.size() - 1);
+        List<TotLog> second = archive.readAfter(DAY, DAY.plusHours(1), last.getTimestamp(), last.getId(), 2);
+        List<TotLog> bounded = archive.readAfter(DAY, DAY.plusMinutes(3), DAY.plusMinutes(2), "c", 10);
+
+        assertThat(first).extracting(TotLog::getId).containsExactly("a", "b");
+        assertThat(second).extracting(TotLog::getId).containsExactly("c", "d");
+        assertThat(bounded).extracting(TotLog::getId).containsExactly("d");
+    }
+}
@@ -0,0 +1,104 @@
+package com.tot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tot.entity.TotLog;
+import com.tot.repository.TotLogRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LogServiceTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    private TotLogRepository totLogRepository;
+    private LogArchive logArchive;
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        totLogRepository = mock(TotLogRepository.class);
+        when(totLogRepository.findById(any())).thenReturn(Optional.empty());
+
+        logArchive = new LogArchive();
+        set(logArchive, "archiveDir", directory.toString());
+        set(logArchive, "blockSize", 2);
+        logArchive.open();
+
+        logService = new LogService(totLogRepository, mock(TreeVersionService.class), mock(EvaluationLogSink.class),
+                mock(ValidationRollupService.class), logArchive, mock(RecentEvaluationCache.class),
+                mock(EntityManager.class), mock(PlatformTransactionManager.class));
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static TotLog log(String id, LocalDateTime timestamp) {
+        return new TotLog(id, "tree-1", "true", "criteria " + id, null, null, 5L, timestamp);
+    }
+
+    @Test
+    void timePeriodIsWrittenAsOneArrayOfArchivedAndHotEntries() throws Exception {
+        TotLog archivedButNotDeleted = log("c", DAY.plusMinutes(3));
+        logArchive.append(List.of(log("a", DAY.plusMinutes(1)), log("b", DAY.plusMinutes(2)), archivedButNotDeleted));
+        when(totLogRepository.streamBetween(any(), any()))
+                .thenAnswer(invocation -> new ArrayList<>(List.of(archivedButNotDeleted, log("d", DAY.plusMinutes(4)))).stream());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = logService.writeLogsAsArray(DAY, DAY.plusHours(1), out);
+
+        JsonNode array = new ObjectMapper().readTree(out.toByteArray());
+        assertThat(written).isEqualTo(4);
+        assertThat(array.isArray()).isTrue();
+        List<String> ids = new ArrayList<>();
+        array.forEach(entry -> ids.add(entry.get("id").asText()));
+        assertThat(ids).containsExactly("a", "b", "c", "d");
+        assertThat(array.get(3).get("validationCriteria").asText()).isEqualTo("criteria d");
+    }
+
+    @Test
+    void emptyTimePeriodIsAnEmptyArray() throws Exception {
+        when(totLogRepository.streamBetween(any(), any())).thenAnswer(invocation -> List.<TotLog>of().stream());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        logService.writeLogsAsArray(DAY, DAY.plusHours(1), out);
+
+        assertThat(out.toString()).isEqualTo("[]");
+    }
+
+    @Test
+    void logsMissingFromTheHotTableAreFoundInTheArchive() throws Exception {
+        logArchive.append(List.of(log("old", DAY.plusMinutes(1))));
+        logArchive.append(List.of(log("newer", DAY.plusDays(1))));
+        TotLog hot = log("hot", DAY.plusDays(2));
+        when(totLogRepository.findById("hot")).thenReturn(Optional.of(hot));
+
+        assertThat(logService.getLogById("hot", null)).containsSame(hot);
+        assertThat(logService.getLogById("old", null)).map(TotLog::getValidationCriteria).contains("criteria old");
+        assertThat(logService.getLogById("old", DAY.plusMinutes(1))).map(TotLog::getId).contains("old");
+        assertThat(logService.getLogById("old", DAY.plusMinutes(2))).isEmpty();
+        assertThat(logService.getLogById("missing", null)).isEmpty();
+    }
+}
@@ -0,0 +1,189 @@
+package com.tot.service;
+
+import com.tot.entity.TotNode;
+import com.tot.repository.TotNodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NodeSearchIndexTest {
+
+    @Mock
+    private TotNodeRepository totNodeRepository;
+
+    private NodeSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new NodeSearchIndex(totNodeRepository);
+        setEnabled(index, true);
+    }
+
+    private static void setEnabled(NodeSearchIndex index, boolean enabled) throws Exception {
+        Field field = NodeSearchIndex.class.getDeclaredField("enabled");
+        field.setAccessible(true);
+        field.setBoolean(index, enabled);
+    }
+
+    private static TotNode node(String treeId, String nodeId, String content, String criteria) {
+        TotNode node = new TotNode();
+        node.setTreeId(treeId);
+        node.setNodeId(nodeId);
+        node.setContent(content);
+        node.setCriteria(criteria);
+        return node;
+    }
+
+    private List<String> nodeIds(String query) {
+        return index.search(query, 0, 100).getHits().stream().map(NodeSearchIndex.SearchHit::getNodeId).toList();
+    }
+
+    @Test
+    void termsMatchContentAndCriteriaAndAreAnded() {
+        index.indexTree("t1", List.of(
+                node("t1", "a", "Is the market trending up?", "SPY above moving average"),
+                node("t1", "b", "Is volume rising?", "Volume above 20 day average"),
+                node("t1", "c", "Hold", null)));
+
+        assertThat(nodeIds("average")).containsExactlyInAnyOrder("a", "b");
+        assertThat(nodeIds("AVERAGE volume")).containsExactly("b");
+        assertThat(nodeIds("average missing")).isEmpty();
+        assertThat(nodeIds("hold")).containsExactly("c");
+    }
+
+    @Test
+    void prefixAndPhraseClauses() {
+        index.indexTree("t1", List.of(
+                node("t1", "a", "Trend following", "moving average crossover"),
+                node("t1", "b", "Trendline break", "average of moving prices")));
+
+        assertThat(nodeIds("trend*")).containsExactlyInAnyOrder("a", "b");
+        assertThat(nodeIds("\"moving average\"")).containsExactly("a");
+        assertThat(nodeIds("trendl* \"moving average\"")).isEmpty();
+        assertThat(nodeIds("trendl* \"average of\"")).containsExactly("b");
+    }
+
+    @Test
+    void phraseDoesNotMatchAcrossContentAndCriteria() {
+        index.indexTree("t1", List.of(node("t1", "a", "Buy the dip", "dip detected")));
+
+        assertThat(nodeIds("\"dip dip\"")).isEmpty();
+        assertThat(nodeIds("\"the dip\"")).containsExactly("a");
+    }
+
+    @Test
+    void reindexingReplacesTheTreesOldNodes() {
+        index.indexTree("t1", List.of(node("t1", "old", "Bearish signal", null)));
+        index.indexTree("t2", List.of(node("t2", "other", "Bearish divergence", null)));
+
+        index.indexTree("t1", List.of(node("t1", "new", "Bullish signal", null)));
+
+        assertThat(nodeIds("bearish")).containsExactly("other");
+        assertThat(nodeIds("signal")).containsExactly("new");
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuildIndexesAllStoredNodes() {
+        when(totNodeRepository.findAll()).thenReturn(List.of(
+                node("t1", "a", "Gold rallies", null),
+                node("t2", "b", "Gold drops", null)));
+
+        index.rebuild();
+
+        assertThat(nodeIds("gold")).containsExactly("a", "b");
+    }
+
+    @Test
+    void treesReplacedWhileRebuildingKeepTheirNewNodes() {
+        when(totNodeRepository.findAll()).thenAnswer(invocation -> {
+            // A tree saved after the rebuild started reading is committed before the read returns
+            index.indexTree("t1", List.of(node("t1", "new", "Silver rallies", null)));
+            return List.of(node("t1", "old", "Gold rallies", null), node("t2", "b", "Gold drops", null));
+        });
+
+        index.rebuild();
+
+        assertThat(nodeIds("rallies")).containsExactly("new");
+        assertThat(nodeIds("gold")).containsExactly("b");
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void pagesSplitHitsAndPagesPastTheEndAreEmpty() {
+        List<TotNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            nodes.add(node("t1", "n" + i, "Signal number " + i, null));
+        }
+        index.indexTree("t1", nodes);
+
+        NodeSearchIndex.SearchPage first = index.search("signal", 0, 10);
+        NodeSearchIndex.SearchPage last = index.search("signal", 2, 10);
+        NodeSearchIndex.SearchPage huge = index.search("signal", Integer.MAX_VALUE, 1000);
+
+        assertThat(first.getTotalHits()).isEqualTo(25);
+        assertThat(first.getHits()).extracting(NodeSearchIndex.SearchHit::getNodeId).startsWith("n0", "n1");
+        assertThat(last.getHits()).hasSize(5);
+        assertThat(huge.getTotalHits()).isEqualTo(25);
+        assertThat(huge.getHits()).isEmpty();
+    }
+
+    @Test
+    void matchesANaiveScanOverManyTrees() {
+        String[] words = {"trend", "volume", "average", "breakout", "support", "resistance", "momentum", "gap"};
+        Random random = new Random(42);
+        List<TotNode> all = new ArrayList<>();
+        for (int t = 0; t < 20; t++) {
+            List<TotNode> nodes = new ArrayList<>();
+            for (int n = 0; n < 50; n++) {
+                String content = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                String criteria = words[random.nextInt(words.length)];
+                nodes.add(node("t" + t, "t" + t + "-n" + n, content, criteria));
+            }
+            index.indexTree("t" + t, nodes);
+            all.addAll(nodes);
+        }
+
+        for (String first : words) {
+            for (String second : words) {
+                List<String> expected = all.stream()
+                        .filter(node -> containsWord(node, first) && containsWord(node, second))
+                        .map(TotNode::getNodeId)
+                        .toList();
+                List<String> actual = index.search(first + " " + second, 0, all.size()).getHits().stream()
+                        .map(NodeSearchIndex.SearchHit::getNodeId)
+                        .toList();
+                assertThat(actual).as(first + " " + second).containsExactlyInAnyOrderElementsOf(expected);
+            }
+        }
+    }
+
+    private static boolean containsWord(TotNode node, String word) {
+        return NodeSearchIndex.tokenize(node.getContent()).contains(word)
+                || NodeSearchIndex.tokenize(node.getCriteria()).contains(word);
+    }
+
+    @Test
+    void disabledIndexRefusesSearches() throws Exception {
+        setEnabled(index, false);
+
+        index.indexTree("t1", List.of(node("t1", "a", "Ignored", null)));
+
+        assertThat(index.size()).isZero();
+        assertThatThrownBy(() -> index.search("ignored", 0, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Node search index is disabled");
+    }
+}
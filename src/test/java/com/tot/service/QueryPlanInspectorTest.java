@@ -0,0 +1,68 @@
+package com.tot.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueryPlanInspectorTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private QueryPlanInspector inspector;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        inspector = new QueryPlanInspector(jdbcTemplate);
+        Field field = QueryPlanInspector.class.getDeclaredField("minTableRows");
+        field.setAccessible(true);
+        field.setLong(inspector, 1000);
+    }
+
+    private void database(String product) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(product);
+    }
+
+    @Test
+    void eachTableIsCountedOncePerInspection() {
+        database("H2");
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM "), eq(Long.class))).thenReturn(5000L);
+        when(jdbcTemplate.queryForList(startsWith("EXPLAIN "), any(Object[].class))).thenReturn(List.of(
+                Map.of("PLAN", "SELECT \"ID\" FROM \"PUBLIC\".\"SCHEDULE\" /* PUBLIC.SCHEDULE.tableScan */")));
+
+        List<QueryPlanInspector.PlanResult> results = inspector.inspect();
+
+        long tables = results.stream().map(QueryPlanInspector.PlanResult::getTable).distinct().count();
+        verify(jdbcTemplate, times((int) tables)).queryForObject(startsWith("SELECT COUNT(*) FROM "), eq(Long.class));
+        assertThat(results).hasSizeGreaterThan((int) tables).allMatch(result -> result.getTableRows() == 5000);
+    }
+
+    @Test
+    void mariaDbRowCountsComeFromTableStatistics() {
+        database("MariaDB");
+        when(jdbcTemplate.queryForList(startsWith("SELECT TABLE_ROWS"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(250_000L));
+        when(jdbcTemplate.queryForList(startsWith("EXPLAIN "), any(Object[].class)))
+                .thenReturn(List.of(Map.of("table", "tot_logs", "type", "ref", "key", "idx_tot_logs_tree_time")));
+
+        List<QueryPlanInspector.PlanResult> results = inspector.inspect();
+
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class));
+        assertThat(results).allMatch(result -> result.getTableRows() == 250_000 && !result.isSkipped());
+    }
+}
@@ -0,0 +1,123 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.repository.ReactiveTotLogRepository;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the writer against an in-memory H2 database over R2DBC
+ */
+class R2dbcLogWriterTest {
+
+    private DatabaseClient databaseClient;
+    private ReactiveTotLogRepository repository;
+    private TransactionalOperator transactionalOperator;
+    private LogBatchPersister logBatchPersister;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(
+                "r2dbc:h2:mem:///r2dbc-" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1;MODE=MariaDB");
+        databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("CREATE TABLE tot_logs (id VARCHAR(36) PRIMARY KEY, tree_id VARCHAR(255), " +
+                "validation_result VARCHAR(255), validation_criteria TEXT, tree_json TEXT, tree_version_hash VARCHAR(64), " +
+                "latency_ms BIGINT, \"TIMESTAMP\" TIMESTAMP)").then().block();
+
+        repository = new R2dbcRepositoryFactory(new R2dbcEntityTemplate(connectionFactory))
+                .getRepository(ReactiveTotLogRepository.class);
+        transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        logBatchPersister = mock(LogBatchPersister.class);
+    }
+
+    private R2dbcLogWriter startWriter(int batchSize) throws Exception {
+        R2dbcLogWriter writer = new R2dbcLogWriter(repository, transactionalOperator, logBatchPersister,
+                Schedulers.boundedElastic());
+        set(writer, "queueCapacity", 100);
+        set(writer, "batchSize", batchSize);
+        set(writer, "flushIntervalMs", 50L);
+        writer.start();
+        return writer;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static TotLog log(String treeId) {
+        TotLog log = new TotLog();
+        log.setTreeId(treeId);
+        log.setValidationResult("true");
+        log.setValidationCriteria("SPY above its 50 day moving average");
+        log.setLatencyMs(12L);
+        log.setTimestamp(LocalDateTime.of(2024, 3, 1, 9, 0));
+        return log;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TotLog> applied() {
+        ArgumentCaptor<List<TotLog>> batches = ArgumentCaptor.forClass(List.class);
+        verify(logBatchPersister, atLeastOnce()).applyCommitted(batches.capture());
+        return batches.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    @Test
+    void entriesAreInsertedInBatchesAndAppliedOnce() throws Exception {
+        R2dbcLogWriter writer = startWriter(5);
+
+        for (int i = 0; i < 12; i++) {
+            writer.append(log("tree-" + i));
+        }
+        writer.stop();
+
+        assertThat(repository.count().block()).isEqualTo(12);
+        assertThat(applied()).hasSize(12).extracting(TotLog::getTreeId).doesNotHaveDuplicates();
+        assertThat(repository.findAll().map(row -> row.toTotLog().getValidationCriteria()).collectList().block())
+                .containsOnly("SPY above its 50 day moving average");
+        verify(logBatchPersister, never()).persist(any());
+    }
+
+    @Test
+    void failedBatchIsRolledBackAndWrittenThroughJpa() throws Exception {
+        TotLog existing = log("tree-existing");
+        existing.setId("duplicate");
+        databaseClient.sql("INSERT INTO tot_logs (id, tree_id) VALUES ('duplicate', 'tree-existing')").then().block();
+        R2dbcLogWriter writer = startWriter(10);
+
+        writer.append(log("tree-a"));
+        writer.append(existing);
+        writer.stop();
+
+        assertThat(repository.count().block()).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TotLog>> fallback = ArgumentCaptor.forClass(List.class);
+        verify(logBatchPersister).persist(fallback.capture());
+        assertThat(fallback.getValue()).extracting(TotLog::getTreeId).containsExactly("tree-a", "tree-existing");
+        assertThat(fallback.getValue()).extracting(TotLog::getId).containsOnlyNulls();
+        verify(logBatchPersister, never()).applyCommitted(any());
+        assertThat(writer.getStats()).containsEntry("fallbackBatches", 1L);
+    }
+}
@@ -0,0 +1,91 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.repository.TotLogRepository;
+import com.tot.repository.TotLogSummary;
+import com.tot.repository.TreeCatalogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecentEvaluationCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private TotLogRepository totLogRepository;
+    private RecentEvaluationCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        totLogRepository = mock(TotLogRepository.class);
+        when(totLogRepository.findRecentSummaries(anyString(), any())).thenAnswer(invocation -> {
+            String treeId = invocation.getArgument(0);
+            return List.of(new TotLogSummary(treeId + "-2", treeId, "true", null, NOW.plusMinutes(2)),
+                    new TotLogSummary(treeId + "-1", treeId, "false", null, NOW.plusMinutes(1)));
+        });
+        cache = newCache(3, 10);
+    }
+
+    private RecentEvaluationCache newCache(int perTree, int maxTrees) throws Exception {
+        RecentEvaluationCache created = new RecentEvaluationCache(totLogRepository, mock(TreeCatalogRepository.class));
+        set(created, "perTree", perTree);
+        set(created, "maxTrees", maxTrees);
+        created.validate();
+        return created;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static TotLog log(String id, String treeId, int minute) {
+        TotLog log = new TotLog();
+        log.setId(id);
+        log.setTreeId(treeId);
+        log.setValidationResult("true");
+        log.setTimestamp(NOW.plusMinutes(minute));
+        return log;
+    }
+
+    @Test
+    void ringsKeepTheNewestEntriesOfCachedTrees() {
+        assertThat(cache.getRecent("t1")).extracting(TotLogSummary::id).containsExactly("t1-2", "t1-1");
+
+        cache.record(List.of(log("t1-3", "t1", 3), log("t1-2", "t1", 2), log("t1-4", "t1", 4), log("t2-9", "t2", 9)));
+
+        assertThat(cache.getRecent("t1")).extracting(TotLogSummary::id).containsExactly("t1-4", "t1-3", "t1-2");
+        assertThat(cache.getLast("t1")).map(TotLogSummary::id).contains("t1-4");
+        assertThat(cache.getStats().getTrees()).isEqualTo(1);
+    }
+
+    @Test
+    void evictionsCountTheRingsActuallyRemoved() {
+        for (int i = 0; i < 11; i++) {
+            cache.getRecent("t" + i);
+        }
+
+        RecentEvaluationCache.CacheStats stats = cache.getStats();
+        assertThat(stats.getTrees()).isEqualTo(10);
+        assertThat(stats.getEvictions()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(11);
+    }
+
+    @Test
+    void emptyRingsAreRejectedAtStartup() {
+        assertThatThrownBy(() -> newCache(0, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("tot.logs.recent.per-tree");
+    }
+}
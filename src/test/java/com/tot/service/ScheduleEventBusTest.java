@@ -0,0 +1,94 @@
+package com.tot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ScheduleEventBusTest {
+
+    private ScheduleEventBus bus;
+    private final List<ScheduleEventBus.ScheduleEvent> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        bus = new ScheduleEventBus();
+        Field field = ScheduleEventBus.class.getDeclaredField("bufferSize");
+        field.setAccessible(true);
+        field.setInt(bus, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void treeSubscribersOnlyReceiveTheirTreeAndDeletions() {
+        Disposable subscription = bus.subscribe("t1").subscribe(received::add);
+
+        bus.publishCreated("s1", "t1", "PENDING");
+        bus.publishCreated("s2", "t2", "PENDING");
+        bus.publishDeleted("s2");
+        subscription.dispose();
+
+        assertThat(received).extracting(ScheduleEventBus.ScheduleEvent::getType, ScheduleEventBus.ScheduleEvent::getScheduleId)
+                .containsExactly(
+                        tuple(ScheduleEventBus.CREATED, "s1"),
+                        tuple(ScheduleEventBus.DELETED, "s2"));
+        assertThat(received).extracting(ScheduleEventBus.ScheduleEvent::getSequence).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void eventsPublishedInATransactionAreDeliveredAfterCommit() {
+        Disposable subscription = bus.subscribe(null).subscribe(received::add);
+        TransactionSynchronizationManager.initSynchronization();
+
+        bus.publishStatus("s1", "t1", "COMPLETED");
+        assertThat(received).isEmpty();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        subscription.dispose();
+
+        assertThat(received).extracting(ScheduleEventBus.ScheduleEvent::getStatus).containsExactly("COMPLETED");
+    }
+
+    @Test
+    void slowSubscriberLosesItsOldestEventsWithoutBlockingPublishers() {
+        BaseSubscriber<ScheduleEventBus.ScheduleEvent> slow = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // Requests nothing until the events have been published
+            }
+
+            @Override
+            protected void hookOnNext(ScheduleEventBus.ScheduleEvent event) {
+                received.add(event);
+            }
+        };
+        bus.subscribe(null).subscribe(slow);
+
+        for (int i = 1; i <= 5; i++) {
+            bus.publishEvaluation("s" + i, "t1", "true");
+        }
+        slow.request(10);
+
+        assertThat(received).extracting(ScheduleEventBus.ScheduleEvent::getScheduleId).containsExactly("s4", "s5");
+        assertThat(bus.getStats()).containsEntry("dropped", 3L).containsEntry("subscribers", 1);
+
+        slow.dispose();
+        assertThat(bus.getStats()).containsEntry("subscribers", 0);
+    }
+}
@@ -0,0 +1,161 @@
+package com.tot.service;
+
+import com.tot.entity.Action;
+import com.tot.repository.ActionRepository;
+import com.tot.repository.ScheduleFilter;
+import com.tot.repository.ScheduleRepository;
+import com.tot.repository.ScheduleSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScheduleServiceTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2030, 3, 1, 9, 0);
+    private static final ScheduleFilter PENDING = new ScheduleFilter("PENDING", null, null, null);
+
+    private ScheduleRepository scheduleRepository;
+    private ActionRepository actionRepository;
+    private JdbcTemplate jdbcTemplate;
+    private ScheduleService scheduleService;
+    private final List<Object[]> insertedRows = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        scheduleRepository = mock(ScheduleRepository.class);
+        actionRepository = mock(ActionRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        scheduleService = new ScheduleService(mock(ActionService.class), scheduleRepository, actionRepository,
+                mock(ObjectProvider.class), mock(ScheduleEventBus.class), jdbcTemplate);
+        set(scheduleService, "countCap", 10L);
+        set(scheduleService, "maxRows", 100L);
+        set(scheduleService, "batchSize", 4);
+
+        when(actionRepository.findFirstByTemplateHash(anyString())).thenReturn(Optional.empty());
+        when(actionRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            Action action = invocation.getArgument(0);
+            action.setId("action-" + action.getActionData().replaceAll("\\D", ""));
+            return action;
+        });
+        // The service reuses its batch list, so copy the rows when they are inserted
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class))).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            insertedRows.addAll(batch);
+            return new int[batch.size()];
+        });
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static ScheduleSummary summary(String id, int minute) {
+        return new ScheduleSummary(id, TIME.plusMinutes(minute), "tree-1", "PENDING", 1, "a1", "TOT_EVALUATION");
+    }
+
+    @Test
+    void nextPageStartsAfterTheLastScheduleOfThePage() {
+        when(scheduleRepository.findSummaryPage(eq(PENDING), isNull(), isNull(), eq(false), eq(3)))
+                .thenReturn(List.of(summary("s1", 1), summary("s2", 2), summary("s3", 3)));
+        when(scheduleRepository.findSummaryPage(PENDING, TIME.plusMinutes(2), "s2", false, 3))
+                .thenReturn(List.of(summary("s3", 3)));
+
+        ScheduleService.SchedulePage first = scheduleService.getSchedulePage(PENDING, null, 2, false, false);
+        ScheduleService.SchedulePage second = scheduleService.getSchedulePage(PENDING, first.getNextCursor(), 2, false, false);
+
+        assertThat(first.getSchedules()).extracting(ScheduleSummary::id).containsExactly("s1", "s2");
+        assertThat(first.getTotal()).isNull();
+        assertThat(second.getSchedules()).extracting(ScheduleSummary::id).containsExactly("s3");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void countStopsAtTheCap() {
+        when(scheduleRepository.findSummaryPage(any(), any(), any(), anyBoolean(), anyInt())).thenReturn(List.of());
+        when(scheduleRepository.countUpTo(eq(PENDING), anyLong())).thenReturn(11L);
+
+        ScheduleService.SchedulePage page = scheduleService.getSchedulePage(PENDING, null, 20, true, true);
+
+        verify(scheduleRepository).countUpTo(PENDING, 10L);
+        assertThat(page.getTotal()).isEqualTo(10L);
+        assertThat(page.getTotalExact()).isFalse();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> scheduleService.getSchedulePage(PENDING, "not-a-cursor", 20, false, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid schedule cursor");
+    }
+
+    @Test
+    void generatedSchedulesAreInsertedInBatchesWithOneSharedAction() {
+        ScheduleService.BulkScheduleRequest request = new ScheduleService.BulkScheduleRequest(
+                null, List.of("tree-1", "tree-2", "tree-1"), TIME, TIME.plusMinutes(20), 5, 7);
+
+        ScheduleService.BulkScheduleResult result = scheduleService.createSchedules(request);
+
+        assertThat(result.getCreated()).isEqualTo(10);
+        assertThat(result.getActionsUsed()).isEqualTo(1);
+        assertThat(result.getActionsCreated()).isEqualTo(1);
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), any(List.class));
+        assertThat(insertedRows).hasSize(10).allMatch(row -> "action-7".equals(row[5]) && Integer.valueOf(7).equals(row[4]));
+        assertThat(insertedRows).extracting(row -> row[2]).containsOnly("tree-1", "tree-2");
+    }
+
+    @Test
+    void listedSchedulesShareOneActionPerComparisonPeriod() {
+        ScheduleService.BulkScheduleRequest request = new ScheduleService.BulkScheduleRequest(List.of(
+                new ScheduleService.ScheduleSpec("tree-1", TIME, 7),
+                new ScheduleService.ScheduleSpec("tree-2", TIME, null),
+                new ScheduleService.ScheduleSpec("tree-3", TIME, 7)), null, null, null, null, null);
+
+        ScheduleService.BulkScheduleResult result = scheduleService.createSchedules(request);
+
+        assertThat(result.getCreated()).isEqualTo(3);
+        assertThat(result.getActionsUsed()).isEqualTo(2);
+        assertThat(insertedRows).extracting(row -> row[5]).containsExactly("action-7", "action-1", "action-7");
+    }
+
+    @Test
+    void oversizedOrInvalidRequestsCreateNothing() {
+        ScheduleService.BulkScheduleRequest tooMany = new ScheduleService.BulkScheduleRequest(
+                null, List.of("tree-1", "tree-2"), TIME, TIME.plusMinutes(50), 1, 1);
+        ScheduleService.BulkScheduleRequest inThePast = new ScheduleService.BulkScheduleRequest(List.of(
+                new ScheduleService.ScheduleSpec("tree-1", TIME, 1),
+                new ScheduleService.ScheduleSpec("tree-2", LocalDateTime.of(2000, 1, 1, 0, 0), 1)), null, null, null, null, null);
+
+        assertThatThrownBy(() -> scheduleService.createSchedules(tooMany))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at most 100");
+        assertThatThrownBy(() -> scheduleService.createSchedules(inThePast))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Target date time cannot be in the past");
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(List.class));
+    }
+}
@@ -0,0 +1,79 @@
+package com.tot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextCompressionCodecTest {
+
+    private static final String CRITERIA = "SPY closes above its 50 day moving average and volume is above the 20 day average. ";
+
+    @Test
+    void shortValuesAreStoredPlain() {
+        String value = "Buy when the trend is up";
+
+        assertThat(TextCompressionCodec.encode(value)).isEqualTo(value);
+        assertThat(TextCompressionCodec.decode(value)).isEqualTo(value);
+    }
+
+    @Test
+    void longValuesAreCompressedAndRoundTrip() {
+        String value = CRITERIA.repeat(20) + "ünïcode ✓";
+
+        String stored = TextCompressionCodec.encode(value);
+
+        assertThat(stored).startsWith(TextCompressionCodec.MARKER + TextCompressionCodec.CURRENT_VERSION + ":");
+        assertThat(stored.length()).isLessThan(value.length() / 4);
+        assertThat(TextCompressionCodec.decode(stored)).isEqualTo(value);
+    }
+
+    @Test
+    void valuesThatDoNotShrinkAreStoredPlain() {
+        // Random printable ASCII deflates too little to pay for the Base64 encoding
+        StringBuilder random = new StringBuilder();
+        Random generator = new Random(7);
+        while (random.length() < TextCompressionCodec.MIN_LENGTH * 2) {
+            random.append((char) ('!' + generator.nextInt(94)));
+        }
+        String value = random.toString();
+
+        assertThat(TextCompressionCodec.encode(value)).isEqualTo(value);
+    }
+
+    @Test
+    void plainValuesStartingWithTheMarkerAreEscaped() {
+        String shortValue = "~z1:not compressed";
+        String longValue = "~zebra " + CRITERIA.repeat(10);
+
+        for (String value : new String[] {shortValue, longValue, TextCompressionCodec.MARKER}) {
+            String stored = TextCompressionCodec.encode(value);
+            assertThat(TextCompressionCodec.decode(stored)).isEqualTo(value);
+        }
+        assertThat(TextCompressionCodec.encode(shortValue)).isEqualTo("~z0:" + shortValue);
+    }
+
+    @Test
+    void legacyValuesWithoutTheMarkerAreReturnedUnchanged() {
+        String legacy = "{\"rootNodeId\":\"root\",\"nodes\":[]}" + CRITERIA.repeat(10);
+
+        assertThat(TextCompressionCodec.decode(legacy)).isEqualTo(legacy);
+        assertThat(TextCompressionCodec.decode("~zebra crossing")).isEqualTo("~zebra crossing");
+        assertThat(TextCompressionCodec.decode("~zx:not a version")).isEqualTo("~zx:not a version");
+    }
+
+    @Test
+    void unknownFormatVersionsAreRejected() {
+        assertThatThrownBy(() -> TextCompressionCodec.decode("~z99:AAAABQ=="))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unknown compressed text format version: 99");
+    }
+
+    @Test
+    void nullStaysNull() {
+        assertThat(TextCompressionCodec.encode(null)).isNull();
+        assertThat(TextCompressionCodec.decode(null)).isNull();
+    }
+}
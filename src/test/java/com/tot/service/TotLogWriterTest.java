@@ -0,0 +1,81 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class TotLogWriterTest {
+
+    private LogBatchPersister logBatchPersister;
+    private final List<List<TotLog>> batches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        logBatchPersister = mock(LogBatchPersister.class);
+        doAnswer(invocation -> batches.add(List.copyOf(invocation.getArgument(0))))
+                .when(logBatchPersister).persist(any());
+    }
+
+    private TotLogWriter startWriter(int batchSize) throws Exception {
+        TotLogWriter writer = new TotLogWriter(logBatchPersister);
+        set(writer, "queueCapacity", 100);
+        set(writer, "batchSize", batchSize);
+        set(writer, "flushIntervalMs", 50L);
+        set(writer, "offerTimeoutMs", 10L);
+        writer.start();
+        return writer;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static TotLog log(String treeId) {
+        TotLog log = new TotLog();
+        log.setTreeId(treeId);
+        log.setValidationResult("true");
+        return log;
+    }
+
+    private List<TotLog> written() {
+        return batches.stream().flatMap(List::stream).toList();
+    }
+
+    @Test
+    void entriesAreWrittenInBatchesAndFlushedOnStop() throws Exception {
+        TotLogWriter writer = startWriter(5);
+
+        for (int i = 0; i < 12; i++) {
+            writer.append(log("tree-" + i));
+        }
+        writer.stop();
+
+        assertThat(batches).allMatch(batch -> batch.size() <= 5);
+        assertThat(written()).hasSize(12).extracting(TotLog::getTreeId).doesNotHaveDuplicates();
+        assertThat(written()).allMatch(entry -> entry.getTimestamp() != null);
+        assertThat(writer.getStats()).containsEntry("appended", 12L).containsEntry("writtenByCallers", 0L);
+    }
+
+    @Test
+    void entriesAppendedAfterStopAreWrittenByTheCaller() throws Exception {
+        TotLogWriter writer = startWriter(5);
+        writer.stop();
+
+        writer.append(log("late"));
+
+        assertThat(batches).containsExactly(List.of(written().get(0)));
+        assertThat(written()).extracting(TotLog::getTreeId).containsExactly("late");
+        assertThat(writer.getStats()).containsEntry("writtenByCallers", 1L);
+    }
+}
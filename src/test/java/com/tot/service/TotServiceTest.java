@@ -0,0 +1,112 @@
+package com.tot.service;
+
+import com.tot.entity.TotNode;
+import com.tot.entity.TreeCatalog;
+import com.tot.repository.TotNodeRepository;
+import com.tot.repository.TreeBlobRepository;
+import com.tot.repository.TreeCatalogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TotServiceTest {
+
+    @Mock
+    private TotNodeRepository totNodeRepository;
+
+    @Mock
+    private TreeBlobRepository treeBlobRepository;
+
+    @Mock
+    private TreeCatalogRepository treeCatalogRepository;
+
+    @Mock
+    private NodeSearchIndex nodeSearchIndex;
+
+    @Mock
+    private TreeResponseCache treeResponseCache;
+
+    private TotService totService;
+
+    @BeforeEach
+    void setUp() {
+        totService = new TotService(totNodeRepository, treeBlobRepository, treeCatalogRepository, nodeSearchIndex,
+                treeResponseCache);
+    }
+
+    private static TotNode node(String nodeId, Map<String, String> children) {
+        TotNode node = new TotNode();
+        node.setNodeId(nodeId);
+        node.setTreeId("legacy");
+        node.setChildren(children);
+        return node;
+    }
+
+    @Test
+    void unknownTreeIsNotFoundAndNothingIsWritten() {
+        when(treeCatalogRepository.findById("typo")).thenReturn(Optional.empty());
+        when(totNodeRepository.findByTreeId("typo")).thenReturn(List.of());
+
+        assertThatThrownBy(() -> totService.isStructurallyValid("typo"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Tree not found: typo");
+
+        verify(treeCatalogRepository, never()).save(any());
+        verifyNoInteractions(treeBlobRepository, nodeSearchIndex, treeResponseCache);
+    }
+
+    @Test
+    void treeWithoutCatalogRowIsAnalyzedWithoutWriting() {
+        when(treeCatalogRepository.findById("legacy")).thenReturn(Optional.empty());
+        when(totNodeRepository.findByTreeId("legacy")).thenReturn(List.of(
+                node("root", Map.of("yes", "leaf")),
+                node("leaf", Map.of())));
+
+        assertThat(totService.isStructurallyValid("legacy")).isTrue();
+
+        verify(treeCatalogRepository, never()).save(any());
+        verifyNoInteractions(treeBlobRepository, nodeSearchIndex, treeResponseCache);
+    }
+
+    @Test
+    void storedValidityIsUsedWhenPresent() {
+        TreeCatalog catalog = new TreeCatalog();
+        catalog.setTreeId("stored");
+        catalog.setStructureValid(false);
+        when(treeCatalogRepository.findById("stored")).thenReturn(Optional.of(catalog));
+
+        assertThat(totService.isStructurallyValid("stored")).isFalse();
+
+        verifyNoInteractions(totNodeRepository);
+    }
+
+    @Test
+    void unknownTreesAreLeftOutOfBulkValidity() {
+        TreeCatalog catalog = new TreeCatalog();
+        catalog.setTreeId("stored");
+        catalog.setStructureValid(true);
+        when(treeCatalogRepository.findAllById(List.of("stored", "typo"))).thenReturn(List.of(catalog));
+        when(treeCatalogRepository.findById("typo")).thenReturn(Optional.empty());
+        when(totNodeRepository.findByTreeId("typo")).thenReturn(List.of());
+
+        Map<String, Boolean> validity = totService.areStructurallyValid(List.of("stored", "typo"));
+
+        assertThat(validity).containsExactly(Map.entry("stored", true));
+        verify(treeCatalogRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,91 @@
+package com.tot.service;
+
+import com.tot.entity.TotNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TreeBinaryCodecTest {
+
+    private static TotNode node(String nodeId, String content, String criteria, Map<String, String> children) {
+        TotNode node = new TotNode();
+        node.setNodeId(nodeId);
+        node.setTreeId("tree-1");
+        node.setContent(content);
+        node.setCriteria(criteria);
+        node.setChildren(children);
+        return node;
+    }
+
+    private static Map<String, String> children(String... keysAndIds) {
+        Map<String, String> children = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndIds.length; i += 2) {
+            children.put(keysAndIds[i], keysAndIds[i + 1]);
+        }
+        return children;
+    }
+
+    @Test
+    void roundTripKeepsNodesChildrenAndOrder() {
+        List<TotNode> nodes = List.of(
+                node("root", "Is the market up?", "SPY closes above its 50 day average", children("yes", "buy", "no", "hold")),
+                node("buy", "Buy", null, children()),
+                node("hold", "Hold ✓ – ünïcode", "", null));
+
+        List<TotNode> decoded = TreeBinaryCodec.decode(TreeBinaryCodec.encode("tree-1", nodes));
+
+        assertThat(decoded).hasSize(3);
+        assertThat(decoded).extracting(TotNode::getNodeId).containsExactly("root", "buy", "hold");
+        assertThat(decoded).extracting(TotNode::getTreeId).containsOnly("tree-1");
+        assertThat(decoded.get(0).getContent()).isEqualTo("Is the market up?");
+        assertThat(decoded.get(0).getCriteria()).isEqualTo("SPY closes above its 50 day average");
+        assertThat(decoded.get(0).getChildren()).containsExactly(Map.entry("yes", "buy"), Map.entry("no", "hold"));
+        assertThat(decoded.get(1).getCriteria()).isNull();
+        assertThat(decoded.get(1).getChildren()).isEmpty();
+        assertThat(decoded.get(2).getContent()).isEqualTo("Hold ✓ – ünïcode");
+        assertThat(decoded.get(2).getCriteria()).isEmpty();
+        assertThat(decoded.get(2).getChildren()).isEmpty();
+    }
+
+    @Test
+    void viewResolvesChildIndexesAndMarksDanglingChildren() {
+        List<TotNode> nodes = List.of(
+                node("root", "Root", "c", children("yes", "leaf", "no", "missing")),
+                node("leaf", "Leaf", "c", null));
+
+        TreeBinaryCodec.TreeView view = TreeBinaryCodec.view(TreeBinaryCodec.encode("tree-1", nodes));
+
+        assertThat(view.treeId()).isEqualTo("tree-1");
+        assertThat(view.nodeCount()).isEqualTo(2);
+        assertThat(view.edgeCount()).isEqualTo(2);
+        assertThat(view.childCount(0)).isEqualTo(2);
+        assertThat(view.branchKey(0, 0)).isEqualTo("yes");
+        assertThat(view.childNodeIndex(0, 0)).isEqualTo(1);
+        assertThat(view.childNodeId(0, 1)).isEqualTo("missing");
+        assertThat(view.childNodeIndex(0, 1)).isEqualTo(-1);
+        assertThat(view.childCount(1)).isZero();
+    }
+
+    @Test
+    void repeatedStringsAreStoredOnce() {
+        String criteria = "A long shared criteria string that every node repeats ".repeat(10);
+        List<TotNode> once = List.of(node("a", "x", criteria, null));
+        List<TotNode> twice = List.of(node("a", "x", criteria, null), node("b", "x", criteria, null));
+
+        int growth = TreeBinaryCodec.encode("tree-1", twice).length - TreeBinaryCodec.encode("tree-1", once).length;
+
+        assertThat(growth).isLessThan(criteria.length());
+    }
+
+    @Test
+    void emptyTreeRoundTrips() {
+        byte[] payload = TreeBinaryCodec.encode("empty", List.of());
+
+        assertThat(TreeBinaryCodec.view(payload).treeId()).isEqualTo("empty");
+        assertThat(TreeBinaryCodec.decode(payload)).isEmpty();
+    }
+}
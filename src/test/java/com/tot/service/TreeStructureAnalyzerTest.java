@@ -0,0 +1,155 @@
+package com.tot.service;
+
+import com.tot.entity.TotNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TreeStructureAnalyzerTest {
+
+    private static TotNode node(String nodeId, String... keysAndChildIds) {
+        Map<String, String> children = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndChildIds.length; i += 2) {
+            children.put(keysAndChildIds[i], keysAndChildIds[i + 1]);
+        }
+        TotNode node = new TotNode();
+        node.setNodeId(nodeId);
+        node.setTreeId("tree-1");
+        node.setChildren(children);
+        return node;
+    }
+
+    @Test
+    void validTreeReportsRootDepthLeavesAndParents() {
+        List<TotNode> nodes = List.of(
+                node("root", "yes", "a", "no", "b"),
+                node("a", "yes", "c"),
+                node("b"),
+                node("c"));
+
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+
+        assertThat(analysis.isValid()).isTrue();
+        assertThat(analysis.getProblems()).isEmpty();
+        assertThat(analysis.getRootNodeId()).isEqualTo("root");
+        assertThat(analysis.getDepth()).isEqualTo(2);
+        assertThat(analysis.getLeafNodeIds()).containsExactly("b", "c");
+        assertThat(analysis.getNodeDepth(0)).isZero();
+        assertThat(analysis.getNodeDepth(3)).isEqualTo(2);
+        assertThat(analysis.getParentIndex(0)).isEqualTo(-1);
+        assertThat(analysis.getParentIndex(3)).isEqualTo(1);
+    }
+
+    @Test
+    void cycleBelowTheRootIsReported() {
+        List<TotNode> nodes = List.of(
+                node("root", "yes", "a"),
+                node("a", "yes", "b"),
+                node("b", "back", "a"));
+
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+
+        assertThat(analysis.isValid()).isFalse();
+        assertThat(analysis.getCycles()).containsExactly("b -> a");
+        assertThat(analysis.getProblems()).anyMatch(problem -> problem.startsWith("Cycles"));
+    }
+
+    @Test
+    void pureCycleHasNoRootAndIsUnreachable() {
+        List<TotNode> nodes = List.of(
+                node("a", "next", "b"),
+                node("b", "next", "a"));
+
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+
+        assertThat(analysis.isValid()).isFalse();
+        assertThat(analysis.getRootNodeIds()).isEmpty();
+        assertThat(analysis.getRootNodeId()).isNull();
+        assertThat(analysis.getCycles()).hasSize(1);
+        assertThat(analysis.getUnreachableNodeIds()).containsExactlyInAnyOrder("a", "b");
+        assertThat(analysis.getNodeDepth(0)).isEqualTo(-1);
+        assertThat(analysis.getProblems()).contains("No root node found");
+    }
+
+    @Test
+    void danglingChildIsReported() {
+        List<TotNode> nodes = List.of(
+                node("root", "yes", "a", "no", "missing"),
+                node("a"));
+
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+
+        assertThat(analysis.isValid()).isFalse();
+        assertThat(analysis.getDanglingEdges()).containsExactly("root -[no]-> missing");
+        assertThat(analysis.getRootNodeId()).isEqualTo("root");
+    }
+
+    @Test
+    void multipleRootsAreReported() {
+        List<TotNode> nodes = List.of(
+                node("first", "yes", "leaf"),
+                node("second"),
+                node("leaf"));
+
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+
+        assertThat(analysis.isValid()).isFalse();
+        assertThat(analysis.getRootNodeIds()).containsExactly("first", "second");
+        assertThat(analysis.getRootNodeId()).isNull();
+        assertThat(analysis.getProblems()).contains("Multiple root nodes: [first, second]");
+    }
+
+    @Test
+    void duplicateNodeIdsAreReported() {
+        List<TotNode> nodes = List.of(
+                node("root", "yes", "a"),
+                node("a"),
+                node("a"));
+
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+
+        assertThat(analysis.isValid()).isFalse();
+        assertThat(analysis.getDuplicateNodeIds()).containsExactly("a");
+    }
+
+    @Test
+    void sharedChildIsAllowedAndReported() {
+        List<TotNode> nodes = List.of(
+                node("root", "yes", "a", "no", "b"),
+                node("a", "yes", "shared"),
+                node("b", "yes", "shared"),
+                node("shared"));
+
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+
+        assertThat(analysis.isValid()).isTrue();
+        assertThat(analysis.getSharedNodeIds()).containsExactly("shared");
+    }
+
+    @Test
+    void emptyTreeIsInvalid() {
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(List.of());
+
+        assertThat(analysis.isValid()).isFalse();
+        assertThat(analysis.getProblems()).containsExactly("Tree has no nodes");
+    }
+
+    @Test
+    void deepChainDoesNotOverflowTheStack() {
+        int depth = 200_000;
+        List<TotNode> nodes = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            nodes.add(i + 1 < depth ? node("n" + i, "next", "n" + (i + 1)) : node("n" + i));
+        }
+
+        TreeAnalysis analysis = TreeStructureAnalyzer.analyze(nodes);
+
+        assertThat(analysis.isValid()).isTrue();
+        assertThat(analysis.getDepth()).isEqualTo(depth - 1);
+    }
+}
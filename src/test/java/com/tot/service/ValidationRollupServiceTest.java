@@ -0,0 +1,131 @@
+package com.tot.service;
+
+import com.tot.entity.TotLog;
+import com.tot.entity.ValidationRollup;
+import com.tot.repository.TotLogOutcome;
+import com.tot.repository.TotLogRepository;
+import com.tot.repository.ValidationRollupRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ValidationRollupServiceTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    private ValidationRollupRepository rollupRepository;
+    private TotLogRepository totLogRepository;
+    private LogArchive logArchive;
+    private final List<ValidationRollup> persisted = new ArrayList<>();
+    private ValidationRollupService rollupService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rollupRepository = mock(ValidationRollupRepository.class);
+        totLogRepository = mock(TotLogRepository.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        doAnswer(invocation -> persisted.add(invocation.getArgument(0))).when(entityManager).persist(any());
+
+        logArchive = new LogArchive();
+        set(logArchive, "archiveDir", directory.toString());
+        set(logArchive, "blockSize", 2);
+        logArchive.open();
+
+        rollupService = new ValidationRollupService(rollupRepository, totLogRepository, logArchive, entityManager,
+                mock(PlatformTransactionManager.class));
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static TotLog log(String id, String result, String criteria, Long latencyMs, LocalDateTime timestamp) {
+        return new TotLog(id, "tree-1", result, criteria, null, null, latencyMs, timestamp);
+    }
+
+    private static TotLogOutcome outcome(TotLog log) {
+        return new TotLogOutcome(log.getId(), log.getTreeId(), log.getValidationResult(), log.getValidationCriteria(),
+                log.getLatencyMs(), log.getTimestamp());
+    }
+
+    private Map<String, ValidationRollup> persistedById() {
+        return persisted.stream().collect(Collectors.toMap(ValidationRollup::getId, Function.identity()));
+    }
+
+    @Test
+    void batchesAreAddedToTheirHourlyAndDailyBuckets() {
+        ValidationRollup existingDay = new ValidationRollup(ValidationRollup.idOf("DAY", DAY, "tree-1"), "tree-1", "DAY", DAY,
+                4L, 1L, 0L, 500L, 5L);
+        when(rollupRepository.findAllById(any())).thenReturn(List.of(existingDay));
+
+        rollupService.applyBatch(List.of(
+                log("a", "true", "criteria", 100L, DAY.plusHours(9).plusMinutes(5)),
+                log("b", "false", "criteria", null, DAY.plusHours(9).plusMinutes(30)),
+                log("c", "false", "Error calling the LLM", 300L, DAY.plusHours(10))));
+
+        assertThat(existingDay).extracting(ValidationRollup::getTrueCount, ValidationRollup::getFalseCount,
+                ValidationRollup::getErrorCount, ValidationRollup::getLatencySumMs, ValidationRollup::getLatencyCount)
+                .containsExactly(5L, 2L, 1L, 900L, 7L);
+        Map<String, ValidationRollup> hours = persistedById();
+        assertThat(hours).containsOnlyKeys(ValidationRollup.idOf("HOUR", DAY.plusHours(9), "tree-1"),
+                ValidationRollup.idOf("HOUR", DAY.plusHours(10), "tree-1"));
+        assertThat(hours.get(ValidationRollup.idOf("HOUR", DAY.plusHours(9), "tree-1")))
+                .extracting(ValidationRollup::getTrueCount, ValidationRollup::getFalseCount, ValidationRollup::getLatencyCount)
+                .containsExactly(1L, 1L, 1L);
+    }
+
+    @Test
+    void rebuildCountsArchivedLogsOnce() throws Exception {
+        TotLog archived = log("a", "true", "criteria", 100L, DAY.plusHours(1));
+        TotLog archivedButNotDeleted = log("b", "false", "criteria", 200L, DAY.plusHours(2));
+        TotLog hot = log("c", "true", "criteria", 300L, DAY.plusHours(3));
+        logArchive.append(List.of(archived, archivedButNotDeleted));
+        when(totLogRepository.streamOutcomes()).thenAnswer(invocation ->
+                List.of(outcome(archivedButNotDeleted), outcome(hot)).stream());
+
+        int buckets = rollupService.rebuild();
+
+        verify(rollupRepository).deleteAllInBatch();
+        assertThat(buckets).isEqualTo(4);
+        ValidationRollup day = persistedById().get(ValidationRollup.idOf("DAY", DAY, "tree-1"));
+        assertThat(day).extracting(ValidationRollup::getTrueCount, ValidationRollup::getFalseCount,
+                ValidationRollup::getLatencySumMs).containsExactly(2L, 1L, 600L);
+    }
+
+    @Test
+    void totalsReadDailyBucketsOnlyForDayAlignedRanges() {
+        rollupService.getTotals("tree-1", DAY, DAY.plusDays(7));
+        rollupService.getTotals(null, DAY.plusHours(9).plusMinutes(30), DAY.plusHours(12));
+        rollupService.getTotals(null, null, LocalDateTime.of(2100, 1, 1, 0, 0));
+
+        verify(rollupRepository).sumBuckets("DAY", "tree-1", DAY, DAY.plusDays(7));
+        verify(rollupRepository).sumBuckets("HOUR", null, DAY.plusHours(9), DAY.plusHours(12));
+        verify(rollupRepository).sumBuckets(eq("DAY"), isNull(), eq(LocalDateTime.of(1970, 1, 2, 0, 0)),
+                eq(LocalDateTime.of(2038, 1, 18, 0, 0)));
+    }
+}